@@ -22,9 +22,14 @@ import org.jboss.aesh.console.command.converter.ConverterInvocation;
 /**
  * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
  */
-public class BooleanConverter implements Converter<Boolean, ConverterInvocation> {
+public class BooleanConverter implements Converter<Boolean, ConverterInvocation>, BooleanValueConverter {
     @Override
     public Boolean convert(ConverterInvocation input) {
         return Boolean.parseBoolean(input.getInput());
     }
+
+    @Override
+    public boolean convertToBoolean(String input) {
+        return Boolean.parseBoolean(input);
+    }
 }
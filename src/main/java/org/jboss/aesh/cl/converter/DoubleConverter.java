@@ -22,9 +22,14 @@ import org.jboss.aesh.console.command.converter.ConverterInvocation;
 /**
  * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
  */
-public class DoubleConverter implements Converter<Double, ConverterInvocation> {
+public class DoubleConverter implements Converter<Double, ConverterInvocation>, DoubleValueConverter {
     @Override
     public Double convert(ConverterInvocation input) {
         return Double.parseDouble(input.getInput());
     }
+
+    @Override
+    public double convertToDouble(String input) {
+        return Double.parseDouble(input);
+    }
 }
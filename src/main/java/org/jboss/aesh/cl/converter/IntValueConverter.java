@@ -0,0 +1,34 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.cl.converter;
+
+import org.jboss.aesh.cl.validator.OptionValidatorException;
+
+/**
+ * A converter that can convert the input to an int without boxing it.
+ * Used instead of {@link Converter#convert} when the value is injected into
+ * an int field or an int[] field and the option do not have a validator.
+ * Note that no ConverterInvocation is created, the converter is only given the input,
+ * so it's only used with the default converter provider. A subclass that override
+ * convert must also override convertToInt for it to be used.
+ *
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+public interface IntValueConverter {
+    int convertToInt(String input) throws OptionValidatorException;
+}
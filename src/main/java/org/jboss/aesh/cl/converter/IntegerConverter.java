@@ -22,9 +22,14 @@ import org.jboss.aesh.console.command.converter.ConverterInvocation;
 /**
  * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
  */
-public class IntegerConverter implements Converter<Integer, ConverterInvocation> {
+public class IntegerConverter implements Converter<Integer, ConverterInvocation>, IntValueConverter {
     @Override
     public Integer convert(ConverterInvocation input) {
         return Integer.parseInt(input.getInput());
     }
+
+    @Override
+    public int convertToInt(String input) {
+        return Integer.parseInt(input);
+    }
 }
@@ -22,9 +22,14 @@ import org.jboss.aesh.console.command.converter.ConverterInvocation;
 /**
  * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
  */
-public class LongConverter implements Converter<Long, ConverterInvocation> {
+public class LongConverter implements Converter<Long, ConverterInvocation>, LongValueConverter {
     @Override
     public Long convert(ConverterInvocation input) {
         return Long.parseLong(input.getInput());
     }
+
+    @Override
+    public long convertToLong(String input) {
+        return Long.parseLong(input);
+    }
 }
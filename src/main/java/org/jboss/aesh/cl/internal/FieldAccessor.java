@@ -0,0 +1,166 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.cl.internal;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/**
+ * A setter for the field of an option, the field is looked up once
+ * and set through a MethodHandle.
+ *
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+final class FieldAccessor {
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final Class<?> owner;
+    private final Class<?> type;
+    private final MethodHandle setter;
+    //only set for primitive fields, take the value without boxing
+    private final MethodHandle primitiveSetter;
+
+    private FieldAccessor(Class<?> owner, Field field) throws IllegalAccessException {
+        this.owner = owner;
+        this.type = field.getType();
+        MethodHandle fieldSetter = MethodHandles.lookup().unreflectSetter(field);
+        setter = fieldSetter.asType(SETTER_TYPE);
+        if(type.isPrimitive())
+            primitiveSetter = fieldSetter.asType(MethodType.methodType(void.class, Object.class, type));
+        else
+            primitiveSetter = null;
+    }
+
+    static FieldAccessor create(Class<?> owner, String fieldName) throws NoSuchFieldException, IllegalAccessException {
+        Field field = owner.getDeclaredField(fieldName);
+        if(!Modifier.isPublic(field.getModifiers()))
+            field.setAccessible(true);
+        if(!Modifier.isPublic(owner.getModifiers())) {
+            try {
+                Constructor constructor = owner.getDeclaredConstructor();
+                constructor.setAccessible(true);
+            }
+            catch (NoSuchMethodException e) {
+                //the command is created some other way
+            }
+        }
+        return new FieldAccessor(owner, field);
+    }
+
+    Class<?> getOwner() {
+        return owner;
+    }
+
+    Class<?> getType() {
+        return type;
+    }
+
+    void set(Object instance, Object value) {
+        try {
+            setter.invokeExact(instance, value);
+        }
+        catch (RuntimeException | Error e) {
+            throw e;
+        }
+        catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    void setInt(Object instance, int value) {
+        try {
+            primitiveSetter.invokeExact(instance, value);
+        }
+        catch (RuntimeException | Error e) {
+            throw e;
+        }
+        catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    void setLong(Object instance, long value) {
+        try {
+            primitiveSetter.invokeExact(instance, value);
+        }
+        catch (RuntimeException | Error e) {
+            throw e;
+        }
+        catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    void setDouble(Object instance, double value) {
+        try {
+            primitiveSetter.invokeExact(instance, value);
+        }
+        catch (RuntimeException | Error e) {
+            throw e;
+        }
+        catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    void setBoolean(Object instance, boolean value) {
+        try {
+            primitiveSetter.invokeExact(instance, value);
+        }
+        catch (RuntimeException | Error e) {
+            throw e;
+        }
+        catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    /**
+     * Set the field to the default value of its type,
+     * Boolean fields of options without a value is set to false.
+     */
+    void reset(Object instance, boolean hasValue) {
+        if(type.isPrimitive()) {
+            if(boolean.class == type)
+                set(instance, false);
+            else if(int.class == type)
+                set(instance, 0);
+            else if(short.class == type)
+                set(instance, (short) 0);
+            else if(char.class == type)
+                set(instance, '\u0000');
+            else if(byte.class == type)
+                set(instance, (byte) 0);
+            else if(long.class == type)
+                set(instance, 0L);
+            else if(float.class == type)
+                set(instance, 0.0f);
+            else if(double.class == type)
+                set(instance, 0.0d);
+        }
+        else if(!hasValue && type.equals(Boolean.class))
+            set(instance, Boolean.FALSE);
+        else
+            set(instance, null);
+    }
+}
@@ -26,7 +26,10 @@ import org.jboss.aesh.console.InvocationProviders;
 import org.jboss.aesh.terminal.TerminalString;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
@@ -41,6 +44,12 @@ public final class ProcessedCommand {
     private List<ProcessedOption> options;
     private ProcessedOption argument;
 
+    //indexes of the options, the long names are also kept sorted
+    //with the position of the option to support prefix lookups
+    private final Map<String, ProcessedOption> shortNameIndex = new HashMap<>();
+    private final Map<String, ProcessedOption> longNameIndex = new HashMap<>();
+    private final TreeMap<String, Integer> sortedLongNames = new TreeMap<>();
+
     public ProcessedCommand(String name, String description, CommandValidator validator, ResultHandler resultHandler,
                             ProcessedOption argument, List<ProcessedOption> options ) throws OptionParserException {
         setName(name);
@@ -52,12 +61,35 @@ public final class ProcessedCommand {
         setOptions(options);
     }
 
+    private ProcessedCommand(ProcessedCommand command) {
+        name = command.name;
+        description = command.description;
+        validator = command.validator;
+        resultHandler = command.resultHandler;
+        if(command.argument != null)
+            argument = command.argument.copy();
+        options = new ArrayList<>(command.options.size());
+        for(ProcessedOption option : command.options)
+            indexOption(option.copy());
+    }
+
+    /**
+     * Create a copy of this command where the options do not share any parsed
+     * values with the options of this command.
+     * Used to parse lines without modifying this command.
+     *
+     * @return copy
+     */
+    public ProcessedCommand copy() {
+        return new ProcessedCommand(this);
+    }
+
     public List<ProcessedOption> getOptions() {
         return options;
     }
 
     public void addOption(ProcessedOption opt) throws OptionParserException {
-        this.options.add(new ProcessedOption(verifyThatNamesAreUnique(opt.getShortName(), opt.getName()), opt.getName(),
+        indexOption(new ProcessedOption(verifyThatNamesAreUnique(opt.getShortName(), opt.getName()), opt.getName(),
                 opt.getDescription(), opt.getArgument(), opt.isRequired(), opt.getValueSeparator(),
                 opt.getDefaultValues(), opt.getType(), opt.getFieldName(), opt.getOptionType(), opt.getConverter(),
                 opt.getCompleter(), opt.getValidator(), opt.getActivator(), opt.getRenderer(), opt.doOverrideRequired()));
@@ -65,7 +97,7 @@ public final class ProcessedCommand {
 
     private void setOptions(List<ProcessedOption> options) throws OptionParserException {
         for(ProcessedOption opt : options) {
-            this.options.add(new ProcessedOption(verifyThatNamesAreUnique(opt.getShortName(), opt.getName()), opt.getName(),
+            indexOption(new ProcessedOption(verifyThatNamesAreUnique(opt.getShortName(), opt.getName()), opt.getName(),
                     opt.getDescription(), opt.getArgument(), opt.isRequired(), opt.getValueSeparator(),
                     opt.getDefaultValues(), opt.getType(), opt.getFieldName(), opt.getOptionType(),
                     opt.getConverter(), opt.getCompleter(), opt.getValidator(), opt.getActivator(), opt.getRenderer(),
@@ -73,6 +105,16 @@ public final class ProcessedCommand {
         }
     }
 
+    private void indexOption(ProcessedOption option) {
+        this.options.add(option);
+        if(option.getShortName() != null)
+            shortNameIndex.put(option.getShortName(), option);
+        if(option.getName() != null) {
+            longNameIndex.put(option.getName(), option);
+            sortedLongNames.put(option.getName(), options.size() - 1);
+        }
+    }
+
     public String getName() {
         return name;
     }
@@ -115,10 +157,10 @@ public final class ProcessedCommand {
     }
 
     private char verifyThatNamesAreUnique(char name, String longName) throws OptionParserException {
-        if(longName != null && longName.length() > 0 && findLongOption(longName) != null) {
+        if(longName != null && longName.length() > 0 && findLongOptionNoActivatorCheck(longName) != null) {
             throw new OptionParserException("Option --"+longName+" is already added to Param: "+this.toString());
         }
-        if(name != '\u0000' && findOption(String.valueOf(name)) != null) {
+        if(name != '\u0000' && findOptionNoActivatorCheck(String.valueOf(name)) != null) {
             throw new OptionParserException("Option -"+name+" is already added to Param: "+this.toString());
         }
 
@@ -139,58 +181,66 @@ public final class ProcessedCommand {
     }
 
     public ProcessedOption findOption(String name) {
-        for(ProcessedOption option : options)
-            if(option.getShortName() != null &&
-                    option.getShortName().equals(name) &&
-                    option.getActivator().isActivated(this))
-                return option;
+        ProcessedOption option = shortNameIndex.get(name);
+        if(option != null && option.getActivator().isActivated(this))
+            return option;
 
         return null;
     }
 
     public ProcessedOption findOptionNoActivatorCheck(String name) {
-        for(ProcessedOption option : options)
-            if(option.getShortName() != null &&
-                    option.getShortName().equals(name))
-                return option;
-
-        return null;
+        return shortNameIndex.get(name);
     }
 
     public ProcessedOption findLongOption(String name) {
-        for(ProcessedOption option : options)
-            if(option.getName() != null &&
-                    option.getName().equals(name) &&
-                    option.getActivator().isActivated(this))
-                return option;
+        ProcessedOption option = longNameIndex.get(name);
+        if(option != null && option.getActivator().isActivated(this))
+            return option;
 
         return null;
     }
 
     public ProcessedOption findLongOptionNoActivatorCheck(String name) {
-        for(ProcessedOption option : options)
-            if(option.getName() != null && option.getName().equals(name))
-                return option;
-
-        return null;
+        return longNameIndex.get(name);
     }
 
     public ProcessedOption startWithOption(String name) {
-        for(ProcessedOption option : options)
-            if(option.getShortName() != null && name.startsWith(option.getShortName()) &&
-                    option.getActivator().isActivated(this))
-                return option;
-
-        return null;
+        //short names are only one char
+        if(name.length() == 0)
+            return null;
+        return findOption(name.substring(0, 1));
     }
 
+    /**
+     * Find the first activated option (in the order they were added) where the
+     * long name is a prefix of the given name.
+     * The sorted long names are walked backwards from the given name, only
+     * jumping to names that share a prefix with it.
+     */
     public ProcessedOption startWithLongOption(String name) {
-        for(ProcessedOption option : options)
-            if(name.startsWith(option.getName()) &&
-                    option.getActivator().isActivated(this))
-                return option;
+        int found = -1;
+        String key = sortedLongNames.floorKey(name);
+        while(key != null) {
+            if(name.startsWith(key)) {
+                int position = sortedLongNames.get(key);
+                if((found < 0 || position < found) &&
+                        options.get(position).getActivator().isActivated(this))
+                    found = position;
+                key = sortedLongNames.lowerKey(key);
+            }
+            else
+                key = sortedLongNames.floorKey(name.substring(0, commonPrefixLength(key, name)));
+        }
 
-        return null;
+        return found < 0 ? null : options.get(found);
+    }
+
+    private static int commonPrefixLength(String a, String b) {
+        int length = Math.min(a.length(), b.length());
+        for(int i = 0; i < length; i++)
+            if(a.charAt(i) != b.charAt(i))
+                return i;
+        return length;
     }
 
    public void clear() {
@@ -275,11 +325,7 @@ public final class ProcessedCommand {
     }
 
     public boolean hasLongOption(String optionName) {
-        for(ProcessedOption o : getOptions()) {
-            if (o.getName().equals(optionName))
-                return true;
-        }
-        return false;
+        return longNameIndex.containsKey(optionName);
     }
 
 
@@ -287,11 +333,8 @@ public final class ProcessedCommand {
     //not start with another option name
     public boolean hasUniqueLongOption(String optionName) {
         if(hasLongOption(optionName)) {
-            for(ProcessedOption o : getOptions()) {
-                if(o.getName().startsWith(optionName) && !o.getName().equals(optionName))
-                    return false;
-            }
-            return true;
+            String next = sortedLongNames.higherKey(optionName);
+            return next == null || !next.startsWith(optionName);
         }
         return false;
     }
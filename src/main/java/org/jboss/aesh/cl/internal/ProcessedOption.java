@@ -19,20 +19,27 @@ package org.jboss.aesh.cl.internal;
 
 import org.jboss.aesh.cl.activation.OptionActivator;
 import org.jboss.aesh.cl.completer.OptionCompleter;
+import org.jboss.aesh.cl.converter.BooleanValueConverter;
 import org.jboss.aesh.cl.converter.Converter;
+import org.jboss.aesh.cl.converter.DoubleValueConverter;
+import org.jboss.aesh.cl.converter.IntValueConverter;
+import org.jboss.aesh.cl.converter.LongValueConverter;
 import org.jboss.aesh.cl.exception.OptionParserException;
 import org.jboss.aesh.cl.renderer.OptionRenderer;
+import org.jboss.aesh.cl.validator.NullValidator;
 import org.jboss.aesh.cl.validator.OptionValidator;
 import org.jboss.aesh.cl.validator.OptionValidatorException;
 import org.jboss.aesh.console.AeshContext;
 import org.jboss.aesh.console.InvocationProviders;
 import org.jboss.aesh.console.command.converter.AeshConverterInvocation;
+import org.jboss.aesh.console.command.converter.AeshConverterInvocationProvider;
+import org.jboss.aesh.console.command.converter.ConverterInvocation;
 import org.jboss.aesh.console.command.validator.AeshValidatorInvocation;
 import org.jboss.aesh.terminal.TerminalString;
 import org.jboss.aesh.util.ANSI;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -56,6 +63,7 @@ public final class ProcessedOption {
     private List<String> defaultValues;
     private Class<?> type;
     private Converter converter;
+    private boolean primitiveConverter;
     private OptionType optionType;
     private boolean required = false;
     private char valueSeparator;
@@ -68,6 +76,7 @@ public final class ProcessedOption {
     private OptionActivator activator;
     private OptionRenderer renderer;
     private boolean overrideRequired = false;
+    private volatile FieldAccessor fieldAccessor;
 
     public ProcessedOption(char shortName, String name, String description,
                            String argument, boolean required, char valueSeparator,
@@ -89,6 +98,7 @@ public final class ProcessedOption {
         this.overrideRequired = overrideRequired;
         this.optionType = optionType;
         this.converter = converter;
+        primitiveConverter = isPrimitiveConverter(converter);
         this.completer = completer;
         this.validator = optionValidator;
         this.activator = activator;
@@ -102,6 +112,37 @@ public final class ProcessedOption {
         values = new ArrayList<>();
     }
 
+    private ProcessedOption(ProcessedOption option) {
+        shortName = option.shortName;
+        name = option.name;
+        description = option.description;
+        argument = option.argument;
+        required = option.required;
+        valueSeparator = option.valueSeparator;
+        type = option.type;
+        fieldName = option.fieldName;
+        overrideRequired = option.overrideRequired;
+        optionType = option.optionType;
+        converter = option.converter;
+        primitiveConverter = option.primitiveConverter;
+        completer = option.completer;
+        validator = option.validator;
+        activator = option.activator;
+        renderer = option.renderer;
+        defaultValues = option.defaultValues;
+        fieldAccessor = option.fieldAccessor;
+
+        properties = new HashMap<>();
+        values = new ArrayList<>();
+    }
+
+    /**
+     * @return a copy of this option without any parsed values
+     */
+    ProcessedOption copy() {
+        return new ProcessedOption(this);
+    }
+
     public String getShortName() {
         return shortName;
     }
@@ -309,86 +350,279 @@ public final class ProcessedOption {
         return result;
     }
 
-    @SuppressWarnings("unchecked")
     public void injectValueIntoField(Object instance, InvocationProviders invocationProviders, AeshContext aeshContext,
                                      boolean doValidation) throws OptionValidatorException {
-        if(converter == null)
+        if(!hasValueToInject())
             return;
         try {
-            Field field = instance.getClass().getDeclaredField(fieldName);
-            if(!Modifier.isPublic(field.getModifiers()))
-                field.setAccessible(true);
-            if(!Modifier.isPublic(instance.getClass().getModifiers())) {
-                Constructor constructor = instance.getClass().getDeclaredConstructor();
-                if(constructor != null)
-                    constructor.setAccessible(true);
+            FieldAccessor accessor = getFieldAccessor(instance.getClass());
+            if(!canInjectInto(accessor.getType()))
+                return;
+            if(!injectPrimitiveValue(accessor, instance, invocationProviders, doValidation))
+                accessor.set(instance, getValueToInject(accessor.getType(), instance, invocationProviders, aeshContext, doValidation));
+        }
+        catch (NoSuchFieldException | IllegalAccessException | InstantiationException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Inject the value without boxing it if the field is a primitive and the
+     * converter can convert to that primitive.
+     *
+     * @return false if the value must be injected as an object
+     */
+    private boolean injectPrimitiveValue(FieldAccessor accessor, Object instance,
+                                         InvocationProviders invocationProviders, boolean doValidation)
+            throws OptionValidatorException {
+        Class<?> fieldType = accessor.getType();
+        if(!fieldType.isPrimitive() || needValidation(doValidation) || !canConvertPrimitive(invocationProviders) ||
+                (optionType != OptionType.NORMAL && optionType != OptionType.BOOLEAN))
+            return false;
+        String input = getValue() != null ? getValue() : defaultValues.get(0);
+        if(int.class == fieldType && converter instanceof IntValueConverter)
+            accessor.setInt(instance, ((IntValueConverter) converter).convertToInt(input));
+        else if(long.class == fieldType && converter instanceof LongValueConverter)
+            accessor.setLong(instance, ((LongValueConverter) converter).convertToLong(input));
+        else if(double.class == fieldType && converter instanceof DoubleValueConverter)
+            accessor.setDouble(instance, ((DoubleValueConverter) converter).convertToDouble(input));
+        else if(boolean.class == fieldType && converter instanceof BooleanValueConverter)
+            accessor.setBoolean(instance, ((BooleanValueConverter) converter).convertToBoolean(input));
+        else
+            return false;
+        return true;
+    }
+
+    /**
+     * The primitive conversions bypass convert() and the converter provider,
+     * so they are only used with the default provider.
+     */
+    private boolean canConvertPrimitive(InvocationProviders invocationProviders) {
+        return primitiveConverter &&
+                invocationProviders.getConverterProvider().getClass() == AeshConverterInvocationProvider.class;
+    }
+
+    /**
+     * A converter opts in to the primitive conversions by implementing IntValueConverter,
+     * LongValueConverter, DoubleValueConverter or BooleanValueConverter.
+     * A subclass that override convert() but inherit the primitive method, eg a subclass
+     * of IntegerConverter, has not and is used through convert().
+     */
+    private static boolean isPrimitiveConverter(Converter converter) {
+        if(converter == null)
+            return false;
+        Class<?> convertType = findDeclaringClass(converter.getClass(), "convert", ConverterInvocation.class);
+        if(convertType == null)
+            return false;
+        boolean primitive = false;
+        if(converter instanceof IntValueConverter) {
+            if(!isDeclaredBelow(converter.getClass(), "convertToInt", convertType))
+                return false;
+            primitive = true;
+        }
+        if(converter instanceof LongValueConverter) {
+            if(!isDeclaredBelow(converter.getClass(), "convertToLong", convertType))
+                return false;
+            primitive = true;
+        }
+        if(converter instanceof DoubleValueConverter) {
+            if(!isDeclaredBelow(converter.getClass(), "convertToDouble", convertType))
+                return false;
+            primitive = true;
+        }
+        if(converter instanceof BooleanValueConverter) {
+            if(!isDeclaredBelow(converter.getClass(), "convertToBoolean", convertType))
+                return false;
+            primitive = true;
+        }
+        return primitive;
+    }
+
+    /**
+     * @return true if the method is declared in convertType or one of its subclasses
+     */
+    private static boolean isDeclaredBelow(Class<?> converterType, String method, Class<?> convertType) {
+        Class<?> declaringClass = findDeclaringClass(converterType, method, String.class);
+        return declaringClass != null && convertType.isAssignableFrom(declaringClass);
+    }
+
+    /**
+     * @return the most specific class that declare the method, ignoring bridge methods
+     */
+    private static Class<?> findDeclaringClass(Class<?> type, String name, Class<?> parameterType) {
+        for(Class<?> current = type; current != null; current = current.getSuperclass()) {
+            for(Method method : current.getDeclaredMethods()) {
+                if(method.getName().equals(name) && !method.isBridge() &&
+                        method.getParameterTypes().length == 1 &&
+                        parameterType.isAssignableFrom(method.getParameterTypes()[0]))
+                    return current;
             }
-            if(optionType == OptionType.NORMAL || optionType == OptionType.BOOLEAN) {
-                if(getValue() != null)
-                    field.set(instance, doConvert(getValue(), invocationProviders, instance, aeshContext, doValidation));
-                else if(defaultValues.size() > 0) {
-                    field.set(instance, doConvert(defaultValues.get(0), invocationProviders, instance, aeshContext, doValidation));
-                }
+        }
+        return null;
+    }
+
+    private boolean needValidation(boolean doValidation) {
+        return doValidation && validator != null && !(validator instanceof NullValidator);
+    }
+
+    /**
+     * Set the field of this option to the default value of its type
+     *
+     * @param instance command
+     * @param hasValue if false a Boolean field is set to false instead of null
+     */
+    public void resetField(Object instance, boolean hasValue) {
+        try {
+            getFieldAccessor(instance.getClass()).reset(instance, hasValue);
+        }
+        catch (NoSuchFieldException | IllegalAccessException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Look up the field of this option in the given class so it do not
+     * need to be done when the first command is populated.
+     *
+     * @param commandClass class with the field
+     */
+    public void resolveField(Class<?> commandClass) {
+        try {
+            getFieldAccessor(commandClass);
+        }
+        catch (NoSuchFieldException | IllegalAccessException e) {
+            //will be reported when the field is used
+        }
+    }
+
+    private FieldAccessor getFieldAccessor(Class<?> owner) throws NoSuchFieldException, IllegalAccessException {
+        FieldAccessor accessor = fieldAccessor;
+        if(accessor == null || accessor.getOwner() != owner) {
+            accessor = FieldAccessor.create(owner, fieldName);
+            fieldAccessor = accessor;
+        }
+        return accessor;
+    }
+
+    /**
+     * @return true if a value should be injected into the field of this option
+     */
+    public boolean hasValueToInject() {
+        if(converter == null)
+            return false;
+        if(optionType == OptionType.NORMAL || optionType == OptionType.BOOLEAN)
+            return getValue() != null || defaultValues.size() > 0;
+        return optionType == OptionType.LIST || optionType == OptionType.ARGUMENT ||
+                optionType == OptionType.GROUP;
+    }
+
+    /**
+     * List and argument options can only be injected into abstract collection
+     * fields that are a List or a Set, other fields should be left untouched.
+     *
+     * @param fieldType type of the field the value is injected into
+     * @return false if no value can be created for the field type
+     */
+    public boolean canInjectInto(Class<?> fieldType) {
+        if((optionType != OptionType.LIST && optionType != OptionType.ARGUMENT) || fieldType.isArray() ||
+                (!fieldType.isInterface() && !Modifier.isAbstract(fieldType.getModifiers())))
+            return true;
+        //todo: should support more that List/Set
+        return Set.class.isAssignableFrom(fieldType) || List.class.isAssignableFrom(fieldType) ||
+                fieldType.isAssignableFrom(ArrayList.class);
+    }
+
+    /**
+     * Convert the values of this option to the value that should be injected
+     * into a field of the given type.
+     * Only valid if hasValueToInject() and canInjectInto(fieldType) are true.
+     *
+     * @param fieldType type of the field the value is injected into
+     * @param instance command the value is injected into
+     * @return converted value
+     */
+    @SuppressWarnings("unchecked")
+    public Object getValueToInject(Class<?> fieldType, Object instance, InvocationProviders invocationProviders,
+                                   AeshContext aeshContext, boolean doValidation)
+            throws OptionValidatorException, InstantiationException, IllegalAccessException {
+        if(optionType == OptionType.NORMAL || optionType == OptionType.BOOLEAN) {
+            if(getValue() != null)
+                return doConvert(getValue(), invocationProviders, instance, aeshContext, doValidation);
+            else
+                return doConvert(defaultValues.get(0), invocationProviders, instance, aeshContext, doValidation);
+        }
+        else if((optionType == OptionType.LIST || optionType == OptionType.ARGUMENT) && fieldType.isArray()) {
+            return createArray(fieldType.getComponentType(), values.size() > 0 ? values : defaultValues,
+                    instance, invocationProviders, aeshContext, doValidation);
+        }
+        else if(optionType == OptionType.LIST || optionType == OptionType.ARGUMENT) {
+            Collection tmpCollection;
+            if(fieldType.isInterface() || Modifier.isAbstract(fieldType.getModifiers())) {
+                if(Set.class.isAssignableFrom(fieldType))
+                    tmpCollection = new HashSet<Object>();
+                else if(List.class.isAssignableFrom(fieldType) || fieldType.isAssignableFrom(ArrayList.class))
+                    tmpCollection = new ArrayList();
+                else
+                    return null;
             }
-            else if(optionType == OptionType.LIST || optionType == OptionType.ARGUMENT) {
-                if(field.getType().isInterface() || Modifier.isAbstract(field.getType().getModifiers())) {
-                    if(Set.class.isAssignableFrom(field.getType())) {
-                        Set tmpSet = new HashSet<Object>();
-                        if(values.size() > 0) {
-                            for(String in : values)
-                                tmpSet.add(doConvert(in, invocationProviders, instance, aeshContext, doValidation));
-                        }
-                        else if(defaultValues.size() > 0) {
-                            for(String in : defaultValues)
-                                tmpSet.add(doConvert(in, invocationProviders, instance, aeshContext, doValidation));
-                        }
-
-                        field.set(instance, tmpSet);
-                    }
-                    else if(List.class.isAssignableFrom(field.getType())) {
-                        List tmpList = new ArrayList();
-                        if(values.size() > 0) {
-                            for(String in : values)
-                                tmpList.add(doConvert(in, invocationProviders, instance, aeshContext, doValidation));
-                        }
-                        else if(defaultValues.size() > 0) {
-                            for(String in : defaultValues)
-                                tmpList.add(doConvert(in, invocationProviders, instance, aeshContext, doValidation));
-                        }
-                        field.set(instance, tmpList);
-                    }
-                    //todo: should support more that List/Set
-                }
-                else {
-                    Collection tmpInstance = (Collection) field.getType().newInstance();
-                    if(values.size() > 0) {
-                        for(String in : values)
-                            tmpInstance.add(doConvert(in, invocationProviders, instance, aeshContext, doValidation));
-                    }
-                    else if(defaultValues.size() > 0) {
-                        for(String in : defaultValues)
-                            tmpInstance.add(doConvert(in, invocationProviders, instance, aeshContext, doValidation));
-                    }
-                    field.set(instance, tmpInstance);
-                }
+            else
+                tmpCollection = (Collection) fieldType.newInstance();
+            if(values.size() > 0) {
+                for(String in : values)
+                    tmpCollection.add(doConvert(in, invocationProviders, instance, aeshContext, doValidation));
             }
-            else if(optionType == OptionType.GROUP) {
-                if(field.getType().isInterface() || Modifier.isAbstract(field.getType().getModifiers())) {
-                    Map<String, Object> tmpMap = newHashMap();
-                    for(String propertyKey : properties.keySet())
-                        tmpMap.put(propertyKey,doConvert(properties.get(propertyKey), invocationProviders, instance, aeshContext, doValidation));
-                    field.set(instance, tmpMap);
-                 }
-                else {
-                    Map<String,Object> tmpMap = (Map<String,Object>) field.getType().newInstance();
-                    for(String propertyKey : properties.keySet())
-                        tmpMap.put(propertyKey,doConvert(properties.get(propertyKey), invocationProviders, instance, aeshContext, doValidation));
-                    field.set(instance, tmpMap);
-                }
+            else if(defaultValues.size() > 0) {
+                for(String in : defaultValues)
+                    tmpCollection.add(doConvert(in, invocationProviders, instance, aeshContext, doValidation));
             }
+            return tmpCollection;
         }
-        catch (NoSuchFieldException | IllegalAccessException | NoSuchMethodException | InstantiationException e) {
-            e.printStackTrace();
+        else {
+            Map<String, Object> tmpMap;
+            if(fieldType.isInterface() || Modifier.isAbstract(fieldType.getModifiers()))
+                tmpMap = newHashMap();
+            else
+                tmpMap = (Map<String,Object>) fieldType.newInstance();
+            for(String propertyKey : properties.keySet())
+                tmpMap.put(propertyKey,doConvert(properties.get(propertyKey), invocationProviders, instance, aeshContext, doValidation));
+            return tmpMap;
+        }
+    }
+
+    /**
+     * int, long and double arrays are filled without boxing the values
+     * if the converter support it.
+     */
+    private Object createArray(Class<?> componentType, List<String> input, Object instance,
+                               InvocationProviders invocationProviders, AeshContext aeshContext,
+                               boolean doValidation) throws OptionValidatorException {
+        boolean primitive = !needValidation(doValidation) && canConvertPrimitive(invocationProviders);
+        if(int.class == componentType && primitive && converter instanceof IntValueConverter) {
+            IntValueConverter intConverter = (IntValueConverter) converter;
+            int[] array = new int[input.size()];
+            for(int i = 0; i < array.length; i++)
+                array[i] = intConverter.convertToInt(input.get(i));
+            return array;
+        }
+        else if(long.class == componentType && primitive && converter instanceof LongValueConverter) {
+            LongValueConverter longConverter = (LongValueConverter) converter;
+            long[] array = new long[input.size()];
+            for(int i = 0; i < array.length; i++)
+                array[i] = longConverter.convertToLong(input.get(i));
+            return array;
+        }
+        else if(double.class == componentType && primitive && converter instanceof DoubleValueConverter) {
+            DoubleValueConverter doubleConverter = (DoubleValueConverter) converter;
+            double[] array = new double[input.size()];
+            for(int i = 0; i < array.length; i++)
+                array[i] = doubleConverter.convertToDouble(input.get(i));
+            return array;
+        }
+        else {
+            Object array = Array.newInstance(componentType, input.size());
+            for(int i = 0; i < input.size(); i++)
+                Array.set(array, i, doConvert(input.get(i), invocationProviders, instance, aeshContext, doValidation));
+            return array;
         }
     }
 
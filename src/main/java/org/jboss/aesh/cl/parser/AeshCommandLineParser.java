@@ -49,6 +49,7 @@ public class AeshCommandLineParser implements CommandLineParser {
     private List<CommandLineParser> childParsers;
     private boolean isChild = false;
     private Command command;
+    private CommandPopulator commandPopulator;
 
     public AeshCommandLineParser(ProcessedCommand processedCommand) {
         this.processedCommand = processedCommand;
@@ -59,6 +60,29 @@ public class AeshCommandLineParser implements CommandLineParser {
         this.command = command;
     }
 
+    /**
+     * @param commandPopulator populator used instead of the reflection based AeshCommandPopulator,
+     *                         can be null
+     */
+    public AeshCommandLineParser(ProcessedCommand processedCommand, Command command,
+                                 CommandPopulator commandPopulator) {
+        this.processedCommand = processedCommand;
+        this.command = command;
+        this.commandPopulator = commandPopulator;
+    }
+
+    /**
+     * Parser used by a single isolated parse, works on a copy of
+     * the processed command of the given parser.
+     */
+    private AeshCommandLineParser(AeshCommandLineParser parser, ProcessedCommand processedCommand) {
+        this.processedCommand = processedCommand;
+        this.command = parser.command;
+        this.commandPopulator = parser.commandPopulator;
+        this.childParsers = parser.childParsers;
+        this.isChild = parser.isChild;
+    }
+
     public void addChildParser(AeshCommandLineParser commandLineParser) {
         if(childParsers == null)
             childParsers = new ArrayList<>();
@@ -110,6 +134,8 @@ public class AeshCommandLineParser implements CommandLineParser {
 
     @Override
     public CommandPopulator getCommandPopulator() {
+        if(commandPopulator != null)
+            return commandPopulator;
         return new AeshCommandPopulator(this);
     }
 
@@ -193,6 +219,38 @@ public class AeshCommandLineParser implements CommandLineParser {
     @Override
     public CommandLine parse(List<String> lines, boolean ignoreRequirements) {
         clear();
+        return doParse(lines, ignoreRequirements);
+    }
+
+    @Override
+    public CommandLine parseIsolated(String line, boolean ignoreRequirements) {
+        return parseIsolated(Parser.findAllWords(line), ignoreRequirements);
+    }
+
+    @Override
+    public CommandLine parseIsolated(AeshLine line, boolean ignoreRequirements) {
+        if(line.getWords().size() > 0) {
+            if(processedCommand.getName().equals(line.getWords().get(0))) {
+                if(isGroupCommand() && line.getWords().size() > 1) {
+                    CommandLineParser clp = getChildParser(line.getWords().get(1));
+                    if(clp != null)
+                        return clp.parseIsolated(line.getWords(), ignoreRequirements);
+                }
+                return parseIsolated(line.getWords(), ignoreRequirements);
+            }
+        }
+        else if(line.getStatus() != ParserStatus.OK)
+            return new CommandLine(new CommandLineParserException(line.getErrorMessage()));
+
+        return new CommandLine(new CommandLineParserException("Command:"+ processedCommand +", not found in: "+line));
+    }
+
+    @Override
+    public CommandLine parseIsolated(List<String> lines, boolean ignoreRequirements) {
+        return new AeshCommandLineParser(this, processedCommand.copy()).doParse(lines, ignoreRequirements);
+    }
+
+    private CommandLine doParse(List<String> lines, boolean ignoreRequirements) {
         CommandLine commandLine = new CommandLine(this);
         if(processedCommand.hasArgument())
             commandLine.setArgument(processedCommand.getArgument());
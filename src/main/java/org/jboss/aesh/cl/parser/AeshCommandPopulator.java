@@ -19,13 +19,12 @@ package org.jboss.aesh.cl.parser;
 
 import org.jboss.aesh.cl.CommandLine;
 import org.jboss.aesh.cl.exception.CommandLineParserException;
+import org.jboss.aesh.cl.internal.ProcessedCommand;
 import org.jboss.aesh.cl.internal.ProcessedOption;
 import org.jboss.aesh.cl.validator.OptionValidatorException;
 import org.jboss.aesh.console.AeshContext;
 import org.jboss.aesh.console.InvocationProviders;
 
-import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
 
 /**
  * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
@@ -52,22 +51,33 @@ public class AeshCommandPopulator implements CommandPopulator<Object> {
             throws CommandLineParserException, OptionValidatorException {
         if(line.hasParserError())
             throw line.getParserException();
-        for(ProcessedOption option: commandLineParser.getProcessedCommand().getOptions()) {
+        ProcessedCommand processedCommand = getProcessedCommand(line);
+        for(ProcessedOption option: processedCommand.getOptions()) {
             if(line.hasOption(option.getName()))
                 line.getOption(option.getName()).injectValueIntoField(instance, invocationProviders, aeshContext, validate);
             else if(option.getDefaultValues().size() > 0) {
                 option.injectValueIntoField(instance, invocationProviders, aeshContext, validate);
             }
             else
-                resetField(instance, option.getFieldName(), option.hasValue());
+                option.resetField(instance, option.hasValue());
         }
         if((line.getArgument() != null && line.getArgument().getValues().size() > 0) ||
-                (commandLineParser.getProcessedCommand().getArgument() != null &&
-                        commandLineParser.getProcessedCommand().getArgument().getDefaultValues().size() > 0)) {
+                (processedCommand.getArgument() != null &&
+                        processedCommand.getArgument().getDefaultValues().size() > 0)) {
             line.getArgument().injectValueIntoField(instance, invocationProviders, aeshContext, validate);
         }
         else if(line.getArgument() != null)
-            resetField(instance, line.getArgument().getFieldName(), true);
+            line.getArgument().resetField(instance, true);
+    }
+
+    /**
+     * A line parsed with parseIsolated has its own copy of the processed command,
+     * use that so the default values are not mixed with values from another parse.
+     */
+    private ProcessedCommand getProcessedCommand(CommandLine line) {
+        if(line.getParser() != null)
+            return line.getParser().getProcessedCommand();
+        return commandLineParser.getProcessedCommand();
     }
 
     /**
@@ -86,38 +96,4 @@ public class AeshCommandPopulator implements CommandPopulator<Object> {
     }
      */
 
-    private void resetField(Object instance, String fieldName, boolean hasValue) {
-        try {
-            Field field = instance.getClass().getDeclaredField(fieldName);
-            if(!Modifier.isPublic(field.getModifiers()))
-                field.setAccessible(true);
-            if(field.getType().isPrimitive()) {
-                if(boolean.class.isAssignableFrom(field.getType()))
-                    field.set(instance, false);
-                else if(int.class.isAssignableFrom(field.getType()))
-                    field.set(instance, 0);
-                else if(short.class.isAssignableFrom(field.getType()))
-                    field.set(instance, 0);
-                else if(char.class.isAssignableFrom(field.getType()))
-                    field.set(instance, '\u0000');
-                else if(byte.class.isAssignableFrom(field.getType()))
-                    field.set(instance, 0);
-                else if(long.class.isAssignableFrom(field.getType()))
-                    field.set(instance, 0L);
-                else if(float.class.isAssignableFrom(field.getType()))
-                    field.set(instance, 0.0f);
-                else if(double.class.isAssignableFrom(field.getType()))
-                    field.set(instance, 0.0d);
-            }
-            else if(!hasValue && field.getType().equals(Boolean.class)) {
-               field.set(instance, Boolean.FALSE);
-            }
-            else
-                field.set(instance, null);
-        }
-        catch (NoSuchFieldException | IllegalAccessException e) {
-            e.printStackTrace();
-        }
-    }
-
 }
@@ -116,6 +116,29 @@ public interface CommandLineParser {
      */
     CommandLine parse(List<String> lines, boolean ignoreRequirements);
 
+    /**
+     * Parse a command line like {@link #parse(String, boolean)}, but the values
+     * are stored in a copy of the options of the processed command instead of
+     * in the options of this parser.
+     * The returned CommandLine do not share any parse state with this parser
+     * or any other parse, so this method can be called concurrently.
+     *
+     * @param line input
+     * @param ignoreRequirements if we should ignore
+     * @return CommandLine
+     */
+    CommandLine parseIsolated(String line, boolean ignoreRequirements);
+
+    /**
+     * @see #parseIsolated(String, boolean)
+     */
+    CommandLine parseIsolated(AeshLine line, boolean ignoreRequirements);
+
+    /**
+     * @see #parseIsolated(String, boolean)
+     */
+    CommandLine parseIsolated(List<String> lines, boolean ignoreRequirements);
+
     void clear();
 
     boolean isGroupCommand();
@@ -28,6 +28,7 @@ public class CommandLineParserBuilder {
 
     private ProcessedCommand param;
     private Command command;
+    private CommandPopulator populator;
 
     public CommandLineParserBuilder() {
     }
@@ -48,8 +49,13 @@ public class CommandLineParserBuilder {
     }
 
 
+    public CommandLineParserBuilder populator(CommandPopulator populator) {
+        this.populator = populator;
+        return this;
+    }
+
     public CommandLineParser create() throws IllegalArgumentException {
-        return new AeshCommandLineParser( param, command);
+        return new AeshCommandLineParser( param, command, populator);
     }
 
 }
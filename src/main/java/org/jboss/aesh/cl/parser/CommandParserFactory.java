@@ -0,0 +1,48 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.cl.parser;
+
+import org.jboss.aesh.cl.exception.CommandLineParserException;
+import org.jboss.aesh.cl.internal.ProcessedCommand;
+
+/**
+ * Implemented by the classes {@link org.jboss.aesh.cl.processor.CommandProcessor}
+ * generate for commands annotated with CommandDefinition or GroupCommandDefinition.
+ * The generated class is named after the binary name of the command
+ * with the suffix {@link #SUFFIX} and is used by {@link ParserGenerator}
+ * instead of reading the annotations at runtime when it's found.
+ *
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+public interface CommandParserFactory {
+
+    String SUFFIX = "_AeshParser";
+
+    /**
+     * @return a ProcessedCommand with the options defined on the command,
+     *         group commands are not added
+     */
+    ProcessedCommand createProcessedCommand() throws CommandLineParserException;
+
+    /**
+     * @param processedCommand created by createProcessedCommand
+     * @return a populator that set the fields of the command directly,
+     *         null if the fields are not accessible
+     */
+    CommandPopulator<Object> createPopulator(ProcessedCommand processedCommand);
+}
@@ -0,0 +1,94 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.cl.parser;
+
+import org.jboss.aesh.cl.CommandLine;
+import org.jboss.aesh.cl.exception.CommandLineParserException;
+import org.jboss.aesh.cl.internal.ProcessedCommand;
+import org.jboss.aesh.cl.internal.ProcessedOption;
+import org.jboss.aesh.cl.validator.OptionValidatorException;
+import org.jboss.aesh.console.AeshContext;
+import org.jboss.aesh.console.InvocationProviders;
+
+/**
+ * Base class of the populators {@link org.jboss.aesh.cl.processor.CommandProcessor}
+ * generate. Work like {@link AeshCommandPopulator}, but the fields are set
+ * by the generated code instead of by reflection.
+ *
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+public abstract class GeneratedCommandPopulator implements CommandPopulator<Object> {
+
+    private final ProcessedCommand processedCommand;
+
+    protected GeneratedCommandPopulator(ProcessedCommand processedCommand) {
+        this.processedCommand = processedCommand;
+    }
+
+    @Override
+    public void populateObject(Object instance, CommandLine line, InvocationProviders invocationProviders,
+                               AeshContext aeshContext, boolean validate)
+            throws CommandLineParserException, OptionValidatorException {
+        if(line.hasParserError())
+            throw line.getParserException();
+        //a line parsed with parseIsolated has its own copy of the processed command
+        ProcessedCommand processedCommand = line.getParser() != null ?
+                line.getParser().getProcessedCommand() : this.processedCommand;
+        for(ProcessedOption option: processedCommand.getOptions()) {
+            if(line.hasOption(option.getName()))
+                injectValue(instance, line.getOption(option.getName()), invocationProviders, aeshContext, validate);
+            else if(option.getDefaultValues().size() > 0)
+                injectValue(instance, option, invocationProviders, aeshContext, validate);
+            else
+                resetField(instance, option.getFieldName());
+        }
+        if((line.getArgument() != null && line.getArgument().getValues().size() > 0) ||
+                (processedCommand.getArgument() != null &&
+                        processedCommand.getArgument().getDefaultValues().size() > 0)) {
+            injectValue(instance, line.getArgument(), invocationProviders, aeshContext, validate);
+        }
+        else if(line.getArgument() != null)
+            resetField(instance, line.getArgument().getFieldName());
+    }
+
+    private void injectValue(Object instance, ProcessedOption option, InvocationProviders invocationProviders,
+                             AeshContext aeshContext, boolean validate) throws OptionValidatorException {
+        if(!option.hasValueToInject() || !option.canInjectInto(getFieldType(option.getFieldName())))
+            return;
+        try {
+            setField(instance, option.getFieldName(),
+                    option.getValueToInject(getFieldType(option.getFieldName()), instance,
+                            invocationProviders, aeshContext, validate));
+        }
+        catch (InstantiationException | IllegalAccessException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @return the declared type of the field
+     */
+    protected abstract Class<?> getFieldType(String fieldName);
+
+    protected abstract void setField(Object instance, String fieldName, Object value);
+
+    /**
+     * Set the field to its default value
+     */
+    protected abstract void resetField(Object instance, String fieldName);
+}
@@ -27,6 +27,7 @@ import org.jboss.aesh.cl.exception.CommandLineParserException;
 import org.jboss.aesh.cl.internal.ProcessedCommandBuilder;
 import org.jboss.aesh.cl.internal.OptionType;
 import org.jboss.aesh.cl.internal.ProcessedCommand;
+import org.jboss.aesh.cl.internal.ProcessedOption;
 import org.jboss.aesh.cl.internal.ProcessedOptionBuilder;
 import org.jboss.aesh.cl.validator.OptionValidatorException;
 import org.jboss.aesh.console.AeshInvocationProviders;
@@ -71,38 +72,51 @@ public class ParserGenerator {
     private static AeshCommandContainer doGenerateCommandLineParser(Object commandObject,
                                                                     boolean clazzIsaCommand, boolean isChild) throws CommandLineParserException {
         Class clazz = commandObject.getClass();
+        CommandParserFactory factory = findGeneratedFactory(clazz);
         CommandDefinition command = (CommandDefinition) clazz.getAnnotation(CommandDefinition.class);
         if(command != null) {
-            ProcessedCommand processedCommand = new ProcessedCommandBuilder()
-                    .name(command.name())
-                    .description(command.description())
-                    .validator(command.validator())
-                    .resultHandler(command.resultHandler()).create();
+            ProcessedCommand processedCommand;
+            if(factory != null)
+                processedCommand = factory.createProcessedCommand();
+            else {
+                processedCommand = new ProcessedCommandBuilder()
+                        .name(command.name())
+                        .description(command.description())
+                        .validator(command.validator())
+                        .resultHandler(command.resultHandler()).create();
 
-            processCommand(processedCommand, clazz);
+                processCommand(processedCommand, clazz);
+            }
 
             if(clazzIsaCommand)
                 return new AeshCommandContainer(
                         new CommandLineParserBuilder()
                                 .processedCommand(processedCommand)
                                 .command((Command) commandObject)
+                                .populator(createPopulator(factory, processedCommand))
                                 .create());
             else
                 return new AeshCommandContainer(
                         new CommandLineParserBuilder()
                                 .processedCommand(processedCommand)
+                                .populator(createPopulator(factory, processedCommand))
                                 .create());
         }
         GroupCommandDefinition groupCommand = (GroupCommandDefinition) clazz.getAnnotation(GroupCommandDefinition.class);
         if(groupCommand != null) {
-            ProcessedCommand processedGroupCommand = new ProcessedCommandBuilder()
-                    .name(groupCommand.name())
-                    .description(groupCommand.description())
-                    .validator(groupCommand.validator())
-                    .resultHandler(groupCommand.resultHandler())
-                    .create();
+            ProcessedCommand processedGroupCommand;
+            if(factory != null)
+                processedGroupCommand = factory.createProcessedCommand();
+            else {
+                processedGroupCommand = new ProcessedCommandBuilder()
+                        .name(groupCommand.name())
+                        .description(groupCommand.description())
+                        .validator(groupCommand.validator())
+                        .resultHandler(groupCommand.resultHandler())
+                        .create();
 
-            processCommand(processedGroupCommand, clazz);
+                processCommand(processedGroupCommand, clazz);
+            }
 
             AeshCommandContainer groupContainer;
             if(clazzIsaCommand)
@@ -110,11 +124,13 @@ public class ParserGenerator {
                         new CommandLineParserBuilder()
                                 .processedCommand(processedGroupCommand)
                                 .command((Command) commandObject)
+                                .populator(createPopulator(factory, processedGroupCommand))
                                 .create());
             else
                 groupContainer = new AeshCommandContainer(
                         new CommandLineParserBuilder()
                                 .processedCommand(processedGroupCommand)
+                                .populator(createPopulator(factory, processedGroupCommand))
                                 .create());
 
             for(Class groupClazz : groupCommand.groupCommands()) {
@@ -133,6 +149,44 @@ public class ParserGenerator {
             throw new CommandLineParserException("Commands must be annotated with @CommandDefinition or @GroupCommandDefinition");
     }
 
+    /**
+     * The factory class generated for each command class, null when there is none.
+     * The lookup is done once per class, most commands are not generated and a
+     * failed Class.forName is expensive.
+     * A ClassValue is used so the command classes can still be unloaded.
+     */
+    private static final ClassValue<Class<?>> GENERATED_FACTORIES = new ClassValue<Class<?>>() {
+        @Override
+        protected Class<?> computeValue(Class<?> clazz) {
+            try {
+                Class<?> factoryClass = Class.forName(clazz.getName() + CommandParserFactory.SUFFIX,
+                        true, clazz.getClassLoader());
+                if(CommandParserFactory.class.isAssignableFrom(factoryClass))
+                    return factoryClass;
+            }
+            catch (ClassNotFoundException e) {
+                //not generated, read the annotations
+            }
+            return null;
+        }
+    };
+
+    /**
+     * @return the factory generated by CommandProcessor for the class, null if it's not found
+     */
+    private static CommandParserFactory findGeneratedFactory(Class clazz) {
+        Class<?> factoryClass = GENERATED_FACTORIES.get(clazz);
+        if(factoryClass == null)
+            return null;
+        return (CommandParserFactory) ReflectionUtil.newInstance(factoryClass);
+    }
+
+    private static CommandPopulator createPopulator(CommandParserFactory factory, ProcessedCommand processedCommand) {
+        if(factory == null)
+            return null;
+        return factory.createPopulator(processedCommand);
+    }
+
     private static void processCommand(ProcessedCommand processedCommand, Class<? extends Command> clazz) throws CommandLineParserException {
         for(Field field : clazz.getDeclaredFields()) {
             Option o;
@@ -202,10 +256,12 @@ public class ParserGenerator {
 
             }
             else if((ol = field.getAnnotation(OptionList.class)) != null) {
-                if(!Collection.class.isAssignableFrom(field.getType()))
-                    throw new CommandLineParserException("OptionGroup field must be instance of Collection");
+                if(!Collection.class.isAssignableFrom(field.getType()) && !field.getType().isArray())
+                    throw new CommandLineParserException("OptionList field must be instance of Collection or an array");
                 Class type = Object.class;
-                if(field.getGenericType() != null) {
+                if(field.getType().isArray())
+                    type = field.getType().getComponentType();
+                else if(field.getGenericType() != null) {
                     ParameterizedType listType = (ParameterizedType) field.getGenericType();
                     type = (Class) listType.getActualTypeArguments()[0];
                 }
@@ -281,10 +337,12 @@ public class ParserGenerator {
             }
 
             else if((a = field.getAnnotation(Arguments.class)) != null) {
-                if(!Collection.class.isAssignableFrom(field.getType()))
-                    throw new CommandLineParserException("Arguments field must be instance of Collection");
+                if(!Collection.class.isAssignableFrom(field.getType()) && !field.getType().isArray())
+                    throw new CommandLineParserException("Arguments field must be instance of Collection or an array");
                 Class type = Object.class;
-                if(field.getGenericType() != null) {
+                if(field.getType().isArray())
+                    type = field.getType().getComponentType();
+                else if(field.getGenericType() != null) {
                     ParameterizedType listType = (ParameterizedType) field.getGenericType();
                     type = (Class) listType.getActualTypeArguments()[0];
                 }
@@ -304,7 +362,11 @@ public class ParserGenerator {
                         .create());
             }
         }
-
+        //look up the fields now instead of when the first command is populated
+        for(ProcessedOption option : processedCommand.getOptions())
+            option.resolveField(clazz);
+        if(processedCommand.getArgument() != null)
+            processedCommand.getArgument().resolveField(clazz);
     }
 
     public static void parseAndPopulate(Object instance, String input) throws CommandLineParserException, OptionValidatorException {
@@ -0,0 +1,502 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.cl.processor;
+
+import org.jboss.aesh.cl.Arguments;
+import org.jboss.aesh.cl.CommandDefinition;
+import org.jboss.aesh.cl.GroupCommandDefinition;
+import org.jboss.aesh.cl.Option;
+import org.jboss.aesh.cl.OptionGroup;
+import org.jboss.aesh.cl.OptionList;
+import org.jboss.aesh.cl.parser.CommandParserFactory;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates a {@link CommandParserFactory} for every class annotated with
+ * CommandDefinition or GroupCommandDefinition. {@link org.jboss.aesh.cl.parser.ParserGenerator}
+ * will use the generated factory instead of reading the annotations of the
+ * command with reflection. When all the annotated fields are accessible from
+ * the package of the command a populator that set the fields directly is
+ * generated as well.
+ *
+ * Commands that reference classes that are not accessible from the generated
+ * class are skipped and handled with reflection as before.
+ *
+ * The processor is not registered as a service, enable it with
+ * javac -processor org.jboss.aesh.cl.processor.CommandProcessor
+ * or the annotationProcessors setting of the maven compiler plugin.
+ *
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+@SupportedAnnotationTypes({"org.jboss.aesh.cl.CommandDefinition", "org.jboss.aesh.cl.GroupCommandDefinition"})
+public class CommandProcessor extends AbstractProcessor {
+
+    private static final String PROCESSED_COMMAND = "org.jboss.aesh.cl.internal.ProcessedCommand";
+    private static final String PROCESSED_OPTION_BUILDER = "org.jboss.aesh.cl.internal.ProcessedOptionBuilder";
+    private static final String OPTION_TYPE = "org.jboss.aesh.cl.internal.OptionType";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for(TypeElement annotation : annotations) {
+            for(Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if(element.getKind() == ElementKind.CLASS)
+                    processCommand((TypeElement) element);
+            }
+        }
+        return false;
+    }
+
+    private void processCommand(TypeElement command) {
+        PackageElement pkg = processingEnv.getElementUtils().getPackageOf(command);
+        //the generated class must be able to reference the command
+        if(!isAccessible(command, pkg) ||
+                (command.getNestingKind() != NestingKind.TOP_LEVEL &&
+                        command.getNestingKind() != NestingKind.MEMBER) ||
+                (command.getNestingKind() == NestingKind.MEMBER &&
+                        !command.getModifiers().contains(Modifier.STATIC)))
+            return;
+
+        try {
+            String source = generateSource(command, pkg);
+            if(source == null)
+                return;
+            String binaryName = processingEnv.getElementUtils().getBinaryName(command).toString();
+            try (Writer writer = processingEnv.getFiler().createSourceFile(
+                    binaryName + CommandParserFactory.SUFFIX, command).openWriter()) {
+                writer.write(source);
+            }
+        }
+        catch (InvalidCommandException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, e.getMessage(), e.element);
+        }
+        catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Failed to generate parser: " + e.getMessage(), command);
+        }
+    }
+
+    /**
+     * @return the source of the factory, null if it can not be generated
+     */
+    private String generateSource(TypeElement command, PackageElement pkg) throws InvalidCommandException {
+        AnnotationMirror definition = getAnnotation(command, CommandDefinition.class);
+        if(definition == null)
+            definition = getAnnotation(command, GroupCommandDefinition.class);
+        Map<String, AnnotationValue> definitionValues = getValues(definition);
+
+        StringBuilder options = new StringBuilder();
+        List<VariableElement> fields = new ArrayList<>();
+        for(VariableElement field : ElementFilter.fieldsIn(command.getEnclosedElements())) {
+            String option = generateOption(field, pkg);
+            if(option == null)
+                return null;
+            if(option.length() > 0) {
+                options.append(option);
+                fields.add(field);
+            }
+        }
+
+        String className = processingEnv.getElementUtils().getBinaryName(command).toString();
+        if(!pkg.isUnnamed())
+            className = className.substring(pkg.getQualifiedName().length() + 1);
+        className = className + CommandParserFactory.SUFFIX;
+
+        String validator = classLiteral(definitionValues.get("validator"), pkg);
+        String resultHandler = classLiteral(definitionValues.get("resultHandler"), pkg);
+        if(validator == null || resultHandler == null)
+            return null;
+
+        StringBuilder source = new StringBuilder();
+        if(!pkg.isUnnamed())
+            source.append("package ").append(pkg.getQualifiedName()).append(";\n\n");
+        source.append("/**\n * Generated by ").append(getClass().getName())
+                .append(" for ").append(command.getQualifiedName()).append("\n */\n")
+                .append("public final class ").append(className)
+                .append(" implements ").append(CommandParserFactory.class.getName()).append(" {\n\n")
+                .append("    @Override\n")
+                .append("    public ").append(PROCESSED_COMMAND).append(" createProcessedCommand()")
+                .append(" throws org.jboss.aesh.cl.exception.CommandLineParserException {\n")
+                .append("        ").append(PROCESSED_COMMAND).append(" processedCommand =")
+                .append(" new org.jboss.aesh.cl.internal.ProcessedCommandBuilder()\n")
+                .append("                .name(").append(stringLiteral(definitionValues.get("name"))).append(")\n")
+                .append("                .description(").append(stringLiteral(definitionValues.get("description"))).append(")\n")
+                .append("                .validator(").append(validator).append(")\n")
+                .append("                .resultHandler(").append(resultHandler).append(")\n")
+                .append("                .create();\n")
+                .append(options)
+                .append("        return processedCommand;\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public org.jboss.aesh.cl.parser.CommandPopulator<Object> createPopulator(")
+                .append(PROCESSED_COMMAND).append(" processedCommand) {\n");
+        if(canPopulate(fields))
+            source.append("        return new Populator(processedCommand);\n")
+                    .append("    }\n\n")
+                    .append(generatePopulator(command, fields));
+        else
+            source.append("        return null;\n")
+                    .append("    }\n");
+        source.append("}\n");
+        return source.toString();
+    }
+
+    /**
+     * @return the code that add the option, an empty string if the field is not an option
+     *         and null if the option can not be generated
+     */
+    private String generateOption(VariableElement field, PackageElement pkg) throws InvalidCommandException {
+        String fieldName = field.getSimpleName().toString();
+        AnnotationMirror annotation;
+        Map<String, AnnotationValue> values;
+        String name;
+        String type;
+        String optionType;
+        String valueSeparator;
+        boolean argument = false;
+        if((annotation = getAnnotation(field, Option.class)) != null) {
+            values = getValues(annotation);
+            name = values.get("name").getValue().toString();
+            type = classLiteral(processingEnv.getTypeUtils().erasure(field.asType()), pkg);
+            optionType = ((Boolean) values.get("hasValue").getValue()) ? "NORMAL" : "BOOLEAN";
+            valueSeparator = charLiteral(',');
+        }
+        else if((annotation = getAnnotation(field, OptionList.class)) != null) {
+            values = getValues(annotation);
+            if(!isSubtype(field.asType(), "java.util.Collection") && field.asType().getKind() != TypeKind.ARRAY)
+                throw new InvalidCommandException("OptionList field must be instance of Collection or an array", field);
+            name = values.get("name").getValue().toString();
+            type = elementTypeLiteral(field.asType(), pkg);
+            optionType = "LIST";
+            valueSeparator = charLiteral((Character) values.get("valueSeparator").getValue());
+        }
+        else if((annotation = getAnnotation(field, OptionGroup.class)) != null) {
+            values = getValues(annotation);
+            if(!isSubtype(field.asType(), "java.util.Map"))
+                throw new InvalidCommandException("OptionGroup field must be instance of Map", field);
+            name = values.get("name").getValue().toString();
+            type = typeArgumentLiteral(field.asType(), 1, pkg);
+            optionType = "GROUP";
+            valueSeparator = charLiteral(',');
+        }
+        else if((annotation = getAnnotation(field, Arguments.class)) != null) {
+            values = getValues(annotation);
+            if(!isSubtype(field.asType(), "java.util.Collection") && field.asType().getKind() != TypeKind.ARRAY)
+                throw new InvalidCommandException("Arguments field must be instance of Collection or an array", field);
+            name = "";
+            type = elementTypeLiteral(field.asType(), pkg);
+            optionType = "ARGUMENT";
+            valueSeparator = charLiteral((Character) values.get("valueSeparator").getValue());
+            argument = true;
+        }
+        else
+            return "";
+
+        if(type == null)
+            return null;
+        if(!argument && name.length() < 1)
+            name = fieldName;
+
+        StringBuilder option = new StringBuilder();
+        option.append("        processedCommand.").append(argument ? "setArgument" : "addOption")
+                .append("(new ").append(PROCESSED_OPTION_BUILDER).append("()\n")
+                .append("                .shortName(").append(argument ? charLiteral('\u0000') :
+                    charLiteral((Character) values.get("shortName").getValue())).append(")\n")
+                .append("                .name(").append(stringLiteral(name)).append(")\n")
+                .append("                .description(").append(stringLiteral(values.get("description"))).append(")\n")
+                .append("                .required(").append(argument ? "false" : values.get("required").getValue()).append(")\n")
+                .append("                .valueSeparator(").append(valueSeparator).append(")\n")
+                .append("                .addAllDefaultValues(").append(stringArrayLiteral(values.get("defaultValue"))).append(")\n")
+                .append("                .type(").append(type).append(")\n")
+                .append("                .fieldName(").append(stringLiteral(fieldName)).append(")\n")
+                .append("                .optionType(").append(OPTION_TYPE).append('.').append(optionType).append(")\n");
+
+        String[] classMembers = argument ?
+                new String[] {"converter", "completer", "validator"} :
+                new String[] {"converter", "completer", "validator", "activator", "renderer"};
+        for(String member : classMembers) {
+            String literal = classLiteral(values.get(member), pkg);
+            if(literal == null)
+                return null;
+            option.append("                .").append(member).append('(').append(literal).append(")\n");
+        }
+        if(values.containsKey("overrideRequired"))
+            option.append("                .overrideRequired(").append(values.get("overrideRequired").getValue()).append(")\n");
+        option.append("                .create());\n");
+        return option.toString();
+    }
+
+    private boolean canPopulate(List<VariableElement> fields) {
+        for(VariableElement field : fields) {
+            Set<Modifier> modifiers = field.getModifiers();
+            if(modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.FINAL) ||
+                    modifiers.contains(Modifier.STATIC))
+                return false;
+        }
+        return true;
+    }
+
+    private String generatePopulator(TypeElement command, List<VariableElement> fields) {
+        StringBuilder getType = new StringBuilder();
+        StringBuilder set = new StringBuilder();
+        StringBuilder reset = new StringBuilder();
+        for(VariableElement field : fields) {
+            String fieldName = field.getSimpleName().toString();
+            TypeMirror type = processingEnv.getTypeUtils().erasure(field.asType());
+            String caseLabel = "                case " + stringLiteral(fieldName) + ":\n";
+            getType.append(caseLabel)
+                    .append("                    return ").append(type).append(".class;\n");
+            set.append(caseLabel)
+                    .append("                    command.").append(fieldName).append(" = (")
+                    .append(boxedType(type)).append(") value;\n")
+                    .append("                    break;\n");
+            reset.append(caseLabel)
+                    .append("                    command.").append(fieldName).append(" = ")
+                    .append(defaultValue(field, type)).append(";\n")
+                    .append("                    break;\n");
+        }
+
+        String commandType = command.getQualifiedName().toString();
+        return "    private static final class Populator extends org.jboss.aesh.cl.parser.GeneratedCommandPopulator {\n\n" +
+                "        Populator(" + PROCESSED_COMMAND + " processedCommand) {\n" +
+                "            super(processedCommand);\n" +
+                "        }\n\n" +
+                "        @Override\n" +
+                "        protected Class<?> getFieldType(String fieldName) {\n" +
+                "            switch(fieldName) {\n" +
+                getType +
+                "                default:\n" +
+                "                    throw new IllegalArgumentException(\"Unknown field: \" + fieldName);\n" +
+                "            }\n" +
+                "        }\n\n" +
+                "        @Override\n" +
+                "        @SuppressWarnings(\"unchecked\")\n" +
+                "        protected void setField(Object instance, String fieldName, Object value) {\n" +
+                "            " + commandType + " command = (" + commandType + ") instance;\n" +
+                "            switch(fieldName) {\n" +
+                set +
+                "                default:\n" +
+                "                    throw new IllegalArgumentException(\"Unknown field: \" + fieldName);\n" +
+                "            }\n" +
+                "        }\n\n" +
+                "        @Override\n" +
+                "        protected void resetField(Object instance, String fieldName) {\n" +
+                "            " + commandType + " command = (" + commandType + ") instance;\n" +
+                "            switch(fieldName) {\n" +
+                reset +
+                "                default:\n" +
+                "                    throw new IllegalArgumentException(\"Unknown field: \" + fieldName);\n" +
+                "            }\n" +
+                "        }\n" +
+                "    }\n";
+    }
+
+    private String boxedType(TypeMirror type) {
+        if(type.getKind().isPrimitive())
+            return processingEnv.getTypeUtils().boxedClass((javax.lang.model.type.PrimitiveType) type)
+                    .getQualifiedName().toString();
+        return type.toString();
+    }
+
+    /**
+     * Same values as AeshCommandPopulator use when a field is reset
+     */
+    private String defaultValue(VariableElement field, TypeMirror type) {
+        switch(type.getKind()) {
+            case BOOLEAN:
+                return "false";
+            case CHAR:
+                return "(char) 0";
+            case BYTE:
+                return "(byte) 0";
+            case SHORT:
+                return "(short) 0";
+            case INT:
+                return "0";
+            case LONG:
+                return "0L";
+            case FLOAT:
+                return "0.0f";
+            case DOUBLE:
+                return "0.0d";
+            default:
+                AnnotationMirror option = getAnnotation(field, Option.class);
+                if(option != null && !((Boolean) getValues(option).get("hasValue").getValue()) &&
+                        type.toString().equals(Boolean.class.getName()))
+                    return "Boolean.FALSE";
+                return "null";
+        }
+    }
+
+    private AnnotationMirror getAnnotation(Element element, Class<?> annotation) {
+        for(AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if(((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName()
+                    .contentEquals(annotation.getName()))
+                return mirror;
+        }
+        return null;
+    }
+
+    private Map<String, AnnotationValue> getValues(AnnotationMirror annotation) {
+        Map<String, AnnotationValue> values = new HashMap<>();
+        for(Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+                processingEnv.getElementUtils().getElementValuesWithDefaults(annotation).entrySet())
+            values.put(entry.getKey().getSimpleName().toString(), entry.getValue());
+        return values;
+    }
+
+    private boolean isSubtype(TypeMirror type, String superType) {
+        TypeElement superElement = processingEnv.getElementUtils().getTypeElement(superType);
+        return processingEnv.getTypeUtils().isSubtype(
+                processingEnv.getTypeUtils().erasure(type),
+                processingEnv.getTypeUtils().erasure(superElement.asType()));
+    }
+
+    /**
+     * @return class literal of the component type of an array or the type argument of a collection
+     */
+    private String elementTypeLiteral(TypeMirror type, PackageElement pkg) {
+        if(type.getKind() == TypeKind.ARRAY)
+            return classLiteral(((ArrayType) type).getComponentType(), pkg);
+        return typeArgumentLiteral(type, 0, pkg);
+    }
+
+    /**
+     * @return class literal of the type argument, Object.class if the type is raw
+     *         and null if the argument is not a class
+     */
+    private String typeArgumentLiteral(TypeMirror type, int index, PackageElement pkg) {
+        if(type.getKind() != TypeKind.DECLARED)
+            return null;
+        List<? extends TypeMirror> arguments = ((DeclaredType) type).getTypeArguments();
+        if(arguments.isEmpty())
+            return "Object.class";
+        if(arguments.size() <= index || arguments.get(index).getKind() != TypeKind.DECLARED)
+            return null;
+        return classLiteral(processingEnv.getTypeUtils().erasure(arguments.get(index)), pkg);
+    }
+
+    private String classLiteral(AnnotationValue value, PackageElement pkg) {
+        return classLiteral((TypeMirror) value.getValue(), pkg);
+    }
+
+    /**
+     * @return class literal of the type, null if the class is not accessible from pkg
+     */
+    private String classLiteral(TypeMirror type, PackageElement pkg) {
+        if(type.getKind() == TypeKind.DECLARED &&
+                !isAccessible((TypeElement) ((DeclaredType) type).asElement(), pkg))
+            return null;
+        if(type.getKind() == TypeKind.TYPEVAR)
+            return null;
+        return processingEnv.getTypeUtils().erasure(type) + ".class";
+    }
+
+    private boolean isAccessible(TypeElement type, PackageElement pkg) {
+        boolean samePackage = processingEnv.getElementUtils().getPackageOf(type).equals(pkg);
+        Element element = type;
+        while(element != null && element.getKind() != ElementKind.PACKAGE) {
+            Set<Modifier> modifiers = element.getModifiers();
+            if(modifiers.contains(Modifier.PRIVATE) ||
+                    (!samePackage && !modifiers.contains(Modifier.PUBLIC)))
+                return false;
+            element = element.getEnclosingElement();
+        }
+        return true;
+    }
+
+    private static String stringLiteral(AnnotationValue value) {
+        return stringLiteral(value.getValue().toString());
+    }
+
+    private static String stringArrayLiteral(AnnotationValue value) {
+        StringBuilder builder = new StringBuilder("new String[] {");
+        List<?> values = (List<?>) value.getValue();
+        for(int i = 0; i < values.size(); i++) {
+            if(i > 0)
+                builder.append(", ");
+            builder.append(stringLiteral((AnnotationValue) values.get(i)));
+        }
+        return builder.append('}').toString();
+    }
+
+    private static String stringLiteral(String value) {
+        StringBuilder builder = new StringBuilder("\"");
+        for(int i = 0; i < value.length(); i++)
+            appendChar(builder, value.charAt(i));
+        return builder.append('"').toString();
+    }
+
+    //unicode escapes are translated before the source is parsed, so they can not be used for any char
+    private static String charLiteral(char c) {
+        return "(char) " + (int) c;
+    }
+
+    private static void appendChar(StringBuilder builder, char c) {
+        if(c == '"' || c == '\\')
+            builder.append('\\').append(c);
+        else if(c < 0x20)
+            builder.append(String.format("\\%03o", (int) c));
+        else if(c > 0x7e)
+            builder.append(String.format("\\u%04x", (int) c));
+        else
+            builder.append(c);
+    }
+
+    private static class InvalidCommandException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Element element;
+
+        InvalidCommandException(String message, Element element) {
+            super(message);
+            this.element = element;
+        }
+    }
+}
@@ -27,6 +27,7 @@ import org.jboss.aesh.edit.Mode;
 import org.jboss.aesh.edit.actions.Action;
 import org.jboss.aesh.edit.actions.PrevWordAction;
 import org.jboss.aesh.parser.Parser;
+import org.jboss.aesh.terminal.FramedShell;
 import org.jboss.aesh.terminal.Shell;
 import org.jboss.aesh.terminal.TerminalString;
 import org.jboss.aesh.util.LoggerUtil;
@@ -34,7 +35,19 @@ import org.jboss.aesh.util.LoggerUtil;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 
 /**
@@ -51,15 +64,40 @@ public class AeshCompletionHandler implements CompletionHandler {
     private final Shell shell;
     private final boolean doLogging;
 
+    private final boolean asyncCompletion;
+    private final long completionTimeout;
+    private final Map<Completion, Long> completionTimeouts;
+    private ExecutorService executorService;
+    //the futures of the async completion that is running, null if none
+    private volatile List<Future<CompleteOperation>> runningCompletions;
+    //bumped for every key that is read, a completion is only valid while
+    //no key has been read after the key that started it
+    private final AtomicLong inputGeneration = new AtomicLong();
+    private volatile long completionGeneration;
+
     private static final Logger LOGGER = LoggerUtil.getLogger(AeshCompletionHandler.class.getName());
 
     public AeshCompletionHandler(AeshContext aeshContext, ConsoleBuffer consoleBuffer,
                                  Shell shell, boolean doLogging) {
+        this(aeshContext, consoleBuffer, shell, doLogging, false, 1000);
+    }
+
+    /**
+     * @param asyncCompletion run the completions in parallel off the input thread
+     * @param completionTimeout default time in milliseconds each completion is given
+     *                          when asyncCompletion is true
+     */
+    public AeshCompletionHandler(AeshContext aeshContext, ConsoleBuffer consoleBuffer,
+                                 Shell shell, boolean doLogging,
+                                 boolean asyncCompletion, long completionTimeout) {
         completionList = new ArrayList<>();
+        completionTimeouts = new HashMap<>();
         this.aeshContext = aeshContext;
         this.consoleBuffer = consoleBuffer;
         this.shell = shell;
         this.doLogging = doLogging;
+        this.asyncCompletion = asyncCompletion;
+        this.completionTimeout = completionTimeout;
     }
 
     @Override
@@ -67,9 +105,68 @@ public class AeshCompletionHandler implements CompletionHandler {
         completionList.add(completion);
     }
 
+    /**
+     * Add a completion that is given timeout milliseconds to finish
+     * when async completion is enabled
+     */
+    public void addCompletion(Completion completion, long timeout) {
+        completionList.add(completion);
+        completionTimeouts.put(completion, timeout);
+    }
+
     @Override
     public void removeCompletion(Completion completion) {
         completionList.remove(completion);
+        if(!completionList.contains(completion))
+            completionTimeouts.remove(completion);
+    }
+
+    /**
+     * Called by the input thread for every key that is read, any
+     * completion that is running is cancelled.
+     *
+     * @return the generation of the key, given to setInputGeneration
+     * before the key is processed
+     */
+    public long inputRead() {
+        long generation = inputGeneration.incrementAndGet();
+        cancelRunningCompletions();
+        return generation;
+    }
+
+    /**
+     * Set the generation of the key that is processed now
+     */
+    public void setInputGeneration(long generation) {
+        completionGeneration = generation;
+    }
+
+    /**
+     * Cancel the async completion that is running, if any
+     */
+    public void cancelCompletion() {
+        inputGeneration.incrementAndGet();
+        cancelRunningCompletions();
+    }
+
+    private void cancelRunningCompletions() {
+        List<Future<CompleteOperation>> futures = runningCompletions;
+        if(futures != null) {
+            runningCompletions = null;
+            for(Future<CompleteOperation> future : futures)
+                future.cancel(true);
+        }
+    }
+
+    /**
+     * Stop the threads used by async completion
+     */
+    public synchronized void stop() {
+        cancelCompletion();
+        if(executorService != null) {
+            executorService.shutdownNow();
+            executorService = null;
+        }
     }
 
     @Override
@@ -111,13 +208,13 @@ public class AeshCompletionHandler implements CompletionHandler {
         if(completionList.size() < 1)
             return;
 
-        List<CompleteOperation> possibleCompletions = new ArrayList<>();
-        int pipeLinePos = 0;
+        List<Completion> selectedCompletions = new ArrayList<>();
+        List<CompleteOperation> completeOperations = new ArrayList<>();
+        int[] operatorPositions = ControlOperatorParser.findLastPipelineAndRedirectionPositionBeforeCursor(
+                buffer.getMultiLine(), buffer.getMultiCursor());
+        int pipeLinePos = operatorPositions[0];
         boolean redirect = false;
-        if(ControlOperatorParser.doStringContainPipelineOrEnd(buffer.getMultiLine())) {
-            pipeLinePos =  ControlOperatorParser.findLastPipelineAndEndPositionBeforeCursor(buffer.getMultiLine(), buffer.getMultiCursor());
-        }
-        if(ControlOperatorParser.findLastRedirectionPositionBeforeCursor(buffer.getMultiLine(), buffer.getMultiCursor()) > pipeLinePos) {
+        if(operatorPositions[1] > pipeLinePos) {
             pipeLinePos = 0;
             redirect = true;
         }
@@ -134,10 +231,27 @@ public class AeshCompletionHandler implements CompletionHandler {
                 co = findAliases(buffer.getMultiLine(), buffer.getMultiCursor());
             }
 
-            completionList.get(i).complete(co);
+            selectedCompletions.add(completionList.get(i));
+            completeOperations.add(co);
+        }
 
-            if(co.getCompletionCandidates() != null && co.getCompletionCandidates().size() > 0)
-                possibleCompletions.add(co);
+        List<CompleteOperation> possibleCompletions;
+        //candidates that are already listed
+        List<TerminalString> displayed = new ArrayList<>();
+        if(asyncCompletion) {
+            possibleCompletions = completeAsync(selectedCompletions, completeOperations, buffer, out, displayed);
+            //the user typed again before we got the result
+            if(possibleCompletions == null)
+                return;
+        }
+        else {
+            possibleCompletions = new ArrayList<>();
+            for(int i=0; i < selectedCompletions.size(); i++) {
+                CompleteOperation co = completeOperations.get(i);
+                selectedCompletions.get(i).complete(co);
+                if(co.getCompletionCandidates() != null && co.getCompletionCandidates().size() > 0)
+                    possibleCompletions.add(co);
+            }
         }
 
         if(doLogging)
@@ -179,8 +293,12 @@ public class AeshCompletionHandler implements CompletionHandler {
                 List<TerminalString> completions = new ArrayList<>();
                 for(int i=0; i < possibleCompletions.size(); i++)
                     completions.addAll(possibleCompletions.get(i).getCompletionCandidates());
+                completions.removeAll(displayed);
 
-                if(completions.size() > 100) {
+                if(completions.isEmpty()) {
+                    //everything is listed already
+                }
+                else if(completions.size() > 100) {
                     //if(displayCompletion) {
                      if(askDisplayCompletion) {
                         displayCompletions(completions, buffer, out);
@@ -199,6 +317,146 @@ public class AeshCompletionHandler implements CompletionHandler {
             }
         }
     }
+    /**
+     * Run all completions in parallel, each of them is cancelled if its
+     * timeout is reached before it's finished. The results are merged in the
+     * order they arrive, while other completions are still running the
+     * candidates are listed as soon as they are found so a slow completion
+     * doesn't hold them back.
+     *
+     * @param displayed the candidates that are listed are added to it
+     * @return the completions with candidates, null if the completion was cancelled
+     */
+    private List<CompleteOperation> completeAsync(List<Completion> completions,
+                                                  List<CompleteOperation> completeOperations,
+                                                  Buffer buffer, PrintStream out,
+                                                  List<TerminalString> displayed) throws IOException {
+        long generation = completionGeneration;
+        if(inputGeneration.get() != generation)
+            return null;
+        CompletionService<CompleteOperation> completionService =
+                new ExecutorCompletionService<>(getExecutorService());
+        List<Future<CompleteOperation>> futures = new ArrayList<>(completions.size());
+        long[] deadlines = new long[completions.size()];
+        long start = System.nanoTime();
+        for(int i=0; i < completions.size(); i++) {
+            futures.add(completionService.submit(
+                    new CompletionTask(completions.get(i), completeOperations.get(i))));
+            deadlines[i] = start + TimeUnit.MILLISECONDS.toNanos(getTimeout(completions.get(i)));
+        }
+        runningCompletions = futures;
+
+        List<CompleteOperation> possibleCompletions = new ArrayList<>();
+        boolean[] done = new boolean[completions.size()];
+        int pending = completions.size();
+        try {
+            while(pending > 0) {
+                //a key read after runningCompletions is set cancel the futures and wake us up
+                if(inputGeneration.get() != generation) {
+                    cancelRunningCompletions();
+                    return null;
+                }
+                long now = System.nanoTime();
+                long nextDeadline = Long.MAX_VALUE;
+                for(int i=0; i < deadlines.length; i++) {
+                    if(done[i])
+                        continue;
+                    if(deadlines[i] - now <= 0) {
+                        if(doLogging)
+                            LOGGER.info("Completion timed out: "+completions.get(i));
+                        futures.get(i).cancel(true);
+                        done[i] = true;
+                        pending--;
+                    }
+                    else if(deadlines[i] - now < nextDeadline)
+                        nextDeadline = deadlines[i] - now;
+                }
+                if(pending == 0)
+                    break;
+
+                Future<CompleteOperation> future = completionService.poll(nextDeadline, TimeUnit.NANOSECONDS);
+                if(future == null)
+                    continue;
+                int index = futures.indexOf(future);
+                if(done[index])
+                    continue;
+                done[index] = true;
+                pending--;
+                if(future.isCancelled())
+                    continue;
+                try {
+                    CompleteOperation co = future.get();
+                    if(co.getCompletionCandidates() != null && co.getCompletionCandidates().size() > 0) {
+                        possibleCompletions.add(co);
+                        if(pending > 0 && displayed.size() + co.getCompletionCandidates().size() <= displayCompletionSize)
+                            displayPartialCompletions(co.getCompletionCandidates(), buffer, out, displayed);
+                    }
+                }
+                catch (ExecutionException e) {
+                    if(doLogging)
+                        LOGGER.warning("Completion failed: "+e.getCause());
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            cancelRunningCompletions();
+            Thread.currentThread().interrupt();
+            return null;
+        }
+
+        if(inputGeneration.get() != generation)
+            return null;
+        runningCompletions = null;
+        return possibleCompletions;
+    }
+
+    /**
+     * List the candidates found while other completions are still running
+     * and write them to the terminal at once
+     */
+    private void displayPartialCompletions(List<TerminalString> candidates, Buffer buffer, PrintStream out,
+                                           List<TerminalString> displayed) throws IOException {
+        displayCompletions(candidates, buffer, out);
+        displayed.addAll(candidates);
+        if(shell instanceof FramedShell)
+            ((FramedShell) shell).flushFrame();
+    }
+
+    private long getTimeout(Completion completion) {
+        Long timeout = completionTimeouts.get(completion);
+        return timeout != null ? timeout : completionTimeout;
+    }
+
+    private synchronized ExecutorService getExecutorService() {
+        if(executorService == null)
+            executorService = Executors.newCachedThreadPool(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = Executors.defaultThreadFactory().newThread(runnable);
+                    thread.setName("aesh-completion-"+thread.getName());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        return executorService;
+    }
+
+    private static class CompletionTask implements Callable<CompleteOperation> {
+        private final Completion completion;
+        private final CompleteOperation completeOperation;
+
+        CompletionTask(Completion completion, CompleteOperation completeOperation) {
+            this.completion = completion;
+            this.completeOperation = completeOperation;
+        }
+
+        @Override
+        public CompleteOperation call() {
+            completion.complete(completeOperation);
+            return completeOperation;
+        }
+    }
+
     /**
      * Display the completion string in the terminal.
      * If !completion.startsWith(buffer.getLine()) the completion will be added to the line,
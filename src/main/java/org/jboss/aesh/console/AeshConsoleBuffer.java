@@ -51,7 +51,9 @@ public class AeshConsoleBuffer implements ConsoleBuffer {
 
     private Action currentAction = Action.EDIT;
 
-    private final boolean isLogging = true;
+    private final LineRenderer renderer = new LineRenderer(Config.isOSPOSIXCompatible());
+
+    private final boolean isLogging;
 
     //used to optimize text deletion
     private static final char[] resetLineAndSetCursorToStart =
@@ -59,7 +61,7 @@ public class AeshConsoleBuffer implements ConsoleBuffer {
 
     private static final Logger LOGGER = LoggerUtil.getLogger(AeshConsoleBuffer.class.getName());
 
-    AeshConsoleBuffer(Prompt prompt, Shell shell, EditMode editMode) {
+    AeshConsoleBuffer(Prompt prompt, Shell shell, EditMode editMode, boolean isLogging) {
         this.out = shell.out();
         this.err = shell.err();
         this.buffer = new Buffer(prompt);
@@ -67,8 +69,10 @@ public class AeshConsoleBuffer implements ConsoleBuffer {
         pasteManager = new PasteManager();
         undoManager = new UndoManager();
         this.editMode = editMode;
+        this.isLogging = isLogging;
 
-        LOGGER.info("prompt: "+this.buffer.getPrompt().getPromptAsString());
+        if(isLogging)
+            LOGGER.info("prompt: "+this.buffer.getPrompt().getPromptAsString());
     }
 
     @Override
@@ -135,7 +139,7 @@ public class AeshConsoleBuffer implements ConsoleBuffer {
                 (buffer.getDelta() < 0 && line.length()+ Math.abs(buffer.getDelta()) > shell.getSize().getWidth())) {
             if(buffer.getDelta() == -1 && buffer.getCursor() >= buffer.length() && Config.isOSPOSIXCompatible())
                 redrawMultipleLinesBackspace();
-            else
+            else if(!drawLineDifference(keepCursorPosition))
                 redrawMultipleLines(keepCursorPosition);
         }
         // only clear the current line
@@ -146,8 +150,9 @@ public class AeshConsoleBuffer implements ConsoleBuffer {
             if(buffer.getDelta() == -1 && buffer.getCursor() >= buffer.length()
                     && currentAction != Action.HISTORY) {
                 out.print(Parser.SPACE_CHAR + ANSI.getStart() + "1D"); //move cursor to left
+                renderer.written(buffer.getCursor(), " ");
             }
-            else {
+            else if(!drawLineDifference(keepCursorPosition)) {
                 //save cursor, move the cursor to the beginning, reset line
                 if(keepCursorPosition)
                     out.print(resetLineAndSetCursorToStart);
@@ -160,11 +165,47 @@ public class AeshConsoleBuffer implements ConsoleBuffer {
                     out.print(buffer.getLine());
                     buffer.setCursor(buffer.getLine().length());
                 }
+                resetRenderer();
             }
         }
         out.flush();
     }
 
+    /**
+     * Only write the part of the line that differ from what is drawn.
+     *
+     * @return false if we do not know what is drawn and the line must be redrawn
+     */
+    private boolean drawLineDifference(boolean keepCursorPosition) {
+        if(buffer.isPromptDisabled() || buffer.getPrompt().isMasking()) {
+            renderer.invalidate();
+            return false;
+        }
+        String output = renderer.render(buffer.getLine(), buffer.getPrompt().getLength(),
+                buffer.getCursor(), shell.getSize().getWidth(), keepCursorPosition);
+        if(output == null)
+            return false;
+        out.print(output);
+        if(!keepCursorPosition)
+            buffer.setCursor(buffer.getLine().length());
+        return true;
+    }
+
+    private void resetRenderer() {
+        if(buffer.isPromptDisabled() || buffer.getPrompt().isMasking())
+            renderer.invalidate();
+        else
+            renderer.reset(buffer.getLine());
+    }
+
+    /**
+     * Only redraw the changed part of the line when possible.
+     * Enabled by default.
+     */
+    void setDifferentialRendering(boolean enabled) {
+        renderer.setEnabled(enabled);
+    }
+
     @Override
     public void updateCurrentAction(Action action) {
         this.currentAction = action;
@@ -218,6 +259,7 @@ public class AeshConsoleBuffer implements ConsoleBuffer {
             out.print(builder.toString());
             buffer.setCursor(buffer.getLine().length());
         }
+        resetRenderer();
     }
 
     private void clearDelta(int currentRow, StringBuilder builder) {
@@ -251,6 +293,7 @@ public class AeshConsoleBuffer implements ConsoleBuffer {
 
     private void redrawMultipleLinesBackspace() {
         out.print(Parser.SPACE_CHAR + ANSI.getStart() + "1D"); //move cursor to left
+        renderer.written(buffer.getCursor(), " ");
     }
 
     @Override
@@ -324,10 +367,51 @@ public class AeshConsoleBuffer implements ConsoleBuffer {
             writeChar((char) c);
     }
 
+    /**
+     * Insert input at the cursor position with one write to the terminal.
+     * Masked input is written char by char.
+     */
     @Override
     public void writeString(String input) {
-        for(char c : input.toCharArray())
-            writeChar(c);
+        if(buffer.getPrompt().isMasking()) {
+            for(char c : input.toCharArray())
+                writeChar(c);
+            return;
+        }
+        if(input.length() == 0)
+            return;
+
+        // if we insert somewhere other than the end of the line we redraw the line once
+        if(buffer.getCursor() < buffer.length()) {
+            int cursor = buffer.getCursor();
+            addRowsForInsert(input.length());
+            buffer.write(input);
+            //the cursor is kept on screen while the line is redrawn, then moved after the insert
+            buffer.setCursor(cursor);
+            drawLine();
+            moveCursor(input.length());
+        }
+        else {
+            int start = buffer.getCursor();
+            boolean edge = false;
+            StringBuilder builder = new StringBuilder(input.length());
+            for(int i = 0; i < input.length(); i++) {
+                buffer.write(input.charAt(i));
+                builder.append(input.charAt(i));
+                // add a 'fake' new line when inserting at the edge of terminal
+                edge = buffer.getCursorWithPrompt() > shell.getSize().getWidth() &&
+                        buffer.getCursorWithPrompt() % shell.getSize().getWidth() == 1;
+                if(edge) {
+                    builder.append((char) 32);
+                    builder.append((char) 13);
+                }
+            }
+            renderer.written(start, input);
+            if(edge)
+                renderer.written(buffer.getCursor(), " ");
+            out.print(builder.toString());
+            out.flush();
+        }
     }
 
     @Override
@@ -337,6 +421,7 @@ public class AeshConsoleBuffer implements ConsoleBuffer {
         //if mask is set and not set to 0 (nullvalue) we write out
         //the masked char. if masked is set to 0 we write nothing
         if(buffer.getPrompt().isMasking()) {
+            renderer.invalidate();
             if(buffer.getPrompt().getMask() != 0)
                 out.print(buffer.getPrompt().getMask());
             else
@@ -344,6 +429,7 @@ public class AeshConsoleBuffer implements ConsoleBuffer {
         }
         else {
             out.print(c);
+            renderer.written(buffer.getCursor() - 1, String.valueOf(c));
         }
 
         // add a 'fake' new line when inserting at the edge of terminal
@@ -351,6 +437,7 @@ public class AeshConsoleBuffer implements ConsoleBuffer {
                 buffer.getCursorWithPrompt() % shell.getSize().getWidth() == 1) {
             out.print((char) 32);
             out.print((char) 13);
+            renderer.written(buffer.getCursor(), " ");
         }
 
         // if we insert somewhere other than the end of the line we need to redraw from cursor
@@ -393,6 +480,7 @@ public class AeshConsoleBuffer implements ConsoleBuffer {
                 out().print(buffer.getLine());
                 buffer.setCursor(buffer.getLine().length());
                 out().flush();
+                renderer.written(0, buffer.getLine());
             }
         }
     }
@@ -431,16 +519,25 @@ public class AeshConsoleBuffer implements ConsoleBuffer {
 
     @Override
     public void insertBufferLine(String insert, int position) {
-        if((insert.length()+buffer.totalLength()) >= shell.getSize().getWidth()) { //&&
+        addRowsForInsert(insert.length());
+        buffer.insert(position, insert);
+    }
+
+    /**
+     * Make sure that there are enough rows below the cursor for the line
+     * when length chars are inserted
+     */
+    private void addRowsForInsert(int length) {
+        if((length+buffer.totalLength()) >= shell.getSize().getWidth()) { //&&
             //(insert.length()+buffer.totalLength()) > buffer.getLine().length()) {
             int currentRow = shell.getCursor().getRow();
             if(currentRow > -1) {
-                int newLine = insert.length()+buffer.totalLength();
+                int newLine = length+buffer.totalLength();
                 int cursorRow = buffer.getCursorWithPrompt() / shell.getSize().getWidth();
                 if(currentRow + (newLine / shell.getSize().getWidth()) - cursorRow >= shell.getSize().getHeight()) {
                     int numNewRows = currentRow + (newLine / shell.getSize().getWidth()) - cursorRow - shell.getSize().getHeight();
                     //if the line is exactly equal to termWidth we need to add another row
-                    if((insert.length()+buffer.totalLength()) % shell.getSize().getWidth() == 0)
+                    if((length+buffer.totalLength()) % shell.getSize().getWidth() == 0)
                         numNewRows++;
                     if(numNewRows > 0) {
                         out.print(Buffer.printAnsi(numNewRows + "S"));
@@ -450,10 +547,10 @@ public class AeshConsoleBuffer implements ConsoleBuffer {
                 }
             }
         }
-        buffer.insert(position, insert);
     }
 
     private void displayPrompt(Prompt prompt) {
+        renderer.reset("");
         if(prompt.hasANSI()) {
             out.print(ANSI.getStart() + "0G" + ANSI.getStart() + "2K");
             out.print(prompt.getANSI());
@@ -568,7 +665,10 @@ public class AeshConsoleBuffer implements ConsoleBuffer {
         if(includeBuffer) {
             displayPrompt();
             out().print(buffer.getLine());
+            resetRenderer();
         }
+        else
+            renderer.invalidate();
         out().flush();
     }
 
@@ -31,6 +31,7 @@ public class AeshConsoleBufferBuilder {
     private Prompt prompt;
     private Shell shell;
     private EditMode editMode;
+    private boolean logging = false;
 
     public AeshConsoleBufferBuilder() {
     }
@@ -50,6 +51,11 @@ public class AeshConsoleBufferBuilder {
         return this;
     }
 
+    public AeshConsoleBufferBuilder logging(boolean logging) {
+        this.logging = logging;
+        return this;
+    }
+
     public ConsoleBuffer create() {
         if(shell == null)
             throw new IllegalArgumentException("Shell must be provided to create ConsoleBuffer");
@@ -58,6 +64,6 @@ public class AeshConsoleBufferBuilder {
         if(prompt == null)
             prompt = new Prompt("");
 
-        return new AeshConsoleBuffer(prompt, shell, editMode);
+        return new AeshConsoleBuffer(prompt, shell, editMode, logging);
     }
 }
@@ -202,13 +202,14 @@ public class AeshConsoleImpl implements AeshConsole {
         }
         if(!(invocationProviders.getOptionActivatorProvider() instanceof AeshOptionActivatorProvider)) {
             //we have a custom OptionActivatorProvider, and need to process all options
-            try {
-                for (String commandName : registry.getAllCommandNames()) {
+            //lazy commands will be built here and might be removed if they fail
+            for (String commandName : new ArrayList<>(registry.getAllCommandNames())) {
+                try {
                     registry.getCommand(commandName, "").getParser().getProcessedCommand().processAfterInit(invocationProviders);
                 }
-            }
-            catch (CommandNotFoundException e) {
-                e.printStackTrace();
+                catch (CommandNotFoundException e) {
+                    e.printStackTrace();
+                }
             }
 
 
@@ -219,9 +220,8 @@ public class AeshConsoleImpl implements AeshConsole {
         List<String> matchedCommands = registry.findAllCommandNames(input);
         if(matchedCommands == null)
             matchedCommands = new ArrayList<>();
-        for(String internalCommand : internalRegistry.getAllCommandNames())
-            if(internalCommand.startsWith(input))
-                matchedCommands.add(internalCommand);
+        if(internalRegistry != null)
+            matchedCommands.addAll(internalRegistry.findAllCommandNames(input));
 
         return matchedCommands;
 
@@ -311,7 +311,6 @@ public class AeshConsoleImpl implements AeshConsole {
     class AeshConsoleCallbackImpl extends AeshConsoleCallback {
 
         private final AeshConsoleImpl console;
-        private CommandResult result;
 
         AeshConsoleCallbackImpl(AeshConsoleImpl aeshConsole) {
             this.console = aeshConsole;
@@ -320,9 +319,11 @@ public class AeshConsoleImpl implements AeshConsole {
         @Override
         @SuppressWarnings("unchecked")
         public int execute(ConsoleOperation output) throws InterruptedException {
+            //the commands of a pipeline can be executed at the same time
+            CommandResult result;
             if (output != null && output.getBuffer().trim().length() > 0) {
                 ResultHandler resultHandler = null;
-                AeshLine aeshLine = Parser.findAllWords(output.getBuffer());
+                AeshLine aeshLine = output.getTokenizedLine().toAeshLine();
                 try (CommandContainer commandContainer = getCommand( aeshLine, output.getBuffer())) {
                     CommandContainerResult ccResult =
                             commandContainer.executeCommand(aeshLine, invocationProviders, getAeshContext(),
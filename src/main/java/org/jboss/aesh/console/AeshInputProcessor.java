@@ -79,6 +79,29 @@ public class AeshInputProcessor implements InputProcessor {
             this.searchDisabled = true;
     }
 
+    /**
+     * Pasted text is inserted into the buffer in one operation,
+     * except when searching where each char is part of the search.
+     */
+    private String parsePaste(CommandOperation commandOperation) throws IOException {
+        if(search != null) {
+            int[] input = commandOperation.getInput();
+            int position = 0;
+            while(position < input.length) {
+                Key key = Key.findStartKey(input, position);
+                String result = parseOperation(new CommandOperation(key, input, position));
+                if(result != null)
+                    return result;
+                position += key.getKeyValues().length;
+            }
+        }
+        else {
+            consoleBuffer.addActionToUndoStack();
+            consoleBuffer.writeString(commandOperation.getPaste());
+        }
+        return null;
+    }
+
     @Override
     public void resetBuffer() {
         consoleBuffer.getBuffer().reset();
@@ -87,6 +110,8 @@ public class AeshInputProcessor implements InputProcessor {
 
     @Override
     public String parseOperation(CommandOperation commandOperation) throws IOException {
+        if(commandOperation.isPaste())
+            return parsePaste(commandOperation);
 
         Operation operation = consoleBuffer.getEditMode().parseInput(commandOperation.getInputKey(),
                 consoleBuffer.getBuffer().getLine());
@@ -19,6 +19,7 @@ package org.jboss.aesh.console;
 
 import org.jboss.aesh.console.command.CommandOperation;
 import org.jboss.aesh.console.command.CommandResult;
+import org.jboss.aesh.console.operator.ControlOperator;
 
 /**
  * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
@@ -28,19 +29,52 @@ public class AeshProcess implements Runnable, Process {
     private ProcessManager manager;
     private final ConsoleCallback consoleCallback;
     private final ConsoleOperation operation;
+    private final Pipeline pipeline;
+    //null if the process is not under job control
+    private final JobOutput job;
     private CommandResult exitResult;
-    private Thread myThread;
-    private Status status;
+    private volatile Thread myThread;
+    private volatile Status status;
 
     public AeshProcess(int pid, ProcessManager manager,
                        ConsoleCallback consoleCallback,
                        ConsoleOperation consoleOperation) {
+        this(pid, manager, consoleCallback, consoleOperation, null, null);
+    }
+
+    /**
+     * A process under job control, it is started in the background if
+     * the operation end with &amp;.
+     */
+    AeshProcess(int pid, ProcessManager manager, ConsoleCallback consoleCallback,
+                ConsoleOperation consoleOperation, JobOutput job) {
+        this(pid, manager, consoleCallback, consoleOperation, null, job);
+    }
+
+    /**
+     * A process that run all the commands of the pipeline.
+     * The operation of the process is the last command of the pipeline.
+     */
+    AeshProcess(int pid, ProcessManager manager,
+                ConsoleCallback consoleCallback, Pipeline pipeline, JobOutput job) {
+        this(pid, manager, consoleCallback, pipeline.getLastOperation(), pipeline, job);
+        pipeline.setPid(pid);
+    }
+
+    private AeshProcess(int pid, ProcessManager manager,
+                        ConsoleCallback consoleCallback,
+                        ConsoleOperation consoleOperation, Pipeline pipeline, JobOutput job) {
         this.manager = manager;
         this.consoleCallback = consoleCallback;
         this.operation = consoleOperation;
+        this.pipeline = pipeline;
+        this.job = job;
         this.consoleCallback.setProcess(this);
         this.operation.setPid(pid);
-        status = Status.FOREGROUND;
+        if(job != null && consoleOperation.getControlOperator() == ControlOperator.AMP)
+            status = Status.BACKGROUND;
+        else
+            status = Status.FOREGROUND;
     }
 
     @Override
@@ -48,13 +82,18 @@ public class AeshProcess implements Runnable, Process {
         try {
             Thread.currentThread().setName("AeshProcess: " + operation.getPid());
             myThread = Thread.currentThread();
-            setExitResult( consoleCallback.execute(operation));
+            JobOutput.setCurrent(job);
+            if(pipeline != null)
+                setExitResult( pipeline.execute(consoleCallback, manager.getExecutorService()));
+            else
+                setExitResult( consoleCallback.execute(operation));
         }
         catch (InterruptedException e) {
             setExitResult(-1);
             //e.printStackTrace();
         }
         finally {
+            JobOutput.setCurrent(null);
             manager.processHaveFinished(this);
         }
     }
@@ -69,6 +108,20 @@ public class AeshProcess implements Runnable, Process {
         return manager.getInput(getPID());
     }
 
+    /**
+     * @return the output of the job, null if the process is not under job control
+     */
+    JobOutput getJobOutput() {
+        return job;
+    }
+
+    /**
+     * @return the command line of the process
+     */
+    String getCommand() {
+        return pipeline != null ? pipeline.getCommand() : operation.getBuffer();
+    }
+
     @Override
     public int getPID() {
         return operation.getPid();
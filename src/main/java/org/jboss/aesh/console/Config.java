@@ -17,6 +17,7 @@
  */
 package org.jboss.aesh.console;
 
+import org.jboss.aesh.console.settings.ExecutionMode;
 import org.jboss.aesh.console.settings.Settings;
 import org.jboss.aesh.console.settings.SettingsBuilder;
 import org.jboss.aesh.edit.Mode;
@@ -278,6 +279,12 @@ public class Config {
                         historyPersistent.equalsIgnoreCase("false"))
                     builder.persistHistory(Boolean.parseBoolean(historyPersistent));
 
+            String historyJournal = System.getProperty("aesh.historyjournal");
+            if(historyJournal != null && historyJournal.length() > 0)
+                if(historyJournal.equalsIgnoreCase("true") ||
+                        historyJournal.equalsIgnoreCase("false"))
+                    builder.historyJournal(Boolean.parseBoolean(historyJournal));
+
             String historyDisabled = System.getProperty("aesh.historydisabled");
             if(historyDisabled != null && historyDisabled.length() > 0)
                 if(historyDisabled.equalsIgnoreCase("true") ||
@@ -304,6 +311,54 @@ public class Config {
                         disableCompletion.equalsIgnoreCase("false"))
                     builder.disableCompletion(Boolean.parseBoolean(disableCompletion));
 
+            String asyncCompletion = System.getProperty("aesh.asynccompletion");
+            if(asyncCompletion != null && asyncCompletion.length() > 0)
+                if(asyncCompletion.equalsIgnoreCase("true") ||
+                        asyncCompletion.equalsIgnoreCase("false"))
+                    builder.asyncCompletion(Boolean.parseBoolean(asyncCompletion));
+
+            String completionTimeout = System.getProperty("aesh.completiontimeout");
+            if(completionTimeout != null && completionTimeout.length() > 0)
+                builder.completionTimeout(Long.parseLong(completionTimeout));
+
+            String concurrentPipeline = System.getProperty("aesh.concurrentpipeline");
+            if(concurrentPipeline != null && concurrentPipeline.length() > 0)
+                if(concurrentPipeline.equalsIgnoreCase("true") ||
+                        concurrentPipeline.equalsIgnoreCase("false"))
+                    builder.concurrentPipeline(Boolean.parseBoolean(concurrentPipeline));
+
+            String streamRedirection = System.getProperty("aesh.streamredirection");
+            if(streamRedirection != null && streamRedirection.length() > 0)
+                if(streamRedirection.equalsIgnoreCase("true") ||
+                        streamRedirection.equalsIgnoreCase("false"))
+                    builder.streamRedirection(Boolean.parseBoolean(streamRedirection));
+
+            String directBuffer = System.getProperty("aesh.streamredirectiondirectbuffer");
+            if(directBuffer != null && directBuffer.length() > 0)
+                if(directBuffer.equalsIgnoreCase("true") ||
+                        directBuffer.equalsIgnoreCase("false"))
+                    builder.streamRedirectionDirectBuffer(Boolean.parseBoolean(directBuffer));
+
+            String writeCombining = System.getProperty("aesh.writecombining");
+            if(writeCombining != null && writeCombining.length() > 0)
+                if(writeCombining.equalsIgnoreCase("true") ||
+                        writeCombining.equalsIgnoreCase("false"))
+                    builder.writeCombining(Boolean.parseBoolean(writeCombining));
+
+            String jobControl = System.getProperty("aesh.jobcontrol");
+            if(jobControl != null && jobControl.length() > 0)
+                if(jobControl.equalsIgnoreCase("true") ||
+                        jobControl.equalsIgnoreCase("false"))
+                    builder.jobControl(Boolean.parseBoolean(jobControl));
+
+            String executionMode = System.getProperty("aesh.executionmode");
+            if(executionMode != null && executionMode.length() > 0) {
+                if(executionMode.equalsIgnoreCase("DEDICATED"))
+                    builder.executionMode(ExecutionMode.DEDICATED);
+                else if(executionMode.equalsIgnoreCase("SHARED"))
+                    builder.executionMode(ExecutionMode.SHARED);
+            }
+
           }
         catch (ClassNotFoundException e) {
             if(settings.isLogging())
@@ -21,13 +21,17 @@ import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.ThreadFactory;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -44,16 +48,21 @@ import org.jboss.aesh.console.export.ExportManager;
 import org.jboss.aesh.console.operator.ControlOperator;
 import org.jboss.aesh.console.operator.ControlOperatorParser;
 import org.jboss.aesh.console.operator.RedirectionCompletion;
+import org.jboss.aesh.console.reader.AeshInputStream;
 import org.jboss.aesh.console.reader.AeshStandardStream;
+import org.jboss.aesh.console.settings.ExecutionMode;
 import org.jboss.aesh.console.settings.Settings;
 import org.jboss.aesh.edit.EditMode;
 import org.jboss.aesh.edit.actions.Action;
 import org.jboss.aesh.history.History;
+import org.jboss.aesh.io.FrameOutputStream;
 import org.jboss.aesh.io.Resource;
-import org.jboss.aesh.parser.AeshLine;
 import org.jboss.aesh.parser.Parser;
+import org.jboss.aesh.parser.TokenizedLine;
 import org.jboss.aesh.terminal.CursorPosition;
+import org.jboss.aesh.terminal.FramedShell;
 import org.jboss.aesh.terminal.Key;
+import org.jboss.aesh.terminal.KeyDecoder;
 import org.jboss.aesh.terminal.Shell;
 import org.jboss.aesh.terminal.Terminal;
 import org.jboss.aesh.terminal.TerminalSize;
@@ -75,19 +84,40 @@ public class Console {
     private volatile boolean running = false;
     private ByteArrayOutputStream redirectPipeOutBuffer;
     private ByteArrayOutputStream redirectPipeErrBuffer;
+    private PrintStream redirectPipeOut;
+    private PrintStream redirectPipeErr;
     private List<ConsoleOperation> operations;
     private ConsoleOperation currentOperation;
+    //the commands to run together with currentOperation, null if it is run alone
+    private Pipeline pipeline;
+    //the file the output of currentOperation is streamed to, null if it is buffered
+    private PrintStream redirection;
     private AliasManager aliasManager;
     private ExportManager exportManager;
     private Shell shell;
+    //the terminal streams, null frame streams if write combining is disabled
+    private FrameOutputStream frameOut;
+    private FrameOutputStream frameErr;
+    private PrintStream stdOut;
+    private PrintStream stdErr;
 
-    private ArrayBlockingQueue<CommandOperation> inputQueue;
+    private LinkedBlockingDeque<CommandOperation> inputQueue;
+    private final KeyDecoder keyDecoder = new KeyDecoder();
+    //not null while we are reading a bracketed paste
+    private StringBuilder pasteBuffer;
+
+    private static final String PASTE_END = new String(Key.BRACKETED_PASTE_END.getKeyValues(), 0,
+            Key.BRACKETED_PASTE_END.getKeyValues().length);
 
     private ArrayBlockingQueue<int[]> cursorQueue;
     private transient boolean readingCursor = false;
 
     private ExecutorService readerService;
     private ExecutorService executorService;
+    //with ExecutionMode.SHARED the read loop run on the shared scheduler, the process
+    //loop can block on completions and cursor queries so it run on the process executor
+    private SharedScheduler.Lane readLane;
+    private SharedScheduler.Lane executeLane;
 
     private AeshContext context;
 
@@ -102,6 +132,16 @@ public class Console {
 
     private static final Logger LOGGER = LoggerUtil.getLogger(Console.class.getName());
 
+    private static final OutputStream DISCARD = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
     public Console(final Settings settings) {
         this.settings = settings;
         try {
@@ -169,35 +209,52 @@ public class Console {
 
         settings = Config.readRuntimeProperties(settings);
 
+        if(settings.isLogging())
+            LoggerUtil.enableLogging();
+
         //init terminal
         settings.getTerminal().init(settings);
 
         EditMode editMode = settings.getEditMode();
         editMode.init(this);
 
-        inputQueue = new ArrayBlockingQueue<>(50000);
+        inputQueue = new LinkedBlockingDeque<>(50000);
         cursorQueue = new ArrayBlockingQueue<>(1);
 
-        processManager = new ProcessManager(this, settings.isLogging());
+        processManager = new ProcessManager(this, settings.isLogging(), settings.getExecutionMode());
 
         operations = new ArrayList<>();
         currentOperation = null;
 
         standardStream = new AeshStandardStream();
 
-        redirectPipeOutBuffer = new ByteArrayOutputStream();
-        redirectPipeErrBuffer = new ByteArrayOutputStream();
+        resetRedirectPipeBuffers();
         //setPrompt(new Prompt(""));
 
+        if(settings.isWriteCombining()) {
+            frameOut = new FrameOutputStream(getInternalShell().out());
+            frameErr = new FrameOutputStream(getInternalShell().err());
+            stdOut = new PrintStream(frameOut);
+            stdErr = new PrintStream(frameErr);
+        }
+        else {
+            frameOut = null;
+            frameErr = null;
+            stdOut = getInternalShell().out();
+            stdErr = getInternalShell().err();
+        }
+
         shell = new ConsoleShell(getInternalShell(), this);
 
         consoleBuffer = new AeshConsoleBufferBuilder()
                 .shell(shell)
                         //.buffer() buffer = new Buffer(settings.isAnsiConsole(), null);
                 .editMode(editMode)
+                .logging(settings.isLogging())
                 .create();
 
-        completionHandler = new AeshCompletionHandler(context, consoleBuffer, shell, true);
+        completionHandler = new AeshCompletionHandler(context, consoleBuffer, shell, settings.isLogging(),
+                settings.isAsyncCompletion(), settings.getCompletionTimeout());
         //enable completion for redirection
         completionHandler.addCompletion( new RedirectionCompletion());
 
@@ -205,7 +262,8 @@ public class Console {
         if(settings.isAliasEnabled()) {
             if(settings.isLogging())
                 LOGGER.info("enable aliasmanager with file: "+settings.getAliasFile());
-            aliasManager = new AliasManager(settings.getAliasFile(), settings.doPersistAlias(), settings.getName());
+            aliasManager = new AliasManager(settings.getAliasFile(), settings.doPersistAlias(), settings.getName(),
+                    settings.isLogging());
             completionHandler.addCompletion(new AliasCompletion(aliasManager));
             completionHandler.setAliasManager(aliasManager);
         }
@@ -298,33 +356,57 @@ public class Console {
         if(consoleCallback == null)
             throw new IllegalStateException("Not possible to start the Console without setting ConsoleCallback");
         running = true;
+        if(isBracketedPasteEnabled()) {
+            stdOut.print(ANSI.enableBracketedPaste());
+            stdOut.flush();
+        }
         displayPrompt();
         startReader();
         startExecutor();
     }
 
     private PrintStream out() {
+        //a command in a pipeline write to the next pipe
+        Pipeline.Stage stage = Pipeline.getCurrentStage();
+        if(stage != null && stage.getOut() != null)
+            return stage.getOut();
+        //a job is buffered while it is in the background
+        JobOutput job = JobOutput.getCurrent();
+        if(job != null)
+            return job.getOut();
         //if redirection enabled, put it into a buffer
         if(currentOperation != null && currentOperation.getControlOperator().isRedirectionOut()) {
-            return new PrintStream(redirectPipeOutBuffer, true);
+            if(redirection != null && currentOperation.getControlOperator().isOut())
+                return redirection;
+            return redirectPipeOut;
         }
         else {
-            return getInternalShell().out();
+            return stdOut;
         }
     }
 
     private PrintStream err(){
+        Pipeline.Stage stage = Pipeline.getCurrentStage();
+        if(stage != null && stage.getErr() != null)
+            return stage.getErr();
+        JobOutput job = JobOutput.getCurrent();
+        if(job != null)
+            return job.getErr();
         //if redirection enabled, put it into a buffer
         if(currentOperation != null && currentOperation.getControlOperator().isRedirectionErr()) {
-            return new PrintStream(redirectPipeErrBuffer, true);
+            if(redirection != null && currentOperation.getControlOperator().isErr())
+                return redirection;
+            return redirectPipeErr;
         }
         else {
-            return getInternalShell().err();
+            return stdErr;
         }
     }
 
-    //TODO:
     private AeshStandardStream in() {
+        Pipeline.Stage stage = Pipeline.getCurrentStage();
+        if(stage != null)
+            return stage.getIn();
         return standardStream;
     }
 
@@ -347,6 +429,27 @@ public class Console {
         };
     }
 
+    /**
+     * Add a Completion to the completion list that is given
+     * timeout milliseconds to finish when async completion is enabled
+     *
+     * @param completion comp
+     * @param timeout timeout in milliseconds
+     */
+    public CompletionRegistration addCompletion(final Completion completion, long timeout) {
+        //only the aesh handler support timeouts
+        if(completionHandler instanceof AeshCompletionHandler)
+            ((AeshCompletionHandler) completionHandler).addCompletion(completion, timeout);
+        else
+            completionHandler.addCompletion(completion);
+        return new CompletionRegistration() {
+            @Override
+            public void removeCompletion() {
+                completionHandler.removeCompletion(completion);
+            }
+        };
+    }
+
     public void stop() {
         initiateStop = true;
         try {
@@ -367,6 +470,10 @@ public class Console {
         if(running) {
             try {
                 running = false;
+                if(isBracketedPasteEnabled()) {
+                    stdOut.print(ANSI.disableBracketedPaste());
+                    stdOut.flush();
+                }
                 getTerminal().close();
                 getTerminal().reset();
                 inputProcessor.getHistory().stop();
@@ -377,8 +484,11 @@ public class Console {
                 if(settings.isLogging())
                     LOGGER.info("Done stopping reading thread. Terminal is reset");
                 processManager.stop();
+                if(completionHandler instanceof AeshCompletionHandler)
+                    ((AeshCompletionHandler) completionHandler).stop();
                 readerService.shutdown();
-                executorService.shutdown();
+                //the executor is blocked waiting for input
+                executorService.shutdownNow();
             }
             finally {
                 settings.getInputStream().close();
@@ -406,6 +516,27 @@ public class Console {
         return inputQueue.take();
     }
 
+    /**
+     * @return the next input, null if there is none. Called by the
+     * process manager while holding the foreground lock.
+     */
+    CommandOperation pollInput() {
+        return inputQueue.poll();
+    }
+
+    /**
+     * Called when the foreground process have changed, the process
+     * loop might have input to process
+     */
+    void foregroundProcessChanged() {
+        signalExecutor();
+    }
+
+    private void signalExecutor() {
+        if(executeLane != null)
+            executeLane.signal();
+    }
+
     protected InputProcessor getInputProcessor() {
         return inputProcessor;
     }
@@ -415,17 +546,13 @@ public class Console {
     }
 
     protected void putProcessInForeground(int pid) {
-        processManager.putProcessInBackground(pid);
+        processManager.putProcessInForeground(pid);
     }
 
     public void pushToInputStream(String input) {
         getTerminal().getInputStream().write(input);
     }
 
-    private boolean hasInput() {
-        return inputQueue.size() > 0;
-    }
-
     /**
      * @return get the current shell
      */
@@ -449,12 +576,14 @@ public class Console {
             catch (IOException e) { e.printStackTrace(); }
 
             if(tmpOutput != null && !readerService.isShutdown())
-                processManager.startNewProcess(consoleCallback, tmpOutput);
+                startNewProcess(tmpOutput);
 
+            printFinishedJobs();
             inputProcessor.clearBufferAndDisplayPrompt();
         }
         else {
             inputProcessor.resetBuffer();
+            printFinishedJobs();
             if(initiateStop) {
                 try {
                     doStop();
@@ -490,6 +619,23 @@ public class Console {
      * operations/completions/etc
      */
     private void startReader() {
+        if(settings.getExecutionMode() == ExecutionMode.SHARED) {
+            readLane = SharedScheduler.newLane(new Runnable() {
+                @Override
+                public void run() {
+                    readAvailable();
+                }
+            });
+            getTerminal().getInputStream().setInputListener(new Runnable() {
+                @Override
+                public void run() {
+                    readLane.signal();
+                }
+            });
+            //input might have arrived before the listener was set
+            readLane.signal();
+            return;
+        }
         Runnable reader = new Runnable() {
             @Override
             public void run() {
@@ -510,18 +656,58 @@ public class Console {
         readerService.execute(reader);
     }
 
+    /**
+     * Read and process the input that is available without blocking,
+     * used when the console run on the shared scheduler.
+     */
+    private void readAvailable() {
+        if(readerService.isShutdown())
+            return;
+        AeshInputStream input = getTerminal().getInputStream();
+        boolean reading = false;
+        try {
+            while(input.available() > 0 || input.isClosed()) {
+                if(!read())
+                    return;
+                signalExecutor();
+            }
+            reading = true;
+        }
+        finally {
+            if(!reading) {
+                try {
+                    doStop();
+                }
+                catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
     private void startExecutor() {
+        if(settings.getExecutionMode() == ExecutionMode.SHARED) {
+            executeLane = SharedScheduler.newLane(new Runnable() {
+                @Override
+                public void run() {
+                    executeAvailable();
+                }
+            }, SharedScheduler.getProcessExecutor());
+            executeLane.signal();
+            return;
+        }
         Runnable reader = new Runnable() {
             @Override
             public void run() {
                 try {
                     while(!executorService.isShutdown()) {
                         execute();
-                        Thread.sleep(10);
                     }
                 }
                 catch (InterruptedException ie) {
-                    ie.printStackTrace();
+                    //we're interrupted when the console is stopped
+                    if(!executorService.isShutdown())
+                        ie.printStackTrace();
                 }
                 finally {
                     try {
@@ -558,20 +744,26 @@ public class Console {
                 return false;
             }
 
-            boolean parsing = true;
-            //use a position instead of changing the array
-            int position = 0;
+            if(pasteBuffer != null) {
+                input = readPaste(input, 0);
+                //the paste has not ended yet
+                if(input == null)
+                    return true;
+            }
             //if we get a paste or have input lag this should parse it correctly...
-            while(parsing) {
-                Key inc = Key.findStartKey(input, position);
-                if(input.length > inc.getKeyValues().length+position) {
-                    position += inc.getKeyValues().length;
-                }
-                else {
-                    parsing = false;
+            keyDecoder.setInput(input);
+            while(keyDecoder.hasNext()) {
+                Key inc = keyDecoder.next();
+                if(inc == Key.BRACKETED_PASTE_START) {
+                    pasteBuffer = new StringBuilder();
+                    int[] rest = readPaste(keyDecoder.getInput(),
+                            keyDecoder.getPosition() + inc.getKeyValues().length);
+                    if(rest == null)
+                        return true;
+                    keyDecoder.setInput(rest);
                 }
                 //if we get ctrl-c/d while a process is running we'll try to kill
-                if((inc == Key.CTRL_C || inc == Key.CTRL_D) &&
+                else if((inc == Key.CTRL_C || inc == Key.CTRL_D) &&
                         processManager.hasForegroundProcess()) {
                     //try to kill running process
                     try {
@@ -583,8 +775,13 @@ public class Console {
                         ie.printStackTrace();
                     }
                 }
+                //ctrl-z stop the process if it is a job, if not the process get it
+                else if(inc == Key.CTRL_Z && settings.isJobControl() &&
+                        processManager.hasForegroundProcess() && stopForegroundJob()) {
+                    //the job is stopped
+                }
                 else {
-                    inputQueue.put(new CommandOperation(inc, input, position));
+                    queueInput(new CommandOperation(inc, keyDecoder.getInput(), keyDecoder.getPosition()));
                 }
             }
             return true;
@@ -610,14 +807,162 @@ public class Console {
         }
     }
 
-    private void execute() {
-        while(!processManager.hasForegroundProcess() && hasInput()) {
+    /**
+     * Add input from position to the paste buffer until the end of the paste is found.
+     *
+     * @return the input after the paste or null if the paste has not ended
+     */
+    private int[] readPaste(int[] input, int position) throws InterruptedException {
+        //the end of the paste might be split between two reads
+        int searchFrom = Math.max(0, pasteBuffer.length() - PASTE_END.length() + 1);
+        for(int i = position; i < input.length; i++)
+            pasteBuffer.append((char) input[i]);
+
+        int end = pasteBuffer.indexOf(PASTE_END, searchFrom);
+        if(end < 0)
+            return null;
+
+        int[] rest = new int[pasteBuffer.length() - end - PASTE_END.length()];
+        for(int i = 0; i < rest.length; i++)
+            rest[i] = pasteBuffer.charAt(end + PASTE_END.length() + i);
+        pasteBuffer.setLength(end);
+        pushPaste(pasteBuffer.toString());
+        pasteBuffer = null;
+        return rest;
+    }
+
+    /**
+     * Each pasted line is added as one operation followed by an enter.
+     * If a process is running it will get the pasted input as key strokes.
+     */
+    private void pushPaste(String paste) throws InterruptedException {
+        if(processManager.hasForegroundProcess()) {
+            int[] input = new int[paste.length()];
+            for(int i = 0; i < input.length; i++)
+                input[i] = paste.charAt(i);
+            int position = 0;
+            while(position < input.length) {
+                Key key = Key.findStartKey(input, position);
+                queueInput(new CommandOperation(key, input, position));
+                position += key.getKeyValues().length;
+            }
+            return;
+        }
+
+        int start = 0;
+        for(int i = 0; i < paste.length(); i++) {
+            char c = paste.charAt(i);
+            if(c == '\r' || c == '\n') {
+                if(i > start)
+                    queueInput(new CommandOperation(paste.substring(start, i)));
+                //\r\n is one line separator
+                if(c == '\r' || i == 0 || paste.charAt(i - 1) != '\r')
+                    queueInput(new CommandOperation(Key.ENTER));
+                start = i + 1;
+            }
+        }
+        if(start < paste.length())
+            queueInput(new CommandOperation(paste.substring(start)));
+    }
+
+    /**
+     * Queue input that is read from the terminal, the user typed again
+     * so a running completion is no longer valid
+     */
+    private void queueInput(CommandOperation commandOperation) throws InterruptedException {
+        if(completionHandler instanceof AeshCompletionHandler)
+            commandOperation.setInputGeneration(((AeshCompletionHandler) completionHandler).inputRead());
+        inputQueue.put(commandOperation);
+        processManager.inputQueued();
+    }
+
+    private boolean isBracketedPasteEnabled() {
+        return settings.isBracketedPaste() && settings.isAnsiConsole();
+    }
+
+    /**
+     * Block until no process is running in the foreground and
+     * there is input to process.
+     */
+    private void execute() throws InterruptedException {
+        execute(processManager.takeInput(-1));
+    }
+
+    /**
+     * Process the input that is queued until a process is started in the
+     * foreground, used when the console run on the shared scheduler.
+     * Signaled when input is added and when the foreground process change.
+     */
+    private void executeAvailable() {
+        try {
+            while(!executorService.isShutdown()) {
+                //null if a process own the input, it might have been started by another thread
+                CommandOperation commandOperation = processManager.pollConsoleInput();
+                if(commandOperation == null)
+                    return;
+                execute(commandOperation);
+            }
+        }
+        catch (InterruptedException ie) {
+            if(!executorService.isShutdown())
+                ie.printStackTrace();
+        }
+    }
+
+    private void execute(CommandOperation commandOperation) throws InterruptedException {
+        if(completionHandler instanceof AeshCompletionHandler)
+            ((AeshCompletionHandler) completionHandler).setInputGeneration(commandOperation.getInputGeneration());
+        //everything drawn for this input is written to the terminal at once
+        beginFrame();
+        try {
+            processInternalOperation(commandOperation);
+        }
+        catch (IOException e) {
+            if(settings.isLogging())
+                LOGGER.warning("Execution exception: "+e.getMessage());
+        }
+        finally {
+            endFrame();
+        }
+    }
+
+    private void beginFrame() {
+        if(frameOut != null) {
+            frameOut.beginFrame();
+            frameErr.beginFrame();
+        }
+    }
+
+    private void endFrame() {
+        if(frameOut != null) {
+            try {
+                try {
+                    frameOut.endFrame();
+                }
+                finally {
+                    frameErr.endFrame();
+                }
+            }
+            catch (IOException e) {
+                if(settings.isLogging())
+                    LOGGER.warning("Failed to write frame: "+e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Write what the current frame hold so far, used before
+     * we wait for the terminal or bypass the console streams
+     */
+    private void flushFrame() {
+        if(frameOut != null) {
             try {
-                processInternalOperation(getInput());
+                frameOut.flushFrame();
+                frameErr.flushFrame();
             }
-            catch (IOException | InterruptedException e) {
+            catch (IOException e) {
                 if(settings.isLogging())
-                    LOGGER.warning("Execution exception: "+e.getMessage());
+                    LOGGER.warning("Failed to write frame: "+e.getMessage());
             }
         }
     }
@@ -629,6 +974,7 @@ public class Console {
     }
 
     private void processOperationResult(String result) {
+        printFinishedJobs();
         try {
             //if the input length is 0 we should exit quickly
             if(result.length() == 0) {
@@ -649,12 +995,15 @@ public class Console {
             ConsoleOperation output = parseOperations();
             output = processInternalCommands(output);
             if(output.getBuffer() != null) {
-                processManager.startNewProcess(consoleCallback, output);
+                //the prompt is displayed when a foreground process is done
+                if(!startNewProcess(output))
+                    inputProcessor.clearBufferAndDisplayPrompt();
                 //abort if the user have initiated stop
                 //if(readerService.isShutdown())
                 //    return;
             }
-            else {
+            //fg put a job in the foreground
+            else if(!processManager.hasForegroundProcess()) {
                 inputProcessor.clearBufferAndDisplayPrompt();
             }
         }
@@ -664,6 +1013,110 @@ public class Console {
         }
     }
 
+    /**
+     * @return true if the process is run in the foreground
+     */
+    private boolean startNewProcess(ConsoleOperation output) {
+        if(isJob())
+            return startNewJob(output);
+
+        if(settings.isStreamRedirection() && currentOperation != null && operations.size() > 0 &&
+                (currentOperation.getControlOperator().isOut() || currentOperation.getControlOperator().isErr()))
+            openRedirection();
+
+        if(pipeline != null) {
+            Pipeline current = pipeline;
+            pipeline = null;
+            processManager.startNewPipeline(consoleCallback, current, null);
+        }
+        else
+            processManager.startNewProcess(consoleCallback, output);
+        return true;
+    }
+
+    /**
+     * A command or concurrent pipeline that is the last on the line, or that
+     * end with &amp;, is run under job control. Redirections and commands
+     * that are run after the process depend on the state of the console
+     * and are run in the foreground without job control.
+     */
+    private boolean isJob() {
+        return settings.isJobControl() && currentOperation == null && redirection == null;
+    }
+
+    private boolean startNewJob(ConsoleOperation output) {
+        boolean background = output.getControlOperator() == ControlOperator.AMP;
+        JobOutput job = new JobOutput(stdOut, stdErr, background);
+        Process process;
+        if(pipeline != null) {
+            Pipeline current = pipeline;
+            pipeline = null;
+            process = processManager.startNewPipeline(consoleCallback, current, job);
+        }
+        else
+            process = processManager.startNewJob(consoleCallback, output, job);
+        if(!background)
+            return true;
+
+        stdOut.println("[" + process.getPID() + "] " + output.getBuffer().trim());
+        stdOut.flush();
+        //the rest of the line is run at once
+        if(operations.size() > 0) {
+            try {
+                ConsoleOperation next = processInternalCommands(parseOperations());
+                if(next.getBuffer() != null)
+                    return startNewProcess(next);
+            }
+            catch (IOException e) {
+                if(settings.isLogging())
+                    LOGGER.severe("Stream failure: "+e);
+            }
+        }
+        return processManager.hasForegroundProcess();
+    }
+
+    /**
+     * ctrl-z, stop the job in the foreground and display the prompt
+     *
+     * @return false if the process in the foreground is not a job
+     */
+    private boolean stopForegroundJob() {
+        AeshProcess process = processManager.stopForegroundProcess();
+        if(process == null)
+            return false;
+        stdOut.println();
+        printJob(process);
+        inputProcessor.resetBuffer();
+        displayPrompt();
+        return true;
+    }
+
+    /**
+     * Print the output and status of the jobs that are done in the background
+     */
+    private void printFinishedJobs() {
+        AeshProcess process = processManager.pollFinishedJob();
+        while(process != null) {
+            process.getJobOutput().writeBuffer(stdOut);
+            printJob(process);
+            process = processManager.pollFinishedJob();
+        }
+    }
+
+    private void printJob(AeshProcess process) {
+        String status;
+        if(process.getStatus() == Process.Status.STOPPED)
+            status = "Stopped";
+        else if(process.getExitResult() == null)
+            status = "Running";
+        else if(process.getExitResult().getResultValue() == 0)
+            status = "Done";
+        else
+            status = "Exit " + process.getExitResult().getResultValue();
+        stdOut.printf("[%d]  %-10s %s%n", process.getPID(), status, process.getCommand().trim());
+        stdOut.flush();
+    }
+
     private void displayPrompt() {
         consoleBuffer.displayPrompt();
     }
@@ -685,16 +1138,17 @@ public class Console {
                 || currentOperation.getControlOperator() == ControlOperator.OVERWRITE_OUT_AND_ERR) {
 
             ConsoleOperation nextOperation = operations.remove(0);
-            persistRedirection(nextOperation.getBuffer(), currentOperation.getControlOperator());
+            if(redirection != null)
+                closeRedirection();
+            else
+                persistRedirection(nextOperation.getBuffer(), currentOperation.getControlOperator());
             if(nextOperation.getControlOperator() == ControlOperator.NONE) {
-                redirectPipeErrBuffer = new ByteArrayOutputStream();
-                redirectPipeOutBuffer = new ByteArrayOutputStream();
+                resetRedirectPipeBuffers();
                 currentOperation = null;
                 return null;
             }
             else {
-                redirectPipeErrBuffer = new ByteArrayOutputStream();
-                redirectPipeOutBuffer = new ByteArrayOutputStream();
+                resetRedirectPipeBuffers();
                 currentOperation = nextOperation;
                 return parseCurrentOperation();
             }
@@ -704,7 +1158,11 @@ public class Console {
             return parseOperations();
         }
         else if(currentOperation.getControlOperator() == ControlOperator.END) {
-            if(operations.size() > 0) {
+            if(operations.size() > 0 && settings.isConcurrentPipeline() &&
+                    operations.get(0).getControlOperator().isPipe()) {
+                return parseOperations();
+            }
+            else if(operations.size() > 0) {
                 currentOperation = operations.remove(0);
                 return currentOperation;
             }
@@ -738,6 +1196,12 @@ public class Console {
         ConsoleOperation output = null;
         ConsoleOperation op = operations.remove(0);
 
+        if(settings.isConcurrentPipeline() && op.getControlOperator().isPipe()) {
+            output = parsePipeline(op);
+            if(output != null)
+                return output;
+        }
+
         if(op.getControlOperator() == ControlOperator.OVERWRITE_OUT
                 || op.getControlOperator() == ControlOperator.OVERWRITE_ERR
                 || op.getControlOperator() == ControlOperator.APPEND_OUT
@@ -770,12 +1234,12 @@ public class Console {
             if(operations.size() > 0) {
                 ConsoleOperation nextOperation = operations.remove(0);
                 if( nextOperation.getBuffer().length() > 0) {
-                    AeshLine line = Parser.findAllWords(nextOperation.getBuffer());
+                    TokenizedLine line = nextOperation.getTokenizedLine();
                     currentOperation = new ConsoleOperation(nextOperation.getControlOperator(), op.getBuffer());
 
                     Resource fileRelativePath =
                             getAeshContext().getCurrentWorkingDirectory().newInstance(
-                                    Parser.switchEscapedSpacesToSpacesInWord(line.getWords().get(0)));
+                                    Parser.switchEscapedSpacesToSpacesInWord(line.getWord(0)));
 
                     Resource readFile = fileRelativePath.resolve( context.getCurrentWorkingDirectory()).get(0);
                     if(readFile.isLeaf()) {
@@ -818,10 +1282,8 @@ public class Console {
             //redirectPipeOutBuffer.toString(), redirectPipeErrBuffer.toString());
         }
 
-        if(redirectPipeOutBuffer.toString().length() > 0)
-            redirectPipeOutBuffer = new ByteArrayOutputStream();
-        if(redirectPipeErrBuffer.toString().length() > 0)
-            redirectPipeErrBuffer = new ByteArrayOutputStream();
+        if(redirectPipeOutBuffer.size() > 0 || redirectPipeErrBuffer.size() > 0)
+            resetRedirectPipeBuffers();
 
         //todo: check if this flush is needed
         out().flush();
@@ -831,6 +1293,57 @@ public class Console {
             return new ConsoleOperation(ControlOperator.NONE, "");
     }
 
+    /**
+     * Find all the commands of the pipeline that start with op so they can be run
+     * at the same time. The last command is returned and the others are kept in
+     * the pipeline that is started with it.
+     * A pipeline is run one command at the time if the same command is used more
+     * than once (a command instance can only run once at the time), if it
+     * contain internal commands or if it do not end with a command.
+     *
+     * @return the last command or null if the commands should be run one at the time
+     */
+    private ConsoleOperation parsePipeline(ConsoleOperation op) {
+        List<ConsoleOperation> stages = new ArrayList<>();
+        Set<String> commands = new HashSet<>();
+        ConsoleOperation stage = op;
+        int next = 0;
+        while(true) {
+            stage = findAliases(stage);
+            TokenizedLine line = stage.getTokenizedLine();
+            if(line.size() == 0 || !commands.add(line.getWord(0)) || isInternalCommand(line.getWord(0)))
+                return null;
+            stages.add(stage);
+            if(!stage.getControlOperator().isPipe())
+                break;
+            if(next == operations.size())
+                return null;
+            stage = operations.get(next++);
+        }
+        if(stage.getControlOperator() == ControlOperator.OVERWRITE_IN)
+            return null;
+
+        operations.subList(0, next).clear();
+        //as in parseOperations, only redirections and ; are handled after the process is done
+        if(stage.getControlOperator().isOut() || stage.getControlOperator().isErr() ||
+                stage.getControlOperator() == ControlOperator.END)
+            currentOperation = stage;
+        else
+            currentOperation = null;
+        //the error output of a job is found by the console
+        pipeline = Pipeline.create(stages, standardStream, isJob() ? null : stdErr);
+        return stage;
+    }
+
+    private boolean isInternalCommand(String command) {
+        return (settings.isAliasEnabled() && (command.equals(InternalCommands.ALIAS.getCommand()) ||
+                command.equals(InternalCommands.UNALIAS.getCommand()))) ||
+                (settings.isExportEnabled() && command.equals(InternalCommands.EXPORT.getCommand())) ||
+                (settings.isJobControl() && (command.equals(InternalCommands.JOBS.getCommand()) ||
+                        command.equals(InternalCommands.FG.getCommand()) ||
+                        command.equals(InternalCommands.BG.getCommand())));
+    }
+
     private ConsoleOperation processInternalCommands(ConsoleOperation output) throws IOException {
         if(output.getBuffer() != null) {
             if(settings.isAliasEnabled() &&
@@ -866,10 +1379,63 @@ public class Console {
                 }
                 return new ConsoleOperation(ControlOperator.NONE, null);
             }
+            else if(settings.isJobControl()) {
+                TokenizedLine line = output.getTokenizedLine();
+                if(line.size() > 0 && line.getWord(0).equals(InternalCommands.JOBS.getCommand())) {
+                    printFinishedJobs();
+                    for(AeshProcess process : processManager.getJobs())
+                        printJob(process);
+                    return new ConsoleOperation(ControlOperator.NONE, null);
+                }
+                else if(line.size() > 0 && (line.getWord(0).equals(InternalCommands.FG.getCommand()) ||
+                        line.getWord(0).equals(InternalCommands.BG.getCommand()))) {
+                    continueJob(line);
+                    return new ConsoleOperation(ControlOperator.NONE, null);
+                }
+            }
         }
         return output;
     }
 
+    /**
+     * fg [pid] or bg [pid], continue the job in the foreground or background.
+     * Without a pid the last started job is used.
+     */
+    private void continueJob(TokenizedLine line) {
+        String command = line.getWord(0);
+        int pid = 0;
+        if(line.size() > 1) {
+            String arg = line.getWord(1);
+            if(arg.startsWith("%"))
+                arg = arg.substring(1);
+            try {
+                pid = Integer.parseInt(arg);
+            }
+            catch (NumberFormatException e) {
+                stdErr.println(settings.getName() + ": " + command + ": " + line.getWord(1) + ": no such job");
+                return;
+            }
+        }
+        AeshProcess process = processManager.getJob(pid);
+        if(process == null) {
+            stdErr.println(settings.getName() + ": " + command + ": " +
+                    (pid > 0 ? pid + ": no such job" : "no current job"));
+        }
+        else if(command.equals(InternalCommands.FG.getCommand())) {
+            stdOut.println(process.getCommand().trim());
+            //the job write to the terminal from now on
+            process.getJobOutput().continueInForeground(stdOut);
+            processManager.putProcessInForeground(process.getPID());
+        }
+        else if(process.getStatus() == Process.Status.STOPPED) {
+            process.updateStatus(Process.Status.BACKGROUND);
+            process.getJobOutput().continueInBackground();
+            stdOut.println("[" + process.getPID() + "] " + process.getCommand().trim() + " &");
+        }
+        else
+            stdErr.println(settings.getName() + ": bg: job " + process.getPID() + " already in background");
+    }
+
     private ConsoleOperation findAliases(ConsoleOperation operation) {
 
         if(settings.isExportEnabled()) {
@@ -880,65 +1446,111 @@ public class Console {
         }
 
         if(settings.isAliasEnabled()) {
-            String command = Parser.findFirstWord(operation.getBuffer());
-            Alias alias = aliasManager.getAlias(command);
+            TokenizedLine line = operation.getTokenizedLine();
+            if(line.size() > 0) {
+                Alias alias = aliasManager.getAlias(line.getWord(0));
 
-            if(alias != null) {
-                operation = new ConsoleOperation(operation.getControlOperator(),
-                        alias.getValue() + operation.getBuffer().substring(command.length()));
+                if(alias != null) {
+                    operation = new ConsoleOperation(operation.getControlOperator(),
+                            alias.getValue() + operation.getBuffer().substring(line.getOffset(0) + line.getLength(0)));
+                }
             }
         }
         return operation;
     }
 
-    private void persistRedirection(String fileName, ControlOperator redirection) throws IOException {
-        AeshLine line = Parser.findAllWords(fileName);
-        if(line.getWords().size() > 1) {
+    /**
+     * @return the file to redirect to, null if more than one file is given
+     */
+    private Resource findRedirectionFile(String fileName) {
+        TokenizedLine line = TokenizedLine.tokenize(fileName);
+        if(line.size() > 1) {
             if(settings.isLogging())
                 LOGGER.info(settings.getName()+": can't redirect to more than one file."+Config.getLineSeparator());
             err().print(settings.getName() + ": can't redirect to more than one file." + Config.getLineSeparator());
-            return;
+            return null;
         }
         //this is safe since we check that buffer do contain text earlier
         else {
-            fileName = line.getWords().get(0);
+            fileName = line.getWord(0);
             if(fileName.startsWith("~/")) {
                 fileName = Config.getHomeDir()+fileName.substring(1);
             }
         }
 
+        return context.getCurrentWorkingDirectory().newInstance(
+                Parser.switchEscapedSpacesToSpacesInWord(fileName)).resolve(
+                context.getCurrentWorkingDirectory()).get(0);
+    }
+
+    /**
+     * Open the file the output of currentOperation is redirected to before it is started.
+     * If the file can not be opened the output is dropped.
+     */
+    private void openRedirection() {
+        ControlOperator operator = currentOperation.getControlOperator();
+        OutputStream stream = DISCARD;
+        String fileName = operations.get(0).getBuffer();
+        Resource file = findRedirectionFile(fileName);
+        if(file != null) {
+            try {
+                stream = FileUtils.openFile(file,
+                        operator == ControlOperator.APPEND_OUT || operator == ControlOperator.APPEND_ERR,
+                        settings.isStreamRedirectionDirectBuffer());
+            }
+            catch (IOException e) {
+                if(settings.isLogging())
+                    LOGGER.log(Level.SEVERE, "Opening file "+fileName+" failed: ", e);
+                stdErr.println(e.getMessage());
+            }
+        }
+        redirection = new PrintStream(stream, false);
+    }
+
+    private void closeRedirection() {
+        //checkError flush the stream
+        if(redirection.checkError())
+            stdErr.println(settings.getName() + ": failed to write redirected output");
+        redirection.close();
+        redirection = null;
+    }
+
+    private void persistRedirection(String fileName, ControlOperator redirection) throws IOException {
+        Resource file = findRedirectionFile(fileName);
+        if(file == null)
+            return;
+
         try {
             if(redirection == ControlOperator.OVERWRITE_OUT)
-                FileUtils.saveFile( context.getCurrentWorkingDirectory().newInstance(
-                        Parser.switchEscapedSpacesToSpacesInWord(fileName)).resolve(
-                        context.getCurrentWorkingDirectory()).get(0),  redirectPipeOutBuffer.toString(), false);
+                FileUtils.saveFile(file, redirectPipeOutBuffer.toString(), false);
             else if(redirection == ControlOperator.OVERWRITE_ERR)
-                FileUtils.saveFile( context.getCurrentWorkingDirectory().newInstance(
-                                Parser.switchEscapedSpacesToSpacesInWord(fileName)).resolve(
-                                context.getCurrentWorkingDirectory()).get(0),
-                        redirectPipeErrBuffer.toString(), false);
+                FileUtils.saveFile(file, redirectPipeErrBuffer.toString(), false);
             else if(redirection == ControlOperator.APPEND_OUT)
-                FileUtils.saveFile( context.getCurrentWorkingDirectory().newInstance(
-                                Parser.switchEscapedSpacesToSpacesInWord(fileName)).resolve(
-                                context.getCurrentWorkingDirectory()).get(0),
-                        redirectPipeOutBuffer.toString(), true);
+                FileUtils.saveFile(file, redirectPipeOutBuffer.toString(), true);
             else if(redirection == ControlOperator.APPEND_ERR)
-                FileUtils.saveFile( context.getCurrentWorkingDirectory().newInstance(
-                                Parser.switchEscapedSpacesToSpacesInWord(fileName)).resolve(
-                                context.getCurrentWorkingDirectory()).get(0),
-                        redirectPipeErrBuffer.toString(), true);
+                FileUtils.saveFile(file, redirectPipeErrBuffer.toString(), true);
         }
         catch (IOException e) {
             if(settings.isLogging())
                 LOGGER.log(Level.SEVERE, "Saving file "+fileName+" to disk failed: ", e);
-            getInternalShell().err().println(e.getMessage());
+            stdErr.println(e.getMessage());
             err().flush();
         }
+        resetRedirectPipeBuffers();
+    }
+
+    /**
+     * New buffers for the next redirection, the streams over them are
+     * created here once instead of on every call to out() and err()
+     */
+    private void resetRedirectPipeBuffers() {
         redirectPipeOutBuffer = new ByteArrayOutputStream();
         redirectPipeErrBuffer = new ByteArrayOutputStream();
+        redirectPipeOut = new PrintStream(redirectPipeOutBuffer, true);
+        redirectPipeErr = new PrintStream(redirectPipeErrBuffer, true);
     }
 
-    private static class ConsoleShell implements Shell {
+    private static class ConsoleShell implements FramedShell {
         private final Console console;
         private final Shell shell;
 
@@ -949,6 +1561,7 @@ public class Console {
 
         @Override
         public void clear() throws IOException {
+            console.flushFrame();
             shell.clear();
         }
 
@@ -978,6 +1591,7 @@ public class Console {
                 try {
                     out().print(ANSI.getCurrentCursorPos());
                     out().flush();
+                    console.flushFrame();
                     console.readingCursor = true;
 
                     return getActualCursor(console.cursorQueue.take());
@@ -1032,11 +1646,13 @@ public class Console {
 
         @Override
         public void setCursor(CursorPosition position) {
+            console.flushFrame();
             shell.setCursor(position);
         }
 
         @Override
         public void moveCursor(int rows, int columns) {
+            console.flushFrame();
             shell.moveCursor(rows, columns);
         }
 
@@ -1047,12 +1663,29 @@ public class Console {
 
         @Override
         public void enableAlternateBuffer() {
+            console.flushFrame();
             shell.enableAlternateBuffer();
         }
 
         @Override
         public void enableMainBuffer() {
+            console.flushFrame();
             shell.enableMainBuffer();
         }
+
+        @Override
+        public void beginFrame() {
+            console.beginFrame();
+        }
+
+        @Override
+        public void endFrame() {
+            console.endFrame();
+        }
+
+        @Override
+        public void flushFrame() {
+            console.flushFrame();
+        }
     }
 }
@@ -18,6 +18,7 @@
 package org.jboss.aesh.console;
 
 import org.jboss.aesh.console.operator.ControlOperator;
+import org.jboss.aesh.parser.TokenizedLine;
 
 /**
  * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
@@ -27,6 +28,7 @@ public class ConsoleOperation {
     private final ControlOperator controlOperator;
     private final String buffer;
     private int pid = -1;
+    private TokenizedLine tokenizedLine;
 
 
     public ConsoleOperation(ControlOperator controlOperator, String buffer) {
@@ -38,6 +40,18 @@ public class ConsoleOperation {
         return buffer;
     }
 
+    /**
+     * The buffer is only tokenized once, the alias handling and the
+     * command execution use the same words.
+     *
+     * @return the words of the buffer
+     */
+    public TokenizedLine getTokenizedLine() {
+        if(tokenizedLine == null)
+            tokenizedLine = TokenizedLine.tokenize(buffer);
+        return tokenizedLine;
+    }
+
     public ControlOperator getControlOperator() {
         return controlOperator;
     }
@@ -0,0 +1,214 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.console;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * The output of a job.
+ * In the foreground the job write to the console streams. In the background
+ * its output and error output is kept in one buffer, in the order it was
+ * written, until the job is put in the foreground or is done.
+ * When the buffer is full the oldest output is dropped.
+ * A stopped job is held at its next write until it is continued.
+ *
+ * The job of a thread is found by the console through {@link #getCurrent()},
+ * as all jobs share the same Shell.
+ *
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+final class JobOutput {
+
+    static final int MAX_BUFFER_SIZE = 1024 * 1024;
+
+    private static final ThreadLocal<JobOutput> CURRENT = new ThreadLocal<>();
+
+    private final PrintStream out;
+    private final PrintStream err;
+    private final int maxBufferSize;
+    private byte[] buffer = new byte[0];
+    private int start;
+    private int count;
+    private long dropped;
+    private boolean background;
+    private boolean stopped;
+
+    JobOutput(PrintStream stdOut, PrintStream stdErr, boolean background) {
+        this(stdOut, stdErr, background, MAX_BUFFER_SIZE);
+    }
+
+    JobOutput(PrintStream stdOut, PrintStream stdErr, boolean background, int maxBufferSize) {
+        this.out = new PrintStream(new JobStream(stdOut), true);
+        this.err = new PrintStream(new JobStream(stdErr), true);
+        this.background = background;
+        this.maxBufferSize = maxBufferSize;
+    }
+
+    /**
+     * @return the job run by the current thread, null if it is not a job
+     */
+    static JobOutput getCurrent() {
+        return CURRENT.get();
+    }
+
+    static void setCurrent(JobOutput job) {
+        if(job == null)
+            CURRENT.remove();
+        else
+            CURRENT.set(job);
+    }
+
+    PrintStream getOut() {
+        return out;
+    }
+
+    PrintStream getErr() {
+        return err;
+    }
+
+    synchronized boolean isStopped() {
+        return stopped;
+    }
+
+    /**
+     * Hold the job at its next write and buffer what it have written
+     */
+    synchronized void stop() {
+        background = true;
+        stopped = true;
+    }
+
+    /**
+     * Continue a stopped job in the background
+     */
+    synchronized void continueInBackground() {
+        background = true;
+        stopped = false;
+        notifyAll();
+    }
+
+    /**
+     * Write the buffered output to the console and let the job write to it
+     * directly from now on
+     */
+    synchronized void continueInForeground(PrintStream stdOut) {
+        writeBuffer(stdOut);
+        background = false;
+        stopped = false;
+        notifyAll();
+    }
+
+    /**
+     * Write the buffered output to the console and empty the buffer.
+     */
+    synchronized void writeBuffer(PrintStream stdOut) {
+        if(dropped > 0)
+            stdOut.println("(" + dropped + " bytes of output dropped)");
+        int first = Math.min(count, buffer.length - start);
+        stdOut.write(buffer, start, first);
+        stdOut.write(buffer, 0, count - first);
+        stdOut.flush();
+        buffer = new byte[0];
+        start = 0;
+        count = 0;
+        dropped = 0;
+    }
+
+    private synchronized void write(PrintStream target, byte[] b, int off, int len) throws IOException {
+        while(stopped) {
+            try {
+                wait();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Job interrupted while stopped");
+            }
+        }
+        if(background)
+            append(b, off, len);
+        else
+            target.write(b, off, len);
+    }
+
+    private synchronized void flush(PrintStream target) {
+        if(!background)
+            target.flush();
+    }
+
+    private void append(byte[] b, int off, int len) {
+        if(len == 0)
+            return;
+        if(len >= maxBufferSize) {
+            dropped += count + len - maxBufferSize;
+            buffer = new byte[maxBufferSize];
+            System.arraycopy(b, off + len - maxBufferSize, buffer, 0, maxBufferSize);
+            start = 0;
+            count = maxBufferSize;
+            return;
+        }
+        if(count + len > buffer.length && buffer.length < maxBufferSize)
+            grow(Math.min(maxBufferSize, Math.max(count + len, buffer.length * 2)));
+        //drop the oldest output to make room
+        int overflow = count + len - buffer.length;
+        if(overflow > 0) {
+            start = (start + overflow) % buffer.length;
+            count -= overflow;
+            dropped += overflow;
+        }
+        int end = (start + count) % buffer.length;
+        int first = Math.min(len, buffer.length - end);
+        System.arraycopy(b, off, buffer, end, first);
+        System.arraycopy(b, off + first, buffer, 0, len - first);
+        count += len;
+    }
+
+    private void grow(int size) {
+        byte[] grown = new byte[size];
+        int first = Math.min(count, buffer.length - start);
+        System.arraycopy(buffer, start, grown, 0, first);
+        System.arraycopy(buffer, 0, grown, first, count - first);
+        buffer = grown;
+        start = 0;
+    }
+
+    private final class JobStream extends OutputStream {
+        private final PrintStream target;
+
+        private JobStream(PrintStream target) {
+            this.target = target;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            JobOutput.this.write(target, b, off, len);
+        }
+
+        @Override
+        public void flush() {
+            JobOutput.this.flush(target);
+        }
+    }
+}
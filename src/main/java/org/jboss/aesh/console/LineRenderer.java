@@ -0,0 +1,172 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.console;
+
+import org.jboss.aesh.util.ANSI;
+
+/**
+ * Keep track of the text that is drawn after the prompt and create the
+ * output needed to change it into a new line. Only the part of the line
+ * that differ from what is drawn is written.
+ * If we do not know what is drawn the line must be fully redrawn.
+ *
+ * When the line fits on one row and the terminal support it, chars are
+ * inserted and deleted with ICH/DCH instead of writing the rest of the line.
+ *
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+class LineRenderer {
+
+    //the text drawn after the prompt, null if unknown
+    private StringBuilder drawn;
+    private boolean enabled = true;
+    private final boolean editChars;
+
+    LineRenderer(boolean editChars) {
+        this.editChars = editChars;
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if(!enabled)
+            drawn = null;
+    }
+
+    /**
+     * The given line is drawn after the prompt
+     */
+    void reset(String line) {
+        if(enabled)
+            drawn = new StringBuilder(line);
+    }
+
+    /**
+     * We do not know what is drawn after the prompt
+     */
+    void invalidate() {
+        drawn = null;
+    }
+
+    /**
+     * Text have been written at the given position, replacing what was drawn there
+     */
+    void written(int position, String text) {
+        if(drawn != null) {
+            if(position > drawn.length())
+                drawn = null;
+            else
+                drawn.replace(position, Math.min(position + text.length(), drawn.length()), text);
+        }
+    }
+
+    /**
+     * Create the output that change what is drawn into line.
+     * The cursor is expected to be at the given position in the line and is
+     * either kept there or placed at the end of the line.
+     *
+     * @return output or null if the line must be fully redrawn
+     */
+    String render(String line, int promptLength, int cursor, int width, boolean keepCursorPosition) {
+        if(drawn == null)
+            return null;
+
+        int prefix = 0;
+        int max = Math.min(line.length(), drawn.length());
+        while(prefix < max && line.charAt(prefix) == drawn.charAt(prefix))
+            prefix++;
+
+        int suffix = 0;
+        int maxSuffix = Math.min(line.length(), drawn.length()) - prefix;
+        while(suffix < maxSuffix &&
+                line.charAt(line.length() - 1 - suffix) == drawn.charAt(drawn.length() - 1 - suffix))
+            suffix++;
+
+        int difference = line.length() - drawn.length();
+        if(difference == 0 && suffix == line.length() - prefix)
+            return "";
+
+        if(keepCursorPosition && editChars && difference != 0 &&
+                promptLength + Math.max(line.length(), drawn.length()) < width)
+            return editChars(line, promptLength, prefix, difference, line.length() - suffix);
+
+        //if the length is the same we only need to write the changed chars
+        int end = line.length();
+        boolean clear = true;
+        if(keepCursorPosition && difference == 0) {
+            end -= suffix;
+            clear = false;
+        }
+
+        int target = promptLength + prefix;
+        //the row below the drawn text might not exist yet
+        if(prefix > 0 && prefix == drawn.length() && target % width == 0)
+            return null;
+
+        int currentRow = (promptLength + cursor) / width;
+        int targetRow = target / width;
+        StringBuilder builder = new StringBuilder(end - prefix + 24);
+        if(keepCursorPosition)
+            builder.append(ANSI.saveCursor());
+        if(targetRow < currentRow)
+            builder.append(Buffer.printAnsi((currentRow - targetRow) + "A"));
+        else if(targetRow > currentRow)
+            builder.append(Buffer.printAnsi((targetRow - currentRow) + "B"));
+        builder.append(Buffer.printAnsi((target % width + 1) + "G"));
+        //clear before writing, clearing at the last column would remove the last char
+        if(clear) {
+            if(targetRow == (promptLength + Math.max(line.length(), drawn.length())) / width)
+                builder.append(Buffer.printAnsi("K"));
+            else
+                builder.append(Buffer.printAnsi("J"));
+        }
+        builder.append(line, prefix, end);
+
+        drawn.setLength(0);
+        drawn.append(line);
+        if(keepCursorPosition)
+            builder.append(ANSI.restoreCursor());
+        // add a 'fake' new line when the line ends at the edge of terminal
+        else if(line.length() > 0 && (promptLength + line.length()) % width == 0) {
+            builder.append(' ').append('\r');
+            drawn.append(' ');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Insert or delete chars at prefix and write the changed chars
+     */
+    private String editChars(String line, int promptLength, int prefix, int difference, int end) {
+        StringBuilder builder = new StringBuilder(end - prefix + 24);
+        builder.append(ANSI.saveCursor());
+        builder.append(Buffer.printAnsi((promptLength + prefix + 1) + "G"));
+        if(difference > 0)
+            builder.append(Buffer.printAnsi(difference + "@"));
+        else
+            builder.append(Buffer.printAnsi((-difference) + "P"));
+        builder.append(line, prefix, end);
+        builder.append(ANSI.restoreCursor());
+        drawn.setLength(0);
+        drawn.append(line);
+        return builder.toString();
+    }
+}
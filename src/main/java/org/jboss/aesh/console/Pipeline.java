@@ -0,0 +1,230 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.console;
+
+import org.jboss.aesh.console.operator.ControlOperator;
+import org.jboss.aesh.console.reader.AeshStandardStream;
+import org.jboss.aesh.console.reader.PipeBuffer;
+import org.jboss.aesh.util.LoggerUtil;
+
+import java.io.BufferedInputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The commands of a pipeline, run at the same time.
+ * Each command write to a bounded {@link PipeBuffer} that the next command
+ * read from, so output is passed on while it is written.
+ * The last command is run on the thread of the process, the others are
+ * run on the executor of the ProcessManager.
+ *
+ * The streams of a command are found by the console through
+ * {@link #getCurrentStage()} since all the commands share the same Shell.
+ *
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+final class Pipeline {
+
+    private static final ThreadLocal<Stage> CURRENT_STAGE = new ThreadLocal<>();
+
+    private static final Logger LOGGER = LoggerUtil.getLogger(Pipeline.class.getName());
+
+    private final List<Stage> stages;
+
+    private Pipeline(List<Stage> stages) {
+        this.stages = stages;
+    }
+
+    /**
+     * Connect the operations with pipes.
+     * The output of all but the last operation is written to the next pipe,
+     * the error output is also written to it if the operator is |&amp;.
+     * The last operation write to the streams of the console.
+     *
+     * @param operations the operations of the pipeline, the last is not a pipe
+     * @param in input of the first operation
+     * @param err error output of operations that do not pipe it, null to use
+     *            the error output of the console
+     * @return pipeline
+     */
+    static Pipeline create(List<ConsoleOperation> operations, AeshStandardStream in, PrintStream err) {
+        List<Stage> stages = new ArrayList<>(operations.size());
+        PipeBuffer input = null;
+        for(int i = 0; i < operations.size(); i++) {
+            ConsoleOperation operation = operations.get(i);
+            AeshStandardStream stageIn = input == null ? in :
+                    new AeshStandardStream(new BufferedInputStream(input.getInputStream()));
+            if(i < operations.size() - 1) {
+                PipeBuffer output = new PipeBuffer();
+                PrintStream out = new PrintStream(output.getOutputStream(), true);
+                stages.add(new Stage(operation, stageIn, out,
+                        operation.getControlOperator().isRedirectionErr() ? out : err, input));
+                input = output;
+            }
+            else
+                stages.add(new Stage(operation, stageIn, null, null, input));
+        }
+        return new Pipeline(stages);
+    }
+
+    /**
+     * @return the stage run by the current thread, null if it is not part of a pipeline
+     */
+    static Stage getCurrentStage() {
+        return CURRENT_STAGE.get();
+    }
+
+    /**
+     * @return the commands of the pipeline joined by their pipe operators
+     */
+    String getCommand() {
+        StringBuilder builder = new StringBuilder();
+        for(Stage stage : stages) {
+            builder.append(stage.operation.getBuffer().trim());
+            if(stage.operation.getControlOperator() == ControlOperator.PIPE)
+                builder.append(" | ");
+            else if(stage.operation.getControlOperator() == ControlOperator.PIPE_OUT_AND_ERR)
+                builder.append(" |& ");
+        }
+        return builder.toString();
+    }
+
+    ConsoleOperation getLastOperation() {
+        return stages.get(stages.size() - 1).operation;
+    }
+
+    void setPid(int pid) {
+        for(Stage stage : stages)
+            stage.operation.setPid(pid);
+    }
+
+    /**
+     * Run all the stages and wait for them to finish.
+     * If the last stage is interrupted the other stages are interrupted as well.
+     *
+     * @return the result of the last stage
+     */
+    int execute(ConsoleCallback callback, ExecutorService executor) throws InterruptedException {
+        List<Future<Integer>> upstream = new ArrayList<>(stages.size() - 1);
+        boolean finished = false;
+        try {
+            for(int i = 0; i < stages.size() - 1; i++)
+                upstream.add(executor.submit(new StageTask(stages.get(i), callback)));
+            int result = stages.get(stages.size() - 1).execute(callback);
+            for(Future<Integer> stage : upstream) {
+                try {
+                    stage.get();
+                }
+                catch (ExecutionException e) {
+                    LOGGER.log(Level.WARNING, "Pipeline command failed: ", e.getCause());
+                }
+            }
+            finished = true;
+            return result;
+        }
+        finally {
+            if(!finished)
+                for(Future<Integer> stage : upstream)
+                    stage.cancel(true);
+        }
+    }
+
+    static final class Stage {
+        private final ConsoleOperation operation;
+        private final AeshStandardStream in;
+        private final PrintStream out;
+        private final PrintStream err;
+        private final PipeBuffer input;
+
+        private Stage(ConsoleOperation operation, AeshStandardStream in,
+                      PrintStream out, PrintStream err, PipeBuffer input) {
+            this.operation = operation;
+            this.in = in;
+            this.out = out;
+            this.err = err;
+            this.input = input;
+        }
+
+        AeshStandardStream getIn() {
+            return in;
+        }
+
+        /**
+         * @return the output stream, null if the console stream should be used
+         */
+        PrintStream getOut() {
+            return out;
+        }
+
+        /**
+         * @return the error stream, null if the console stream should be used
+         */
+        PrintStream getErr() {
+            return err;
+        }
+
+        /**
+         * When the command is done the next command get end of stream
+         * and a previous command still writing get a broken pipe.
+         */
+        private int execute(ConsoleCallback callback) throws InterruptedException {
+            CURRENT_STAGE.set(this);
+            try {
+                return callback.execute(operation);
+            }
+            finally {
+                CURRENT_STAGE.remove();
+                if(out != null)
+                    out.close();
+                if(input != null)
+                    input.closeInput();
+            }
+        }
+    }
+
+    private static final class StageTask implements Callable<Integer> {
+        private final Stage stage;
+        private final ConsoleCallback callback;
+        //the stage belong to the same job as the process that started it
+        private final JobOutput job;
+
+        private StageTask(Stage stage, ConsoleCallback callback) {
+            this.stage = stage;
+            this.callback = callback;
+            this.job = JobOutput.getCurrent();
+        }
+
+        @Override
+        public Integer call() throws Exception {
+            JobOutput.setCurrent(job);
+            try {
+                return stage.execute(callback);
+            }
+            finally {
+                JobOutput.setCurrent(null);
+            }
+        }
+    }
+}
@@ -40,6 +40,6 @@ public interface Process {
     void updateStatus(Status status);
 
     enum Status {
-        FOREGROUND,BACKGROUND
+        FOREGROUND,BACKGROUND,STOPPED
     }
 }
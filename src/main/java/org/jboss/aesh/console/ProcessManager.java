@@ -18,53 +18,130 @@
 package org.jboss.aesh.console;
 
 import org.jboss.aesh.console.command.CommandOperation;
+import org.jboss.aesh.console.settings.ExecutionMode;
 import org.jboss.aesh.terminal.Key;
 import org.jboss.aesh.util.LoggerUtil;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
 /**
+ * Keep track of the running processes.
+ * One process can run in the foreground, processes under job control can
+ * also run or be stopped in the background. Processes are started, finished
+ * and moved between the foreground and background on different threads.
+ *
  * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
  */
 public class ProcessManager {
 
     private Console console;
-    private Map<Integer, Process> processes;
+    private final Map<Integer, AeshProcess> processes;
+    //jobs that are done, reported by the console before the next prompt
+    private final Queue<AeshProcess> finishedJobs;
     private ExecutorService executorService;
+    //the shared executor is used by other consoles, it is not shut down
+    private final boolean sharedExecutor;
     private boolean doLogging;
-    private int pidCounter = 1;
-    private int foregroundProcess = -1;
+    private final AtomicInteger pidCounter = new AtomicInteger(1);
+    private volatile int foregroundProcess = -1;
+    //guard changes of the foreground process, notified when it change
+    //and when input is queued while someone wait for it
+    private final Object foregroundLock = new Object();
+    //number of threads waiting for input on the foreground lock, guarded by foregroundLock
+    private volatile int inputWaiters;
+
+    private static final Comparator<Process> PID_ORDER = new Comparator<Process>() {
+        @Override
+        public int compare(Process p1, Process p2) {
+            return Integer.compare(p1.getPID(), p2.getPID());
+        }
+    };
 
     private static final Logger LOGGER = LoggerUtil.getLogger(ProcessManager.class.getName());
 
     public ProcessManager(Console console, boolean log) {
+        this(console, log, ExecutionMode.DEDICATED);
+    }
+
+    /**
+     * @param executionMode with SHARED the processes are run on a pool
+     *                      shared by the consoles
+     */
+    public ProcessManager(Console console, boolean log, ExecutionMode executionMode) {
         this.console = console;
         this.doLogging = log;
-        processes = new HashMap<>(20);
-        executorService = Executors.newCachedThreadPool();
+        processes = new ConcurrentHashMap<>(20);
+        finishedJobs = new ConcurrentLinkedQueue<>();
+        sharedExecutor = executionMode == ExecutionMode.SHARED;
+        if(sharedExecutor)
+            executorService = SharedScheduler.getProcessExecutor();
+        else
+            executorService = Executors.newCachedThreadPool();
     }
 
     public void startNewProcess(ConsoleCallback callback, ConsoleOperation consoleOperation) {
-        AeshProcess process = new AeshProcess(pidCounter++, this, callback, consoleOperation);
+        startNewProcess(new AeshProcess(pidCounter.getAndIncrement(), this, callback, consoleOperation));
+    }
+
+    /**
+     * Start a process under job control, it is run in the background
+     * if the operation end with &amp;
+     */
+    Process startNewJob(ConsoleCallback callback, ConsoleOperation consoleOperation, JobOutput job) {
+        AeshProcess process = new AeshProcess(pidCounter.getAndIncrement(), this, callback, consoleOperation, job);
+        startNewProcess(process);
+        return process;
+    }
+
+    /**
+     * Start a process that run all the commands of the pipeline at the same time
+     *
+     * @param job output of the job, null if the pipeline is not under job control
+     */
+    Process startNewPipeline(ConsoleCallback callback, Pipeline pipeline, JobOutput job) {
+        AeshProcess process = new AeshProcess(pidCounter.getAndIncrement(), this, callback, pipeline, job);
+        startNewProcess(process);
+        return process;
+    }
+
+    private void startNewProcess(AeshProcess process) {
         if (doLogging)
-            LOGGER.info("starting a new process: " + process + ", consoleOperation: " + consoleOperation);
+            LOGGER.info("starting a new process: " + process);
 
-        //atm we cant start a new process if there is one in the foreground
-        int currentProcess = getCurrentForegroundProcess();
-        if(currentProcess > 0) {
-            LOGGER.warning("Cannot start new process since process: "+
-                    getProcessByPid(currentProcess)+" is running in the foreground.");
+        if(process.getStatus() == Process.Status.BACKGROUND) {
+            processes.put(process.getPID(), process);
+            executorService.execute(process);
+            return;
         }
-        else {
-            processes.put(process.getPID(),process);
+
+        synchronized(foregroundLock) {
+            //atm we cant start a new process if there is one in the foreground
+            int currentProcess = getCurrentForegroundProcess();
+            if(currentProcess > 0) {
+                LOGGER.warning("Cannot start new process since process: "+
+                        getProcessByPid(currentProcess)+" is running in the foreground.");
+                return;
+            }
+            processes.put(process.getPID(), process);
             foregroundProcess = process.getPID();
-            executorService.execute(process);
         }
+        executorService.execute(process);
+    }
+
+    ExecutorService getExecutorService() {
+        return executorService;
     }
 
     private int getCurrentForegroundProcess() {
@@ -75,42 +152,168 @@ public class ProcessManager {
         return processes.get(pid);
     }
 
+    /**
+     * A process in the foreground get the next input. A job in the background
+     * wait until it is put in the foreground, other processes get no input.
+     */
     public CommandOperation getInput(int pid) throws InterruptedException {
-        if(foregroundProcess == pid)
+        if(foregroundProcess == pid && !isJob(pid))
             return console.getInput();
+        else if(isJob(pid))
+            return takeInput(pid);
         else
             return new CommandOperation(Key.UNKNOWN, new int[]{});
     }
 
-    public void putProcessInBackground(int pid) {
-        if(foregroundProcess == pid) {
-            if(doLogging)
-                LOGGER.info("Putting process: "+pid+" into the background.");
-            foregroundProcess = -1;
+    /**
+     * Block until the owner is in the foreground and there is input.
+     * The input is taken while holding the foreground lock, so it always go to
+     * the owner of the foreground when it's taken. A job that is stopped or put
+     * in the background while it wait is woken up by the foreground change and
+     * keep waiting without taking any input.
+     *
+     * @param owner pid of a job, -1 for the console that own the input
+     *              when no process is in the foreground
+     */
+    CommandOperation takeInput(int owner) throws InterruptedException {
+        synchronized(foregroundLock) {
+            inputWaiters++;
+            try {
+                while(true) {
+                    if(foregroundProcess == owner) {
+                        CommandOperation input = console.pollInput();
+                        if(input != null)
+                            return input;
+                    }
+                    foregroundLock.wait();
+                }
+            }
+            finally {
+                inputWaiters--;
+            }
+        }
+    }
+
+    /**
+     * @return the next input if no process is in the foreground, null if
+     * there is none or a process own the input
+     */
+    CommandOperation pollConsoleInput() {
+        synchronized(foregroundLock) {
+            return foregroundProcess == -1 ? console.pollInput() : null;
         }
-        else if(getProcessByPid(pid) != null) {
+    }
+
+    /**
+     * Called by the console after input is queued, wake up the threads
+     * that wait for it in takeInput.
+     * The input is queued before inputWaiters is read and a waiter is counted
+     * before it poll, so the input is never missed.
+     */
+    void inputQueued() {
+        if(inputWaiters > 0) {
+            synchronized(foregroundLock) {
+                foregroundLock.notifyAll();
+            }
+        }
+    }
+
+    private boolean isJob(int pid) {
+        AeshProcess process = processes.get(pid);
+        return process != null && process.getJobOutput() != null;
+    }
+
+    public void putProcessInBackground(int pid) {
+        synchronized(foregroundLock) {
             Process p = getProcessByPid(pid);
-            if(p.getStatus() == Process.Status.FOREGROUND) {
+            if(foregroundProcess == pid) {
                 if(doLogging)
-                    LOGGER.warning("We have another process in the foreground: " +
-                            p + ", this should not happen!");
-                p.updateStatus(Process.Status.BACKGROUND);
+                    LOGGER.info("Putting process: "+pid+" into the background.");
+                if(p != null)
+                    p.updateStatus(Process.Status.BACKGROUND);
+                foregroundProcess = -1;
+                foregroundChanged();
+            }
+            else if(p != null) {
+                if(p.getStatus() == Process.Status.FOREGROUND) {
+                    if(doLogging)
+                        LOGGER.warning("We have another process in the foreground: " +
+                                p + ", this should not happen!");
+                    p.updateStatus(Process.Status.BACKGROUND);
+                }
             }
         }
     }
 
     public void putProcessInForeground(int pid) {
-        if(foregroundProcess == -1) {
-            Process p = getProcessByPid(pid);
-            if(p != null) {
-                p.updateStatus(Process.Status.FOREGROUND);
-                foregroundProcess = p.getPID();
+        synchronized(foregroundLock) {
+            if(foregroundProcess == -1) {
+                //a process that is done is removed while holding the lock
+                Process p = getProcessByPid(pid);
+                if(p != null) {
+                    p.updateStatus(Process.Status.FOREGROUND);
+                    foregroundProcess = p.getPID();
+                    foregroundChanged();
+                }
             }
+            else
+                if(doLogging)
+                    LOGGER.info("We already have a process in the foreground: "+
+                            foregroundProcess+", cant add another one");
         }
-        else
-            if(doLogging)
-                LOGGER.info("We already have a process in the foreground: "+
-                        foregroundProcess+", cant add another one");
+    }
+
+    /**
+     * Stop the foreground process and put it in the background,
+     * only a process under job control can be stopped.
+     *
+     * @return the stopped process, null if no process was stopped
+     */
+    AeshProcess stopForegroundProcess() {
+        synchronized(foregroundLock) {
+            AeshProcess process = processes.get(foregroundProcess);
+            if(process == null || process.getJobOutput() == null)
+                return null;
+            process.getJobOutput().stop();
+            process.updateStatus(Process.Status.STOPPED);
+            foregroundProcess = -1;
+            foregroundChanged();
+            return process;
+        }
+    }
+
+    /**
+     * @param pid pid of the job, 0 or less for the last started job
+     * @return the job, null if it is not found
+     */
+    AeshProcess getJob(int pid) {
+        List<AeshProcess> jobs = getJobs();
+        if(pid > 0) {
+            for(AeshProcess job : jobs)
+                if(job.getPID() == pid)
+                    return job;
+            return null;
+        }
+        return jobs.isEmpty() ? null : jobs.get(jobs.size() - 1);
+    }
+
+    /**
+     * @return the processes under job control that are not done, ordered by pid
+     */
+    List<AeshProcess> getJobs() {
+        List<AeshProcess> jobs = new ArrayList<>();
+        for(AeshProcess process : processes.values())
+            if(process.getJobOutput() != null)
+                jobs.add(process);
+        Collections.sort(jobs, PID_ORDER);
+        return jobs;
+    }
+
+    /**
+     * @return a job that was done in the background since the last call, null if there are none
+     */
+    AeshProcess pollFinishedJob() {
+        return finishedJobs.poll();
     }
 
     /**
@@ -127,17 +330,48 @@ public class ProcessManager {
     public void processHaveFinished(Process process) {
         if (doLogging)
             LOGGER.info("process has finished: " + process);
-        processes.remove(process.getPID());
-        if(process.getStatus() == Process.Status.FOREGROUND)
-            foregroundProcess = -1;
+        //under the lock so a job can not be put in the foreground after it is done
+        synchronized(foregroundLock) {
+            processes.remove(process.getPID());
+            //a job that finish in the background is reported before the next prompt
+            if(process.getStatus() != Process.Status.FOREGROUND &&
+                    process instanceof AeshProcess && ((AeshProcess) process).getJobOutput() != null) {
+                finishedJobs.add((AeshProcess) process);
+                return;
+            }
+            if(process.getStatus() == Process.Status.FOREGROUND)
+                foregroundProcess = -1;
+        }
         console.currentProcessFinished(process);
+        //notify after the console have had the chance to start a new process
+        foregroundProcessEnded();
+    }
+
+    private void foregroundProcessEnded() {
+        synchronized(foregroundLock) {
+            foregroundChanged();
+        }
+    }
+
+    /**
+     * Must be called while holding the foreground lock
+     */
+    private void foregroundChanged() {
+        foregroundLock.notifyAll();
+        console.foregroundProcessChanged();
     }
 
     public void stop() {
         try {
             if (doLogging)
                 LOGGER.info("number of processes in list: " + processes.size());
+            //hang up the jobs that are left in the background
+            for(AeshProcess process : processes.values())
+                if(process.getJobOutput() != null && process.getStatus() != Process.Status.FOREGROUND)
+                    process.interrupt();
             processes.clear();
+            if(sharedExecutor)
+                return;
             executorService.shutdown();
             executorService.awaitTermination(5, TimeUnit.MILLISECONDS);
             if (executorService.isTerminated() && doLogging)
@@ -0,0 +1,187 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.console;
+
+import org.jboss.aesh.util.LoggerUtil;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Threads shared by every Console that run with ExecutionMode.SHARED.
+ *
+ * The scheduler has a bounded number of threads, the size can be set with the
+ * system property aesh.sharedthreads. Tasks run on it must not wait for input,
+ * they are run again when there is more to do.
+ * Input streams that can only be polled are polled together by one task, a
+ * task per stream would cost more in the scheduler queue than the polls do.
+ * Processes and other work that can block, eg waiting for completions or a
+ * cursor position, are run on a cached pool that is shared by the consoles.
+ *
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+public final class SharedScheduler {
+
+    private static final int DEFAULT_THREADS = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+    private static final long POLL_INTERVAL = 10;
+
+    private static ScheduledExecutorService scheduler;
+    private static ExecutorService processExecutor;
+    private static final Set<Runnable> pollers =
+            Collections.newSetFromMap(new ConcurrentHashMap<Runnable, Boolean>());
+    private static boolean polling;
+
+    private static final Logger LOGGER = LoggerUtil.getLogger(SharedScheduler.class.getName());
+
+    private SharedScheduler() {
+    }
+
+    public static synchronized ScheduledExecutorService getScheduler() {
+        if(scheduler == null)
+            scheduler = Executors.newScheduledThreadPool(
+                    Integer.getInteger("aesh.sharedthreads", DEFAULT_THREADS),
+                    new DaemonThreadFactory("Aesh Shared Scheduler "));
+        return scheduler;
+    }
+
+    public static synchronized ExecutorService getProcessExecutor() {
+        if(processExecutor == null)
+            processExecutor = Executors.newCachedThreadPool(new DaemonThreadFactory("Aesh Shared Process "));
+        return processExecutor;
+    }
+
+    /**
+     * Run the poller every 10 ms until it is removed
+     *
+     * @param poller must not block
+     */
+    public static void addPoller(Runnable poller) {
+        pollers.add(poller);
+        synchronized(SharedScheduler.class) {
+            if(!polling) {
+                getScheduler().scheduleWithFixedDelay(new Runnable() {
+                    @Override
+                    public void run() {
+                        poll();
+                    }
+                }, 0, POLL_INTERVAL, TimeUnit.MILLISECONDS);
+                polling = true;
+            }
+        }
+    }
+
+    /**
+     * @return true if the poller was removed by this call
+     */
+    public static boolean removePoller(Runnable poller) {
+        return pollers.remove(poller);
+    }
+
+    private static void poll() {
+        for(Runnable poller : pollers) {
+            //a failing poller must not stop the others
+            try {
+                poller.run();
+            }
+            catch(RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Poller failed: ", e);
+            }
+        }
+    }
+
+    /**
+     * @param task must process everything that is available when it is run,
+     *             it must not block
+     * @return a lane that run the task on the scheduler when it is signaled
+     */
+    static Lane newLane(Runnable task) {
+        return new Lane(task, getScheduler());
+    }
+
+    /**
+     * @param task must process everything that is available when it is run
+     * @param executor the task is run on, tasks that can block must use the process executor
+     * @return a lane that run the task on the executor when it is signaled
+     */
+    static Lane newLane(Runnable task, Executor executor) {
+        return new Lane(task, executor);
+    }
+
+    /**
+     * Run a task on an executor, one run at a time. Signals that arrive while
+     * the task is running cause one more run, so no signal is lost and an idle
+     * lane do not hold a thread.
+     */
+    static final class Lane implements Runnable {
+        private final Runnable task;
+        private final Executor executor;
+        private final AtomicInteger signals = new AtomicInteger();
+
+        private Lane(Runnable task, Executor executor) {
+            this.task = task;
+            this.executor = executor;
+        }
+
+        void signal() {
+            if(signals.getAndIncrement() == 0)
+                executor.execute(this);
+        }
+
+        @Override
+        public void run() {
+            int handled = signals.get();
+            while(handled > 0) {
+                try {
+                    task.run();
+                }
+                catch(RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Shared task failed: ", e);
+                }
+                handled = signals.addAndGet(-handled);
+            }
+        }
+    }
+
+    private static class DaemonThreadFactory implements ThreadFactory {
+        private final String name;
+        private final AtomicInteger counter = new AtomicInteger(1);
+
+        DaemonThreadFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = Executors.defaultThreadFactory().newThread(runnable);
+            thread.setName(name + counter.getAndIncrement());
+            //idle consoles must not keep the jvm running
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -48,10 +48,16 @@ public class AliasManager {
     private File aliasFile;
     private final String name;
     private boolean persistAlias = false;
+    private final boolean doLogging;
     private static final Logger LOGGER = LoggerUtil.getLogger(AliasManager.class.getName());
 
     public AliasManager(File aliasFile, boolean persistAlias, String name) throws IOException {
+        this(aliasFile, persistAlias, name, false);
+    }
+
+    public AliasManager(File aliasFile, boolean persistAlias, String name, boolean doLogging) throws IOException {
         this.persistAlias = persistAlias;
+        this.doLogging = doLogging;
         this.name = name;
         aliases = new ArrayList<>();
         if(aliasFile != null) {
@@ -83,10 +89,12 @@ public class AliasManager {
                 aliasFile.delete();
 
             try (FileWriter fw = new FileWriter(aliasFile)) {
-                LOGGER.info("created fileWriter");
+                if(doLogging)
+                    LOGGER.info("created fileWriter");
                 Collections.sort(aliases); // not very efficient, but it'll do for now...
                 for(Alias a : aliases) {
-                    LOGGER.info("writing to file: "+ALIAS_SPACE+a.toString());
+                    if(doLogging)
+                        LOGGER.info("writing to file: "+ALIAS_SPACE+a.toString());
                     fw.write(ALIAS_SPACE+a.toString()+Config.getLineSeparator());
                 }
                 fw.flush();
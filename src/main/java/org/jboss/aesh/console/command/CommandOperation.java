@@ -29,29 +29,47 @@ public class CommandOperation {
     private final Key inputKey;
     private final int[] input;
     private final int position;
+    private final String paste;
+    private long inputGeneration;
 
     public CommandOperation(int[] input) {
         inputKey = Key.getKey(input);
         this.input = input;
         position = inputKey.getKeyValues().length;
+        paste = null;
     }
 
     public CommandOperation(Key key, int[] input) {
         inputKey = key;
         this.input = input;
         position = inputKey.getKeyValues().length;
+        paste = null;
     }
 
     public CommandOperation(Key key) {
         inputKey = key;
         this.input = key.getKeyValues();
         position = inputKey.getKeyValues().length;
+        paste = null;
     }
 
     public CommandOperation(Key key, int[] input, int position) {
         inputKey = key;
         this.input = input;
         this.position = position;
+        paste = null;
+    }
+
+    /**
+     * Text that was pasted and should be inserted as is
+     */
+    public CommandOperation(String paste) {
+        inputKey = Key.UNKNOWN;
+        input = new int[paste.length()];
+        for(int i=0; i < input.length; i++)
+            input[i] = paste.charAt(i);
+        position = 0;
+        this.paste = paste;
     }
 
     public Key getInputKey() {
@@ -66,6 +84,26 @@ public class CommandOperation {
         return position;
     }
 
+    public boolean isPaste() {
+        return paste != null;
+    }
+
+    public String getPaste() {
+        return paste;
+    }
+
+    /**
+     * @return the number the console gave the input when it was read,
+     * 0 if it wasn't read from the terminal
+     */
+    public long getInputGeneration() {
+        return inputGeneration;
+    }
+
+    public void setInputGeneration(long inputGeneration) {
+        this.inputGeneration = inputGeneration;
+    }
+
     @Override
     public String toString() {
         return "CommandOperation{" +
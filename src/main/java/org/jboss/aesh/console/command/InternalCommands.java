@@ -26,7 +26,10 @@ public enum InternalCommands {
     ALIAS("alias"),
     UNALIAS("unalias"),
     EXPORT("export"),
-    ECHO("echo");
+    ECHO("echo"),
+    JOBS("jobs"),
+    FG("fg"),
+    BG("bg");
 
     private final String command;
     InternalCommands(String alias) {
@@ -0,0 +1,153 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.console.command.container;
+
+import org.jboss.aesh.cl.CommandDefinition;
+import org.jboss.aesh.cl.GroupCommandDefinition;
+import org.jboss.aesh.cl.exception.CommandLineParserException;
+import org.jboss.aesh.cl.parser.CommandLineParser;
+import org.jboss.aesh.cl.validator.CommandValidatorException;
+import org.jboss.aesh.cl.validator.OptionValidatorException;
+import org.jboss.aesh.console.AeshContext;
+import org.jboss.aesh.console.InvocationProviders;
+import org.jboss.aesh.console.command.Command;
+import org.jboss.aesh.console.command.invocation.CommandInvocation;
+import org.jboss.aesh.parser.AeshLine;
+
+import java.io.IOException;
+
+/**
+ * A CommandContainer that only read the name and description of the
+ * command when it's created. The command is not instantiated and its
+ * parser is not generated until the parser is needed, eg when the
+ * command is completed or executed for the first time.
+ *
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+public class LazyCommandContainer implements CommandContainer {
+
+    private final Class<? extends Command> command;
+    private final CommandContainerBuilder builder;
+    private final String name;
+    private final String description;
+    private final boolean groupCommand;
+
+    private volatile CommandContainer container;
+    private String errorMessage;
+
+    /**
+     * @param command a class annotated with CommandDefinition or GroupCommandDefinition
+     * @param builder used to build the command when it is needed
+     * @throws IllegalArgumentException if the command is not annotated
+     */
+    public LazyCommandContainer(Class<? extends Command> command, CommandContainerBuilder builder) {
+        this.command = command;
+        this.builder = builder;
+        CommandDefinition commandDefinition = command.getAnnotation(CommandDefinition.class);
+        if(commandDefinition != null) {
+            name = commandDefinition.name();
+            description = commandDefinition.description();
+            groupCommand = false;
+        }
+        else {
+            GroupCommandDefinition groupDefinition = command.getAnnotation(GroupCommandDefinition.class);
+            if(groupDefinition == null)
+                throw new IllegalArgumentException(
+                        "Commands must be annotated with @CommandDefinition or @GroupCommandDefinition");
+            name = groupDefinition.name();
+            description = groupDefinition.description();
+            groupCommand = groupDefinition.groupCommands().length > 0;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * @return true if the command is defined with sub commands, do not build the command
+     */
+    public boolean isGroupCommand() {
+        return groupCommand;
+    }
+
+    /**
+     * @return true if the command have been built
+     */
+    public boolean isBuilt() {
+        return container != null || errorMessage != null;
+    }
+
+    private CommandContainer getContainer() {
+        if(container == null && errorMessage == null) {
+            synchronized(this) {
+                if(container == null && errorMessage == null) {
+                    CommandContainer built = builder.build(command);
+                    if(built == null)
+                        errorMessage = "Failed to build command: "+name;
+                    else if(built.haveBuildError())
+                        errorMessage = built.getBuildErrorMessage();
+                    else
+                        container = built;
+                }
+            }
+        }
+        return container;
+    }
+
+    @Override
+    public CommandLineParser getParser() {
+        CommandContainer commandContainer = getContainer();
+        return commandContainer != null ? commandContainer.getParser() : null;
+    }
+
+    /**
+     * Will build the command if it's not built yet.
+     */
+    @Override
+    public boolean haveBuildError() {
+        return getContainer() == null;
+    }
+
+    @Override
+    public String getBuildErrorMessage() {
+        getContainer();
+        return errorMessage;
+    }
+
+    @Override
+    public CommandContainerResult executeCommand(AeshLine line, InvocationProviders invocationProviders,
+                                                 AeshContext aeshContext,
+                                                 CommandInvocation commandInvocation)
+            throws CommandLineParserException, OptionValidatorException, CommandValidatorException, IOException, InterruptedException {
+        CommandContainer commandContainer = getContainer();
+        if(commandContainer == null)
+            throw new CommandLineParserException(errorMessage);
+        return commandContainer.executeCommand(line, invocationProviders, aeshContext, commandInvocation);
+    }
+
+    @Override
+    public void close() throws Exception {
+        if(container != null)
+            container.close();
+    }
+}
@@ -53,6 +53,22 @@ public class AeshCommandRegistryBuilder {
         return this;
     }
 
+    /**
+     * Register the command without generating its parser.
+     * The parser is generated when the command is first used.
+     */
+    public AeshCommandRegistryBuilder lazyCommand(Class<? extends Command> command) {
+        commandRegistry.addLazyCommand(command);
+        return this;
+    }
+
+    public AeshCommandRegistryBuilder lazyCommands(Class<? extends Command>... commands) {
+        for (Class<? extends Command> c : commands) {
+            commandRegistry.addLazyCommand(c);
+        }
+        return this;
+    }
+
     public AeshCommandRegistryBuilder command(ProcessedCommand processedCommand,
             Class<? extends Command> command) {
         commandRegistry.addCommand(new AeshCommandContainer(processedCommand,
@@ -21,9 +21,10 @@ import org.jboss.aesh.console.command.Command;
 import org.jboss.aesh.console.command.container.AeshCommandContainerBuilder;
 import org.jboss.aesh.console.command.container.CommandContainer;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
+import java.util.TreeMap;
 
 /**
  * Only used by AeshConsoleImpl to store built-in commands
@@ -32,7 +33,7 @@ import java.util.Set;
  */
 public class AeshInternalCommandRegistry {
 
-    private final Map<String, CommandContainer> registry = new HashMap<String, CommandContainer>();
+    private final TreeMap<String, CommandContainer> registry = new TreeMap<>();
 
     public void addCommand(Command command) {
         putIntoRegistry(new AeshCommandContainerBuilder().build(command));
@@ -51,4 +52,18 @@ public class AeshInternalCommandRegistry {
     public Set<String> getAllCommandNames() {
         return registry.keySet();
     }
+
+    /**
+     * @param line partial command name
+     * @return the names of all commands starting with line
+     */
+    public List<String> findAllCommandNames(String line) {
+        List<String> names = new ArrayList<>();
+        for(String name : registry.tailMap(line, true).keySet()) {
+            if(!name.startsWith(line))
+                break;
+            names.add(name);
+        }
+        return names;
+    }
 }
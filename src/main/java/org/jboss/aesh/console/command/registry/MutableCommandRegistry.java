@@ -23,20 +23,30 @@ import org.jboss.aesh.console.command.CommandNotFoundException;
 import org.jboss.aesh.console.command.container.AeshCommandContainerBuilder;
 import org.jboss.aesh.console.command.container.CommandContainer;
 import org.jboss.aesh.console.command.container.CommandContainerBuilder;
+import org.jboss.aesh.console.command.container.LazyCommandContainer;
 import org.jboss.aesh.parser.Parser;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
+ * The commands are stored sorted by name so the commands matching a
+ * partial command name can be found without looking at every command.
+ *
  * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
  */
 public class MutableCommandRegistry implements CommandRegistry {
 
-    private final Map<String,CommandContainer> registry = new HashMap<String, CommandContainer>();
+    private final TreeMap<String,CommandContainer> registry = new TreeMap<>();
+    //sorted names of the sub commands of the group commands,
+    //filled in by lookups that can run on the completion threads
+    private final ConcurrentMap<String,GroupIndex> groupIndexes = new ConcurrentHashMap<>();
 
     private CommandContainerBuilder containerBuilder;
 
@@ -46,31 +56,55 @@ public class MutableCommandRegistry implements CommandRegistry {
 
     @Override
     public CommandContainer getCommand(String name, String line) throws CommandNotFoundException {
-        if(registry.containsKey(name))
-            return registry.get(name);
-        else
+        CommandContainer container = registry.get(name);
+        if(container == null)
             throw new CommandNotFoundException("Command: "+name+" was not found.");
+        //a lazy command is built the first time its used
+        if(container instanceof LazyCommandContainer && container.haveBuildError()) {
+            removeCommand(name);
+            throw new CommandNotFoundException("Command: "+name+" could not be built: "+
+                    container.getBuildErrorMessage());
+        }
+        return container;
     }
 
     @Override
     public List<String> findAllCommandNames(String line) {
         List<String> names = new ArrayList<>();
-        for(CommandContainer command : registry.values()) {
-            if(command.getParser().getProcessedCommand().getName().startsWith(line))
-                names.add(command.getParser().getProcessedCommand().getName());
-            else if(command.getParser().isGroupCommand() &&
-                    line.startsWith(command.getParser().getProcessedCommand().getName())) {
-                String groupLine = Parser.trimInFront( line.substring(command.getParser().getProcessedCommand().getName().length()));
+        //all the commands starting with line
+        for(String name : registry.tailMap(line, true).keySet()) {
+            if(!name.startsWith(line))
+                break;
+            names.add(name);
+        }
+        //group commands with a name that is a prefix of line
+        for(int i = 1; i < line.length(); i++) {
+            CommandContainer command = registry.get(line.substring(0, i));
+            if(command != null && isGroupCommand(command)) {
+                String groupLine = Parser.trimInFront(line.substring(i));
                 int diff = line.length() - groupLine.length();
-                for(CommandLineParser child : command.getParser().getAllChildParsers()) {
-                    if(child.getProcessedCommand().getName().startsWith(groupLine))
-                        names.add(line.substring(0, diff) + child.getProcessedCommand().getName());
+                for(String child : getGroupIndex(command).names.tailSet(groupLine, true)) {
+                    if(!child.startsWith(groupLine))
+                        break;
+                    names.add(line.substring(0, diff) + child);
                 }
             }
         }
         return names;
     }
 
+    private GroupIndex getGroupIndex(CommandContainer command) {
+        String name = command.getParser().getProcessedCommand().getName();
+        List<CommandLineParser> children = command.getParser().getAllChildParsers();
+        GroupIndex index = groupIndexes.get(name);
+        //child parsers can be added or replaced after the command is registered
+        if(index == null || !index.isIndexOf(children)) {
+            index = new GroupIndex(children);
+            groupIndexes.put(name, index);
+        }
+        return index;
+    }
+
     @Override
     public Set<String> getAllCommandNames() {
         return registry.keySet();
@@ -88,15 +122,41 @@ public class MutableCommandRegistry implements CommandRegistry {
         putIntoRegistry(getBuilder().build(command));
     }
 
+    /**
+     * Register the command by the name and description in its annotation.
+     * The command is not instantiated and its parser is not generated
+     * until it is completed or executed for the first time.
+     * Build errors will not be found until then.
+     *
+     * @param command command class
+     */
+    public void addLazyCommand(Class<? extends Command> command) {
+        putIntoRegistry(new LazyCommandContainer(command, getBuilder()));
+    }
+
     private void putIntoRegistry(CommandContainer commandContainer) {
-        if(!commandContainer.haveBuildError() &&
+        if(commandContainer instanceof LazyCommandContainer) {
+            String name = ((LazyCommandContainer) commandContainer).getName();
+            if(!registry.containsKey(name))
+                registry.put(name, commandContainer);
+        }
+        else if(!commandContainer.haveBuildError() &&
                 !registry.containsKey(commandContainer.getParser().getProcessedCommand().getName()))
             registry.put(commandContainer.getParser().getProcessedCommand().getName(), commandContainer);
     }
 
+    private boolean isGroupCommand(CommandContainer command) {
+        if(command instanceof LazyCommandContainer)
+            return ((LazyCommandContainer) command).isGroupCommand() && !command.haveBuildError();
+        else
+            return command.getParser().isGroupCommand();
+    }
+
     public void removeCommand(String name) {
-        if(registry.containsKey(name))
+        if(registry.containsKey(name)) {
             registry.remove(name);
+            groupIndexes.remove(name);
+        }
     }
 
     private CommandContainerBuilder getBuilder() {
@@ -105,4 +165,27 @@ public class MutableCommandRegistry implements CommandRegistry {
         return containerBuilder;
     }
 
+    private static class GroupIndex {
+        private final List<CommandLineParser> children;
+        private final NavigableSet<String> names = new TreeSet<>();
+
+        GroupIndex(List<CommandLineParser> children) {
+            this.children = new ArrayList<>(children);
+            for(CommandLineParser child : this.children)
+                names.add(child.getProcessedCommand().getName());
+        }
+
+        /**
+         * @return true if the index is built from the same child parsers
+         */
+        boolean isIndexOf(List<CommandLineParser> parsers) {
+            if(parsers.size() != children.size())
+                return false;
+            for(int i = 0; i < parsers.size(); i++)
+                if(parsers.get(i) != children.get(i))
+                    return false;
+            return true;
+        }
+    }
+
 }
@@ -23,6 +23,7 @@ import org.jboss.aesh.console.command.Command;
 import org.jboss.aesh.console.command.invocation.CommandInvocation;
 import org.jboss.aesh.console.command.CommandOperation;
 import org.jboss.aesh.console.operator.ControlOperator;
+import org.jboss.aesh.terminal.FramedShell;
 import org.jboss.aesh.terminal.Key;
 import org.jboss.aesh.terminal.Shell;
 import org.jboss.aesh.util.ANSI;
@@ -30,6 +31,7 @@ import org.jboss.aesh.util.LoggerUtil;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.jboss.aesh.console.man.TerminalPage.Search;
@@ -328,6 +330,22 @@ public abstract class AeshFileDisplayer implements Command {
     }
 
     private void display() throws IOException {
+        //draw the page as one frame if the shell can
+        if(!(getShell() instanceof FramedShell)) {
+            displayPage();
+            return;
+        }
+        FramedShell shell = (FramedShell) getShell();
+        shell.beginFrame();
+        try {
+            displayPage();
+        }
+        finally {
+            shell.endFrame();
+        }
+    }
+
+    private void displayPage() throws IOException {
         if(topVisibleRow != topVisibleRowCache) {
             getShell().clear();
             if(search == Search.RESULT && searchLines.size() > 0) {
@@ -406,9 +424,13 @@ public abstract class AeshFileDisplayer implements Command {
     }
 
     private void findSearchWord(boolean forward) throws IOException {
-        LOGGER.info("searching for: " + searchBuilder.toString());
+        //the command is not given the settings, the logger is off unless logging is enabled
+        boolean doLogging = LOGGER.isLoggable(Level.INFO);
+        if(doLogging)
+            LOGGER.info("searching for: " + searchBuilder.toString());
         searchLines = page.findWord(searchBuilder.toString());
-        LOGGER.info("found: "+searchLines);
+        if(doLogging)
+            LOGGER.info("found: "+searchLines);
         if(searchLines.size() > 0) {
             for(Integer i : searchLines)
                 if(i > topVisibleRow) {
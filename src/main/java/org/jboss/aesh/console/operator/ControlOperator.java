@@ -63,6 +63,20 @@ public enum ControlOperator {
         return this == APPEND_ERR || this == OVERWRITE_ERR || this == OVERWRITE_OUT_AND_ERR;
     }
 
+    /**
+     * @return true if it redirect to or from a file, pipelines are not included
+     */
+    public boolean isRedirectionNoPipeline() {
+        return isOut() || isErr() || this == OVERWRITE_IN;
+    }
+
+    /**
+     * @return true if a new command start after it when completing
+     */
+    public boolean isPipelineOrEnd() {
+        return isPipe() || this == END || this == OR;
+    }
+
     private boolean isNone() {
         return this == NONE;
     }
@@ -0,0 +1,173 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.console.operator;
+
+/**
+ * Single pass lexer that finds the control operators of a buffer.
+ * Operators inside single or double quotes and characters escaped with a
+ * backslash are skipped. Each call to {@link #next()} continues from the end
+ * of the previous operator, so a buffer is only read once no matter how many
+ * operators it contain.
+ *
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+public final class ControlOperatorLexer {
+
+    private static final char ESCAPE = '\\';
+    private static final char EQUALS = '=';
+    private static final char DOUBLE_QUOTE = '"';
+    private static final char SINGLE_QUOTE = '\'';
+
+    private final String buffer;
+    private final int length;
+    private int position;
+    private int start;
+    private int end;
+    private ControlOperator operator = ControlOperator.NONE;
+
+    public ControlOperatorLexer(String buffer) {
+        this.buffer = buffer;
+        this.length = buffer.length();
+    }
+
+    /**
+     * Find the next control operator.
+     *
+     * @return true if an operator was found, false when the end of the buffer is reached
+     */
+    public boolean next() {
+        boolean haveDoubleQuote = false;
+        boolean haveSingleQuote = false;
+        int i = position;
+        while(i < length) {
+            char c = buffer.charAt(i);
+            if(c == ESCAPE) {
+                i += 2;
+                continue;
+            }
+            if(c == DOUBLE_QUOTE) {
+                if(!haveSingleQuote)
+                    haveDoubleQuote = !haveDoubleQuote;
+            }
+            else if(c == SINGLE_QUOTE) {
+                if(!haveDoubleQuote)
+                    haveSingleQuote = !haveSingleQuote;
+            }
+            else if(!haveDoubleQuote && !haveSingleQuote) {
+                int operatorLength = matchOperator(c, i);
+                if(operatorLength > 0) {
+                    start = i;
+                    end = i + operatorLength;
+                    position = end;
+                    return true;
+                }
+            }
+            i++;
+        }
+        position = length;
+        start = length;
+        end = length;
+        operator = ControlOperator.NONE;
+        return false;
+    }
+
+    /**
+     * @return the operator found by the last call to {@link #next()},
+     *         NONE if there are no more operators
+     */
+    public ControlOperator getOperator() {
+        return operator;
+    }
+
+    /**
+     * @return the index of the first char of the current operator
+     */
+    public int getStart() {
+        return start;
+    }
+
+    /**
+     * @return the index after the last char of the current operator
+     */
+    public int getEnd() {
+        return end;
+    }
+
+    /**
+     * Check if there is an operator at the given index, the longest operator wins.
+     * The single char operators |, &amp;, &gt; and &lt; are ignored at the start
+     * of a command and &gt;/&lt; are ignored when they are next to a =.
+     *
+     * @return the length of the operator, 0 if there are none
+     */
+    private int matchOperator(char c, int i) {
+        switch(c) {
+            case '2':
+                if(charAt(i+1) == '>') {
+                    if(charAt(i+2) == '&' && charAt(i+3) == '1')
+                        return found(ControlOperator.OVERWRITE_OUT_AND_ERR, 4);
+                    else if(charAt(i+2) == '>')
+                        return found(ControlOperator.APPEND_ERR, 3);
+                    else
+                        return found(ControlOperator.OVERWRITE_ERR, 2);
+                }
+                return 0;
+            case '>':
+                if(charAt(i+1) == '>')
+                    return found(ControlOperator.APPEND_OUT, 2);
+                else if(isRedirectionSign(i))
+                    return found(ControlOperator.OVERWRITE_OUT, 1);
+                return 0;
+            case '<':
+                if(isRedirectionSign(i))
+                    return found(ControlOperator.OVERWRITE_IN, 1);
+                return 0;
+            case '|':
+                if(charAt(i+1) == '&')
+                    return found(ControlOperator.PIPE_OUT_AND_ERR, 2);
+                else if(charAt(i+1) == '|')
+                    return found(ControlOperator.OR, 2);
+                else if(i > position)
+                    return found(ControlOperator.PIPE, 1);
+                return 0;
+            case ';':
+                return found(ControlOperator.END, 1);
+            case '&':
+                if(charAt(i+1) == '&')
+                    return found(ControlOperator.AND, 2);
+                else if(i > position)
+                    return found(ControlOperator.AMP, 1);
+                return 0;
+            default:
+                return 0;
+        }
+    }
+
+    private boolean isRedirectionSign(int i) {
+        return i > position && buffer.charAt(i-1) != EQUALS && charAt(i+1) != EQUALS;
+    }
+
+    private int found(ControlOperator operator, int operatorLength) {
+        this.operator = operator;
+        return operatorLength;
+    }
+
+    private char charAt(int i) {
+        return i < length ? buffer.charAt(i) : 0;
+    }
+}
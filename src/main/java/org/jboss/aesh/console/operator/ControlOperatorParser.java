@@ -21,8 +21,6 @@ import org.jboss.aesh.console.ConsoleOperation;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Parser class for everything that contain operator and pipelines
@@ -31,14 +29,13 @@ import java.util.regex.Pattern;
  */
 public class ControlOperatorParser {
 
-    private static final Pattern controlOperatorPattern = Pattern.compile("(2>&1)|(2>>)|(2>)|(>>)|(>)|(<)|(\\|&)|(\\|\\|)|(\\|)|(;)|(&&)|(&)|(\")|(\')");
-    private static final Pattern redirectionNoPipelinePattern = Pattern.compile("(2>&1)|(2>>)|(2>)|(>>)|(>)|(<)");
-    private static final Pattern pipelineAndEndPattern = Pattern.compile("(\\|&)|(\\|)|(;)");
-    private static final char ESCAPE = '\\';
-    private static final char EQUALS = '=';
-
     public static boolean doStringContainRedirectionNoPipeline(String buffer) {
-        return redirectionNoPipelinePattern.matcher(buffer).find();
+        ControlOperatorLexer lexer = new ControlOperatorLexer(buffer);
+        while(lexer.next()) {
+            if(lexer.getOperator().isRedirectionNoPipeline())
+                return true;
+        }
+        return false;
     }
 
     /**
@@ -48,15 +45,21 @@ public class ControlOperatorParser {
      * @return true if it contains pipeline
      */
     public static boolean doStringContainPipelineOrEnd(String buffer) {
-        return pipelineAndEndPattern.matcher(buffer).find();
+        ControlOperatorLexer lexer = new ControlOperatorLexer(buffer);
+        while(lexer.next()) {
+            if(lexer.getOperator().isPipelineOrEnd())
+                return true;
+        }
+        return false;
     }
 
     public static int getPositionOfFirstRedirection(String buffer) {
-        Matcher matcher = redirectionNoPipelinePattern.matcher(buffer);
-        if(matcher.find())
-            return matcher.end();
-        else
-            return 0;
+        ControlOperatorLexer lexer = new ControlOperatorLexer(buffer);
+        while(lexer.next()) {
+            if(lexer.getOperator().isRedirectionNoPipeline())
+                return lexer.getEnd();
+        }
+        return 0;
     }
 
     /**
@@ -67,7 +70,7 @@ public class ControlOperatorParser {
      * @return last pipeline pos before cursor
      */
     public static int findLastPipelineAndEndPositionBeforeCursor(String buffer, int cursor) {
-        return findLastRedirectionOrPipelinePositionBeforeCursor(pipelineAndEndPattern, buffer, cursor);
+        return findLastPipelineAndRedirectionPositionBeforeCursor(buffer, cursor)[0];
     }
 
     /**
@@ -78,21 +81,28 @@ public class ControlOperatorParser {
      * @return last operator pos before cursor
      */
     public static int findLastRedirectionPositionBeforeCursor(String buffer, int cursor) {
-        return findLastRedirectionOrPipelinePositionBeforeCursor(redirectionNoPipelinePattern, buffer, cursor);
+        return findLastPipelineAndRedirectionPositionBeforeCursor(buffer, cursor)[1];
     }
 
-    private static int findLastRedirectionOrPipelinePositionBeforeCursor(Pattern pattern, String buffer, int cursor) {
-        Matcher matcher = pattern.matcher(buffer);
-        if(cursor > buffer.length())
-            cursor = buffer.length();
-        int end = 0;
-        while(matcher.find()) {
-            if(matcher.start() > cursor)
-                return end;
-            else
-                end = matcher.end();
+    /**
+     * Used when finding the part of the buffer a complete should be based on.
+     * The buffer is only scanned once.
+     *
+     * @param buffer text
+     * @param cursor position
+     * @return the last pipeline pos and the last redirection pos before cursor,
+     *         0 if there are none
+     */
+    public static int[] findLastPipelineAndRedirectionPositionBeforeCursor(String buffer, int cursor) {
+        int[] positions = new int[2];
+        ControlOperatorLexer lexer = new ControlOperatorLexer(buffer);
+        while(lexer.next() && lexer.getStart() <= cursor) {
+            if(lexer.getOperator().isPipelineOrEnd())
+                positions[0] = lexer.getEnd();
+            else if(lexer.getOperator().isRedirectionNoPipeline())
+                positions[1] = lexer.getEnd();
         }
-        return end;
+        return positions;
     }
 
     /**
@@ -102,114 +112,14 @@ public class ControlOperatorParser {
      * @return all RedirectionOperations
      */
     public static List<ConsoleOperation> findAllControlOperators(String buffer) {
-        Matcher matcher = controlOperatorPattern.matcher(buffer);
+        ControlOperatorLexer lexer = new ControlOperatorLexer(buffer);
         List<ConsoleOperation> reOpList = new ArrayList<>();
-        boolean haveDoubleQuote = false;
-        boolean haveSingleQuote = false;
-
-        while(matcher.find()) {
-            if(matcher.group(1) != null && !haveDoubleQuote && !haveSingleQuote) {
-                reOpList.add( new ConsoleOperation(ControlOperator.OVERWRITE_OUT_AND_ERR,
-                        buffer.substring(0, matcher.start(1))));
-                buffer = buffer.substring(matcher.end(1));
-                matcher = controlOperatorPattern.matcher(buffer);
-            }
-            else if(matcher.group(2) != null && !haveDoubleQuote && !haveSingleQuote) {
-                reOpList.add( new ConsoleOperation(ControlOperator.APPEND_ERR,
-                        buffer.substring(0, matcher.start(2))));
-                buffer = buffer.substring(matcher.end(2));
-                matcher = controlOperatorPattern.matcher(buffer);
-            }
-            else if(matcher.group(3) != null && !haveDoubleQuote && !haveSingleQuote) {
-                reOpList.add( new ConsoleOperation(ControlOperator.OVERWRITE_ERR,
-                        buffer.substring(0, matcher.start(3))));
-                buffer = buffer.substring(matcher.end(3));
-                matcher = controlOperatorPattern.matcher(buffer);
-            }
-            else if(matcher.group(4) != null && !haveDoubleQuote && !haveSingleQuote) {
-                reOpList.add( new ConsoleOperation(ControlOperator.APPEND_OUT,
-                        buffer.substring(0, matcher.start(4))));
-                buffer = buffer.substring(matcher.end(4));
-                matcher = controlOperatorPattern.matcher(buffer);
-            }
-            else if(matcher.group(5) != null && !haveDoubleQuote && !haveSingleQuote) {
-                if(matcher.start(5) > 0 &&
-                        buffer.charAt(matcher.start(5)-1) != ESCAPE &&
-                        buffer.charAt(matcher.start(5)-1) != EQUALS &&
-                        ((matcher.start(5)+1 < buffer.length() &&
-                                buffer.charAt(matcher.start(5)+1) != EQUALS)
-                                || matcher.start(5)+1 == buffer.length())) {
-                    reOpList.add( new ConsoleOperation(ControlOperator.OVERWRITE_OUT,
-                            buffer.substring(0, matcher.start(5))));
-                    buffer = buffer.substring(matcher.end(5));
-                    matcher = controlOperatorPattern.matcher(buffer);
-                }
-            }
-            else if(matcher.group(6) != null && !haveDoubleQuote && !haveSingleQuote) {
-                if(matcher.start(6) > 0 &&
-                        buffer.charAt(matcher.start(6)-1) != ESCAPE &&
-                        buffer.charAt(matcher.start(6)-1) != EQUALS &&
-                        (( matcher.start(6)+1 < buffer.length() &&
-                                buffer.charAt(matcher.start(6)+1) != EQUALS) ||
-                                matcher.start(6)+1 == buffer.length())) {
-
-                    reOpList.add( new ConsoleOperation(ControlOperator.OVERWRITE_IN,
-                            buffer.substring(0, matcher.start(6))));
-                    buffer = buffer.substring(matcher.end(6));
-                    matcher = controlOperatorPattern.matcher(buffer);
-                }
-            }
-            else if(matcher.group(7) != null && !haveDoubleQuote && !haveSingleQuote) {
-                reOpList.add( new ConsoleOperation(ControlOperator.PIPE_OUT_AND_ERR,
-                        buffer.substring(0, matcher.start(7))));
-                buffer = buffer.substring(matcher.end(7));
-                matcher = controlOperatorPattern.matcher(buffer);
-            }
-            else if(matcher.group(8) != null && !haveDoubleQuote && !haveSingleQuote) {
-                reOpList.add( new ConsoleOperation(ControlOperator.OR,
-                        buffer.substring(0, matcher.start(8))));
-                buffer = buffer.substring(matcher.end(8));
-                matcher = controlOperatorPattern.matcher(buffer);
-            }
-            else if(matcher.group(9) != null && !haveDoubleQuote && !haveSingleQuote) {
-                if(matcher.start(9) > 0 &&
-                        buffer.charAt(matcher.start(9)-1) != ESCAPE) {
-                    reOpList.add( new ConsoleOperation(ControlOperator.PIPE,
-                            buffer.substring(0, matcher.start(9))));
-                    buffer = buffer.substring(matcher.end(9));
-                    matcher = controlOperatorPattern.matcher(buffer);
-                }
-            }
-            else if(matcher.group(10) != null && !haveDoubleQuote && !haveSingleQuote) {
-                reOpList.add( new ConsoleOperation(ControlOperator.END,
-                        buffer.substring(0, matcher.start(10))));
-                buffer = buffer.substring(matcher.end(10));
-                matcher = controlOperatorPattern.matcher(buffer);
-            }
-            else if(matcher.group(11) != null && !haveDoubleQuote && !haveSingleQuote) {
-                reOpList.add( new ConsoleOperation(ControlOperator.AND,
-                        buffer.substring(0, matcher.start(11))));
-                buffer = buffer.substring(matcher.end(11));
-                matcher = controlOperatorPattern.matcher(buffer);
-            }
-            else if(matcher.group(12) != null && !haveDoubleQuote && !haveSingleQuote) {
-                if(matcher.start(12) > 0 &&
-                        buffer.charAt(matcher.start(12)-1) != ESCAPE) {
-                    reOpList.add( new ConsoleOperation(ControlOperator.AMP,
-                            buffer.substring(0, matcher.start(12))));
-                    buffer = buffer.substring(matcher.end(12));
-                    matcher = controlOperatorPattern.matcher(buffer);
-                }
-            }
-            else if(matcher.group(13) != null) {
-                if((matcher.start(13) == 0 || buffer.charAt(matcher.start(13)-1) != ESCAPE) && !haveSingleQuote)
-                    haveDoubleQuote = !haveDoubleQuote;
-            }
-            else if(matcher.group(14) != null) {
-                if((matcher.start(14) == 0 || buffer.charAt(matcher.start(14)-1) != ESCAPE) && !haveDoubleQuote)
-                    haveSingleQuote = !haveSingleQuote;
-            }
-         }
+        int from = 0;
+        while(lexer.next()) {
+            reOpList.add(new ConsoleOperation(lexer.getOperator(), buffer.substring(from, lexer.getStart())));
+            from = lexer.getEnd();
+        }
+        buffer = buffer.substring(from);
         if(reOpList.size() == 0)
             reOpList.add(new ConsoleOperation( ControlOperator.NONE, buffer));
         if(buffer.trim().length() > 0)
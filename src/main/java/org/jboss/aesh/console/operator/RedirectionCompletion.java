@@ -32,9 +32,9 @@ public class RedirectionCompletion implements Completion {
     @Override
     public void complete(CompleteOperation completeOperation) {
 
-        if(ControlOperatorParser.doStringContainRedirectionNoPipeline(completeOperation.getBuffer())) {
-            int redirectPos =  ControlOperatorParser.findLastRedirectionPositionBeforeCursor(
-                    completeOperation.getBuffer(), completeOperation.getCursor());
+        int redirectPos =  ControlOperatorParser.findLastRedirectionPositionBeforeCursor(
+                completeOperation.getBuffer(), completeOperation.getCursor());
+        if(redirectPos > 0) {
 
             String word = Parser.findCurrentWordFromCursor(completeOperation.getBuffer().substring(redirectPos, completeOperation.getCursor()), completeOperation.getCursor() - redirectPos);
 
@@ -19,7 +19,6 @@ package org.jboss.aesh.console.reader;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.concurrent.ArrayBlockingQueue;
 
 import org.jboss.aesh.console.Config;
 import org.jboss.aesh.terminal.Key;
@@ -29,67 +28,60 @@ import org.jboss.aesh.terminal.Key;
  */
 public class AeshInputStream extends InputStream {
 
-    private final ArrayBlockingQueue<String> blockingQueue;
-    private String b;
-    private int c;
-    private transient boolean stopped = false;
+    private final InputRingBuffer inputBuffer;
 
-    public AeshInputStream(ArrayBlockingQueue<String> blockingQueue) {
-        this.blockingQueue = blockingQueue;
+    public AeshInputStream(InputRingBuffer inputBuffer) {
+        this.inputBuffer = inputBuffer;
     }
 
     @Override
     public int read() throws IOException {
-        if(stopped && blockingQueue.size() == 0)
-            return -1;
         try {
-            if (b == null || c == b.length()) {
-                b = blockingQueue.take();
-                c = 0;
-            }
+            return inputBuffer.read();
+        }
+        catch (InterruptedException e) {
+            return -1;
+        }
+    }
 
-            if (b != null && !(b.length() == 0)) {
-                return b.charAt(c++);
-            }
-        } catch (InterruptedException e) {
-            //
+    /**
+     * Read up to length values into input, starting at offset.
+     * Will block until at least one value is available.
+     *
+     * @return number of values read or -1 if the stream is closed
+     */
+    public int read(int[] input, int offset, int length) {
+        try {
+            return inputBuffer.read(input, offset, length);
+        }
+        catch (InterruptedException e) {
+            return -1;
         }
-        return -1;
     }
 
+    /**
+     * Block until input is available and return all of it.
+     *
+     * @return input or {-1} if the stream is closed
+     */
     public int[] readAll() {
-        if(stopped && blockingQueue.size() == 0)
-            return new int[] {-1};
         try {
-            if(Config.isOSPOSIXCompatible()) {
-                String out = blockingQueue.take();
-                int[] input = new int[out.length()];
-                for(int i=0; i < out.length(); i++)
-                    input[i] = out.charAt(i);
-                return input;
-            }
-            else {
-                String out = blockingQueue.take();
-                //hack to make multi-value input work (arrows ++)
-                if (!out.isEmpty() &&
-                        (out.charAt(0) == Key.WINDOWS_ESC.getAsChar() ||
-                                out.charAt(0) == Key.WINDOWS_ESC_2.getAsChar())) {
-                    int[] input = new int[2];
-                    //set the first char to WINDOWS_ESC, then we can reduce the number of different key's in the future
-                    input[0] = Key.WINDOWS_ESC.getAsChar();
-                    String out2 = blockingQueue.take();
-                    input[1] = out2.charAt(0);
-
-                    return input;
-                }
-                else {
-                    int[] input = new int[out.length()];
-                    for(int i=0; i < out.length(); i++)
-                        input[i] = out.charAt(i);
-                    return input;
-                }
+            int first = inputBuffer.read();
+            if(first == -1)
+                return new int[] {-1};
+
+            //hack to make multi-value input work (arrows ++)
+            if(!Config.isOSPOSIXCompatible() &&
+                    (first == Key.WINDOWS_ESC.getAsChar() || first == Key.WINDOWS_ESC_2.getAsChar())) {
+                //set the first char to WINDOWS_ESC, then we can reduce the number of different key's in the future
+                return new int[] {Key.WINDOWS_ESC.getAsChar(), inputBuffer.read()};
             }
 
+            int[] input = new int[inputBuffer.available() + 1];
+            input[0] = first;
+            //we are the only reader so everything available can be read without blocking
+            inputBuffer.read(input, 1, input.length - 1);
+            return input;
         }
         catch (InterruptedException e) {
             return new int[] {-1};
@@ -98,23 +90,33 @@ public class AeshInputStream extends InputStream {
 
     @Override
     public int available() {
-        if (b != null)
-            return b.length();
-        else
-            return 0;
+        return inputBuffer.available();
     }
 
     @Override
     public void close() throws IOException {
-        if(!stopped) {
-            stopped = true;
-            blockingQueue.add("");
-        }
+        inputBuffer.close();
+    }
+
+    public boolean isClosed() {
+        return inputBuffer.isClosed();
+    }
+
+    /**
+     * Set a listener that is run when input is available or the stream is closed.
+     * It must not block, the input should be read by another thread.
+     */
+    public void setInputListener(Runnable listener) {
+        inputBuffer.setListener(listener);
     }
 
-    //TODO: not sure if this is very smart...
+    /**
+     * Inject input, it will be read as if it came from the terminal.
+     * It is added at once and never block.
+     */
     public void write(String toBuffer) {
-        blockingQueue.add(toBuffer);
+        char[] chars = toBuffer.toCharArray();
+        inputBuffer.inject(chars, 0, chars.length);
     }
 
 }
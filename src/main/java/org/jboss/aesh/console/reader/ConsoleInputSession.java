@@ -18,11 +18,17 @@
 package org.jboss.aesh.console.reader;
 
 import org.jboss.aesh.console.Config;
+import org.jboss.aesh.console.SharedScheduler;
+import org.jboss.aesh.console.settings.ExecutionMode;
 import org.jboss.aesh.util.LoggerUtil;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.concurrent.ArrayBlockingQueue;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
@@ -38,14 +44,80 @@ public class ConsoleInputSession {
     private final InputStream consoleStream;
     private final AeshInputStream aeshInputStream;
     private final ExecutorService executorService;
+    //polls the input stream on the shared scheduler, null if we have our own thread
+    private final Runnable poller;
+    private final boolean blockingRead;
+    private final boolean doLogging;
+    private final byte[] pollBuffer = new byte[1024];
 
-    private final ArrayBlockingQueue<String> blockingQueue = new ArrayBlockingQueue<>(1000);
+    private final InputRingBuffer inputBuffer = new InputRingBuffer();
+
+    //room for the read chunk plus an incomplete multi-byte sequence from the previous read
+    private final ByteBuffer byteBuffer = ByteBuffer.allocate(1024 + 16);
+    private final CharBuffer charBuffer = CharBuffer.allocate(1024 + 16);
+    private final CharsetDecoder decoder = Charset.defaultCharset().newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
 
     private static final Logger LOGGER = LoggerUtil.getLogger(ConsoleInputSession.class.getName());
 
     public ConsoleInputSession(InputStream consoleStream) {
+        this(consoleStream, false);
+    }
+
+    /**
+     * @param consoleStream input
+     * @param blockingRead if true the reader will block on the input stream and
+     *                     pass input on as soon as it arrive, if false the stream
+     *                     is polled for available input (POSIX only).
+     */
+    public ConsoleInputSession(InputStream consoleStream, boolean blockingRead) {
+        this(consoleStream, blockingRead, ExecutionMode.DEDICATED);
+    }
+
+    /**
+     * @param consoleStream input
+     * @param blockingRead if true the reader will block on the input stream and
+     *                     pass input on as soon as it arrive, if false the stream
+     *                     is polled for available input (POSIX only).
+     * @param executionMode with SHARED the input stream is polled on the shared
+     *                      scheduler. A blocking read need its own thread.
+     */
+    public ConsoleInputSession(InputStream consoleStream, boolean blockingRead, ExecutionMode executionMode) {
+        this(consoleStream, blockingRead, executionMode, false);
+    }
+
+    /**
+     * @param consoleStream input
+     * @param blockingRead if true the reader will block on the input stream and
+     *                     pass input on as soon as it arrive, if false the stream
+     *                     is polled for available input (POSIX only).
+     * @param executionMode with SHARED the input stream is polled on the shared
+     *                      scheduler. A blocking read need its own thread.
+     * @param doLogging Settings.isLogging()
+     */
+    public ConsoleInputSession(InputStream consoleStream, boolean blockingRead, ExecutionMode executionMode,
+                               boolean doLogging) {
         this.consoleStream = consoleStream;
-        if(Config.isOSPOSIXCompatible())
+        this.doLogging = doLogging;
+        this.blockingRead = blockingRead;
+        aeshInputStream = new AeshInputStream(inputBuffer);
+        if(executionMode == ExecutionMode.SHARED && Config.isOSPOSIXCompatible() && !blockingRead) {
+            executorService = null;
+            //no decoded input is waiting to be written
+            charBuffer.limit(0);
+            poller = new Runnable() {
+                @Override
+                public void run() {
+                    poll();
+                }
+            };
+            SharedScheduler.addPoller(poller);
+            return;
+        }
+        poller = null;
+        //a thread blocked in read() can not be interrupted so it must not prevent the jvm from exiting
+        if(Config.isOSPOSIXCompatible() && !blockingRead)
             executorService = Executors.newSingleThreadExecutor();
         else
             executorService = Executors.newSingleThreadExecutor(new ThreadFactory() {
@@ -56,22 +128,80 @@ public class ConsoleInputSession {
                     return thread;
                 }
             });
-        aeshInputStream = new AeshInputStream(blockingQueue);
         startReader();
     }
 
+    /**
+     * Read what is available without blocking. The shared thread must never wait
+     * for the reader, decoded input that do not fit in the input buffer is kept
+     * and written before more is read.
+     */
+    private void poll() {
+        try {
+            if(!writeDecoded())
+                return;
+            int read = consoleStream.available();
+            if(read > 0) {
+                read = consoleStream.read(pollBuffer, 0, Math.min(read, pollBuffer.length));
+                if(read > 0) {
+                    charBuffer.clear();
+                    byteBuffer.put(pollBuffer, 0, read);
+                    byteBuffer.flip();
+                    decoder.decode(byteBuffer, charBuffer, false);
+                    byteBuffer.compact();
+                    charBuffer.flip();
+                    writeDecoded();
+                }
+            }
+            else if(read < 0) {
+                stop();
+            }
+        }
+        catch (Exception e) {
+            try {
+                stop();
+            }
+            catch (InterruptedException | IOException e1) {
+                e1.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Write what fit of the decoded input that is left in the char buffer
+     *
+     * @return true if all of it is written
+     */
+    private boolean writeDecoded() {
+        int written = inputBuffer.tryWrite(charBuffer.array(), charBuffer.position(), charBuffer.remaining());
+        charBuffer.position(charBuffer.position() + written);
+        return !charBuffer.hasRemaining();
+    }
+
     private void startReader() {
         Runnable reader = new Runnable() {
             @Override
             public void run() {
                 try {
                     byte[] bBuf = new byte[1024];
-                    if(Config.isOSPOSIXCompatible()) {
+                    if(Config.isOSPOSIXCompatible() && blockingRead) {
+                        while (!executorService.isShutdown()) {
+                            int read = consoleStream.read(bBuf);
+                            if (read > 0) {
+                                decode(bBuf, read);
+                            }
+                            else if (read < 0) {
+                                stop();
+                            }
+                        }
+                    }
+                    else if(Config.isOSPOSIXCompatible()) {
                         while (!executorService.isShutdown()) {
                             int read = consoleStream.available();
                             if (read > 0) {
-                                consoleStream.read(bBuf, 0, read);
-                                blockingQueue.put(new String(bBuf, 0, read));
+                                read = consoleStream.read(bBuf, 0, Math.min(read, bBuf.length));
+                                if(read > 0)
+                                    decode(bBuf, read);
                             }
                             else if (read < 0) {
                                 stop();
@@ -83,7 +213,7 @@ public class ConsoleInputSession {
                         while (!executorService.isShutdown()) {
                             int read = consoleStream.read(bBuf);
                             if (read > 0) {
-                                blockingQueue.put(new String(bBuf, 0, read));
+                                decode(bBuf, read);
                             }
                             else if (read < 0) {
                                 stop();
@@ -116,12 +246,36 @@ public class ConsoleInputSession {
     }
 
 
+    /**
+     * Decode the bytes read and pass them on to the input buffer.
+     * An incomplete multi-byte sequence is kept until the rest of it is read.
+     */
+    private void decode(byte[] input, int length) throws InterruptedException {
+        byteBuffer.put(input, 0, length);
+        byteBuffer.flip();
+        decoder.decode(byteBuffer, charBuffer, false);
+        byteBuffer.compact();
+        charBuffer.flip();
+        inputBuffer.write(charBuffer.array(), 0, charBuffer.limit());
+        charBuffer.clear();
+    }
+
     public void stop() throws IOException, InterruptedException {
-        if(!executorService.isShutdown()) {
+        if(poller != null) {
+            //remove only succeed once
+            if(SharedScheduler.removePoller(poller)) {
+                consoleStream.close();
+                aeshInputStream.close();
+                if(doLogging)
+                    LOGGER.info("input stream is closed, poller is removed...");
+            }
+        }
+        else if(!executorService.isShutdown()) {
             consoleStream.close();
             executorService.shutdown();
             aeshInputStream.close();
-            LOGGER.info("input stream is closed, readers finished...");
+            if(doLogging)
+                LOGGER.info("input stream is closed, readers finished...");
         }
     }
 
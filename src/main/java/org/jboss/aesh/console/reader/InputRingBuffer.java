@@ -0,0 +1,278 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.console.reader;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A preallocated, bounded ring buffer of input values (UTF-16 chars widened
+ * to int, like the rest of the input handling).
+ * The terminal reader writes decoded input in bulk and the console reads it
+ * back in bulk into caller supplied arrays, no objects are created per chunk.
+ *
+ * The terminal reader block when the buffer is full and readers block when it
+ * is empty. There is normally one writer (the input session) and one reader
+ * (the console), but input can also be injected by other threads, eg:
+ * Console.pushToInputStream. Injected input is written at once and never
+ * block, the buffer grow if it do not fit.
+ *
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+public class InputRingBuffer {
+
+    private static final int DEFAULT_CAPACITY = 16 * 1024;
+
+    private int[] buffer;
+    private int head;
+    private int count;
+    private boolean closed;
+    //run when input is written or the buffer is closed
+    private volatile Runnable listener;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    public InputRingBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public InputRingBuffer(int capacity) {
+        if(capacity < 1)
+            throw new IllegalArgumentException("Capacity must be larger than 0");
+        buffer = new int[capacity];
+    }
+
+    /**
+     * Write length chars from input, starting at offset.
+     * Will block while the buffer is full.
+     * Input written after the buffer is closed is ignored.
+     */
+    public void write(char[] input, int offset, int length) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while(length > 0 && !closed) {
+                while(count == buffer.length && !closed)
+                    notFull.await();
+                if(closed)
+                    return;
+                int tail = (head + count) % buffer.length;
+                int chunk = Math.min(length, Math.min(buffer.length - count, buffer.length - tail));
+                for(int i = 0; i < chunk; i++)
+                    buffer[tail + i] = input[offset + i];
+                count += chunk;
+                offset += chunk;
+                length -= chunk;
+                notEmpty.signal();
+                notifyListener();
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Write all of the input at once without blocking, the buffer grow if
+     * there is not room for it. Input injected this way is never split up by
+     * other input, and a thread that also read the buffer can inject input.
+     * Input written after the buffer is closed is ignored.
+     */
+    public void inject(char[] input, int offset, int length) {
+        lock.lock();
+        try {
+            if(closed || length == 0)
+                return;
+            if(buffer.length - count < length)
+                grow(count + length);
+            int tail = (head + count) % buffer.length;
+            int first = Math.min(length, buffer.length - tail);
+            for(int i = 0; i < first; i++)
+                buffer[tail + i] = input[offset + i];
+            for(int i = first; i < length; i++)
+                buffer[i - first] = input[offset + i];
+            count += length;
+            notEmpty.signal();
+            notifyListener();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    private void grow(int minCapacity) {
+        int[] grown = new int[Math.max(buffer.length * 2, minCapacity)];
+        int first = Math.min(count, buffer.length - head);
+        System.arraycopy(buffer, head, grown, 0, first);
+        System.arraycopy(buffer, 0, grown, first, count - first);
+        buffer = grown;
+        head = 0;
+    }
+
+    /**
+     * Write as much of the input as there is room for, without blocking.
+     * Input written after the buffer is closed is ignored.
+     *
+     * @return number of chars written, or length if the buffer is closed
+     */
+    public int tryWrite(char[] input, int offset, int length) {
+        lock.lock();
+        try {
+            if(closed)
+                return length;
+            int written = 0;
+            while(written < length && count < buffer.length) {
+                int tail = (head + count) % buffer.length;
+                int chunk = Math.min(length - written, Math.min(buffer.length - count, buffer.length - tail));
+                for(int i = 0; i < chunk; i++)
+                    buffer[tail + i] = input[offset + written + i];
+                count += chunk;
+                written += chunk;
+            }
+            if(written > 0) {
+                notEmpty.signal();
+                notifyListener();
+            }
+            return written;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    public void write(String input) throws InterruptedException {
+        char[] chars = input.toCharArray();
+        write(chars, 0, chars.length);
+    }
+
+    /**
+     * Read one value, will block until input is available.
+     *
+     * @return the value or -1 if the buffer is closed and empty
+     */
+    public int read() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while(count == 0 && !closed)
+                notEmpty.await();
+            if(count == 0)
+                return -1;
+            int value = buffer[head];
+            head = (head + 1) % buffer.length;
+            count--;
+            notFull.signal();
+            return value;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Read up to length values into output, starting at offset.
+     * Will block until at least one value is available (if length > 0).
+     *
+     * @return number of values read or -1 if the buffer is closed and empty
+     */
+    public int read(int[] output, int offset, int length) throws InterruptedException {
+        if(length == 0)
+            return 0;
+        lock.lockInterruptibly();
+        try {
+            while(count == 0 && !closed)
+                notEmpty.await();
+            if(count == 0)
+                return -1;
+            int read = Math.min(length, count);
+            int first = Math.min(read, buffer.length - head);
+            System.arraycopy(buffer, head, output, offset, first);
+            if(first < read)
+                System.arraycopy(buffer, 0, output, offset + first, read - first);
+            head = (head + read) % buffer.length;
+            count -= read;
+            notFull.signalAll();
+            return read;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    public int available() {
+        lock.lock();
+        try {
+            return count;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    public int capacity() {
+        lock.lock();
+        try {
+            return buffer.length;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isClosed() {
+        lock.lock();
+        try {
+            return closed;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Close the buffer, blocked readers and writers are released.
+     * Input already in the buffer can still be read.
+     */
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+            notifyListener();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Set a listener that is run when input is written or the buffer is closed,
+     * it is run while the buffer is locked so it must not block or read.
+     * Used by readers that do not want to block a thread while they wait for input.
+     */
+    public void setListener(Runnable listener) {
+        this.listener = listener;
+    }
+
+    private void notifyListener() {
+        Runnable current = listener;
+        if(current != null)
+            current.run();
+    }
+}
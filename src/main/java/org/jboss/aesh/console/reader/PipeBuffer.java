@@ -0,0 +1,261 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.console.reader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded byte pipe between two commands of a pipeline.
+ * One command write to {@link #getOutputStream()} while the next
+ * command read from {@link #getInputStream()}.
+ *
+ * Writers block when the buffer is full and readers block when it is empty,
+ * so a fast writer is held back by a slow reader and the memory used is
+ * never more than the capacity.
+ * When the writer close its stream the reader get the rest of the buffer and
+ * then end of stream. When the reader close its stream the buffer is dropped
+ * and the writer get an IOException on the next write, like a broken pipe.
+ * The writing thread is then also interrupted so a command that do not check
+ * for write errors is stopped at its next blocking call.
+ *
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+public class PipeBuffer {
+
+    private static final int DEFAULT_CAPACITY = 64 * 1024;
+
+    private final byte[] buffer;
+    private int head;
+    private int count;
+    private boolean outputClosed;
+    private boolean inputClosed;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    private final InputStream inputStream = new PipeInputStream();
+    private final OutputStream outputStream = new PipeOutputStream();
+
+    public PipeBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public PipeBuffer(int capacity) {
+        if(capacity < 1)
+            throw new IllegalArgumentException("Capacity must be larger than 0");
+        buffer = new byte[capacity];
+    }
+
+    /**
+     * @return the stream the reading command use
+     */
+    public InputStream getInputStream() {
+        return inputStream;
+    }
+
+    /**
+     * @return the stream the writing command use
+     */
+    public OutputStream getOutputStream() {
+        return outputStream;
+    }
+
+    public int capacity() {
+        return buffer.length;
+    }
+
+    /**
+     * Write length bytes from input, starting at offset.
+     * Will block while the buffer is full.
+     */
+    private void write(byte[] input, int offset, int length) throws IOException {
+        lockInterruptibly();
+        try {
+            while(length > 0) {
+                while(count == buffer.length && !inputClosed && !outputClosed)
+                    await(notFull);
+                if(outputClosed)
+                    throw new IOException("Pipe closed");
+                if(inputClosed) {
+                    //the reader is gone, stop the writer the same way SIGPIPE would
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Broken pipe");
+                }
+                int tail = (head + count) % buffer.length;
+                int chunk = Math.min(length, Math.min(buffer.length - count, buffer.length - tail));
+                System.arraycopy(input, offset, buffer, tail, chunk);
+                count += chunk;
+                offset += chunk;
+                length -= chunk;
+                notEmpty.signal();
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Read up to length bytes into output, starting at offset.
+     * Will block until at least one byte is available.
+     *
+     * @return number of bytes read or -1 if the writer is closed and the buffer is empty
+     */
+    private int read(byte[] output, int offset, int length) throws IOException {
+        if(length == 0)
+            return 0;
+        lockInterruptibly();
+        try {
+            while(count == 0 && !outputClosed && !inputClosed)
+                await(notEmpty);
+            if(inputClosed)
+                throw new IOException("Pipe closed");
+            if(count == 0)
+                return -1;
+            int read = Math.min(length, count);
+            int first = Math.min(read, buffer.length - head);
+            System.arraycopy(buffer, head, output, offset, first);
+            if(first < read)
+                System.arraycopy(buffer, 0, output, offset + first, read - first);
+            head = (head + read) % buffer.length;
+            count -= read;
+            notFull.signal();
+            return read;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    private int available() {
+        lock.lock();
+        try {
+            return count;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Close the writing side, same as closing the output stream.
+     */
+    public void closeOutput() {
+        lock.lock();
+        try {
+            outputClosed = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Close the reading side, same as closing the input stream.
+     */
+    public void closeInput() {
+        lock.lock();
+        try {
+            inputClosed = true;
+            count = 0;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    private void lockInterruptibly() throws InterruptedIOException {
+        try {
+            lock.lockInterruptibly();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    /**
+     * Wait on the condition, an interrupt end the wait with an InterruptedIOException
+     * and the interrupt status of the thread is kept.
+     */
+    private void await(Condition condition) throws InterruptedIOException {
+        try {
+            condition.await();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    private class PipeInputStream extends InputStream {
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return PipeBuffer.this.read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if(off < 0 || len < 0 || len > b.length - off)
+                throw new IndexOutOfBoundsException();
+            return PipeBuffer.this.read(b, off, len);
+        }
+
+        @Override
+        public int available() {
+            return PipeBuffer.this.available();
+        }
+
+        @Override
+        public void close() {
+            closeInput();
+        }
+    }
+
+    private class PipeOutputStream extends OutputStream {
+
+        @Override
+        public void write(int b) throws IOException {
+            PipeBuffer.this.write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if(off < 0 || len < 0 || len > b.length - off)
+                throw new IndexOutOfBoundsException();
+            PipeBuffer.this.write(b, off, len);
+        }
+
+        @Override
+        public void close() {
+            closeOutput();
+        }
+    }
+}
@@ -119,6 +119,17 @@ public interface Settings {
      */
     boolean isDisableCompletion();
 
+    /**
+     * Are the completions run in parallel with a timeout
+     */
+    boolean isAsyncCompletion();
+
+    /**
+     * Default time in milliseconds a completion is given when
+     * async completion is enabled
+     */
+    long getCompletionTimeout();
+
     /**
      * Get location of log file
      */
@@ -139,12 +150,64 @@ public interface Settings {
      */
     boolean isHistoryPersistent();
 
+    /**
+     * Is every history entry appended to the history file when it's
+     * added instead of writing the whole history during shutdown
+     */
+    boolean isHistoryJournal();
+
     /**
      * Do aesh read ahead
      * @return
      */
     boolean isReadAhead();
 
+    /**
+     * Do aesh block on the input stream and read input as soon as it
+     * arrive instead of polling the stream for available input
+     */
+    boolean isBlockingRead();
+
+    /**
+     * Is xterm bracketed paste enabled, pasted text will
+     * then be inserted into the buffer in one operation
+     */
+    boolean isBracketedPaste();
+
+    /**
+     * Are the commands of a pipeline run at the same time, connected
+     * by bounded pipes instead of buffering the output of each command
+     */
+    boolean isConcurrentPipeline();
+
+    /**
+     * Is the output of a command written to the file it is redirected to
+     * while the command run, instead of being buffered until it is done
+     */
+    boolean isStreamRedirection();
+
+    /**
+     * Are direct buffers used when the output of a command is streamed to a file
+     */
+    boolean isStreamRedirectionDirectBuffer();
+
+    /**
+     * Is the output written while a key is processed combined
+     * into one write to the terminal
+     */
+    boolean isWriteCombining();
+
+    /**
+     * Can commands be run in the background with &amp; and
+     * managed with jobs, fg, bg and ctrl-z
+     */
+    boolean isJobControl();
+
+    /**
+     * Does the Console run on its own threads or on threads shared with other consoles
+     */
+    ExecutionMode getExecutionMode();
+
     /**
      * Location of alias file
      */
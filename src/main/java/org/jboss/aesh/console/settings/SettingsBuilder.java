@@ -53,11 +53,22 @@ public class SettingsBuilder {
         settings.setInputrc(baseSettings.getInputrc());
         settings.setLogging(baseSettings.isLogging());
         settings.setDisableCompletion(baseSettings.isDisableCompletion());
+        settings.setAsyncCompletion(baseSettings.isAsyncCompletion());
+        settings.setCompletionTimeout(baseSettings.getCompletionTimeout());
         settings.setLogFile(baseSettings.getLogFile());
         settings.setReadInputrc(baseSettings.doReadInputrc());
         settings.setHistoryDisabled(baseSettings.isHistoryDisabled());
         settings.setHistoryPersistent(baseSettings.isHistoryPersistent());
+        settings.setHistoryJournal(baseSettings.isHistoryJournal());
         settings.setReadAhead(baseSettings.isReadAhead());
+        settings.setBlockingRead(baseSettings.isBlockingRead());
+        settings.setBracketedPaste(baseSettings.isBracketedPaste());
+        settings.setConcurrentPipeline(baseSettings.isConcurrentPipeline());
+        settings.setStreamRedirection(baseSettings.isStreamRedirection());
+        settings.setStreamRedirectionDirectBuffer(baseSettings.isStreamRedirectionDirectBuffer());
+        settings.setWriteCombining(baseSettings.isWriteCombining());
+        settings.setJobControl(baseSettings.isJobControl());
+        settings.setExecutionMode(baseSettings.getExecutionMode());
         settings.setAliasFile(baseSettings.getAliasFile());
         settings.setAliasEnabled(baseSettings.isAliasEnabled());
         settings.setPersistAlias(baseSettings.doPersistAlias());
@@ -138,6 +149,16 @@ public class SettingsBuilder {
         return this;
     }
 
+    public SettingsBuilder asyncCompletion(boolean asyncCompletion) {
+        settings.setAsyncCompletion(asyncCompletion);
+        return this;
+    }
+
+    public SettingsBuilder completionTimeout(long completionTimeout) {
+        settings.setCompletionTimeout(completionTimeout);
+        return this;
+    }
+
     public SettingsBuilder logfile(String logFile) {
         settings.setLogFile(logFile);
         return this;
@@ -158,11 +179,56 @@ public class SettingsBuilder {
         return this;
     }
 
+    public SettingsBuilder historyJournal(boolean historyJournal) {
+        settings.setHistoryJournal(historyJournal);
+        return this;
+    }
+
     public SettingsBuilder readAhead(boolean readAhead) {
         settings.setReadAhead(readAhead);
         return this;
     }
 
+    public SettingsBuilder blockingRead(boolean blockingRead) {
+        settings.setBlockingRead(blockingRead);
+        return this;
+    }
+
+    public SettingsBuilder bracketedPaste(boolean bracketedPaste) {
+        settings.setBracketedPaste(bracketedPaste);
+        return this;
+    }
+
+    public SettingsBuilder concurrentPipeline(boolean concurrentPipeline) {
+        settings.setConcurrentPipeline(concurrentPipeline);
+        return this;
+    }
+
+    public SettingsBuilder streamRedirection(boolean streamRedirection) {
+        settings.setStreamRedirection(streamRedirection);
+        return this;
+    }
+
+    public SettingsBuilder streamRedirectionDirectBuffer(boolean directBuffer) {
+        settings.setStreamRedirectionDirectBuffer(directBuffer);
+        return this;
+    }
+
+    public SettingsBuilder writeCombining(boolean writeCombining) {
+        settings.setWriteCombining(writeCombining);
+        return this;
+    }
+
+    public SettingsBuilder jobControl(boolean jobControl) {
+        settings.setJobControl(jobControl);
+        return this;
+    }
+
+    public SettingsBuilder executionMode(ExecutionMode executionMode) {
+        settings.setExecutionMode(executionMode);
+        return this;
+    }
+
     public SettingsBuilder aliasFile(File aliasFile) {
         settings.setAliasFile(aliasFile);
         return this;
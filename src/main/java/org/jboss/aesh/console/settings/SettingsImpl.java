@@ -49,6 +49,7 @@ public class SettingsImpl implements Settings {
     private int historySize = 500;
     private boolean historyDisabled = false;
     private boolean historyPersistent = true;
+    private boolean historyJournal = false;
     private String bellStyle;
     private boolean ansiConsole = true;
     private InputStream inputStream;
@@ -60,7 +61,17 @@ public class SettingsImpl implements Settings {
     private boolean isLogging = false;
     private String logFile;
     private boolean disableCompletion = false;
+    private boolean asyncCompletion = false;
+    private long completionTimeout = 1000;
     private boolean readAhead = true;
+    private boolean blockingRead = false;
+    private boolean bracketedPaste = false;
+    private boolean concurrentPipeline = false;
+    private boolean streamRedirection = false;
+    private boolean streamRedirectionDirectBuffer = false;
+    private boolean writeCombining = false;
+    private boolean jobControl = false;
+    private ExecutionMode executionMode = ExecutionMode.DEDICATED;
     private QuitHandler quitHandler;
     private KeyOperationManager operationManager = new KeyOperationManager();
     private File aliasFile;
@@ -93,11 +104,22 @@ public class SettingsImpl implements Settings {
         setInputrc(baseSettings.getInputrc());
         setLogging(baseSettings.isLogging());
         setDisableCompletion(baseSettings.isDisableCompletion());
+        setAsyncCompletion(baseSettings.isAsyncCompletion());
+        setCompletionTimeout(baseSettings.getCompletionTimeout());
         setLogFile(baseSettings.getLogFile());
         setReadInputrc(baseSettings.doReadInputrc());
         setHistoryDisabled(baseSettings.isHistoryDisabled());
         setHistoryPersistent(baseSettings.isHistoryPersistent());
+        setHistoryJournal(baseSettings.isHistoryJournal());
         setReadAhead(baseSettings.isReadAhead());
+        setBlockingRead(baseSettings.isBlockingRead());
+        setBracketedPaste(baseSettings.isBracketedPaste());
+        setConcurrentPipeline(baseSettings.isConcurrentPipeline());
+        setStreamRedirection(baseSettings.isStreamRedirection());
+        setStreamRedirectionDirectBuffer(baseSettings.isStreamRedirectionDirectBuffer());
+        setWriteCombining(baseSettings.isWriteCombining());
+        setJobControl(baseSettings.isJobControl());
+        setExecutionMode(baseSettings.getExecutionMode());
         setAliasFile(baseSettings.getAliasFile());
         setAliasEnabled(baseSettings.isAliasEnabled());
         setPersistAlias(baseSettings.doPersistAlias());
@@ -120,6 +142,7 @@ public class SettingsImpl implements Settings {
         historySize = 500;
         historyDisabled = false;
         historyPersistent = true;
+        historyJournal = false;
         bellStyle = null;
         ansiConsole = true;
         inputStream = null;
@@ -130,6 +153,8 @@ public class SettingsImpl implements Settings {
         isLogging = false;
         logFile = null;
         disableCompletion = false;
+        asyncCompletion = false;
+        completionTimeout = 1000;
         setQuitHandler(null);
         operationManager.clear();
         setAliasEnabled(true);
@@ -427,6 +452,52 @@ public class SettingsImpl implements Settings {
         this.disableCompletion = disableCompletion;
     }
 
+    /**
+     * Are the completions run in parallel, each with its own timeout
+     * Set to false by default
+     *
+     * @return async completion
+     */
+    @Override
+    public boolean isAsyncCompletion() {
+        return asyncCompletion;
+    }
+
+    /**
+     * Run the completions in parallel off the input thread.
+     * A completion that do not finish within its timeout is cancelled
+     * and the whole completion is cancelled if the user type again.
+     * Set to false by default
+     *
+     * @param asyncCompletion async
+     */
+    public void setAsyncCompletion(boolean asyncCompletion) {
+        this.asyncCompletion = asyncCompletion;
+    }
+
+    /**
+     * Default time in milliseconds a completion is given when
+     * async completion is enabled.
+     * Set to 1000 by default
+     *
+     * @return timeout
+     */
+    @Override
+    public long getCompletionTimeout() {
+        return completionTimeout;
+    }
+
+    /**
+     * Default time in milliseconds a completion is given when
+     * async completion is enabled. Can be overridden per completion.
+     * Set to 1000 by default
+     *
+     * @param completionTimeout timeout
+     */
+    public void setCompletionTimeout(long completionTimeout) {
+        this.completionTimeout = completionTimeout;
+    }
+
     /**
      * Get log file
      *
@@ -512,6 +583,31 @@ public class SettingsImpl implements Settings {
         this.historyPersistent = historyPersistent;
     }
 
+    /**
+     * Is every history entry appended to the history file when it's added.
+     * Set to false by default
+     *
+     * @return is history journaled
+     */
+    @Override
+    public boolean isHistoryJournal() {
+        return historyJournal;
+    }
+
+    /**
+     * Append every history entry to the history file when it's added
+     * instead of writing the whole history during shutdown.
+     * The file is compacted in the background and can be shared
+     * between several consoles.
+     * Only used when the history is persistent.
+     * Set to false by default
+     *
+     * @param historyJournal journal
+     */
+    public void setHistoryJournal(boolean historyJournal) {
+        this.historyJournal = historyJournal;
+    }
+
     /**
      * Read all bytes on buffer if its available
      * Set to true by default
@@ -535,6 +631,196 @@ public class SettingsImpl implements Settings {
         this.readAhead = readAhead;
     }
 
+    /**
+     * Block on the input stream and pass input on as soon as it arrive.
+     * The default is to poll the input stream for available input.
+     * Set to false by default
+     *
+     * @return blockingRead
+     */
+    @Override
+    public boolean isBlockingRead() {
+        return blockingRead;
+    }
+
+    /**
+     * Block on the input stream and pass input on as soon as it arrive.
+     * The default is to poll the input stream for available input.
+     * Set to false by default
+     *
+     * @param blockingRead block
+     */
+    public void setBlockingRead(boolean blockingRead) {
+        this.blockingRead = blockingRead;
+    }
+
+    /**
+     * Enable xterm bracketed paste on ansi terminals.
+     * Pasted text is then inserted into the buffer in one operation
+     * instead of being parsed as separate key strokes.
+     * Set to false by default
+     *
+     * @return bracketedPaste
+     */
+    @Override
+    public boolean isBracketedPaste() {
+        return bracketedPaste;
+    }
+
+    /**
+     * Enable xterm bracketed paste on ansi terminals.
+     * Pasted text is then inserted into the buffer in one operation
+     * instead of being parsed as separate key strokes.
+     * Set to false by default
+     *
+     * @param bracketedPaste paste
+     */
+    public void setBracketedPaste(boolean bracketedPaste) {
+        this.bracketedPaste = bracketedPaste;
+    }
+
+    /**
+     * Run all the commands of a pipeline at the same time.
+     * Each command write to a bounded pipe that the next command read from,
+     * so output is passed on while it is written and the memory used do
+     * not depend on the amount of output.
+     * Set to false by default, then the output of a command is buffered
+     * until it is done and then given to the next command.
+     *
+     * @return concurrentPipeline
+     */
+    @Override
+    public boolean isConcurrentPipeline() {
+        return concurrentPipeline;
+    }
+
+    /**
+     * Run all the commands of a pipeline at the same time.
+     * Set to false by default.
+     *
+     * @param concurrentPipeline pipeline
+     */
+    public void setConcurrentPipeline(boolean concurrentPipeline) {
+        this.concurrentPipeline = concurrentPipeline;
+    }
+
+    /**
+     * Open the file of a &gt;, &gt;&gt;, 2&gt; or 2&gt;&gt; redirection when the
+     * command start and write its output to the file while it run.
+     * The memory used do then not depend on the amount of output.
+     * Set to false by default, then the output is buffered and written to
+     * the file when the command is done.
+     *
+     * @return streamRedirection
+     */
+    @Override
+    public boolean isStreamRedirection() {
+        return streamRedirection;
+    }
+
+    /**
+     * Open the file of a redirection when the command start.
+     * Set to false by default.
+     *
+     * @param streamRedirection stream
+     */
+    public void setStreamRedirection(boolean streamRedirection) {
+        this.streamRedirection = streamRedirection;
+    }
+
+    /**
+     * Use a direct buffer when output is streamed to a file,
+     * the output is then not copied once more by the channel.
+     * Set to false by default.
+     *
+     * @return streamRedirectionDirectBuffer
+     */
+    @Override
+    public boolean isStreamRedirectionDirectBuffer() {
+        return streamRedirectionDirectBuffer;
+    }
+
+    /**
+     * Use a direct buffer when output is streamed to a file.
+     * Set to false by default.
+     *
+     * @param directBuffer direct
+     */
+    public void setStreamRedirectionDirectBuffer(boolean directBuffer) {
+        this.streamRedirectionDirectBuffer = directBuffer;
+    }
+
+    /**
+     * Collect the output written to the terminal while a key is processed,
+     * or inside a frame started with FramedShell.beginFrame, and write it to
+     * the terminal in one go when the frame end.
+     * Set to false by default.
+     *
+     * @return writeCombining
+     */
+    @Override
+    public boolean isWriteCombining() {
+        return writeCombining;
+    }
+
+    /**
+     * Combine the output of a frame into one write to the terminal.
+     * Set to false by default.
+     *
+     * @param writeCombining combine
+     */
+    public void setWriteCombining(boolean writeCombining) {
+        this.writeCombining = writeCombining;
+    }
+
+    /**
+     * A command that end with &amp; is run in the background, while new
+     * commands are read. Its output is buffered until it is done or put in
+     * the foreground. The jobs, fg and bg commands are handled by the console
+     * and ctrl-z stop the command in the foreground.
+     * Set to false by default.
+     *
+     * @return jobControl
+     */
+    @Override
+    public boolean isJobControl() {
+        return jobControl;
+    }
+
+    /**
+     * Enable job control.
+     * Set to false by default.
+     *
+     * @param jobControl enable
+     */
+    public void setJobControl(boolean jobControl) {
+        this.jobControl = jobControl;
+    }
+
+    /**
+     * With DEDICATED every Console have a thread that read from the terminal,
+     * one that process the input and one that poll the input stream.
+     * With SHARED these are run on a bounded pool of threads shared by all
+     * consoles in the jvm, an idle Console do not hold any thread.
+     * Set to DEDICATED by default.
+     *
+     * @return executionMode
+     */
+    @Override
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    /**
+     * Set how the threads of the Console are run.
+     * Set to DEDICATED by default.
+     *
+     * @param executionMode mode
+     */
+    public void setExecutionMode(ExecutionMode executionMode) {
+        this.executionMode = executionMode;
+    }
+
     public void setAliasFile(File file) {
         this.aliasFile = file;
     }
@@ -19,6 +19,7 @@ package org.jboss.aesh.graphics;
 
 import org.jboss.aesh.terminal.Color;
 import org.jboss.aesh.terminal.CursorPosition;
+import org.jboss.aesh.terminal.FramedShell;
 import org.jboss.aesh.terminal.Shell;
 import org.jboss.aesh.terminal.TerminalColor;
 import org.jboss.aesh.terminal.TerminalSize;
@@ -28,6 +29,9 @@ import org.jboss.aesh.util.ANSI;
 import java.io.IOException;
 
 /**
+ * Every drawing operation is written to the terminal as one frame
+ * when the shell is a {@link FramedShell}.
+ *
  * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
  */
 public class AeshGraphics implements Graphics {
@@ -38,6 +42,8 @@ public class AeshGraphics implements Graphics {
     private final GraphicsConfiguration graphicsConfiguration;
     private TerminalColor currentColor;
     private TerminalTextStyle currentStyle;
+    //the terminal size while a frame is drawn
+    private TerminalSize frameSize;
 
     AeshGraphics(Shell shell, GraphicsConfiguration graphicsConfiguration) {
         this.shell = shell;
@@ -89,77 +95,134 @@ public class AeshGraphics implements Graphics {
 
     @Override
     public void drawRect(int x, int y, int width, int height) {
-        if(currentColor != null)
-            shell.out().print(currentColor.fullString());
-        drawHorizontalLine(x, y, width);
-        drawHorizontalLine(x,y+height,width);
-        drawVerticalLine(x, y+1, height-1);
-        drawVerticalLine(x+width-1,y+1,height-1);
+        beginFrame();
+        try {
+            if(currentColor != null)
+                shell.out().print(currentColor.fullString());
+            drawHorizontalLine(x, y, width);
+            drawHorizontalLine(x,y+height,width);
+            drawVerticalLine(x, y+1, height-1);
+            drawVerticalLine(x+width-1,y+1,height-1);
+        }
+        finally {
+            endFrame();
+        }
     }
 
     @Override
     public void drawLine(int x1, int y1, int x2, int y2) {
-        if(currentColor != null)
-            shell.out().print(currentColor.fullString());
-        int dx = x2 - x1;
-        int dy = y2 -y1;
-        int y = 0;
-        for(int i=x1; i < x2; i++) {
-            y = y1 + (dy) * (i - x1)/(dx);
-            shell.setCursor(new CursorPosition(y,i));
-            shell.out().print('x');
+        beginFrame();
+        try {
+            if(currentColor != null)
+                shell.out().print(currentColor.fullString());
+            int dx = x2 - x1;
+            int dy = y2 -y1;
+            int y = 0;
+            for(int i=x1; i < x2; i++) {
+                y = y1 + (dy) * (i - x1)/(dx);
+                setCursor(new CursorPosition(y,i));
+                shell.out().print('x');
+            }
+        }
+        finally {
+            endFrame();
         }
     }
 
     @Override
     public void drawString(String str, int x, int y) {
-        if(currentColor != null)
-            shell.out().print(currentColor.fullString());
-        shell.setCursor(new CursorPosition(y,x));
-        shell.out().print(str);
+        beginFrame();
+        try {
+            if(currentColor != null)
+                shell.out().print(currentColor.fullString());
+            setCursor(new CursorPosition(y,x));
+            shell.out().print(str);
+        }
+        finally {
+            endFrame();
+        }
     }
 
     @Override
     public void fillRect(int x, int y, int width, int height) {
-        if(currentColor != null)
-            shell.out().print(currentColor.fullString());
+        beginFrame();
+        try {
+            if(currentColor != null)
+                shell.out().print(currentColor.fullString());
 
-        for(int j=0; j < height; j++) {
-            shell.setCursor(new CursorPosition(y+j,x));
-            for(int i=0; i < width; i++)
-                shell.out().print(' ');
+            for(int j=0; j < height; j++) {
+                setCursor(new CursorPosition(y+j,x));
+                for(int i=0; i < width; i++)
+                    shell.out().print(' ');
+            }
+        }
+        finally {
+            endFrame();
         }
     }
 
     @Override
     public void drawCircle(int x0, int y0, int radius) {
-        if(currentColor != null)
-            shell.out().print(currentColor.fullString());
-        int x = radius, y = 0;
-        int radiusError = 1-x;
-
-        while(x >= y) {
-            drawPixel(x + x0, y + y0);
-            drawPixel(y + x0, x + y0);
-            drawPixel(-x + x0, y + y0);
-            drawPixel(-y + x0, x + y0);
-            drawPixel(-x + x0, -y + y0);
-            drawPixel(-y + x0, -x + y0);
-            drawPixel(x + x0, -y + y0);
-            drawPixel(y + x0, -x + y0);
-
-            y++;
-            if(radiusError<0)
-                radiusError+=2*y+1;
-            else {
-                x--;
-                radiusError+=2*(y-x+1);
+        beginFrame();
+        try {
+            if(currentColor != null)
+                shell.out().print(currentColor.fullString());
+            int x = radius, y = 0;
+            int radiusError = 1-x;
+
+            while(x >= y) {
+                drawPixel(x + x0, y + y0);
+                drawPixel(y + x0, x + y0);
+                drawPixel(-x + x0, y + y0);
+                drawPixel(-y + x0, x + y0);
+                drawPixel(-x + x0, -y + y0);
+                drawPixel(-y + x0, -x + y0);
+                drawPixel(x + x0, -y + y0);
+                drawPixel(y + x0, -x + y0);
+
+                y++;
+                if(radiusError<0)
+                    radiusError+=2*y+1;
+                else {
+                    x--;
+                    radiusError+=2*(y-x+1);
+                }
             }
         }
+        finally {
+            endFrame();
+        }
+    }
+
+    private void beginFrame() {
+        if(shell instanceof FramedShell)
+            ((FramedShell) shell).beginFrame();
+        frameSize = null;
+    }
+
+    private void endFrame() {
+        frameSize = null;
+        if(shell instanceof FramedShell)
+            ((FramedShell) shell).endFrame();
+    }
+
+    /**
+     * Inside a frame the cursor is moved by writing to out() so it do not
+     * flush the frame, the terminal size is only read once per frame.
+     */
+    private void setCursor(CursorPosition position) {
+        if(shell instanceof FramedShell) {
+            if(frameSize == null)
+                frameSize = shell.getSize();
+            if(frameSize.isPositionWithinSize(position))
+                shell.out().print(position.asAnsi());
+        }
+        else
+            shell.setCursor(position);
     }
 
     private void drawPixel(int x, int y) {
-        shell.setCursor(new CursorPosition(y,x));
+        setCursor(new CursorPosition(y,x));
         shell.out().print('x');
     }
 
@@ -169,7 +232,7 @@ public class AeshGraphics implements Graphics {
         if(terminalSize.getHeight() > y && terminalSize.getWidth() > y) {
             if(terminalSize.getWidth() < x + width)
                 width = terminalSize.getWidth() - x-1;
-            shell.setCursor(new CursorPosition(y,x));
+            setCursor(new CursorPosition(y,x));
             char[] line = new char[width];
             for(int i=0; i < line.length; i++) {
                 if(i == 0 || i == line.length-1)
@@ -186,7 +249,7 @@ public class AeshGraphics implements Graphics {
         if(terminalSize.getHeight() > y && terminalSize.getWidth() > y) {
             if(terminalSize.getHeight() < y + length)
                 length = terminalSize.getHeight() - y-1;
-            shell.setCursor(new CursorPosition(y,x));
+            setCursor(new CursorPosition(y,x));
             for(int i=0; i < length; i++) {
                 shell.out().print('|');
                 shell.out().print(CURSOR_DOWN);
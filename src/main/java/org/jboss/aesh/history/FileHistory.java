@@ -18,30 +18,125 @@
 package org.jboss.aesh.history;
 
 import org.jboss.aesh.console.Config;
+import org.jboss.aesh.util.LoggerUtil;
 
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.FileWriter;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 
 /**
  * Read the history file at init and writeToStdOut to it at shutdown
  *
+ * In journal mode every entry is appended to the history file when it's
+ * pushed and nothing is written at shutdown. When the file holds twice as
+ * many lines as the history it's compacted in the background.
+ * All file access is guarded by a lock on a sibling ".lock" file so several
+ * consoles can share one history file, the lock file is deleted at stop.
+ *
  * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
  */
 public class FileHistory extends InMemoryHistory {
 
+    private static final Logger LOGGER = LoggerUtil.getLogger(FileHistory.class.getName());
+
+    //file locks are held by the jvm, so consoles in the same jvm must also
+    //synchronize on a shared object per file
+    private static final ConcurrentMap<String, Object> FILE_MONITORS = new ConcurrentHashMap<>();
+
+    private static final int MIN_COMPACT_LINES = 100;
+
     private final File historyFile;
+    private final int maxSize;
+    private final boolean journal;
+    private File lockFile;
+    private Object fileMonitor;
+    //number of lines in the history file, guarded by fileMonitor
+    private int fileLines;
+    private final AtomicBoolean compacting = new AtomicBoolean(false);
+    private ExecutorService compactService;
 
     public FileHistory(File file, int maxSize) throws IOException {
+        this(file, maxSize, false);
+    }
+
+    public FileHistory(File file, int maxSize, boolean journal) throws IOException {
         super(maxSize);
         historyFile = file;
+        this.maxSize = maxSize;
+        this.journal = journal;
+        if(journal) {
+            lockFile = new File(file.getPath() + ".lock");
+            String path = file.getCanonicalPath();
+            FILE_MONITORS.putIfAbsent(path, new Object());
+            fileMonitor = FILE_MONITORS.get(path);
+        }
         readFile();
     }
 
+    public boolean isJournal() {
+        return journal;
+    }
+
+    @Override
+    public void push(String entry) {
+        super.push(entry);
+        if(journal && entry != null && entry.trim().length() > 0) {
+            try {
+                appendToFile(entry.trim());
+            }
+            catch(IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to append to history file: "+historyFile, e);
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        if(journal) {
+            try {
+                synchronized(fileMonitor) {
+                    RandomAccessFile lock = lockFile();
+                    try {
+                        new FileOutputStream(historyFile).close();
+                        fileLines = 0;
+                    }
+                    finally {
+                        lock.close();
+                    }
+                }
+            }
+            catch(IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to clear history file: "+historyFile, e);
+            }
+        }
+    }
+
     /**
      * Read specified history file to history buffer
      *
@@ -49,14 +144,41 @@ public class FileHistory extends InMemoryHistory {
      */
     private void readFile() throws IOException {
         if(historyFile.exists()) {
-            try (BufferedReader reader = new BufferedReader(new FileReader(historyFile))) {
-                String line;
-                while((line = reader.readLine()) != null)
-                    push(line);
-            } catch(FileNotFoundException ignored) {
-                //AESH-205
+            if(journal) {
+                synchronized(fileMonitor) {
+                    RandomAccessFile lock = lockFile();
+                    try (Reader reader = new InputStreamReader(new FileInputStream(historyFile))) {
+                        fileLines = readLines(reader);
+                    }
+                    finally {
+                        lock.close();
+                    }
+                }
             }
+            else {
+                try (Reader reader = new FileReader(historyFile)) {
+                    readLines(reader);
+                } catch(FileNotFoundException ignored) {
+                    //AESH-205
+                }
+            }
+        }
+    }
+
+    /**
+     * Push every line to the history, one line at the time
+     *
+     * @return number of lines read
+     */
+    private int readLines(Reader in) throws IOException {
+        BufferedReader reader = new BufferedReader(in);
+        int lines = 0;
+        String line;
+        while((line = reader.readLine()) != null) {
+            super.push(line);
+            lines++;
         }
+        return lines;
     }
 
     /**
@@ -72,13 +194,248 @@ public class FileHistory extends InMemoryHistory {
         }
     }
 
+    private void appendToFile(String entry) throws IOException {
+        boolean compact;
+        synchronized(fileMonitor) {
+            RandomAccessFile lock = lockFile();
+            try (FileOutputStream out = new FileOutputStream(historyFile, true)) {
+                out.write((entry + Config.getLineSeparator()).getBytes());
+            }
+            finally {
+                lock.close();
+            }
+            fileLines++;
+            compact = fileLines >= MIN_COMPACT_LINES && fileLines >= 2 * size();
+        }
+        if(compact && compacting.compareAndSet(false, true)) {
+            getCompactService().execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        compactFile();
+                    }
+                    catch(IOException e) {
+                        LOGGER.log(Level.WARNING, "Failed to compact history file: "+historyFile, e);
+                    }
+                    finally {
+                        compacting.set(false);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Rewrite the history file without duplicates and evicted entries.
+     * The file is read and the result written to a temporary file without
+     * holding the lock, so pushes from other consoles are not blocked.
+     * The lock is only taken again to copy the lines appended in the meantime
+     * to the temporary file before it replace the history file.
+     */
+    private void compactFile() throws IOException {
+        //the file is opened with the lock held so we keep reading the same
+        //file even if it's replaced
+        RandomAccessFile in;
+        long length;
+        Object fileKey;
+        synchronized(fileMonitor) {
+            RandomAccessFile lock = lockFile();
+            try {
+                in = new RandomAccessFile(historyFile, "r");
+                length = in.length();
+                fileKey = fileKey(historyFile);
+            }
+            finally {
+                lock.close();
+            }
+        }
+
+        InMemoryHistory compacted = new InMemoryHistory(maxSize);
+        try {
+            //stream the lines, the file can be larger than what fits in memory
+            BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new BoundedInputStream(Channels.newInputStream(in.getChannel()), length)));
+            String line;
+            while((line = reader.readLine()) != null)
+                compacted.push(line);
+        }
+        finally {
+            in.close();
+        }
+
+        File tmpFile = new File(historyFile.getPath() + ".tmp");
+        try (FileWriter fw = new FileWriter(tmpFile)) {
+            for(String entry : compacted.getAll())
+                fw.write(entry + Config.getLineSeparator());
+        }
+
+        synchronized(fileMonitor) {
+            RandomAccessFile lock = lockFile();
+            try {
+                //cleared or compacted by someone else while we were at it
+                if(historyFile.length() < length || !Objects.equals(fileKey, fileKey(historyFile))) {
+                    tmpFile.delete();
+                    return;
+                }
+                int appended = 0;
+                try (RandomAccessFile current = new RandomAccessFile(historyFile, "r");
+                     FileOutputStream out = new FileOutputStream(tmpFile, true)) {
+                    byte[] buffer = new byte[8192];
+                    current.seek(length);
+                    int read;
+                    while((read = current.read(buffer)) > 0) {
+                        out.write(buffer, 0, read);
+                        for(int i = 0; i < read; i++)
+                            if(buffer[i] == '\n')
+                                appended++;
+                    }
+                }
+                Files.move(tmpFile.toPath(), historyFile.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                fileLines = compacted.size() + appended;
+            }
+            finally {
+                lock.close();
+            }
+        }
+    }
+
+    private static Object fileKey(File file) throws IOException {
+        return Files.readAttributes(file.toPath(), BasicFileAttributes.class).fileKey();
+    }
+
+    /**
+     * Open and lock the lock file, the lock is released when the returned
+     * file is closed.
+     * A lock file that has been written to is deleted by a console that
+     * stopped, so it's closed and a new one is created.
+     */
+    private RandomAccessFile lockFile() throws IOException {
+        while(true) {
+            RandomAccessFile lock = new RandomAccessFile(lockFile, "rw");
+            try {
+                lock.getChannel().lock();
+                if(lock.length() == 0)
+                    return lock;
+            }
+            catch(IOException e) {
+                lock.close();
+                throw e;
+            }
+            lock.close();
+        }
+    }
+
+    /**
+     * Delete the lock file, it's marked as stale first so a console that
+     * is waiting for a lock on it will create a new one.
+     */
+    private void deleteLockFile() throws IOException {
+        synchronized(fileMonitor) {
+            RandomAccessFile lock = lockFile();
+            try {
+                if(lockFile.delete())
+                    lock.write(1);
+            }
+            finally {
+                lock.close();
+            }
+        }
+    }
+
+    private synchronized ExecutorService getCompactService() {
+        if(compactService == null) {
+            compactService = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = Executors.defaultThreadFactory().newThread(runnable);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return compactService;
+    }
+
     @Override
     public void stop() {
-       try {
-           writeFile();
-       } catch (IOException e) {
-           e.printStackTrace();
-       }
+        if(journal) {
+            //everything is written, just let a running compaction finish
+            synchronized(this) {
+                if(compactService != null) {
+                    compactService.shutdown();
+                    try {
+                        compactService.awaitTermination(10, TimeUnit.SECONDS);
+                    }
+                    catch(InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    compactService = null;
+                }
+            }
+            try {
+                deleteLockFile();
+            }
+            catch(IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to delete history lock file: "+lockFile, e);
+            }
+        }
+        else {
+            try {
+                writeFile();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Read no more than the given number of bytes from the stream
+     */
+    private static class BoundedInputStream extends FilterInputStream {
+        private long remaining;
+
+        BoundedInputStream(InputStream in, long limit) {
+            super(in);
+            remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if(remaining <= 0)
+                return -1;
+            int b = super.read();
+            if(b != -1)
+                remaining--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if(remaining <= 0)
+                return -1;
+            int read = super.read(b, off, (int) Math.min(len, remaining));
+            if(read > 0)
+                remaining -= read;
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(super.available(), remaining);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
     }
 
 }
@@ -0,0 +1,198 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.history;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A trigram index over the history entries used when searching.
+ * For every trigram the index keep a list of the entries containing it,
+ * ordered by when they were added. A search walks the shortest list of the
+ * trigrams in the search term from the given entry and only check those
+ * entries, the newest match is always found first.
+ *
+ * Search terms shorter than a trigram are not indexed.
+ *
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+class HistoryIndex {
+
+    static final int GRAM_LENGTH = 3;
+
+    private final Map<Long, Postings> grams = new HashMap<>();
+
+    boolean isIndexed(String search) {
+        return search.length() >= GRAM_LENGTH;
+    }
+
+    void add(InMemoryHistory.Entry entry) {
+        long[] entryGrams = distinctGrams(entry.value);
+        for(long gram : entryGrams) {
+            Postings postings = grams.get(gram);
+            if(postings == null) {
+                postings = new Postings();
+                grams.put(gram, postings);
+            }
+            postings.add(entry);
+        }
+    }
+
+    /**
+     * The entry must be marked as removed, its postings are dropped lazily
+     */
+    void remove(InMemoryHistory.Entry entry) {
+        long[] entryGrams = distinctGrams(entry.value);
+        for(long gram : entryGrams) {
+            Postings postings = grams.get(gram);
+            if(postings != null && postings.remove())
+                grams.remove(gram);
+        }
+    }
+
+    void clear() {
+        grams.clear();
+    }
+
+    /**
+     * @return the newest entry containing search that was added before or is maxId
+     */
+    InMemoryHistory.Entry searchReverse(String search, long maxId) {
+        Postings postings = shortestPostings(search);
+        if(postings == null)
+            return null;
+        for(int i = postings.indexOf(maxId, true); i >= 0; i--) {
+            InMemoryHistory.Entry entry = postings.entries[i];
+            if(!entry.removed && entry.value.contains(search))
+                return entry;
+        }
+        return null;
+    }
+
+    /**
+     * @return the oldest entry containing search that was added after or is minId
+     */
+    InMemoryHistory.Entry searchForward(String search, long minId) {
+        Postings postings = shortestPostings(search);
+        if(postings == null)
+            return null;
+        for(int i = postings.indexOf(minId, false); i < postings.size; i++) {
+            InMemoryHistory.Entry entry = postings.entries[i];
+            if(!entry.removed && entry.value.contains(search))
+                return entry;
+        }
+        return null;
+    }
+
+    private Postings shortestPostings(String search) {
+        Postings shortest = null;
+        for(int i = 0; i + GRAM_LENGTH <= search.length(); i++) {
+            Postings postings = grams.get(gram(search, i));
+            if(postings == null)
+                return null;
+            if(shortest == null || postings.size < shortest.size)
+                shortest = postings;
+        }
+        return shortest;
+    }
+
+    /**
+     * An entry is only listed once for each trigram it contains.
+     * Sorting keep this O(n log n) for long (pasted) lines.
+     *
+     * @return the trigrams of value without duplicates
+     */
+    private static long[] distinctGrams(String value) {
+        int length = value.length() - GRAM_LENGTH + 1;
+        if(length <= 0)
+            return new long[0];
+        long[] all = new long[length];
+        for(int i = 0; i < length; i++)
+            all[i] = gram(value, i);
+        Arrays.sort(all);
+        int distinct = 1;
+        for(int i = 1; i < length; i++)
+            if(all[i] != all[distinct - 1])
+                all[distinct++] = all[i];
+        return distinct == length ? all : Arrays.copyOf(all, distinct);
+    }
+
+    private static long gram(String value, int index) {
+        return ((long) value.charAt(index) << 32) |
+                ((long) value.charAt(index + 1) << 16) |
+                value.charAt(index + 2);
+    }
+
+    /**
+     * Entries ordered by id. Removed entries are kept until they are
+     * half of the list, then the list is compacted.
+     */
+    private static final class Postings {
+        private InMemoryHistory.Entry[] entries = new InMemoryHistory.Entry[4];
+        private int size;
+        private int removed;
+
+        void add(InMemoryHistory.Entry entry) {
+            if(size == entries.length)
+                entries = Arrays.copyOf(entries, size * 2);
+            entries[size++] = entry;
+        }
+
+        /**
+         * Called when one of the entries have been marked as removed
+         *
+         * @return true if the list is empty
+         */
+        boolean remove() {
+            removed++;
+            if(removed * 2 >= size) {
+                int live = 0;
+                for(int i = 0; i < size; i++)
+                    if(!entries[i].removed)
+                        entries[live++] = entries[i];
+                Arrays.fill(entries, live, size, null);
+                size = live;
+                removed = 0;
+            }
+            return size == 0;
+        }
+
+        /**
+         * Binary search for id.
+         * @param floor if true return the index of the last entry with id less
+         *              or equal to id (-1 if none), else the first entry with id
+         *              greater or equal to id (size if none).
+         */
+        int indexOf(long id, boolean floor) {
+            int low = 0;
+            int high = size - 1;
+            while(low <= high) {
+                int mid = (low + high) >>> 1;
+                long midId = entries[mid].id;
+                if(midId < id)
+                    low = mid + 1;
+                else if(midId > id)
+                    high = mid - 1;
+                else
+                    return mid;
+            }
+            return floor ? high : low;
+        }
+    }
+}
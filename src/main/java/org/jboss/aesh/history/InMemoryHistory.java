@@ -18,19 +18,36 @@
 package org.jboss.aesh.history;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * A simple in-memory history implementation
  * By default max size is 500
  *
+ * The entries are kept in a doubly linked list, oldest first, with a hash
+ * index from the entry to its node. Adding, deduplicating and evicting an
+ * entry are O(1), fetching moves a cursor node one step at a time.
+ * Searching use a trigram index, see {@link HistoryIndex}.
+ *
  * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
  */
 public class InMemoryHistory implements History {
 
-    private final List<String> historyList;
-    private int lastFetchedId = -1;
-    private int lastSearchedId = 0;
+    private final Map<String, Entry> index;
+    private final HistoryIndex searchIndex;
+    //entries get an increasing id when they're added
+    private long nextId;
+    private Entry first;
+    private Entry last;
+    //the last fetched entry, null when we're past the newest entry
+    private Entry lastFetched;
+    //the last searched entry, null when the next search should start over
+    private Entry lastSearched;
+    //cache of the last entry looked up by index, makes sequential get(i) O(1)
+    private Entry cachedEntry;
+    private int cachedIndex = -1;
     private String current;
     private SearchDirection searchDirection = SearchDirection.REVERSE;
     private final int maxSize;
@@ -44,46 +61,50 @@ public class InMemoryHistory implements History {
             this.maxSize = Integer.MAX_VALUE;
         else
             this.maxSize = maxSize;
-        historyList = new ArrayList<String>();
+        index = new HashMap<>();
+        searchIndex = new HistoryIndex();
         current = "";
     }
 
     @Override
     public void push(String entry) {
         if(entry != null && entry.trim().length() > 0) {
-            if(historyList.contains(entry.trim())) {
-               historyList.remove(entry.trim());
-            }
-            else {
-                if(historyList.size() >= maxSize)
-                    historyList.remove(0);
-            }
-            historyList.add(entry.trim());
-            lastFetchedId = size();
-            lastSearchedId = 0;
+            String line = entry.trim();
+            Entry existing = index.get(line);
+            if(existing != null)
+                remove(existing);
+            else if(index.size() >= maxSize && first != null)
+                remove(first);
+
+            //a pushed duplicate get a new entry to keep the search index ordered
+            Entry added = new Entry(line, nextId++);
+            index.put(line, added);
+            append(added);
+            searchIndex.add(added);
+            lastFetched = null;
+            lastSearched = null;
+            cachedEntry = null;
+            cachedIndex = -1;
         }
     }
 
     @Override
     public String find(String search) {
-        int index = historyList.indexOf(search);
-        if(index >= 0) {
-            return get(index);
-        }
+        Entry entry = index.get(search);
+        if(entry != null)
+            return entry.value;
         else
             return null;
-
     }
 
     @Override
     public String get(int index) {
-        //lastFetchedId = index;
-        return historyList.get(index);
+        return getEntry(index).value;
     }
 
    @Override
     public int size() {
-       return historyList.size();
+       return index.size();
    }
 
     @Override
@@ -101,11 +122,12 @@ public class InMemoryHistory implements History {
         if(size() < 1)
             return null;
 
-        if(lastFetchedId > 0)
-            return get(--lastFetchedId);
-        else {
-            return get(lastFetchedId);
-        }
+        if(lastFetched == null)
+            lastFetched = last;
+        else if(lastFetched.previous != null)
+            lastFetched = lastFetched.previous;
+
+        return lastFetched.value;
     }
 
     @Override
@@ -113,12 +135,11 @@ public class InMemoryHistory implements History {
         if(size() < 1)
             return null;
 
-        if(lastFetchedId < size()-1)
-            return get(++lastFetchedId);
-        else if(lastFetchedId == size()-1) {
-            lastFetchedId++;
-            return getCurrent();
-        }
+        if(lastFetched != null)
+            lastFetched = lastFetched.next;
+
+        if(lastFetched != null)
+            return lastFetched.value;
         else
             return getCurrent();
     }
@@ -132,24 +153,34 @@ public class InMemoryHistory implements History {
     }
 
     private String searchReverse(String search) {
-        if(lastSearchedId <= 0)
-            lastSearchedId = size()-1;
+        if(lastSearched == null || lastSearched == first)
+            lastSearched = last;
+
+        if(lastSearched != null && searchIndex.isIndexed(search)) {
+            lastSearched = searchIndex.searchReverse(search, lastSearched.id);
+            return lastSearched != null ? lastSearched.value : null;
+        }
 
-        for(; lastSearchedId >= 0; lastSearchedId--)
-            if(historyList.get(lastSearchedId).contains(search))
-                return get(lastSearchedId);
+        for(; lastSearched != null; lastSearched = lastSearched.previous)
+            if(lastSearched.value.contains(search))
+                return lastSearched.value;
 
         return null;
     }
 
     private String searchForward(String search) {
-        if(lastSearchedId >= size())
-            lastSearchedId = 0;
+        if(lastSearched == null)
+            lastSearched = first;
 
-        for(; lastSearchedId < size(); lastSearchedId++ ) {
-            if(historyList.get(lastSearchedId).contains(search))
-                return get(lastSearchedId);
+        if(lastSearched != null && searchIndex.isIndexed(search)) {
+            lastSearched = searchIndex.searchForward(search, lastSearched.id);
+            return lastSearched != null ? lastSearched.value : null;
         }
+
+        for(; lastSearched != null; lastSearched = lastSearched.next)
+            if(lastSearched.value.contains(search))
+                return lastSearched.value;
+
         return null;
     }
 
@@ -165,14 +196,22 @@ public class InMemoryHistory implements History {
 
     @Override
     public List<String> getAll() {
-        return historyList;
+        List<String> all = new ArrayList<>(size());
+        for(Entry entry = first; entry != null; entry = entry.next)
+            all.add(entry.value);
+        return all;
     }
 
     @Override
     public void clear() {
-        lastFetchedId = -1;
-        lastSearchedId = 0;
-        historyList.clear();
+        index.clear();
+        searchIndex.clear();
+        first = null;
+        last = null;
+        lastFetched = null;
+        lastSearched = null;
+        cachedEntry = null;
+        cachedIndex = -1;
         current = "";
     }
 
@@ -180,4 +219,80 @@ public class InMemoryHistory implements History {
     public void stop() {
         //does nothing for in-memory atm
     }
+
+    /**
+     * Walk to the given index from the closest of the first entry, the last
+     * entry and the cached entry.
+     */
+    private Entry getEntry(int position) {
+        if(position < 0 || position >= size())
+            throw new IndexOutOfBoundsException("Index: "+position+", Size: "+size());
+
+        Entry entry;
+        int entryIndex;
+        if(cachedEntry != null && Math.abs(position - cachedIndex) < Math.min(position, size() - 1 - position)) {
+            entry = cachedEntry;
+            entryIndex = cachedIndex;
+        }
+        else if(position < size() / 2) {
+            entry = first;
+            entryIndex = 0;
+        }
+        else {
+            entry = last;
+            entryIndex = size() - 1;
+        }
+
+        for(; entryIndex < position; entryIndex++)
+            entry = entry.next;
+        for(; entryIndex > position; entryIndex--)
+            entry = entry.previous;
+
+        cachedEntry = entry;
+        cachedIndex = position;
+        return entry;
+    }
+
+    private void append(Entry entry) {
+        entry.previous = last;
+        entry.next = null;
+        if(last != null)
+            last.next = entry;
+        else
+            first = entry;
+        last = entry;
+    }
+
+    private void remove(Entry entry) {
+        index.remove(entry.value);
+        unlink(entry);
+        entry.removed = true;
+        searchIndex.remove(entry);
+    }
+
+    private void unlink(Entry entry) {
+        if(entry.previous != null)
+            entry.previous.next = entry.next;
+        else
+            first = entry.next;
+        if(entry.next != null)
+            entry.next.previous = entry.previous;
+        else
+            last = entry.previous;
+        entry.previous = null;
+        entry.next = null;
+    }
+
+    static final class Entry {
+        final String value;
+        final long id;
+        boolean removed;
+        private Entry previous;
+        private Entry next;
+
+        Entry(String value, long id) {
+            this.value = value;
+            this.id = id;
+        }
+    }
 }
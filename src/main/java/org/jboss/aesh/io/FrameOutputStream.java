@@ -0,0 +1,149 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An OutputStream that combine everything written inside a frame into one
+ * write to the underlying stream.
+ * Outside a frame writes and flushes are passed straight through. Inside a
+ * frame they are collected in one byte buffer and flush is deferred until
+ * the outermost frame ends, so a redraw made of many small prints and
+ * flushes reach the terminal in one write.
+ * Frames can be nested, only the outermost endFrame write the buffer.
+ *
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+public class FrameOutputStream extends OutputStream {
+
+    public static final int DEFAULT_BUFFER_SIZE = 16 * 1024;
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private int count;
+    private int depth;
+    private boolean flushPending;
+
+    public FrameOutputStream(OutputStream out) {
+        this(out, DEFAULT_BUFFER_SIZE);
+    }
+
+    public FrameOutputStream(OutputStream out, int bufferSize) {
+        if(bufferSize < 1)
+            throw new IllegalArgumentException("Buffer size must be larger than 0");
+        this.out = out;
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * Start a frame, output is held back until the matching endFrame
+     */
+    public synchronized void beginFrame() {
+        depth++;
+    }
+
+    /**
+     * End a frame, if it is the outermost frame everything written
+     * inside it is written to the underlying stream and flushed
+     */
+    public synchronized void endFrame() throws IOException {
+        if(depth == 0)
+            throw new IllegalStateException("endFrame called without a matching beginFrame");
+        depth--;
+        if(depth == 0 && (count > 0 || flushPending))
+            flushFrame();
+    }
+
+    /**
+     * @return true if a frame is open
+     */
+    public synchronized boolean isInFrame() {
+        return depth > 0;
+    }
+
+    /**
+     * Write and flush what is buffered now without ending the frame.
+     * Needed before anything that wait for the terminal to respond,
+     * eg a cursor position request.
+     */
+    public synchronized void flushFrame() throws IOException {
+        drain();
+        flushPending = false;
+        out.flush();
+    }
+
+    @Override
+    public synchronized void write(int b) throws IOException {
+        if(depth == 0) {
+            out.write(b);
+            return;
+        }
+        if(count == buffer.length)
+            drain();
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) throws IOException {
+        if(off < 0 || len < 0 || len > b.length - off)
+            throw new IndexOutOfBoundsException();
+        if(depth == 0) {
+            out.write(b, off, len);
+            return;
+        }
+        while(len > 0) {
+            if(count == buffer.length)
+                drain();
+            int chunk = Math.min(len, buffer.length - count);
+            System.arraycopy(b, off, buffer, count, chunk);
+            count += chunk;
+            off += chunk;
+            len -= chunk;
+        }
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        if(depth > 0)
+            flushPending = true;
+        else {
+            drain();
+            out.flush();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            drain();
+        }
+        finally {
+            depth = 0;
+            out.close();
+        }
+    }
+
+    private void drain() throws IOException {
+        if(count > 0) {
+            out.write(buffer, 0, count);
+            count = 0;
+        }
+    }
+}
@@ -541,86 +541,8 @@ public class Parser {
      * @return aeshline with all the words
      */
     public static AeshLine findAllWords(String text) {
-        List<String> textList = new ArrayList<>();
-        boolean haveEscape = false;
-        boolean haveSingleQuote = false;
-        boolean haveDoubleQuote = false;
-        StringBuilder builder = new StringBuilder();
-
-        for(char c : text.toCharArray()) {
-            if(c == SPACE_CHAR) {
-                if(haveEscape) {
-                    builder.append(c);
-                    haveEscape = false;
-                }
-                else if(haveSingleQuote || haveDoubleQuote) {
-                    builder.append(c);
-                }
-                else if(builder.length() > 0) {
-                    textList.add(builder.toString());
-                    builder = new StringBuilder();
-                }
-            }
-            else if(c == BACK_SLASH) {
-                if(haveEscape) {
-                    builder.append(c);
-                    haveEscape = false;
-                }
-                else
-                    haveEscape = true;
-            }
-            else if(c == SINGLE_QUOTE) {
-                if(haveEscape) {
-                    builder.append(c);
-                    haveEscape = false;
-                }
-                else if(haveSingleQuote) {
-                    if(builder.length() > 0) {
-                        textList.add(builder.toString());
-                        builder = new StringBuilder();
-                    }
-                    haveSingleQuote = false;
-                }
-                else
-                    haveSingleQuote = true;
-            }
-            else if(c == DOUBLE_QUOTE) {
-                if(haveEscape) {
-                    builder.append(c);
-                    haveEscape = false;
-                }
-                else if(haveDoubleQuote) {
-                    if(builder.length() > 0) {
-                        textList.add(builder.toString());
-                        builder = new StringBuilder();
-                    }
-                    haveDoubleQuote = false;
-                }
-                else
-                    haveDoubleQuote = true;
-            }
-            else if(haveEscape) {
-                builder.append(BACK_SLASH);
-                builder.append(c);
-                haveEscape = false;
-            }
-            else
-                builder.append(c);
-        }
-        //if the escape was the last char, add it to the builder
-        if(haveEscape)
-            builder.append(BACK_SLASH);
-
-        if(builder.length() > 0)
-            textList.add(builder.toString());
-
-        ParserStatus status = ParserStatus.OK;
-        if(haveSingleQuote && haveDoubleQuote)
-            status = ParserStatus.DOUBLE_UNCLOSED_QUOTE;
-        else  if(haveSingleQuote || haveDoubleQuote)
-            status = ParserStatus.UNCLOSED_QUOTE;
-
-        return new AeshLine(textList, status, "");
+        TokenizedLine line = TokenizedLine.tokenize(text);
+        return new AeshLine(new ArrayList<>(line.getWords()), line.getStatus(), "");
     }
 
     public static boolean doWordContainOnlyEscapedSpace(String word) {
@@ -0,0 +1,278 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.parser;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A line split into words the same way as {@link Parser#findAllWords(String)},
+ * but the words are stored as offsets into the original text and a String
+ * is only created for a word when it is asked for.
+ * Words that contain escapes or quotes are created when the line is tokenized.
+ *
+ * The offset and length of a word is the part of the text the word was read from,
+ * excluding the surrounding quotes.
+ *
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+public final class TokenizedLine {
+
+    private static final int[] NO_SPANS = new int[0];
+
+    private final String text;
+    //start and end of each word
+    private int[] spans;
+    private String[] words;
+    private int size;
+    private ParserStatus status;
+    private List<String> wordList;
+
+    //what to do with a char while tokenizing
+    private static final int SKIP = 0;
+    private static final int ADD = 1;
+    private static final int ADD_WITH_ESCAPE = 2;
+    private static final int END_WORD = 3;
+
+    private TokenizedLine(String text) {
+        this.text = text;
+        spans = NO_SPANS;
+        tokenize();
+    }
+
+    /**
+     * Split up the text into words, escaped spaces and quotes are handled
+     *
+     * @param text line
+     * @return tokenized line
+     */
+    public static TokenizedLine tokenize(String text) {
+        return new TokenizedLine(text == null ? "" : text);
+    }
+
+    private void tokenize() {
+        boolean haveEscape = false;
+        boolean haveSingleQuote = false;
+        boolean haveDoubleQuote = false;
+        //start and last position of the current word, as long as the chars follow
+        //each other the word is only a span of the text. When a char is skipped
+        //the word is copied to the builder
+        int start = -1;
+        int last = -1;
+        StringBuilder builder = null;
+        int length = text.length();
+
+        for(int i = 0; i <= length; i++) {
+            int action;
+            if(i == length)
+                //if the escape was the last char, add it to the word
+                action = haveEscape ? ADD : SKIP;
+            else {
+                char c = text.charAt(i);
+                if(c == Parser.SPACE_CHAR) {
+                    if(haveEscape) {
+                        action = ADD;
+                        haveEscape = false;
+                    }
+                    else if(haveSingleQuote || haveDoubleQuote)
+                        action = ADD;
+                    else
+                        action = END_WORD;
+                }
+                else if(c == Parser.BACK_SLASH) {
+                    if(haveEscape) {
+                        action = ADD;
+                        haveEscape = false;
+                    }
+                    else {
+                        action = SKIP;
+                        haveEscape = true;
+                    }
+                }
+                else if(c == Parser.SINGLE_QUOTE) {
+                    if(haveEscape) {
+                        action = ADD;
+                        haveEscape = false;
+                    }
+                    else if(haveSingleQuote) {
+                        action = END_WORD;
+                        haveSingleQuote = false;
+                    }
+                    else {
+                        action = SKIP;
+                        haveSingleQuote = true;
+                    }
+                }
+                else if(c == Parser.DOUBLE_QUOTE) {
+                    if(haveEscape) {
+                        action = ADD;
+                        haveEscape = false;
+                    }
+                    else if(haveDoubleQuote) {
+                        action = END_WORD;
+                        haveDoubleQuote = false;
+                    }
+                    else {
+                        action = SKIP;
+                        haveDoubleQuote = true;
+                    }
+                }
+                else if(haveEscape) {
+                    //the escape is kept when it is not followed by a special char
+                    action = ADD_WITH_ESCAPE;
+                    haveEscape = false;
+                }
+                else
+                    action = ADD;
+            }
+
+            if(action == END_WORD) {
+                if(start > -1) {
+                    addWord(start, last, builder);
+                    start = -1;
+                }
+            }
+            else if(action != SKIP) {
+                //the trailing escape is added after the last char
+                int to = i < length ? i : i - 1;
+                int from = action == ADD_WITH_ESCAPE ? i - 1 : to;
+                if(start < 0)
+                    start = from;
+                else if(builder != null && builder.length() > 0)
+                    builder.append(text, from, to + 1);
+                else if(from != last + 1) {
+                    if(builder == null)
+                        builder = new StringBuilder();
+                    builder.append(text, start, last + 1).append(text, from, to + 1);
+                }
+                last = to;
+            }
+        }
+        if(start > -1)
+            addWord(start, last, builder);
+
+        if(haveSingleQuote && haveDoubleQuote)
+            status = ParserStatus.DOUBLE_UNCLOSED_QUOTE;
+        else if(haveSingleQuote || haveDoubleQuote)
+            status = ParserStatus.UNCLOSED_QUOTE;
+        else
+            status = ParserStatus.OK;
+    }
+
+    /**
+     * @param builder contain the word if it is not a span of the text
+     */
+    private void addWord(int start, int last, StringBuilder builder) {
+        if(spans.length < (size + 1) * 2)
+            spans = Arrays.copyOf(spans, Math.max(8, spans.length * 2));
+        spans[size * 2] = start;
+        spans[size * 2 + 1] = last + 1;
+        if(builder != null && builder.length() > 0) {
+            if(words == null)
+                words = new String[spans.length / 2];
+            else if(words.length < spans.length / 2)
+                words = Arrays.copyOf(words, spans.length / 2);
+            words[size] = builder.toString();
+            builder.setLength(0);
+        }
+        size++;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public ParserStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * @return number of words
+     */
+    public int size() {
+        return size;
+    }
+
+    public String getWord(int index) {
+        checkIndex(index);
+        if(words == null)
+            words = new String[size];
+        else if(words.length < size)
+            words = Arrays.copyOf(words, size);
+        if(words[index] == null)
+            words[index] = text.substring(spans[index * 2], spans[index * 2 + 1]);
+        return words[index];
+    }
+
+    /**
+     * @return the position in the text where the word start
+     */
+    public int getOffset(int index) {
+        checkIndex(index);
+        return spans[index * 2];
+    }
+
+    /**
+     * @return the length of the part of the text the word was read from
+     */
+    public int getLength(int index) {
+        checkIndex(index);
+        return spans[index * 2 + 1] - spans[index * 2];
+    }
+
+    /**
+     * @return a read only list of the words, the words are created when they are read
+     */
+    public List<String> getWords() {
+        if(wordList == null) {
+            wordList = new AbstractList<String>() {
+                @Override
+                public String get(int index) {
+                    return getWord(index);
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+        return wordList;
+    }
+
+    /**
+     * @return AeshLine with the read only list of words
+     */
+    public AeshLine toAeshLine() {
+        return new AeshLine(getWords(), status, "");
+    }
+
+    private void checkIndex(int index) {
+        if(index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+
+    @Override
+    public String toString() {
+        return "TokenizedLine{" +
+                "words=" + getWords() +
+                ", status=" + status +
+                '}';
+    }
+}
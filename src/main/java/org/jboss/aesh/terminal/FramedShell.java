@@ -0,0 +1,47 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.terminal;
+
+/**
+ * A Shell that can combine the output written while a frame is open
+ * into one write to the terminal. Shells that do not implement it
+ * write straight through.
+ *
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+public interface FramedShell extends Shell {
+
+    /**
+     * Start a frame, output written to out() and err() is held back
+     * until the frame is ended. Frames can be nested.
+     */
+    void beginFrame();
+
+    /**
+     * End a frame, when the outermost frame is ended everything written
+     * inside it is sent to the terminal in one write.
+     */
+    void endFrame();
+
+    /**
+     * Send what the current frame hold so far to the terminal
+     * without ending it.
+     */
+    void flushFrame();
+
+}
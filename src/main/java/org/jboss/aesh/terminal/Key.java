@@ -225,6 +225,10 @@ public enum Key {
     CTRL_DOWN(Config.isOSPOSIXCompatible() ?
             new int[] {ESC.getFirstValue(),91,49,59,53,66} : new int[]{WINDOWS_ESC.getFirstValue(), 145}),
 
+    //xterm bracketed paste, sent before and after pasted text
+    BRACKETED_PASTE_START(new int[] {ESC.getFirstValue(),91,50,48,48,126}),
+    BRACKETED_PASTE_END(new int[] {ESC.getFirstValue(),91,50,48,49,126}),
+
     ENTER(Config.isOSPOSIXCompatible() ?
             new int[]{10} : new int[]{13}),
     //needed to support stupid \r\n on windows...
@@ -295,55 +299,16 @@ public enum Key {
     }
 
     public static Key findStartKey(int[] input) {
-        for(Key key : values()) {
-            if(key != Key.ESC && key != Key.WINDOWS_ESC &&
-                    key.inputStartsWithKey(input)) {
-                if(Config.isOSPOSIXCompatible() && key == Key.CTRL_J) {
-                   return key.ENTER;
-                }
-                else if(!Config.isOSPOSIXCompatible() && key == Key.CTRL_M) {
-                    if(input.length > 1 && input[1] == Key.CTRL_J.getFirstValue())
-                        return key.ENTER_2;
-                    else
-                        return key.ENTER;
-                }
-                else
-                    return key;
-            }
-        }
-        //need to do this in two steps since esc/windows_esc would be returned always
-        if(Key.ESC.inputStartsWithKey(input))
-            return Key.ESC;
-        else if(Key.WINDOWS_ESC.inputStartsWithKey(input))
-            return Key.WINDOWS_ESC;
-
-        return Key.UNKNOWN;
+        return findStartKey(input, 0);
     }
 
+    /**
+     * Find the key that input start with at the given position.
+     *
+     * @see KeyDecoder#findStartKey(int[], int)
+     */
     public static Key findStartKey(int[] input, int position) {
-        for(Key key : values()) {
-            if(key != Key.ESC && key != Key.WINDOWS_ESC &&
-                    key.inputStartsWithKey(input, position)) {
-                if(Config.isOSPOSIXCompatible() && key == Key.CTRL_J) {
-                   return key.ENTER;
-                }
-                else if(!Config.isOSPOSIXCompatible() && key == Key.CTRL_M) {
-                    if(input.length > position + 1 && input[position+1] == Key.CTRL_J.getFirstValue())
-                        return key.ENTER_2;
-                    else
-                        return key.ENTER;
-                }
-                else
-                    return key;
-            }
-        }
-        //need to do this in two steps since esc/windows_esc would be returned always
-        if(Key.ESC.inputStartsWithKey(input, position))
-            return Key.ESC;
-        else if(Key.WINDOWS_ESC.inputStartsWithKey(input, position))
-            return Key.WINDOWS_ESC;
-
-        return Key.UNKNOWN;
+        return KeyDecoder.findStartKey(input, position);
     }
 
     public boolean inputStartsWithKey(int[] input) {
@@ -0,0 +1,232 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.terminal;
+
+import org.jboss.aesh.console.Config;
+
+import java.util.Arrays;
+
+/**
+ * Decode terminal input into Key's using a prefix trie built from all the Key
+ * sequences (including the values fetched from infocmp).
+ * Finding the key at a position only walk the trie as deep as the input match,
+ * independent of the number of keys.
+ *
+ * A KeyDecoder instance is used to decode one input chunk at the time:
+ * <pre>
+ * decoder.setInput(input);
+ * while(decoder.hasNext()) {
+ *     Key key = decoder.next();
+ *     int position = decoder.getPosition();
+ * }
+ * </pre>
+ * If a chunk end in the middle of an escape sequence the incomplete sequence is
+ * kept and decoded together with the next chunk.
+ * Note that the trie is shared, but a decoder instance is not thread safe.
+ *
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+public class KeyDecoder {
+
+    private static final Node[] ROOT = createTrie();
+
+    private int[] input;
+    private int position;
+    private int next;
+    private int[] pending;
+
+    /**
+     * Set the next input chunk that should be decoded.
+     * If the previous chunk ended with an incomplete escape sequence
+     * it will be prepended to this chunk.
+     */
+    public void setInput(int[] input) {
+        if(pending != null) {
+            int[] merged = new int[pending.length + input.length];
+            System.arraycopy(pending, 0, merged, 0, pending.length);
+            System.arraycopy(input, 0, merged, pending.length, input.length);
+            this.input = merged;
+            pending = null;
+        }
+        else
+            this.input = input;
+        position = 0;
+        next = 0;
+    }
+
+    /**
+     * @return the current input, the array that the positions refer to
+     */
+    public int[] getInput() {
+        return input;
+    }
+
+    public boolean hasNext() {
+        if(input == null || next >= input.length)
+            return false;
+        //keep an incomplete escape sequence at the end of the input to the next chunk
+        if(isIncompleteSequence(input, next)) {
+            pending = new int[input.length - next];
+            System.arraycopy(input, next, pending, 0, pending.length);
+            next = input.length;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the next key in the input
+     */
+    public Key next() {
+        Key key = findStartKey(input, next);
+        position = next;
+        next += key.getKeyValues().length;
+        return key;
+    }
+
+    /**
+     * @return the start position of the last key returned by next()
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * @return true if part of an escape sequence is waiting for more input
+     */
+    public boolean hasPendingInput() {
+        return pending != null;
+    }
+
+    /**
+     * Find the key that input start with at the given position.
+     * If several keys match, the one defined first in Key is returned.
+     */
+    public static Key findStartKey(int[] input, int position) {
+        Node node = root(input[position]);
+        Key found = null;
+        int i = position;
+        while(node != null) {
+            if(node.key != null && (found == null || node.key.ordinal() < found.ordinal()))
+                found = node.key;
+            if(++i >= input.length)
+                break;
+            node = node.child(input[i]);
+        }
+
+        if(found == null) {
+            //need to do this in two steps since esc/windows_esc would be returned always
+            if(input[position] == Key.ESC.getFirstValue())
+                return Key.ESC;
+            else if(input[position] == Key.WINDOWS_ESC.getFirstValue())
+                return Key.WINDOWS_ESC;
+            else
+                return Key.UNKNOWN;
+        }
+        if(Config.isOSPOSIXCompatible() && found == Key.CTRL_J)
+            return Key.ENTER;
+        else if(!Config.isOSPOSIXCompatible() && found == Key.CTRL_M) {
+            if(input.length > position + 1 && input[position+1] == Key.CTRL_J.getFirstValue())
+                return Key.ENTER_2;
+            else
+                return Key.ENTER;
+        }
+        return found;
+    }
+
+    /**
+     * The input from position is an incomplete sequence if it start with an
+     * escape, is at least two values long (a single escape is a valid key),
+     * do not match any key and is the prefix of a longer key.
+     */
+    private static boolean isIncompleteSequence(int[] input, int position) {
+        if(input.length - position < 2 ||
+                (input[position] != Key.ESC.getFirstValue() &&
+                        input[position] != Key.WINDOWS_ESC.getFirstValue()))
+            return false;
+
+        Node node = root(input[position]);
+        for(int i = position + 1; i < input.length; i++) {
+            node = node.child(input[i]);
+            if(node == null || node.key != null)
+                return false;
+        }
+        return node.values.length > 0;
+    }
+
+    private static Node root(int value) {
+        if(value < 0 || value >= ROOT.length)
+            return null;
+        return ROOT[value];
+    }
+
+    private static Node[] createTrie() {
+        int max = 0;
+        for(Key key : Key.values())
+            if(key.getKeyValues().length > 0 && key.getFirstValue() > max)
+                max = key.getFirstValue();
+
+        Node[] root = new Node[max + 1];
+        for(Key key : Key.values()) {
+            int[] values = key.getKeyValues();
+            if(values.length == 0)
+                continue;
+            if(root[values[0]] == null)
+                root[values[0]] = new Node();
+            Node node = root[values[0]];
+            for(int i = 1; i < values.length; i++)
+                node = node.addChild(values[i]);
+            //esc/windows_esc are only returned if nothing else match
+            if(key != Key.ESC && key != Key.WINDOWS_ESC &&
+                    (node.key == null || key.ordinal() < node.key.ordinal()))
+                node.key = key;
+        }
+        return root;
+    }
+
+    private static final class Node {
+        //sorted values and their matching children
+        private int[] values = new int[0];
+        private Node[] children = new Node[0];
+        private Key key;
+
+        private Node child(int value) {
+            int index = Arrays.binarySearch(values, value);
+            return index < 0 ? null : children[index];
+        }
+
+        private Node addChild(int value) {
+            int index = Arrays.binarySearch(values, value);
+            if(index >= 0)
+                return children[index];
+
+            index = -(index + 1);
+            int[] newValues = new int[values.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(values, 0, newValues, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            newValues[index] = value;
+            newChildren[index] = new Node();
+            System.arraycopy(values, index, newValues, index + 1, values.length - index);
+            System.arraycopy(children, index, newChildren, index + 1, children.length - index);
+            values = newValues;
+            children = newChildren;
+            return newChildren[index];
+        }
+    }
+}
@@ -102,7 +102,8 @@ public class POSIXTerminal extends AbstractTerminal {
 
         //setting up input
         //input =  new ConsoleInputSession(settings.getInputStream()).getExternalInputStream();
-        inputSession =  new ConsoleInputSession(settings.getInputStream());
+        inputSession =  new ConsoleInputSession(settings.getInputStream(), settings.isBlockingRead(),
+                settings.getExecutionMode(), settings.isLogging());
         input = inputSession.getExternalInputStream();
 
         this.stdOut = settings.getStdOut();
@@ -120,11 +121,10 @@ public class POSIXTerminal extends AbstractTerminal {
         }
         int input = this.input.read();
         int available = this.input.available();
-        if(available > 1) {
-            int[] in = new int[available];
+        if(available > 0) {
+            int[] in = new int[available + 1];
             in[0] = input;
-            for(int c=1; c < available; c++ )
-                in[c] = this.input.read();
+            this.input.read(in, 1, available);
 
             return in;
         }
@@ -43,7 +43,8 @@ public class TestTerminal implements Terminal, Shell {
 
     @Override
     public void init(Settings settings) {
-        inputSession =  new ConsoleInputSession(settings.getInputStream());
+        inputSession =  new ConsoleInputSession(settings.getInputStream(), settings.isBlockingRead(),
+                settings.getExecutionMode(), settings.isLogging());
         input = inputSession.getExternalInputStream();
         outWriter = new PrintStream(settings.getStdOut(), true);
         errWriter = new PrintStream(settings.getStdErr(), true);
@@ -59,11 +60,10 @@ public class TestTerminal implements Terminal, Shell {
             return input.readAll();
         int input = this.input.read();
         int available = this.input.available();
-        if(available > 1) {
-            int[] in = new int[available];
+        if(available > 0) {
+            int[] in = new int[available + 1];
             in[0] = input;
-            for(int c=1; c < available; c++ )
-                in[c] = this.input.read();
+            this.input.read(in, 1, available);
 
             return in;
         }
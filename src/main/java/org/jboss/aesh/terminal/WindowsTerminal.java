@@ -101,11 +101,10 @@ public class WindowsTerminal extends AbstractTerminal {
         }
         int input = this.input.read();
         int available = this.input.available();
-        if(available > 1) {
-            int[] in = new int[available];
+        if(available > 0) {
+            int[] in = new int[available + 1];
             in[0] = input;
-            for(int c=1; c < available; c++ )
-                in[c] = this.input.read();
+            this.input.read(in, 1, available);
 
             return in;
         }
@@ -76,6 +76,8 @@ public class ANSI {
             InfocmpManager.restoreCursor() : "\u001B[u";
     private static final String CURSOR_HIDE = "\u001B[?25l";
     private static final String CURSOR_SHOW = "\u001B[?25h";
+    private static final String BRACKETED_PASTE_ON = "\u001B[?2004h";
+    private static final String BRACKETED_PASTE_OFF = "\u001B[?2004l";
 
     private ANSI() {
     }
@@ -228,6 +230,14 @@ public class ANSI {
         return CURSOR_SHOW;
     }
 
+    public static String enableBracketedPaste() {
+        return BRACKETED_PASTE_ON;
+    }
+
+    public static String disableBracketedPaste() {
+        return BRACKETED_PASTE_OFF;
+    }
+
     public static String moveCursor(int x, int y) {
        return new StringBuilder().append(START).append(y).append(';').append(x).append('H').toString();
     }
@@ -17,10 +17,14 @@
  */
 package org.jboss.aesh.util;
 
+import org.jboss.aesh.io.ChannelOutputStream;
 import org.jboss.aesh.io.Resource;
 
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 
 
 /**
@@ -40,4 +44,26 @@ public class FileUtils {
             out.write(text.getBytes());
         }
     }
+
+    /**
+     * Open a buffered stream to the file.
+     * A file resource is written through its FileChannel, other resources
+     * through a channel over their OutputStream.
+     *
+     * @param file resource
+     * @param append append to the file instead of overwriting it
+     * @param directBuffer use a direct buffer
+     * @return stream
+     * @throws IOException if the file is a directory or could not be opened
+     */
+    public static OutputStream openFile(Resource file, boolean append, boolean directBuffer) throws IOException {
+        if(file.isDirectory()) {
+            throw new IOException(file+": Is a directory");
+        }
+
+        OutputStream out = file.write(append);
+        WritableByteChannel channel = out instanceof FileOutputStream ?
+                ((FileOutputStream) out).getChannel() : Channels.newChannel(out);
+        return new ChannelOutputStream(channel, ChannelOutputStream.DEFAULT_BUFFER_SIZE, directBuffer);
+    }
 }
@@ -21,9 +21,17 @@ import org.jboss.aesh.console.Config;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.ConsoleHandler;
 import java.util.logging.FileHandler;
 import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
 import java.util.logging.Logger;
 import java.util.logging.SimpleFormatter;
 import java.util.logging.StreamHandler;
@@ -32,59 +40,199 @@ import java.util.logging.StreamHandler;
  * butt ugly logger util, but its simple and gets the job done (hopefully not too dangerous)
  * warning: made it even uglier when Settings was changed to not be a Singleton... gah!
  *
+ * The loggers are turned off until a Console with Settings.isLogging() set calls
+ * enableLogging(), a log call made before that is dropped by the level check
+ * and no thread or log file is created.
+ * Log calls should still be guarded by Settings.isLogging() (or a doLogging flag
+ * given by the owner) so the message isn't built. When logging is enabled the
+ * records are written to the log file from a background thread.
+ *
  * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
  * @author <a href="mailto:danielsoro@gmail.com">Daniel Cunha (soro)</a>
  */
 public class LoggerUtil {
 
     private static Handler logHandler;
+    private static boolean logging;
+    private static final List<Logger> loggers = new ArrayList<>();
 
-    private static void createLogHandler(String log) {
+    private static StreamHandler createLogHandler(String log) {
+        StreamHandler handler;
         try {
             File logFile = new File(log);
-            createLogHandlerToFile(logFile);
+            if(isCreateANewHandler(logFile))
+                return createLogHandler(new ConsoleHandler());
 
             if(logFile.isDirectory()) {
                 logFile = new File(logFile.getAbsolutePath()+ Config.getPathSeparator()+"aesh.log");
             }
-            createLogHandler(new FileHandler(logFile.getAbsolutePath()));
+            handler = createLogHandler(new FileHandler(logFile.getAbsolutePath()));
         }
         catch (IOException e) {
-            createLogHandler(new ConsoleHandler());
-        }
-
-    }
-
-    private static void createLogHandlerToFile(File logFile) {
-        if(isCreateANewHandler(logFile)) {
-            createLogHandler(new ConsoleHandler());
-            return;
+            handler = createLogHandler(new ConsoleHandler());
         }
+        return handler;
     }
 
     private static boolean isCreateANewHandler(File logFile) {
         return logFile.getParentFile() != null && !logFile.getParentFile().isDirectory() && !logFile.getParentFile().mkdirs();
     }
 
-    private static void createLogHandler(StreamHandler handler) {
-        logHandler = handler;
-        logHandler.setFormatter(new SimpleFormatter());
+    private static StreamHandler createLogHandler(StreamHandler handler) {
+        handler.setFormatter(new SimpleFormatter());
+        return handler;
     }
 
     public static synchronized Logger getLogger(String name) {
-        if(logHandler == null) {
-            createLogHandler(Config.getTmpDir()+Config.getPathSeparator()+"aesh.log");
+        Logger log =  Logger.getLogger(name);
+        log.setUseParentHandlers(false);
+        if(logging)
+            enableLogger(log);
+        else
+            log.setLevel(Level.OFF);
+        loggers.add(log);
+
+        return log;
+    }
+
+    /**
+     * Turn on the loggers given by getLogger, called by Console if
+     * Settings.isLogging() is true. Logging can not be turned off again.
+     */
+    public static synchronized void enableLogging() {
+        if(!logging) {
+            logging = true;
+            for(Logger log : loggers)
+                enableLogger(log);
         }
+    }
+
+    private static void enableLogger(Logger log) {
+        if(logHandler == null)
+            logHandler = new AsyncHandler();
+        log.setLevel(null);
+        if(!Arrays.asList(log.getHandlers()).contains(logHandler))
+            log.addHandler(logHandler);
+    }
+
+    /**
+     * Queue the log records and write them from a background thread so
+     * logging never block the caller on file io.
+     * If the queue is full the record is dropped, the number of dropped
+     * records is logged when the queue is drained.
+     */
+    private static class AsyncHandler extends Handler {
 
-        if(logHandler == null) {
-            return Logger.getLogger(name);
+        private static final int QUEUE_SIZE = 8192;
+        private static final long CLOSE_TIMEOUT = 1000;
+
+        private final BlockingQueue<LogRecord> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+        private final AtomicLong dropped = new AtomicLong();
+        private volatile Thread writer;
+        private volatile boolean closed;
+        private Handler fileHandler;
+
+        @Override
+        public void publish(LogRecord record) {
+            if(closed || !isLoggable(record))
+                return;
+            //the loggers are named after their class, finding the caller from the
+            //stack trace is expensive and must be done by the calling thread
+            record.setSourceClassName(record.getLoggerName());
+            if(writer == null)
+                startWriter();
+            if(!queue.offer(record))
+                dropped.incrementAndGet();
         }
 
-        Logger log =  Logger.getLogger(name);
-        log.setUseParentHandlers(false);
-        log.addHandler(logHandler);
+        private synchronized void startWriter() {
+            if(writer == null && !closed) {
+                Thread thread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        writeRecords();
+                    }
+                }, "aesh-logger");
+                thread.setDaemon(true);
+                thread.start();
+                Runtime.getRuntime().addShutdownHook(new Thread() {
+                    @Override
+                    public void run() {
+                        AsyncHandler.this.close();
+                    }
+                });
+                writer = thread;
+            }
+        }
 
-        return log;
+        private void writeRecords() {
+            try {
+                while(true) {
+                    LogRecord record = queue.take();
+                    getFileHandler().publish(record);
+                    if(queue.isEmpty()) {
+                        publishDropped();
+                        getFileHandler().flush();
+                    }
+                }
+            }
+            catch(InterruptedException e) {
+                //interrupted by close, it will write what's left
+            }
+        }
+
+        private void publishDropped() {
+            long count = dropped.getAndSet(0);
+            if(count > 0) {
+                LogRecord record = new LogRecord(Level.WARNING,
+                        count+" log records were dropped since the log queue was full");
+                record.setSourceClassName(LoggerUtil.class.getName());
+                getFileHandler().publish(record);
+            }
+        }
+
+        private synchronized Handler getFileHandler() {
+            if(fileHandler == null)
+                fileHandler = createLogHandler(Config.getTmpDir()+Config.getPathSeparator()+"aesh.log");
+            return fileHandler;
+        }
+
+        @Override
+        public void flush() {
+            //the writer flush when the queue is empty
+        }
+
+        /**
+         * Stop the writer before the remaining records are written so they
+         * are not written by two threads, then close the file handler.
+         */
+        @Override
+        public void close() {
+            Thread thread;
+            synchronized(this) {
+                if(closed)
+                    return;
+                closed = true;
+                thread = writer;
+            }
+            if(thread != null) {
+                thread.interrupt();
+                try {
+                    thread.join(CLOSE_TIMEOUT);
+                }
+                catch(InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            LogRecord record;
+            while((record = queue.poll()) != null)
+                getFileHandler().publish(record);
+            publishDropped();
+            synchronized(this) {
+                if(fileHandler != null)
+                    fileHandler.close();
+            }
+        }
     }
 
 }
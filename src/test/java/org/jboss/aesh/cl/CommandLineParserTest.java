@@ -22,8 +22,13 @@ import org.jboss.aesh.cl.parser.CommandLineParser;
 import org.jboss.aesh.cl.parser.ParserGenerator;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -210,6 +215,69 @@ public class CommandLineParserTest {
         assertEquals(Integer.class, cl.getOption("bar").getType());
     }
 
+    @Test
+    public void testParseIsolated() throws CommandLineParserException {
+        CommandLineParser parser = ParserGenerator.generateCommandLineParser(Parser1Test.class).getParser();
+
+        CommandLine cl1 = parser.parseIsolated("test -f -e bar -Df=g /tmp/file.txt", false);
+        CommandLine cl2 = parser.parseIsolated("test -e foo -DXms=128m --X /tmp/file2.txt", false);
+        assertFalse(cl1.hasParserError());
+        assertFalse(cl2.hasParserError());
+        assertEquals("bar", cl1.getOptionValue('e'));
+        assertEquals("foo", cl2.getOptionValue('e'));
+        assertEquals("g", cl1.getOptionProperties("D").get("f"));
+        assertFalse(cl2.getOptionProperties("D").containsKey("f"));
+        assertEquals(1, cl1.getArgument().getValues().size());
+        assertEquals("/tmp/file2.txt", cl2.getArgument().getValues().get(0));
+        assertFalse(cl1.hasOption("X"));
+        assertTrue(cl2.hasOption("X"));
+
+        //the options of the parser are not touched
+        assertEquals(null, parser.getProcessedCommand().findOption("e").getValue());
+        assertEquals(0, parser.getProcessedCommand().getArgument().getValues().size());
+
+        CommandLine cl3 = parser.parse("test -e foo2 -Df=g", false);
+        assertEquals("foo2", cl3.getOptionValue('e'));
+        assertEquals("bar", cl1.getOptionValue('e'));
+
+        parser = ParserGenerator.generateCommandLineParser(GroupCommandTest.class).getParser();
+        cl1 = parser.parseIsolated("group child1 --foo BAR", false);
+        assertEquals("BAR", cl1.getOptionValue("foo"));
+        assertEquals("child1", cl1.getParser().getProcessedCommand().getName());
+    }
+
+    @Test
+    public void testParseIsolatedConcurrently() throws Exception {
+        final CommandLineParser parser = ParserGenerator.generateCommandLineParser(Parser4Test.class).getParser();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for(int t = 0; t < 8; t++) {
+                final int thread = t;
+                results.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        for(int i = 0; i < 500; i++) {
+                            String value = thread + "-" + i;
+                            CommandLine cl = parser.parseIsolated("test -o " + value + ",b --help2 x y " + value, false);
+                            if(cl.hasParserError() ||
+                                    !value.equals(cl.getOptionValues("o").get(0)) ||
+                                    cl.getOptionValues("o").size() != 2 ||
+                                    !value.equals(cl.getOptionValues("e").get(2)))
+                                return false;
+                        }
+                        return true;
+                    }
+                }));
+            }
+            for(Future<Boolean> result : results)
+                assertTrue(result.get());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
     @CommandDefinition(name = "test", description = "a simple test")
     public class Parser1Test {
 
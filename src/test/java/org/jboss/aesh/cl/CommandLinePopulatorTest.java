@@ -17,6 +17,9 @@
  */
 package org.jboss.aesh.cl;
 
+import org.jboss.aesh.cl.converter.Converter;
+import org.jboss.aesh.cl.converter.IntValueConverter;
+import org.jboss.aesh.cl.converter.IntegerConverter;
 import org.jboss.aesh.cl.internal.ProcessedCommandBuilder;
 import org.jboss.aesh.cl.internal.ProcessedOptionBuilder;
 import org.jboss.aesh.cl.exception.CommandLineParserException;
@@ -24,6 +27,7 @@ import org.jboss.aesh.cl.exception.OptionParserException;
 import org.jboss.aesh.cl.parser.AeshCommandLineParser;
 import org.jboss.aesh.cl.parser.CommandLineParser;
 import org.jboss.aesh.cl.parser.ParserGenerator;
+import org.jboss.aesh.cl.validator.OptionValidator;
 import org.jboss.aesh.cl.validator.OptionValidatorException;
 import org.jboss.aesh.console.AeshContext;
 import org.jboss.aesh.console.AeshInvocationProviders;
@@ -31,14 +35,20 @@ import org.jboss.aesh.console.InvocationProviders;
 import org.jboss.aesh.console.command.activator.AeshOptionActivatorProvider;
 import org.jboss.aesh.console.command.completer.AeshCompleterInvocationProvider;
 import org.jboss.aesh.console.command.converter.AeshConverterInvocationProvider;
+import org.jboss.aesh.console.command.converter.ConverterInvocation;
 import org.jboss.aesh.console.command.validator.AeshValidatorInvocationProvider;
+import org.jboss.aesh.console.command.validator.ValidatorInvocation;
 import org.jboss.aesh.console.settings.SettingsBuilder;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
 import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Currency;
+import java.util.LinkedList;
+import java.util.Queue;
 
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
@@ -102,6 +112,25 @@ public class CommandLinePopulatorTest {
 
     }
 
+    @Test
+    public void testPopulateIsolatedLine() throws Exception {
+        CommandLineParser parser = ParserGenerator.generateCommandLineParser(TestPopulator1.class).getParser();
+
+        TestPopulator1 test1 = new TestPopulator1();
+        AeshContext aeshContext = new SettingsBuilder().create().getAeshContext();
+
+        CommandLine isolated = parser.parseIsolated("test -e enable2 -X", false);
+        //values from a normal parse must not be used for the default values of the isolated line
+        parser.parse("test -e enable --X -f -i 2 -n=3 bar");
+
+        parser.getCommandPopulator().populateObject(test1, isolated, invocationProviders, aeshContext, true);
+        assertEquals("enable2", test1.equal);
+        assertTrue(test1.getEnableX());
+        assertFalse(test1.foo);
+        assertEquals(42, test1.getInt1().intValue());
+        assertEquals("foo", test1.arguments.get(0));
+    }
+
     @Test(expected = OptionParserException.class)
     public void testListObjects() throws Exception {
         CommandLineParser parser = ParserGenerator.generateCommandLineParser(TestPopulator2.class).getParser();
@@ -348,4 +377,191 @@ public class CommandLinePopulatorTest {
         catch (CommandLineParserException | OptionValidatorException e) {
         }
     }
+
+    @Test
+    public void testResetPrimitiveFields() throws Exception {
+        CommandLineParser  parser = ParserGenerator.generateCommandLineParser(PrimitivePopulator.class).getParser();
+        PrimitivePopulator primitives = new PrimitivePopulator();
+        AeshContext aeshContext = new SettingsBuilder().create().getAeshContext();
+
+        parser.getCommandPopulator().populateObject(primitives, parser.parse("test -s 12 -b 3 -c x -d 1.5 -e"), invocationProviders, aeshContext, true);
+        assertEquals(12, primitives.s);
+        assertEquals(3, primitives.b);
+        assertEquals('x', primitives.c);
+        assertEquals(1.5d, primitives.d, 0d);
+        assertTrue(primitives.e);
+
+        parser.getCommandPopulator().populateObject(primitives, parser.parse("test"), invocationProviders, aeshContext, true);
+        assertEquals(0, primitives.s);
+        assertEquals(0, primitives.b);
+        assertEquals('\u0000', primitives.c);
+        assertEquals(0d, primitives.d, 0d);
+        assertFalse(primitives.e);
+    }
+
+    @Test
+    public void testPrimitiveArrays() throws Exception {
+        CommandLineParser  parser = ParserGenerator.generateCommandLineParser(ArrayPopulator.class).getParser();
+        ArrayPopulator arrays = new ArrayPopulator();
+        AeshContext aeshContext = new SettingsBuilder().create().getAeshContext();
+
+        parser.getCommandPopulator().populateObject(arrays, parser.parse("test -l 1,2,3 -d 0.5;1.5 -s a,b -i 8 1 2 3"),
+                invocationProviders, aeshContext, true);
+        assertTrue(Arrays.equals(new long[] {1, 2, 3}, arrays.longs));
+        assertTrue(Arrays.equals(new double[] {0.5, 1.5}, arrays.doubles));
+        assertTrue(Arrays.equals(new String[] {"a", "b"}, arrays.strings));
+        assertEquals(8, arrays.value);
+        assertTrue(Arrays.equals(new int[] {1, 2, 3}, arrays.arguments));
+
+        parser.getCommandPopulator().populateObject(arrays, parser.parse("test"), invocationProviders, aeshContext, true);
+        assertTrue(Arrays.equals(new long[] {7}, arrays.longs));
+        assertNull(arrays.doubles);
+        assertNull(arrays.strings);
+        assertEquals(5, arrays.value);
+        assertNull(arrays.arguments);
+    }
+
+    @Test(expected = OptionValidatorException.class)
+    public void testPrimitiveArrayValidation() throws Exception {
+        CommandLineParser  parser = ParserGenerator.generateCommandLineParser(ArrayPopulator.class).getParser();
+        AeshContext aeshContext = new SettingsBuilder().create().getAeshContext();
+
+        parser.getCommandPopulator().populateObject(new ArrayPopulator(), parser.parse("test -v 1,200"),
+                invocationProviders, aeshContext, true);
+    }
+
+    @Test
+    public void testPrimitiveWithCustomConverter() throws Exception {
+        CommandLineParser  parser = ParserGenerator.generateCommandLineParser(CustomConverterPopulator.class).getParser();
+        CustomConverterPopulator custom = new CustomConverterPopulator();
+        AeshContext aeshContext = new SettingsBuilder().create().getAeshContext();
+
+        //the convert() of a subclass of a built in converter must be used
+        parser.getCommandPopulator().populateObject(custom, parser.parse("test -i 4 -l 1,2"),
+                invocationProviders, aeshContext, true);
+        assertEquals(8, custom.value);
+        assertTrue(Arrays.equals(new int[] {2, 4}, custom.values));
+    }
+
+    @Test
+    public void testUnsupportedCollectionKeepsInitializer() throws Exception {
+        CommandLineParser  parser = ParserGenerator.generateCommandLineParser(QueuePopulator.class).getParser();
+        QueuePopulator queue = new QueuePopulator();
+        AeshContext aeshContext = new SettingsBuilder().create().getAeshContext();
+
+        parser.getCommandPopulator().populateObject(queue, parser.parse("test -q foo,bar"),
+                invocationProviders, aeshContext, true);
+        assertNotNull(queue.values);
+        assertEquals("initial", queue.values.peek());
+        assertEquals(1, queue.values.size());
+    }
+
+    @CommandDefinition(name = "test", description = "collection type that can't be created")
+    public static class QueuePopulator {
+
+        @OptionList(shortName = 'q')
+        private Queue<String> values = new LinkedList<>(Collections.singletonList("initial"));
+    }
+
+    @Test
+    public void testPrimitiveWithValueConverter() throws Exception {
+        CommandLineParser  parser = ParserGenerator.generateCommandLineParser(ValueConverterPopulator.class).getParser();
+        ValueConverterPopulator custom = new ValueConverterPopulator();
+        AeshContext aeshContext = new SettingsBuilder().create().getAeshContext();
+
+        //a converter that implement IntValueConverter is used without boxing
+        parser.getCommandPopulator().populateObject(custom, parser.parse("test -i 4 -l 1,2"),
+                invocationProviders, aeshContext, true);
+        assertEquals(40, custom.value);
+        assertTrue(Arrays.equals(new int[] {10, 20}, custom.values));
+    }
+
+    @CommandDefinition(name = "test", description = "primitive fields with a value converter")
+    public static class ValueConverterPopulator {
+
+        @Option(shortName = 'i', converter = TimesTenConverter.class)
+        private int value;
+
+        @OptionList(shortName = 'l', converter = TimesTenConverter.class)
+        private int[] values;
+    }
+
+    public static class TimesTenConverter implements Converter<Integer, ConverterInvocation>, IntValueConverter {
+        @Override
+        public Integer convert(ConverterInvocation input) {
+            //not used for int fields
+            return -1;
+        }
+
+        @Override
+        public int convertToInt(String input) {
+            return 10 * Integer.parseInt(input);
+        }
+    }
+
+    @CommandDefinition(name = "test", description = "primitive fields with a custom converter")
+    public static class CustomConverterPopulator {
+
+        @Option(shortName = 'i', converter = DoublingIntegerConverter.class)
+        private int value;
+
+        @OptionList(shortName = 'l', converter = DoublingIntegerConverter.class)
+        private int[] values;
+    }
+
+    public static class DoublingIntegerConverter extends IntegerConverter {
+        @Override
+        public Integer convert(ConverterInvocation input) {
+            return 2 * Integer.parseInt(input.getInput());
+        }
+    }
+
+    @CommandDefinition(name = "test", description = "array fields")
+    public static class ArrayPopulator {
+
+        @OptionList(shortName = 'l', defaultValue = {"7"})
+        private long[] longs;
+
+        @OptionList(shortName = 'd', valueSeparator = ';')
+        private double[] doubles;
+
+        @OptionList(shortName = 's')
+        private String[] strings;
+
+        @OptionList(shortName = 'v', validator = SmallIntValidator.class)
+        private int[] small;
+
+        @Option(shortName = 'i', defaultValue = {"5"})
+        private int value;
+
+        @Arguments
+        private int[] arguments;
+    }
+
+    public static class SmallIntValidator implements OptionValidator {
+        @Override
+        public void validate(ValidatorInvocation validatorInvocation) throws OptionValidatorException {
+            if((Integer) validatorInvocation.getValue() > 100)
+                throw new OptionValidatorException("value is too big");
+        }
+    }
+
+    @CommandDefinition(name = "test", description = "primitive fields")
+    public static class PrimitivePopulator {
+
+        @Option(shortName = 's')
+        private short s;
+
+        @Option(shortName = 'b')
+        private byte b;
+
+        @Option(shortName = 'c')
+        private char c;
+
+        @Option(shortName = 'd')
+        private double d;
+
+        @Option(shortName = 'e', hasValue = false)
+        private boolean e;
+    }
 }
@@ -0,0 +1,90 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.cl;
+
+import org.jboss.aesh.cl.parser.CommandLineParser;
+import org.jboss.aesh.cl.parser.ParserGenerator;
+import org.jboss.aesh.console.AeshContext;
+import org.jboss.aesh.console.AeshInvocationProviders;
+import org.jboss.aesh.console.InvocationProviders;
+import org.jboss.aesh.console.command.activator.AeshOptionActivatorProvider;
+import org.jboss.aesh.console.command.completer.AeshCompleterInvocationProvider;
+import org.jboss.aesh.console.command.converter.AeshConverterInvocationProvider;
+import org.jboss.aesh.console.command.validator.AeshValidatorInvocationProvider;
+import org.jboss.aesh.console.settings.SettingsBuilder;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * Measure the time and the memory allocated to populate a command
+ * with 100k numeric arguments, into an int[] and into a List&lt;Integer&gt;.
+ * Run with: java org.jboss.aesh.cl.NumericArgumentsBenchmark
+ *
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+public class NumericArgumentsBenchmark {
+
+    private static final int ARGUMENTS = 100000;
+    private static final int ITERATIONS = 50;
+
+    public static void main(String[] args) throws Exception {
+        StringBuilder line = new StringBuilder("numbers");
+        for(int i = 0; i < ARGUMENTS; i++)
+            line.append(' ').append(i);
+
+        run("int[]", ArrayCommand.class, new ArrayCommand(), line.toString());
+        run("List<Integer>", ListCommand.class, new ListCommand(), line.toString());
+    }
+
+    private static void run(String name, Class<?> commandClass, Object command, String line) throws Exception {
+        InvocationProviders invocationProviders = new AeshInvocationProviders(
+                new AeshConverterInvocationProvider(),
+                new AeshCompleterInvocationProvider(),
+                new AeshValidatorInvocationProvider(),
+                new AeshOptionActivatorProvider());
+        AeshContext aeshContext = new SettingsBuilder().create().getAeshContext();
+        CommandLineParser parser = ParserGenerator.generateCommandLineParser(commandClass).getParser();
+        CommandLine commandLine = parser.parse(line);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+
+        for(int round = 0; round < 5; round++) {
+            long allocated = threads.getThreadAllocatedBytes(thread);
+            long start = System.nanoTime();
+            for(int i = 0; i < ITERATIONS; i++)
+                parser.getCommandPopulator().populateObject(command, commandLine, invocationProviders, aeshContext, true);
+            long time = System.nanoTime() - start;
+            allocated = threads.getThreadAllocatedBytes(thread) - allocated;
+            System.out.printf("%-14s %6d us/populate %9d bytes/populate%n", name,
+                    time / ITERATIONS / 1000, allocated / ITERATIONS);
+        }
+    }
+
+    @CommandDefinition(name = "numbers", description = "")
+    public static class ArrayCommand {
+        @Arguments
+        private int[] numbers;
+    }
+
+    @CommandDefinition(name = "numbers", description = "")
+    public static class ListCommand {
+        @Arguments
+        private List<Integer> numbers;
+    }
+}
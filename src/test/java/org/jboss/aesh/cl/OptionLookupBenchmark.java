@@ -0,0 +1,62 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.cl;
+
+import org.jboss.aesh.cl.internal.ProcessedCommandBuilder;
+import org.jboss.aesh.cl.internal.ProcessedOptionBuilder;
+import org.jboss.aesh.cl.parser.AeshCommandLineParser;
+import org.jboss.aesh.cl.parser.CommandLineParser;
+
+/**
+ * Measure the parse time of a command with 120 options, using long options,
+ * long options with values and grouped short flags.
+ * Run with: java org.jboss.aesh.cl.OptionLookupBenchmark
+ *
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+public class OptionLookupBenchmark {
+
+    private static final int OPTIONS = 120;
+    private static final int FLAGS = 40;
+    private static final String SHORT_NAMES = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMN";
+    private static final int ITERATIONS = 100000;
+
+    public static void main(String[] args) throws Exception {
+        ProcessedCommandBuilder builder = new ProcessedCommandBuilder().name("bench");
+        for(int i = 0; i < FLAGS; i++)
+            builder.addOption(new ProcessedOptionBuilder().shortName(SHORT_NAMES.charAt(i))
+                    .name("flag" + i).type(Boolean.class).hasValue(false).create());
+        for(int i = FLAGS; i < OPTIONS; i++)
+            builder.addOption(new ProcessedOptionBuilder().name("option" + i).type(String.class).create());
+        CommandLineParser parser = new AeshCommandLineParser(builder.create());
+
+        String line = "bench -abcdefghij -ABCDEFGHIJ --flag39 --option119 foo --option100=bar " +
+                "--option80 1 --option60=2 --option41 3";
+        CommandLine commandLine = parser.parse(line);
+        if(commandLine.hasParserError())
+            throw commandLine.getParserException();
+
+        for(int round = 0; round < 10; round++) {
+            long start = System.nanoTime();
+            for(int i = 0; i < ITERATIONS; i++)
+                parser.parse(line);
+            long time = System.nanoTime() - start;
+            System.out.printf("%6d ns/parse%n", time / ITERATIONS);
+        }
+    }
+}
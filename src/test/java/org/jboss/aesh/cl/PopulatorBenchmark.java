@@ -0,0 +1,158 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.cl;
+
+import org.jboss.aesh.cl.parser.CommandLineParser;
+import org.jboss.aesh.cl.parser.ParserGenerator;
+import org.jboss.aesh.console.AeshContext;
+import org.jboss.aesh.console.AeshInvocationProviders;
+import org.jboss.aesh.console.InvocationProviders;
+import org.jboss.aesh.console.command.activator.AeshOptionActivatorProvider;
+import org.jboss.aesh.console.command.completer.AeshCompleterInvocationProvider;
+import org.jboss.aesh.console.command.converter.AeshConverterInvocationProvider;
+import org.jboss.aesh.console.command.validator.AeshValidatorInvocationProvider;
+import org.jboss.aesh.console.settings.SettingsBuilder;
+
+/**
+ * Measure parse + populate throughput for a command with 30 options,
+ * ten of them given on the command line.
+ * Run with: java org.jboss.aesh.cl.PopulatorBenchmark
+ *
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+public class PopulatorBenchmark {
+
+    private static final int ITERATIONS = 200000;
+
+    private static final String LINE = "bench --str0 foo --str3 bar --num0 1 --num4 42 --flag1 --flag5 " +
+            "--big2 1234567890 --big5 7 --dec1 1.5 --dec3 3.25";
+
+    public static void main(String[] args) throws Exception {
+        InvocationProviders invocationProviders = new AeshInvocationProviders(
+                new AeshConverterInvocationProvider(),
+                new AeshCompleterInvocationProvider(),
+                new AeshValidatorInvocationProvider(),
+                new AeshOptionActivatorProvider());
+        AeshContext aeshContext = new SettingsBuilder().create().getAeshContext();
+        CommandLineParser parser = ParserGenerator.generateCommandLineParser(BenchCommand.class).getParser();
+        BenchCommand command = new BenchCommand();
+
+        for(int round = 0; round < 10; round++) {
+            long start = System.nanoTime();
+            for(int i = 0; i < ITERATIONS; i++)
+                parser.getCommandPopulator().populateObject(command, parser.parse(LINE),
+                        invocationProviders, aeshContext, true);
+            long time = System.nanoTime() - start;
+            System.out.printf("%8d ops/s (%d ns/op)%n", ITERATIONS * 1000000000L / time, time / ITERATIONS);
+        }
+    }
+
+    @CommandDefinition(name = "bench", description = "30 options")
+    public static class BenchCommand {
+
+        @Option(name = "str0")
+        private String str0;
+
+        @Option(name = "str1")
+        private String str1;
+
+        @Option(name = "str2")
+        private String str2;
+
+        @Option(name = "str3")
+        private String str3;
+
+        @Option(name = "str4")
+        private String str4;
+
+        @Option(name = "str5")
+        private String str5;
+
+        @Option(name = "num0")
+        private int num0;
+
+        @Option(name = "num1")
+        private int num1;
+
+        @Option(name = "num2")
+        private int num2;
+
+        @Option(name = "num3")
+        private int num3;
+
+        @Option(name = "num4")
+        private int num4;
+
+        @Option(name = "num5")
+        private int num5;
+
+        @Option(name = "flag0", hasValue = false)
+        private boolean flag0;
+
+        @Option(name = "flag1", hasValue = false)
+        private boolean flag1;
+
+        @Option(name = "flag2", hasValue = false)
+        private boolean flag2;
+
+        @Option(name = "flag3", hasValue = false)
+        private boolean flag3;
+
+        @Option(name = "flag4", hasValue = false)
+        private boolean flag4;
+
+        @Option(name = "flag5", hasValue = false)
+        private boolean flag5;
+
+        @Option(name = "big0")
+        private Long big0;
+
+        @Option(name = "big1")
+        private Long big1;
+
+        @Option(name = "big2")
+        private Long big2;
+
+        @Option(name = "big3")
+        private Long big3;
+
+        @Option(name = "big4")
+        private Long big4;
+
+        @Option(name = "big5")
+        private Long big5;
+
+        @Option(name = "dec0")
+        private double dec0;
+
+        @Option(name = "dec1")
+        private double dec1;
+
+        @Option(name = "dec2")
+        private double dec2;
+
+        @Option(name = "dec3")
+        private double dec3;
+
+        @Option(name = "dec4")
+        private double dec4;
+
+        @Option(name = "dec5")
+        private double dec5;
+    }
+}
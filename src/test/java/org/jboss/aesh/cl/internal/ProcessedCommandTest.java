@@ -0,0 +1,116 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.cl.internal;
+
+import org.jboss.aesh.cl.activation.OptionActivator;
+import org.jboss.aesh.cl.exception.CommandLineParserException;
+import org.jboss.aesh.cl.exception.OptionParserException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+public class ProcessedCommandTest {
+
+    @Test
+    public void testFindOption() throws CommandLineParserException {
+        ProcessedCommand command = new ProcessedCommandBuilder().name("test")
+                .addOption(new ProcessedOptionBuilder().shortName('f').name("foo").type(String.class).create())
+                .addOption(new ProcessedOptionBuilder().shortName('b').name("bar").type(String.class)
+                        .activator(new DisabledActivator()).create())
+                .create();
+
+        assertEquals("foo", command.findOption("f").getName());
+        assertEquals("foo", command.findLongOption("foo").getName());
+        assertNull(command.findOption("b"));
+        assertNull(command.findLongOption("bar"));
+        assertEquals("bar", command.findOptionNoActivatorCheck("b").getName());
+        assertEquals("bar", command.findLongOptionNoActivatorCheck("bar").getName());
+        assertNull(command.findOption("x"));
+        assertNull(command.findLongOption("fo"));
+
+        assertEquals("foo", command.startWithOption("f=1").getName());
+        assertNull(command.startWithOption("b=1"));
+        assertNull(command.startWithOption(""));
+    }
+
+    @Test
+    public void testStartWithLongOption() throws CommandLineParserException {
+        ProcessedCommand command = new ProcessedCommandBuilder().name("test")
+                .addOption(new ProcessedOptionBuilder().name("foo").type(String.class).create())
+                .addOption(new ProcessedOptionBuilder().name("foobar").type(String.class).create())
+                .addOption(new ProcessedOptionBuilder().name("fooba").type(String.class)
+                        .activator(new DisabledActivator()).create())
+                .addOption(new ProcessedOptionBuilder().name("fop").type(String.class).create())
+                .create();
+
+        //the first added option wins when several names are prefixes
+        assertEquals("foo", command.startWithLongOption("foobar=1").getName());
+        assertEquals("foo", command.startWithLongOption("foob").getName());
+        assertEquals("fop", command.startWithLongOption("fop=2").getName());
+        assertNull(command.startWithLongOption("fo"));
+        assertNull(command.startWithLongOption("bar"));
+
+        ProcessedCommand command2 = new ProcessedCommandBuilder().name("test")
+                .addOption(new ProcessedOptionBuilder().name("foobar").type(String.class).create())
+                .addOption(new ProcessedOptionBuilder().name("foo").type(String.class).create())
+                .addOption(new ProcessedOptionBuilder().name("fooba").type(String.class)
+                        .activator(new DisabledActivator()).create())
+                .create();
+
+        assertEquals("foobar", command2.startWithLongOption("foobar=1").getName());
+        //fooba is not activated
+        assertEquals("foo", command2.startWithLongOption("foobaz").getName());
+    }
+
+    @Test
+    public void testUniqueLongOption() throws CommandLineParserException {
+        ProcessedCommand command = new ProcessedCommandBuilder().name("test")
+                .addOption(new ProcessedOptionBuilder().name("foo").type(String.class).create())
+                .addOption(new ProcessedOptionBuilder().name("foobar").type(String.class).create())
+                .addOption(new ProcessedOptionBuilder().name("bar").type(String.class).create())
+                .create();
+
+        assertTrue(command.hasLongOption("foo"));
+        assertFalse(command.hasLongOption("fo"));
+        assertFalse(command.hasUniqueLongOption("foo"));
+        assertTrue(command.hasUniqueLongOption("foobar"));
+        assertTrue(command.hasUniqueLongOption("bar"));
+    }
+
+    @Test(expected = OptionParserException.class)
+    public void testDuplicateNameOfDisabledOption() throws CommandLineParserException {
+        new ProcessedCommandBuilder().name("test")
+                .addOption(new ProcessedOptionBuilder().shortName('f').name("foo").type(String.class)
+                        .activator(new DisabledActivator()).create())
+                .addOption(new ProcessedOptionBuilder().shortName('f').name("foo2").type(String.class).create())
+                .create();
+    }
+
+    public static class DisabledActivator implements OptionActivator {
+        @Override
+        public boolean isActivated(ProcessedCommand processedCommand) {
+            return false;
+        }
+    }
+}
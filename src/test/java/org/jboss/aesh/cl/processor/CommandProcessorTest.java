@@ -0,0 +1,289 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.cl.processor;
+
+import org.jboss.aesh.cl.CommandLine;
+import org.jboss.aesh.cl.internal.ProcessedCommand;
+import org.jboss.aesh.cl.internal.ProcessedOption;
+import org.jboss.aesh.cl.parser.CommandLineParser;
+import org.jboss.aesh.cl.parser.CommandParserFactory;
+import org.jboss.aesh.cl.parser.GeneratedCommandPopulator;
+import org.jboss.aesh.cl.parser.ParserGenerator;
+import org.jboss.aesh.console.AeshInvocationProviders;
+import org.jboss.aesh.console.InvocationProviders;
+import org.jboss.aesh.console.command.activator.AeshOptionActivatorProvider;
+import org.jboss.aesh.console.command.completer.AeshCompleterInvocationProvider;
+import org.jboss.aesh.console.command.converter.AeshConverterInvocationProvider;
+import org.jboss.aesh.console.command.validator.AeshValidatorInvocationProvider;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+public class CommandProcessorTest {
+
+    private static final String IMPORTS =
+            "package test;\n" +
+            "import org.jboss.aesh.cl.*;\n" +
+            "import org.jboss.aesh.console.command.*;\n" +
+            "import org.jboss.aesh.console.command.invocation.CommandInvocation;\n" +
+            "import java.util.*;\n";
+
+    private static final String EXECUTE =
+            "  public CommandResult execute(CommandInvocation invocation) { return CommandResult.SUCCESS; }\n";
+
+    private JavaCompiler compiler;
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        compiler = ToolProvider.getSystemJavaCompiler();
+        Assume.assumeTrue(compiler != null);
+        dir = Files.createTempDirectory("aesh-processor").toFile();
+    }
+
+    @Test
+    public void testGeneratedParserAndPopulator() throws Exception {
+        String source = IMPORTS +
+                "@CommandDefinition(name = \"test\", description = \"a \\\"test\\\"\\n\")\n" +
+                "public class TestCommand implements Command {\n" +
+                "  @Option(shortName = 'X', name = \"X\", description = \"enable X\", hasValue = false) Boolean enableX;\n" +
+                "  @Option(shortName = 'b', hasValue = false) boolean bar;\n" +
+                "  @Option(shortName = 'e', name = \"equal\", required = true) String equal;\n" +
+                "  @Option(shortName = 'i', defaultValue = {\"42\"}) Integer int1;\n" +
+                "  @Option(shortName = 'n') int int2;\n" +
+                "  @OptionList(valueSeparator = ';') List<Long> longs;\n" +
+                "  @OptionGroup(shortName = 'D') Map<String, String> define;\n" +
+                "  @Arguments(defaultValue = {\"foo\"}) List<String> arguments;\n" +
+                EXECUTE +
+                "}\n";
+        Class<?> command = compile("TestCommand", source).loadClass("test.TestCommand");
+        ProcessedCommand processedCommand = generatedFactory(command).createProcessedCommand();
+
+        //the generated ProcessedCommand should be the same as the one read with reflection
+        assertEquals("a \"test\"\n", processedCommand.getDescription());
+        assertEquals(names(ParserGenerator.generateCommandLineParser(removeFactory(command)).getParser()),
+                names(processedCommand));
+        ProcessedOption longs = processedCommand.findLongOption("longs");
+        assertEquals(';', longs.getValueSeparator());
+        assertEquals(Long.class, longs.getType());
+        assertEquals(Arrays.asList("42"), processedCommand.findLongOption("int1").getDefaultValues());
+        assertEquals(String.class, processedCommand.getArgument().getType());
+
+        CommandLineParser parser = ParserGenerator.generateCommandLineParser(command).getParser();
+        assertTrue(parser.getCommandPopulator() instanceof GeneratedCommandPopulator);
+
+        Object instance = command.newInstance();
+        CommandLine line = parser.parse("test -X -e foo -n 3 --longs 1;2 -Dkey=value bar");
+        parser.getCommandPopulator().populateObject(instance, line, invocationProviders(), null, true);
+        assertEquals(Boolean.TRUE, get(instance, "enableX"));
+        assertEquals(false, get(instance, "bar"));
+        assertEquals("foo", get(instance, "equal"));
+        assertEquals(42, get(instance, "int1"));
+        assertEquals(3, get(instance, "int2"));
+        assertEquals(Arrays.asList(1L, 2L), get(instance, "longs"));
+        assertEquals(Collections.singletonMap("key", "value"), get(instance, "define"));
+        assertEquals(Arrays.asList("bar"), get(instance, "arguments"));
+
+        line = parser.parse("test -e bar");
+        parser.getCommandPopulator().populateObject(instance, line, invocationProviders(), null, true);
+        assertEquals(Boolean.FALSE, get(instance, "enableX"));
+        assertEquals("bar", get(instance, "equal"));
+        assertEquals(0, get(instance, "int2"));
+        assertNull(get(instance, "longs"));
+        assertEquals(Arrays.asList("foo"), get(instance, "arguments"));
+    }
+
+    @Test
+    public void testPrivateFieldsUseReflection() throws Exception {
+        String source = IMPORTS +
+                "@CommandDefinition(name = \"test\", description = \"\")\n" +
+                "public class PrivateCommand implements Command {\n" +
+                "  @Option private String value;\n" +
+                EXECUTE +
+                "}\n";
+        Class<?> command = compile("PrivateCommand", source).loadClass("test.PrivateCommand");
+        assertNull(generatedFactory(command).createPopulator(generatedFactory(command).createProcessedCommand()));
+
+        CommandLineParser parser = ParserGenerator.generateCommandLineParser(command).getParser();
+        assertFalse(parser.getCommandPopulator() instanceof GeneratedCommandPopulator);
+        Object instance = command.newInstance();
+        parser.getCommandPopulator().populateObject(instance, parser.parse("test --value foo"),
+                invocationProviders(), null, true);
+        assertEquals("foo", get(instance, "value"));
+    }
+
+    @Test
+    public void testGroupCommand() throws Exception {
+        String source = IMPORTS +
+                "@GroupCommandDefinition(name = \"git\", description = \"\", groupCommands = {GitCommand.Commit.class})\n" +
+                "public class GitCommand implements Command {\n" +
+                "  @Option(hasValue = false) boolean help;\n" +
+                EXECUTE +
+                "  @CommandDefinition(name = \"commit\", description = \"\")\n" +
+                "  public static class Commit implements Command {\n" +
+                "    @Option(shortName = 'a', hasValue = false) boolean all;\n" +
+                EXECUTE +
+                "  }\n" +
+                "}\n";
+        ClassLoader loader = compile("GitCommand", source);
+        generatedFactory(loader.loadClass("test.GitCommand$Commit"));
+
+        CommandLineParser parser = ParserGenerator.generateCommandLineParser(loader.loadClass("test.GitCommand")).getParser();
+        assertTrue(parser.isGroupCommand());
+        CommandLineParser commit = parser.getChildParser("commit");
+        assertTrue(commit.getCommandPopulator() instanceof GeneratedCommandPopulator);
+        CommandLine line = parser.parse("git commit -a");
+        line.getParser().getCommandPopulator().populateObject(line.getParser().getCommand(), line,
+                invocationProviders(), null, true);
+        assertEquals(true, get(line.getParser().getCommand(), "all"));
+    }
+
+    @Test
+    public void testArrayFields() throws Exception {
+        String source = IMPORTS +
+                "@CommandDefinition(name = \"test\", description = \"\")\n" +
+                "public class ArrayCommand implements Command {\n" +
+                "  @OptionList long[] longs;\n" +
+                "  @Arguments int[] arguments;\n" +
+                EXECUTE +
+                "}\n";
+        Class<?> command = compile("ArrayCommand", source).loadClass("test.ArrayCommand");
+        ProcessedCommand processedCommand = generatedFactory(command).createProcessedCommand();
+        assertEquals(long.class, processedCommand.findLongOption("longs").getType());
+        assertEquals(int.class, processedCommand.getArgument().getType());
+
+        CommandLineParser parser = ParserGenerator.generateCommandLineParser(command).getParser();
+        assertTrue(parser.getCommandPopulator() instanceof GeneratedCommandPopulator);
+        Object instance = command.newInstance();
+        parser.getCommandPopulator().populateObject(instance, parser.parse("test --longs 1,2,3 4 5"),
+                invocationProviders(), null, true);
+        assertTrue(Arrays.equals(new long[] {1, 2, 3}, (long[]) get(instance, "longs")));
+        assertTrue(Arrays.equals(new int[] {4, 5}, (int[]) get(instance, "arguments")));
+    }
+
+    @Test
+    public void testInvalidOptionList() throws Exception {
+        String source = IMPORTS +
+                "@CommandDefinition(name = \"test\", description = \"\")\n" +
+                "public class InvalidCommand implements Command {\n" +
+                "  @OptionList String values;\n" +
+                EXECUTE +
+                "}\n";
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        assertFalse(doCompile("InvalidCommand", source, diagnostics));
+        boolean found = false;
+        for(Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics())
+            if(diagnostic.getKind() == Diagnostic.Kind.ERROR &&
+                    diagnostic.getMessage(null).contains("must be instance of Collection"))
+                found = true;
+        assertTrue(found);
+    }
+
+    private ClassLoader compile(String name, String source) throws IOException {
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        assertTrue(diagnostics.getDiagnostics().toString(), doCompile(name, source, diagnostics));
+        return new URLClassLoader(new URL[] {dir.toURI().toURL()}, getClass().getClassLoader());
+    }
+
+    private boolean doCompile(String name, String source, DiagnosticCollector<JavaFileObject> diagnostics)
+            throws IOException {
+        File packageDir = new File(dir, "test");
+        packageDir.mkdirs();
+        File file = new File(packageDir, name + ".java");
+        try (Writer writer = new FileWriter(file)) {
+            writer.write(source);
+        }
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null)) {
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics,
+                    Arrays.asList("-d", dir.getAbsolutePath(), "-cp", System.getProperty("java.class.path")),
+                    null, fileManager.getJavaFileObjects(file));
+            task.setProcessors(Collections.singletonList(new CommandProcessor()));
+            return task.call();
+        }
+    }
+
+    private CommandParserFactory generatedFactory(Class<?> command) throws Exception {
+        return (CommandParserFactory) command.getClassLoader()
+                .loadClass(command.getName() + CommandParserFactory.SUFFIX).newInstance();
+    }
+
+    /**
+     * @return the command loaded by a class loader that do not find the generated factory
+     */
+    private Class<?> removeFactory(Class<?> command) throws Exception {
+        File copy = Files.createTempDirectory("aesh-processor").toFile();
+        File packageDir = new File(copy, "test");
+        packageDir.mkdirs();
+        String fileName = command.getSimpleName() + ".class";
+        Files.copy(new File(new File(dir, "test"), fileName).toPath(), new File(packageDir, fileName).toPath());
+        return new URLClassLoader(new URL[] {copy.toURI().toURL()}, getClass().getClassLoader())
+                .loadClass(command.getName());
+    }
+
+    private List<String> names(CommandLineParser parser) {
+        return names(parser.getProcessedCommand());
+    }
+
+    private List<String> names(ProcessedCommand processedCommand) {
+        StringBuilder builder = new StringBuilder();
+        for(ProcessedOption option : processedCommand.getOptions())
+            builder.append(option.getShortName()).append(option.getName()).append(option.getType())
+                    .append(option.getOptionType()).append(option.isRequired()).append(',');
+        return Arrays.asList(processedCommand.getName(), processedCommand.getDescription(), builder.toString());
+    }
+
+    private Object get(Object instance, String fieldName) throws Exception {
+        Field field = instance.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        return field.get(instance);
+    }
+
+    private InvocationProviders invocationProviders() {
+        return new AeshInvocationProviders(
+                new AeshConverterInvocationProvider(),
+                new AeshCompleterInvocationProvider(),
+                new AeshValidatorInvocationProvider(),
+                new AeshOptionActivatorProvider());
+    }
+}
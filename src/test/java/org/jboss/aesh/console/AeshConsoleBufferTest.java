@@ -85,6 +85,23 @@ public class AeshConsoleBufferTest {
         assertEquals("1f2oo0", consoleBuffer.getBuffer().getLine());
     }
 
+    @Test
+    public void testInsertString()  throws IOException {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+
+        Shell shell = new TestShell(new PrintStream(byteArrayOutputStream), System.err);
+        ConsoleBuffer consoleBuffer = new AeshConsoleBufferBuilder().shell(shell).prompt(new Prompt("aesh")).create();
+
+        consoleBuffer.writeString("foo bar");
+        consoleBuffer.moveCursor(-3);
+        consoleBuffer.writeString("baz ");
+        assertEquals("foo baz bar", consoleBuffer.getBuffer().getLine());
+        assertEquals(8, consoleBuffer.getBuffer().getCursor());
+
+        consoleBuffer.writeString("1");
+        assertEquals("foo baz 1bar", consoleBuffer.getBuffer().getLine());
+    }
+
     @Test
     public void testDelete()  throws IOException {
         ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
@@ -0,0 +1,251 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.console;
+
+import org.jboss.aesh.console.command.CommandOperation;
+import org.jboss.aesh.console.settings.SettingsBuilder;
+import org.jboss.aesh.terminal.Key;
+import org.jboss.aesh.terminal.TestTerminal;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+public class ConsoleJobControlTest {
+
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    private PipedOutputStream input;
+    private Console console;
+
+    @Before
+    public void setup() throws IOException {
+        input = new PipedOutputStream();
+        SettingsBuilder builder = new SettingsBuilder()
+                .readInputrc(false)
+                .enableAlias(false)
+                .enableExport(false)
+                .terminal(new TestTerminal())
+                .jobControl(true)
+                .inputStream(new PipedInputStream(input))
+                .outputStream(new PrintStream(output, true))
+                .outputStreamError(new PrintStream(output, true));
+        if(!Config.isOSPOSIXCompatible())
+            builder.ansi(false);
+        console = new Console(builder.create());
+    }
+
+    @After
+    public void tearDown() {
+        console.stop();
+    }
+
+    @Test
+    public void testBackgroundJob() throws Exception {
+        final CountDownLatch workDone = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch loadDone = new CountDownLatch(1);
+        console.setConsoleCallback(new AeshConsoleCallback() {
+            @Override
+            public int execute(ConsoleOperation output) throws InterruptedException {
+                if(output.getBuffer().trim().equals("load")) {
+                    console.getShell().out().println("loading");
+                    release.await(5, TimeUnit.SECONDS);
+                    console.getShell().out().println("loaded");
+                    loadDone.countDown();
+                }
+                else if(output.getBuffer().trim().equals("work"))
+                    workDone.countDown();
+                return 0;
+            }
+        });
+        console.start();
+
+        write("load &" + Config.getLineSeparator());
+        waitForOutput("[1] load");
+        //the console run the next command while the job is running
+        write("work" + Config.getLineSeparator());
+        assertTrue(workDone.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        //the output of the job is kept until it is reported
+        assertFalse(getOutput().contains("loading"));
+
+        release.countDown();
+        assertTrue(loadDone.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        write(Config.getLineSeparator());
+        waitForOutput("Done");
+        String out = getOutput();
+        assertTrue(out.indexOf("loading") < out.indexOf("loaded"));
+        assertTrue(out.indexOf("loaded") < out.indexOf("[1]  Done"));
+    }
+
+    @Test
+    public void testStopAndForeground() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        console.setConsoleCallback(new AeshConsoleCallback() {
+            @Override
+            public int execute(ConsoleOperation output) throws InterruptedException {
+                if(output.getBuffer().trim().equals("load")) {
+                    console.getShell().out().println("first");
+                    release.await(5, TimeUnit.SECONDS);
+                    console.getShell().out().println("second");
+                }
+                return 0;
+            }
+        });
+        console.start();
+
+        write("load" + Config.getLineSeparator());
+        waitForOutput("first");
+        //ctrl-z
+        write("\u001A");
+        waitForOutput("Stopped");
+
+        write("jobs" + Config.getLineSeparator());
+        waitForOutput("[1]  Stopped    load", 2);
+        //a stopped job is held at its next write
+        release.countDown();
+        Thread.sleep(100);
+        assertFalse(getOutput().contains("second"));
+
+        write("fg" + Config.getLineSeparator());
+        waitForOutput("second");
+    }
+
+    @Test
+    public void testContinueInBackground() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+        console.setConsoleCallback(new AeshConsoleCallback() {
+            @Override
+            public int execute(ConsoleOperation output) throws InterruptedException {
+                if(output.getBuffer().trim().equals("load")) {
+                    release.await(5, TimeUnit.SECONDS);
+                    console.getShell().out().println("loaded");
+                    done.countDown();
+                    return 3;
+                }
+                return 0;
+            }
+        });
+        console.start();
+
+        write("load" + Config.getLineSeparator());
+        Thread.sleep(100);
+        write("\u001A");
+        waitForOutput("Stopped");
+        write("bg" + Config.getLineSeparator());
+        waitForOutput("[1] load &");
+
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertFalse(getOutput().contains("loaded"));
+
+        write("jobs" + Config.getLineSeparator());
+        waitForOutput("[1]  Exit 3     load");
+        assertTrue(getOutput().contains("loaded"));
+    }
+
+    @Test
+    public void testStoppedJobWaitingForInput() throws Exception {
+        final CountDownLatch done = new CountDownLatch(1);
+        console.setConsoleCallback(new AeshConsoleCallback() {
+            @Override
+            public int execute(ConsoleOperation output) throws InterruptedException {
+                if(output.getBuffer().trim().equals("read")) {
+                    console.getShell().out().println("reading");
+                    StringBuilder keys = new StringBuilder();
+                    CommandOperation operation = getInput();
+                    while(operation.getInputKey() != Key.q) {
+                        keys.append((char) operation.getInputKey().getFirstValue());
+                        operation = getInput();
+                    }
+                    console.getShell().out().println("got " + keys);
+                    done.countDown();
+                }
+                return 0;
+            }
+        });
+        console.start();
+
+        write("read" + Config.getLineSeparator());
+        waitForOutput("reading");
+        //ctrl-z while the job wait for input
+        write("\u001A");
+        waitForOutput("Stopped");
+
+        //the input go to the console while the job is stopped
+        write("jobs" + Config.getLineSeparator());
+        waitForOutput("[1]  Stopped    read", 2);
+
+        write("fg" + Config.getLineSeparator());
+        waitForOutput("read" + Config.getLineSeparator(), 3);
+        write("abq");
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        waitForOutput("got ab");
+    }
+
+    private void write(String text) throws IOException {
+        input.write(text.getBytes());
+        input.flush();
+    }
+
+    private String getOutput() {
+        synchronized(output) {
+            return output.toString();
+        }
+    }
+
+    private void waitForOutput(String text) throws InterruptedException {
+        waitForOutput(text, 1);
+    }
+
+    private void waitForOutput(String text, int times) throws InterruptedException {
+        long end = System.currentTimeMillis() + 5000;
+        while(System.currentTimeMillis() < end) {
+            if(count(getOutput(), text) >= times)
+                return;
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Expected " + text + " in: " + getOutput());
+    }
+
+    private static int count(String out, String text) {
+        int count = 0;
+        int index = out.indexOf(text);
+        while(index > -1) {
+            count++;
+            index = out.indexOf(text, index + text.length());
+        }
+        return count;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.console;
+
+import org.jboss.aesh.console.settings.SettingsBuilder;
+import org.jboss.aesh.terminal.TestTerminal;
+
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Measure the time from a key is written to the console input until
+ * it is echoed back on the console output.
+ * Run with: java org.jboss.aesh.console.ConsoleLatencyBenchmark
+ *
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+public class ConsoleLatencyBenchmark {
+
+    private static final int KEY_STROKES = 2000;
+
+    public static void main(String[] args) throws Exception {
+        final Semaphore echoed = new Semaphore(0);
+        PrintStream out = new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+                echoed.release();
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                echoed.release();
+            }
+        }, true);
+
+        PipedOutputStream input = new PipedOutputStream();
+        SettingsBuilder builder = new SettingsBuilder()
+                .readInputrc(false)
+                .enableAlias(false)
+                .terminal(new TestTerminal())
+                .blockingRead(true)
+                .inputStream(new PipedInputStream(input))
+                .outputStream(out)
+                .outputStreamError(out);
+
+        Console console = new Console(builder.create());
+        console.setConsoleCallback(new AeshConsoleCallback() {
+            @Override
+            public int execute(ConsoleOperation output) {
+                return 0;
+            }
+        });
+        console.start();
+        Thread.sleep(200);
+
+        for(int round = 0; round < 5; round++) {
+            long[] latencies = new long[KEY_STROKES];
+            for(int i = 0; i < KEY_STROKES; i++) {
+                //type a char, then delete it again to keep the line short
+                int key = (i % 2 == 0) ? 'a' : 127;
+                echoed.drainPermits();
+                long start = System.nanoTime();
+                input.write(key);
+                input.flush();
+                echoed.acquire();
+                latencies[i] = System.nanoTime() - start;
+            }
+            print(latencies);
+        }
+        console.stop();
+    }
+
+    private static void print(long[] latencies) {
+        Arrays.sort(latencies);
+        long total = 0;
+        for(long latency : latencies)
+            total += latency;
+        System.out.printf("avg: %6d us, p50: %6d us, p99: %6d us, max: %6d us%n",
+                total / latencies.length / 1000,
+                latencies[latencies.length / 2] / 1000,
+                latencies[latencies.length * 99 / 100] / 1000,
+                latencies[latencies.length - 1] / 1000);
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.console;
+
+import org.jboss.aesh.console.settings.ExecutionMode;
+import org.jboss.aesh.console.settings.SettingsBuilder;
+import org.jboss.aesh.terminal.TestTerminal;
+
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Start many idle consoles and measure the heap and threads they use,
+ * the cpu they use while idle and the latency of a command sent to a
+ * random console.
+ * Run with: java org.jboss.aesh.console.ConsoleScalabilityBenchmark [sessions] [SHARED|DEDICATED]
+ * Every DEDICATED console start three threads, so it might hit the limit
+ * of the OS before 10000 consoles. A console use about 270 KB of heap for
+ * its buffers, 10000 consoles need -Xmx4g.
+ *
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+public class ConsoleScalabilityBenchmark {
+
+    private static final int PROBES = 200;
+    private static final long IDLE_MILLIS = 5000;
+
+    private static final PrintStream DISCARD = new PrintStream(new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    });
+
+    public static void main(String[] args) throws Exception {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        ExecutionMode mode = args.length > 1 ? ExecutionMode.valueOf(args[1].toUpperCase()) : ExecutionMode.SHARED;
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+        long heapBefore = usedHeap();
+        int threadsBefore = threadBean.getThreadCount();
+
+        final BlockingQueue<Long> executed = new LinkedBlockingQueue<>();
+        ConsoleCallback callback = new AeshConsoleCallback() {
+            @Override
+            public int execute(ConsoleOperation output) {
+                executed.add(System.nanoTime());
+                return 0;
+            }
+        };
+
+        Console[] consoles = new Console[sessions];
+        PipedOutputStream[] inputs = new PipedOutputStream[sessions];
+        long start = System.nanoTime();
+        for(int i = 0; i < sessions; i++) {
+            inputs[i] = new PipedOutputStream();
+            SettingsBuilder builder = new SettingsBuilder()
+                    .readInputrc(false)
+                    .enableAlias(false)
+                    .enableExport(false)
+                    .disableHistory(true)
+                    .terminal(new TestTerminal())
+                    .executionMode(mode)
+                    .inputStream(new PipedInputStream(inputs[i]))
+                    .outputStream(DISCARD)
+                    .outputStreamError(DISCARD);
+            consoles[i] = new Console(builder.create());
+            consoles[i].setConsoleCallback(callback);
+            consoles[i].start();
+        }
+        long startTime = System.nanoTime() - start;
+        Thread.sleep(1000);
+
+        long heapPerSession = (usedHeap() - heapBefore) / sessions;
+        int threads = threadBean.getThreadCount() - threadsBefore;
+
+        //cpu used by all threads while the consoles are idle
+        long cpuBefore = cpuTime(threadBean);
+        Thread.sleep(IDLE_MILLIS);
+        double idleCpu = (cpuTime(threadBean) - cpuBefore) / (IDLE_MILLIS * 1000000d);
+
+        Random random = new Random(42);
+        long[] latencies = new long[PROBES];
+        for(int i = 0; i < PROBES; i++) {
+            PipedOutputStream input = inputs[random.nextInt(sessions)];
+            long sent = System.nanoTime();
+            input.write(("x" + Config.getLineSeparator()).getBytes());
+            input.flush();
+            Long done = executed.poll(10, TimeUnit.SECONDS);
+            if(done == null)
+                throw new IllegalStateException("Command was not executed");
+            latencies[i] = done - sent;
+            Thread.sleep(5);
+        }
+        Arrays.sort(latencies);
+
+        for(Console console : consoles)
+            console.stop();
+
+        System.out.printf("mode: %s, sessions: %d, start: %d ms%n", mode, sessions, startTime / 1000000);
+        System.out.printf("heap/session: %d KB, threads: %d, idle cpu: %.2f cores%n",
+                heapPerSession / 1024, threads, idleCpu);
+        System.out.printf("latency median: %.2f ms, p99: %.2f ms, max: %.2f ms%n",
+                latencies[PROBES / 2] / 1000000d, latencies[PROBES * 99 / 100] / 1000000d,
+                latencies[PROBES - 1] / 1000000d);
+        System.exit(0);
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for(int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long cpuTime(ThreadMXBean threadBean) {
+        long total = 0;
+        for(long id : threadBean.getAllThreadIds()) {
+            long time = threadBean.getThreadCpuTime(id);
+            if(time > 0)
+                total += time;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.console;
+
+import org.jboss.aesh.console.command.CommandOperation;
+import org.jboss.aesh.console.settings.ExecutionMode;
+import org.jboss.aesh.console.settings.SettingsBuilder;
+import org.jboss.aesh.terminal.Key;
+import org.jboss.aesh.terminal.TestTerminal;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+public class ConsoleSharedExecutionTest {
+
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    private PipedOutputStream input;
+    private Console console;
+
+    @Before
+    public void setup() throws IOException {
+        input = new PipedOutputStream();
+        SettingsBuilder builder = new SettingsBuilder()
+                .readInputrc(false)
+                .enableAlias(false)
+                .enableExport(false)
+                .terminal(new TestTerminal())
+                .executionMode(ExecutionMode.SHARED)
+                .inputStream(new PipedInputStream(input))
+                .outputStream(new PrintStream(output, true))
+                .outputStreamError(new PrintStream(output, true));
+        if(!Config.isOSPOSIXCompatible())
+            builder.ansi(false);
+        console = new Console(builder.create());
+    }
+
+    @After
+    public void tearDown() {
+        console.stop();
+    }
+
+    @Test
+    public void testCommandsRunOnSharedThreads() throws Exception {
+        final List<String> commands = new CopyOnWriteArrayList<>();
+        final List<Boolean> daemons = new CopyOnWriteArrayList<>();
+        final CountDownLatch done = new CountDownLatch(3);
+        console.setConsoleCallback(new AeshConsoleCallback() {
+            @Override
+            public int execute(ConsoleOperation output) throws InterruptedException {
+                commands.add(output.getBuffer().trim());
+                daemons.add(Thread.currentThread().isDaemon());
+                done.countDown();
+                return 0;
+            }
+        });
+        console.start();
+
+        write("foo" + Config.getLineSeparator() + "bar" + Config.getLineSeparator());
+        write("baz" + Config.getLineSeparator());
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        assertEquals("foo", commands.get(0));
+        assertEquals("bar", commands.get(1));
+        assertEquals("baz", commands.get(2));
+        //the shared process threads are daemons, the threads of a dedicated pool are not
+        for(boolean daemon : daemons)
+            assertTrue(daemon);
+    }
+
+    @Test
+    public void testProcessGetInput() throws Exception {
+        final CountDownLatch done = new CountDownLatch(1);
+        final CountDownLatch next = new CountDownLatch(1);
+        final StringBuilder read = new StringBuilder();
+        console.setConsoleCallback(new AeshConsoleCallback() {
+            @Override
+            public int execute(ConsoleOperation output) throws InterruptedException {
+                if(output.getBuffer().trim().equals("read")) {
+                    CommandOperation operation = getInput();
+                    while(operation.getInputKey() != Key.ENTER) {
+                        read.append(operation.getInputKey().getAsChar());
+                        operation = getInput();
+                    }
+                    done.countDown();
+                }
+                else if(output.getBuffer().trim().equals("next"))
+                    next.countDown();
+                return 0;
+            }
+        });
+        console.start();
+
+        write("read" + Config.getLineSeparator());
+        Thread.sleep(100);
+        write("abc" + Config.getLineSeparator());
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals("abc", read.toString());
+
+        //the console process input again when the process is finished
+        write("next" + Config.getLineSeparator());
+        assertTrue(next.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testStop() throws Exception {
+        console.setConsoleCallback(new AeshConsoleCallback() {
+            @Override
+            public int execute(ConsoleOperation output) throws InterruptedException {
+                return 0;
+            }
+        });
+        console.start();
+        write("foo");
+        console.stop();
+
+        long end = System.currentTimeMillis() + 5000;
+        while(console.isRunning() && System.currentTimeMillis() < end)
+            Thread.sleep(10);
+        assertFalse(console.isRunning());
+    }
+
+    private void write(String text) throws IOException {
+        input.write(text.getBytes());
+        input.flush();
+    }
+}
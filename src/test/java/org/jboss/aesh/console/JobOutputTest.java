@@ -0,0 +1,95 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.console;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+public class JobOutputTest {
+
+    @Test
+    public void testForeground() {
+        ByteArrayOutputStream terminal = new ByteArrayOutputStream();
+        PrintStream stdOut = new PrintStream(terminal, true);
+        JobOutput job = new JobOutput(stdOut, stdOut, false);
+        job.getOut().print("foo");
+        job.getErr().print("bar");
+        assertEquals("foobar", terminal.toString());
+    }
+
+    @Test
+    public void testBackgroundIsBuffered() {
+        ByteArrayOutputStream terminal = new ByteArrayOutputStream();
+        PrintStream stdOut = new PrintStream(terminal, true);
+        JobOutput job = new JobOutput(stdOut, stdOut, true);
+        job.getOut().print("foo");
+        job.getErr().print("bar");
+        job.getOut().print("baz");
+        assertEquals("", terminal.toString());
+
+        job.continueInForeground(stdOut);
+        assertEquals("foobarbaz", terminal.toString());
+        job.getOut().print("!");
+        assertEquals("foobarbaz!", terminal.toString());
+    }
+
+    @Test
+    public void testOldestOutputIsDropped() {
+        ByteArrayOutputStream terminal = new ByteArrayOutputStream();
+        PrintStream stdOut = new PrintStream(terminal, true);
+        JobOutput job = new JobOutput(stdOut, stdOut, true, 8);
+        job.getOut().print("0123");
+        job.getOut().print("4567");
+        job.getOut().print("89");
+        job.writeBuffer(stdOut);
+        assertEquals("(2 bytes of output dropped)" + System.lineSeparator() + "23456789", terminal.toString());
+
+        terminal.reset();
+        job.getOut().print("0123456789abc");
+        job.writeBuffer(stdOut);
+        assertEquals("(5 bytes of output dropped)" + System.lineSeparator() + "56789abc", terminal.toString());
+    }
+
+    @Test
+    public void testStoppedJobIsHeld() throws Exception {
+        ByteArrayOutputStream terminal = new ByteArrayOutputStream();
+        final PrintStream stdOut = new PrintStream(terminal, true);
+        final JobOutput job = new JobOutput(stdOut, stdOut, false);
+        job.stop();
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                job.getOut().print("foo");
+            }
+        });
+        writer.start();
+        writer.join(100);
+        assertEquals(Thread.State.WAITING, writer.getState());
+
+        job.continueInForeground(stdOut);
+        writer.join(1000);
+        assertEquals("foo", terminal.toString());
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.console;
+
+import org.jboss.aesh.console.command.CommandOperation;
+import org.jboss.aesh.console.settings.SettingsBuilder;
+import org.jboss.aesh.terminal.Key;
+import org.jboss.aesh.terminal.TestTerminal;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * Measure the number of bytes written to the terminal per key stroke when
+ * editing in the middle of a line, with and without differential rendering.
+ * Run with: java org.jboss.aesh.console.LineRendererBenchmark
+ *
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+public class LineRendererBenchmark {
+
+    private static final int KEY_STROKES = 200;
+
+    public static void main(String[] args) throws IOException {
+        for(int length : new int[] {40, 500, 4000}) {
+            for(Key key : new Key[] {Key.a, Key.BACKSPACE}) {
+                //the edits start in the middle of the line
+                int keyStrokes = Math.min(KEY_STROKES, length / 2);
+                long full = run(length, key, keyStrokes, false);
+                long diff = run(length, key, keyStrokes, true);
+                System.out.printf("line: %5d chars, key: %-9s full redraw: %6d bytes/key, differential: %5d bytes/key%n",
+                        length, key, full / keyStrokes, diff / keyStrokes);
+            }
+        }
+    }
+
+    private static long run(int length, Key key, int keyStrokes, boolean differential) throws IOException {
+        CountingOutputStream counter = new CountingOutputStream();
+        TestTerminal terminal = new TestTerminal();
+        terminal.init(new SettingsBuilder()
+                .inputStream(new ByteArrayInputStream(new byte[0]))
+                .outputStream(new PrintStream(counter))
+                .outputStreamError(new PrintStream(counter))
+                .create());
+
+        AeshConsoleBuffer consoleBuffer = (AeshConsoleBuffer) new AeshConsoleBufferBuilder()
+                .shell(terminal).prompt(new Prompt("[aesh@localhost]$ ")).create();
+        consoleBuffer.setDifferentialRendering(differential);
+        InputProcessor inputProcessor = new AeshInputProcessorBuilder()
+                .consoleBuffer(consoleBuffer)
+                .enableHistory(false)
+                .persistHistory(false)
+                .create();
+
+        consoleBuffer.displayPrompt();
+        StringBuilder line = new StringBuilder(length);
+        for(int i = 0; i < length; i++)
+            line.append((char) ('a' + i % 26));
+        consoleBuffer.writeString(line.toString());
+        consoleBuffer.moveCursor(-length / 2);
+
+        counter.count = 0;
+        for(int i = 0; i < keyStrokes; i++)
+            inputProcessor.parseOperation(new CommandOperation(key));
+        long bytes = counter.count;
+        terminal.close();
+        return bytes;
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.console;
+
+import org.jboss.aesh.util.ANSI;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+public class LineRendererTest {
+
+    private static String ansi(String code) {
+        return new String(Buffer.printAnsi(code));
+    }
+
+    @Test
+    public void testUnknownLine() {
+        LineRenderer renderer = new LineRenderer(false);
+        assertNull(renderer.render("foo", 5, 3, 80, true));
+        renderer.reset("foo");
+        renderer.invalidate();
+        assertNull(renderer.render("foo", 5, 3, 80, true));
+        renderer.setEnabled(false);
+        renderer.reset("foo");
+        assertNull(renderer.render("foo", 5, 3, 80, true));
+    }
+
+    @Test
+    public void testInsert() {
+        LineRenderer renderer = new LineRenderer(false);
+        renderer.reset("foo bar");
+        assertEquals(ANSI.saveCursor() + ansi("12G") + ansi("K") + "z bar" + ANSI.restoreCursor(),
+                renderer.render("foo baz bar", 5, 7, 80, true));
+        //nothing changed
+        assertEquals("", renderer.render("foo baz bar", 5, 7, 80, true));
+    }
+
+    @Test
+    public void testReplace() {
+        LineRenderer renderer = new LineRenderer(false);
+        renderer.reset("foo bar baz");
+        assertEquals(ANSI.saveCursor() + ansi("7G") + "OO" + ANSI.restoreCursor(),
+                renderer.render("fOO bar baz", 5, 1, 80, true));
+    }
+
+    @Test
+    public void testDelete() {
+        LineRenderer renderer = new LineRenderer(false);
+        renderer.reset("foo bar");
+        assertEquals(ansi("6G") + ansi("K") + "bar",
+                renderer.render("bar", 5, 0, 80, false));
+    }
+
+    @Test
+    public void testWritten() {
+        LineRenderer renderer = new LineRenderer(false);
+        renderer.reset("foo");
+        renderer.written(3, "bar");
+        renderer.written(1, "O");
+        assertEquals("", renderer.render("fOobar", 2, 6, 80, true));
+        renderer.written(10, "x");
+        assertNull(renderer.render("fOobar", 2, 6, 80, true));
+    }
+
+    @Test
+    public void testMultipleRows() {
+        LineRenderer renderer = new LineRenderer(false);
+        //prompt of 2, 3 rows of 10
+        renderer.reset("0123456789abcdefghijklmnopq");
+        //cursor on the last row, change at the first row
+        assertEquals(ANSI.saveCursor() + ansi("2A") + ansi("4G") + "X" + ANSI.restoreCursor(),
+                renderer.render("0X23456789abcdefghijklmnopq", 2, 27, 10, true));
+        //remove a char, everything after it is redrawn
+        assertEquals(ANSI.saveCursor() + ansi("2A") + ansi("4G") + ansi("J") + "23456789abcdefghijklmnopq" +
+                        ANSI.restoreCursor(),
+                renderer.render("023456789abcdefghijklmnopq", 2, 27, 10, true));
+    }
+
+    @Test
+    public void testMultipleRowsBelowCursor() {
+        LineRenderer renderer = new LineRenderer(false);
+        renderer.reset("0123456789abcdefghijklmnopq");
+        //cursor on the first row, change at the last row
+        assertEquals(ANSI.saveCursor() + ansi("2B") + ansi("8G") + "Q" + ANSI.restoreCursor(),
+                renderer.render("0123456789abcdefghijklmnoQq", 2, 0, 10, true));
+    }
+
+    @Test
+    public void testEditChars() {
+        LineRenderer renderer = new LineRenderer(true);
+        renderer.reset("foo bar");
+        assertEquals(ANSI.saveCursor() + ansi("12G") + ansi("4@") + "z ba" + ANSI.restoreCursor(),
+                renderer.render("foo baz bar", 5, 7, 80, true));
+        assertEquals(ANSI.saveCursor() + ansi("6G") + ansi("4P") + ANSI.restoreCursor(),
+                renderer.render("baz bar", 5, 4, 80, true));
+        //not on one row
+        assertEquals(ANSI.saveCursor() + ansi("6G") + ansi("J") + "foo baz bar" + ANSI.restoreCursor(),
+                renderer.render("foo baz bar", 5, 0, 15, true));
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.console;
+
+import org.jboss.aesh.console.command.CommandOperation;
+import org.jboss.aesh.console.settings.SettingsBuilder;
+import org.jboss.aesh.terminal.Key;
+import org.jboss.aesh.terminal.TestTerminal;
+import org.jboss.aesh.util.LoggerUtil;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * Measure the cost of a key stroke in the middle of a line with logging
+ * disabled and enabled.
+ * Run with: java org.jboss.aesh.console.LoggingBenchmark
+ *
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+public class LoggingBenchmark {
+
+    private static final int KEY_STROKES = 200000;
+
+    public static void main(String[] args) throws IOException {
+        for(int round = 0; round < 5; round++) {
+            long off = run(false);
+            long on = run(true);
+            System.out.printf("logging off: %6d ns/key, logging on: %6d ns/key%n",
+                    off / KEY_STROKES, on / KEY_STROKES);
+        }
+    }
+
+    private static long run(boolean logging) throws IOException {
+        //as Console does when Settings.isLogging() is set
+        if(logging)
+            LoggerUtil.enableLogging();
+        PrintStream nullStream = new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        });
+        TestTerminal terminal = new TestTerminal();
+        terminal.init(new SettingsBuilder()
+                .inputStream(new ByteArrayInputStream(new byte[0]))
+                .outputStream(nullStream)
+                .outputStreamError(nullStream)
+                .create());
+
+        ConsoleBuffer consoleBuffer = new AeshConsoleBufferBuilder()
+                .shell(terminal)
+                .prompt(new Prompt("[aesh@localhost]$ "))
+                .logging(logging)
+                .create();
+        InputProcessor inputProcessor = new AeshInputProcessorBuilder()
+                .consoleBuffer(consoleBuffer)
+                .enableHistory(false)
+                .persistHistory(false)
+                .create();
+
+        consoleBuffer.displayPrompt();
+        consoleBuffer.writeString("ls -la /usr/share/doc | grep aesh");
+        consoleBuffer.moveCursor(-10);
+
+        CommandOperation write = new CommandOperation(Key.a);
+        CommandOperation backspace = new CommandOperation(Key.BACKSPACE);
+        long start = System.nanoTime();
+        for(int i = 0; i < KEY_STROKES; i += 2) {
+            inputProcessor.parseOperation(write);
+            inputProcessor.parseOperation(backspace);
+        }
+        long time = System.nanoTime() - start;
+        terminal.close();
+        return time;
+    }
+}
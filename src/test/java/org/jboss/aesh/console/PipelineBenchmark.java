@@ -0,0 +1,164 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.console;
+
+import org.jboss.aesh.console.command.CommandOperation;
+import org.jboss.aesh.console.operator.ControlOperator;
+import org.jboss.aesh.console.reader.AeshStandardStream;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Pass a stream of bytes from one command to the next, first buffered the
+ * way the console does it when concurrent pipelines are disabled, then through a
+ * Pipeline. Prints the time until the next command get the first byte,
+ * the total time and the peak heap used.
+ * Run with: java org.jboss.aesh.console.PipelineBenchmark [megabytes]
+ *
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+public class PipelineBenchmark {
+
+    private static final int CHUNK = 8 * 1024;
+
+    public static void main(String[] args) throws Exception {
+        long size = (args.length > 0 ? Long.parseLong(args[0]) : 128) * 1024 * 1024;
+        HeapSampler sampler = new HeapSampler();
+        sampler.start();
+        ExecutorService executor = Executors.newCachedThreadPool();
+        for(int round = 0; round < 3; round++) {
+            buffered(size, sampler);
+            pipelined(size, sampler, executor);
+        }
+        executor.shutdown();
+        sampler.interrupt();
+    }
+
+    private static void buffered(long size, HeapSampler sampler) throws IOException {
+        sampler.reset();
+        long start = System.nanoTime();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        produce(new PrintStream(buffer, true), size);
+        InputStream in = new BufferedInputStream(new ByteArrayInputStream(buffer.toString().getBytes()));
+        buffer = null;
+        long[] firstByte = new long[1];
+        long read = consume(in, firstByte);
+        print("buffered", start, firstByte[0], read, sampler);
+    }
+
+    private static void pipelined(final long size, HeapSampler sampler, ExecutorService executor) throws Exception {
+        sampler.reset();
+        final long[] firstByte = new long[1];
+        final long[] read = new long[1];
+        List<ConsoleOperation> operations = new ArrayList<>();
+        operations.add(new ConsoleOperation(ControlOperator.PIPE, "produce "));
+        operations.add(new ConsoleOperation(ControlOperator.NONE, " consume"));
+        Pipeline pipeline = Pipeline.create(operations, new AeshStandardStream(), System.err);
+        long start = System.nanoTime();
+        pipeline.execute(new AeshConsoleCallback() {
+            @Override
+            public int execute(ConsoleOperation output) {
+                try {
+                    if(output.getControlOperator() == ControlOperator.PIPE)
+                        produce(Pipeline.getCurrentStage().getOut(), size);
+                    else
+                        read[0] = consume(Pipeline.getCurrentStage().getIn().getStdIn(), firstByte);
+                }
+                catch (IOException e) {
+                    e.printStackTrace();
+                }
+                return 0;
+            }
+
+            @Override
+            public CommandOperation getInput() {
+                return null;
+            }
+        }, executor);
+        print("pipeline", start, firstByte[0], read[0], sampler);
+    }
+
+    private static void produce(PrintStream out, long size) {
+        byte[] chunk = new byte[CHUNK];
+        Arrays.fill(chunk, (byte) 'a');
+        for(long written = 0; written < size; written += CHUNK)
+            out.write(chunk, 0, CHUNK);
+        out.flush();
+    }
+
+    private static long consume(InputStream in, long[] firstByte) throws IOException {
+        byte[] chunk = new byte[CHUNK];
+        long read = 0;
+        int count;
+        while((count = in.read(chunk)) > 0) {
+            if(read == 0)
+                firstByte[0] = System.nanoTime();
+            read += count;
+        }
+        return read;
+    }
+
+    private static void print(String name, long start, long firstByte, long read, HeapSampler sampler) {
+        System.out.printf("%-9s first byte %7.2f ms, total %7.1f ms, %5d MB read, peak heap %5d MB%n",
+                name, (firstByte - start) / 1e6, (System.nanoTime() - start) / 1e6,
+                read / (1024 * 1024), sampler.getPeak() / (1024 * 1024));
+    }
+
+    private static class HeapSampler extends Thread {
+        private volatile long peak;
+
+        HeapSampler() {
+            setDaemon(true);
+        }
+
+        void reset() {
+            System.gc();
+            peak = 0;
+        }
+
+        long getPeak() {
+            return peak;
+        }
+
+        @Override
+        public void run() {
+            Runtime runtime = Runtime.getRuntime();
+            while(!isInterrupted()) {
+                long used = runtime.totalMemory() - runtime.freeMemory();
+                if(used > peak)
+                    peak = used;
+                try {
+                    Thread.sleep(1);
+                }
+                catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+}
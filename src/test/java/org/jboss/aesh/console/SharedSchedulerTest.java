@@ -0,0 +1,92 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.console;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+public class SharedSchedulerTest {
+
+    @Test
+    public void testLaneRunAfterEverySignal() throws Exception {
+        final AtomicInteger produced = new AtomicInteger();
+        final AtomicInteger consumed = new AtomicInteger();
+        final AtomicBoolean running = new AtomicBoolean();
+        final AtomicBoolean overlap = new AtomicBoolean();
+        final SharedScheduler.Lane lane = SharedScheduler.newLane(new Runnable() {
+            @Override
+            public void run() {
+                if(!running.compareAndSet(false, true))
+                    overlap.set(true);
+                consumed.set(produced.get());
+                running.set(false);
+            }
+        });
+
+        final int signals = 10000;
+        final CountDownLatch done = new CountDownLatch(4);
+        for(int t = 0; t < 4; t++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for(int i = 0; i < signals; i++) {
+                        produced.incrementAndGet();
+                        lane.signal();
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+
+        long end = System.currentTimeMillis() + 5000;
+        while(consumed.get() != 4 * signals && System.currentTimeMillis() < end)
+            Thread.sleep(10);
+        assertEquals(4 * signals, consumed.get());
+        assertFalse(overlap.get());
+    }
+
+    @Test
+    public void testSharedThreadsAreDaemons() throws Exception {
+        final CountDownLatch done = new CountDownLatch(2);
+        final AtomicBoolean daemon = new AtomicBoolean(true);
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                if(!Thread.currentThread().isDaemon())
+                    daemon.set(false);
+                done.countDown();
+            }
+        };
+        SharedScheduler.getScheduler().execute(task);
+        SharedScheduler.getProcessExecutor().execute(task);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(daemon.get());
+    }
+}
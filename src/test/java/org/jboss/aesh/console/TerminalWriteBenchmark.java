@@ -0,0 +1,117 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.console;
+
+import org.jboss.aesh.console.settings.SettingsBuilder;
+import org.jboss.aesh.terminal.TestTerminal;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Count the writes that reach the terminal per key stroke, with and
+ * without write combining. The output is set up like System.out, an auto
+ * flushing PrintStream over a small BufferedOutputStream, so every write
+ * counted here is a write syscall on a real terminal.
+ * Run with: java org.jboss.aesh.console.TerminalWriteBenchmark
+ *
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+public class TerminalWriteBenchmark {
+
+    private static final int KEY_STROKES = 2000;
+    private static final String LINE = "a line that is edited in the middle and is long enough to wrap over "+
+            "a few rows of the terminal, so each edit redraw more than one row of it";
+    //type and delete in the middle of the line, ctrl-b and ctrl-f move the cursor
+    private static final int[] KEYS = { 'x', 'y', 2, 6, 127, 127 };
+
+    public static void main(String[] args) throws Exception {
+        for(int round = 0; round < 3; round++) {
+            run(false);
+            run(true);
+        }
+    }
+
+    private static void run(boolean writeCombining) throws Exception {
+        final AtomicInteger writes = new AtomicInteger();
+        PrintStream out = new PrintStream(new BufferedOutputStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+                writes.incrementAndGet();
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                writes.incrementAndGet();
+            }
+        }, 128), true);
+
+        PipedOutputStream input = new PipedOutputStream();
+        SettingsBuilder builder = new SettingsBuilder()
+                .readInputrc(false)
+                .enableAlias(false)
+                .terminal(new TestTerminal())
+                .blockingRead(true)
+                .writeCombining(writeCombining)
+                .inputStream(new PipedInputStream(input, 64 * 1024))
+                .outputStream(out)
+                .outputStreamError(out);
+
+        Console console = new Console(builder.create());
+        console.setConsoleCallback(new AeshConsoleCallback() {
+            @Override
+            public int execute(ConsoleOperation output) {
+                return 0;
+            }
+        });
+        console.start();
+        Thread.sleep(200);
+
+        input.write(LINE.getBytes());
+        //ctrl-a, then ctrl-f to the middle of the line
+        input.write(1);
+        for(int i = 0; i < LINE.length() / 2; i++)
+            input.write(6);
+        input.flush();
+        Thread.sleep(200);
+
+        writes.set(0);
+        long start = System.nanoTime();
+        for(int i = 0; i < KEY_STROKES; i++) {
+            input.write(KEYS[i % KEYS.length]);
+            input.flush();
+            //one key per read
+            Thread.sleep(0, 200000);
+        }
+        //wait until the output is done
+        int last = -1;
+        while(last != writes.get()) {
+            last = writes.get();
+            Thread.sleep(200);
+        }
+        long time = System.nanoTime() - start;
+        console.stop();
+
+        System.out.printf("writeCombining: %5s, terminal writes/key: %5.2f, total: %4d ms%n",
+                writeCombining, writes.get() / (double) KEY_STROKES, time / 1000000);
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.console.command.registry;
+
+import org.jboss.aesh.console.command.Command;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measure the time it takes to register 5000 commands with and without
+ * lazy registration.
+ * The commands are generated and compiled when the benchmark start,
+ * so it must be run with a JDK.
+ * Run with: java org.jboss.aesh.console.command.registry.CommandRegistrationBenchmark
+ *
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+public class CommandRegistrationBenchmark {
+
+    private static final int COMMANDS = 5000;
+    private static final String PACKAGE = "aesh.benchmark";
+
+    public static void main(String[] args) throws Exception {
+        File dir = Files.createTempDirectory("aesh-commands").toFile();
+        compileCommands(dir);
+
+        for(int round = 0; round < 5; round++) {
+            //new class loaders so no reflection data is cached between the runs
+            List<Class<? extends Command>> eagerCommands = loadCommands(dir);
+            List<Class<? extends Command>> lazyCommands = loadCommands(dir);
+
+            long start = System.nanoTime();
+            AeshCommandRegistryBuilder builder = new AeshCommandRegistryBuilder();
+            for(Class<? extends Command> command : eagerCommands)
+                builder.command(command);
+            CommandRegistry eager = builder.create();
+            long eagerTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            builder = new AeshCommandRegistryBuilder();
+            for(Class<? extends Command> command : lazyCommands)
+                builder.lazyCommand(command);
+            CommandRegistry lazy = builder.create();
+            long lazyTime = System.nanoTime() - start;
+
+            //first use of a lazy command
+            start = System.nanoTime();
+            lazy.getCommand("command-" + round, "").getParser();
+            long firstUse = System.nanoTime() - start;
+
+            System.out.printf("eager: %5d ms, lazy: %5d ms (%d/%d commands), first use of a lazy command: %4d us%n",
+                    eagerTime / 1000000, lazyTime / 1000000,
+                    eager.getAllCommandNames().size(), lazy.getAllCommandNames().size(),
+                    firstUse / 1000);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Class<? extends Command>> loadCommands(File dir) throws Exception {
+        ClassLoader loader = new URLClassLoader(new URL[] {dir.toURI().toURL()},
+                CommandRegistrationBenchmark.class.getClassLoader());
+        List<Class<? extends Command>> commands = new ArrayList<>(COMMANDS);
+        for(int i = 0; i < COMMANDS; i++)
+            commands.add((Class<? extends Command>) Class.forName(PACKAGE + ".Command" + i, false, loader));
+        return commands;
+    }
+
+    private static void compileCommands(File dir) throws IOException {
+        File packageDir = new File(dir, PACKAGE.replace('.', File.separatorChar));
+        packageDir.mkdirs();
+        List<String> compilerArgs = new ArrayList<>();
+        compilerArgs.add("-d");
+        compilerArgs.add(dir.getAbsolutePath());
+        compilerArgs.add("-cp");
+        compilerArgs.add(System.getProperty("java.class.path"));
+        for(int i = 0; i < COMMANDS; i++) {
+            File source = new File(packageDir, "Command" + i + ".java");
+            try (Writer writer = new FileWriter(source)) {
+                writer.write("package " + PACKAGE + ";\n" +
+                        "import org.jboss.aesh.cl.*;\n" +
+                        "import org.jboss.aesh.console.command.*;\n" +
+                        "import org.jboss.aesh.console.command.invocation.CommandInvocation;\n" +
+                        "import java.util.List;\n" +
+                        "@CommandDefinition(name = \"command-" + i + "\", description = \"command " + i + "\")\n" +
+                        "public class Command" + i + " implements Command {\n" +
+                        "  @Option(shortName = 'n', description = \"name\") private String name;\n" +
+                        "  @Option(shortName = 'c', defaultValue = \"1\") private int count;\n" +
+                        "  @Option(shortName = 'v', hasValue = false) private boolean verbose;\n" +
+                        "  @OptionList private List<String> values;\n" +
+                        "  @Arguments private List<String> arguments;\n" +
+                        "  public CommandResult execute(CommandInvocation invocation) {\n" +
+                        "    return CommandResult.SUCCESS;\n" +
+                        "  }\n" +
+                        "}\n");
+            }
+            compilerArgs.add(source.getAbsolutePath());
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if(compiler == null)
+            throw new IllegalStateException("The benchmark must be run with a JDK");
+        if(compiler.run(null, null, null, compilerArgs.toArray(new String[compilerArgs.size()])) != 0)
+            throw new IllegalStateException("Failed to compile the commands");
+    }
+}
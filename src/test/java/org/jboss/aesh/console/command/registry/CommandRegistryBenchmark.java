@@ -0,0 +1,69 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.console.command.registry;
+
+import org.jboss.aesh.cl.internal.ProcessedCommandBuilder;
+import org.jboss.aesh.cl.parser.AeshCommandLineParser;
+import org.jboss.aesh.console.command.container.AeshCommandContainer;
+
+/**
+ * Measure the time it takes to find the commands matching a partial
+ * command name in a registry with thousands of commands.
+ * Run with: java org.jboss.aesh.console.command.registry.CommandRegistryBenchmark
+ *
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+public class CommandRegistryBenchmark {
+
+    private static final int COMMANDS = 5000;
+    private static final int GROUPS = 100;
+    private static final int LOOKUPS = 20000;
+
+    public static void main(String[] args) throws Exception {
+        MutableCommandRegistry registry = new MutableCommandRegistry();
+        for(int i = 0; i < COMMANDS; i++)
+            registry.addCommand(new AeshCommandContainer(new AeshCommandLineParser(
+                    new ProcessedCommandBuilder().name("command-" + i).create())));
+        for(int i = 0; i < GROUPS; i++) {
+            AeshCommandLineParser group = new AeshCommandLineParser(
+                    new ProcessedCommandBuilder().name("group-" + i).create());
+            for(int j = 0; j < 20; j++)
+                group.addChildParser(new AeshCommandLineParser(
+                        new ProcessedCommandBuilder().name("sub-" + j).create()));
+            registry.addCommand(new AeshCommandContainer(group));
+        }
+
+        String[] lines = new String[LOOKUPS];
+        for(int i = 0; i < LOOKUPS; i++) {
+            switch(i % 3) {
+                case 0: lines[i] = "command-" + (i % COMMANDS) / 10; break;
+                case 1: lines[i] = "group-" + (i % GROUPS) + " sub-1"; break;
+                default: lines[i] = "xyz"; break;
+            }
+        }
+
+        for(int round = 0; round < 5; round++) {
+            int found = 0;
+            long start = System.nanoTime();
+            for(String line : lines)
+                found += registry.findAllCommandNames(line).size();
+            long time = System.nanoTime() - start;
+            System.out.printf("%6d ns/lookup (%d names found)%n", time / LOOKUPS, found);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.console.command.registry;
+
+import org.jboss.aesh.cl.CommandDefinition;
+import org.jboss.aesh.cl.Option;
+import org.jboss.aesh.cl.exception.CommandLineParserException;
+import org.jboss.aesh.cl.internal.ProcessedCommandBuilder;
+import org.jboss.aesh.cl.parser.AeshCommandLineParser;
+import org.jboss.aesh.console.command.Command;
+import org.jboss.aesh.console.command.CommandNotFoundException;
+import org.jboss.aesh.console.command.CommandResult;
+import org.jboss.aesh.console.command.container.AeshCommandContainer;
+import org.jboss.aesh.console.command.container.CommandContainer;
+import org.jboss.aesh.console.command.container.LazyCommandContainer;
+import org.jboss.aesh.console.command.invocation.CommandInvocation;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+public class MutableCommandRegistryTest {
+
+    @Test
+    public void testFindCommandNames() throws CommandLineParserException {
+        MutableCommandRegistry registry = new MutableCommandRegistry();
+        for(String name : new String[] {"foo", "foobar", "bar", "fo", "barfoo"})
+            registry.addCommand(createCommand(name));
+
+        assertEquals(Arrays.asList("fo", "foo", "foobar"), sorted(registry.findAllCommandNames("fo")));
+        assertEquals(Arrays.asList("foo", "foobar"), sorted(registry.findAllCommandNames("foo")));
+        assertEquals(Arrays.asList("bar", "barfoo"), sorted(registry.findAllCommandNames("b")));
+        assertEquals(5, registry.findAllCommandNames("").size());
+        assertTrue(registry.findAllCommandNames("x").isEmpty());
+
+        registry.removeCommand("foo");
+        assertEquals(Arrays.asList("fo", "foobar"), sorted(registry.findAllCommandNames("fo")));
+    }
+
+    @Test
+    public void testFindGroupCommandNames() throws CommandLineParserException {
+        MutableCommandRegistry registry = new MutableCommandRegistry();
+        AeshCommandLineParser git = new AeshCommandLineParser(
+                new ProcessedCommandBuilder().name("git").create());
+        git.addChildParser(new AeshCommandLineParser(new ProcessedCommandBuilder().name("commit").create()));
+        git.addChildParser(new AeshCommandLineParser(new ProcessedCommandBuilder().name("rebase").create()));
+        registry.addCommand(new AeshCommandContainer(git));
+        registry.addCommand(createCommand("gitk"));
+
+        assertEquals(Arrays.asList("git", "gitk"), sorted(registry.findAllCommandNames("gi")));
+        assertEquals(Arrays.asList("git commit", "git rebase"), sorted(registry.findAllCommandNames("git ")));
+        assertEquals(Arrays.asList("git  commit"), registry.findAllCommandNames("git  c"));
+        assertTrue(registry.findAllCommandNames("git x").isEmpty());
+
+        //sub commands added after the group is registered
+        git.addChildParser(new AeshCommandLineParser(new ProcessedCommandBuilder().name("checkout").create()));
+        assertEquals(Arrays.asList("git checkout", "git commit"), sorted(registry.findAllCommandNames("git c")));
+
+        //a group with the same name and the same number of sub commands
+        registry.removeCommand("git");
+        AeshCommandLineParser other = new AeshCommandLineParser(
+                new ProcessedCommandBuilder().name("git").create());
+        for(String name : new String[] {"clone", "pull", "push"})
+            other.addChildParser(new AeshCommandLineParser(new ProcessedCommandBuilder().name(name).create()));
+        registry.addCommand(new AeshCommandContainer(other));
+        assertEquals(Arrays.asList("git clone", "git pull", "git push"), sorted(registry.findAllCommandNames("git ")));
+    }
+
+    @Test
+    public void testLazyCommand() throws Exception {
+        MutableCommandRegistry registry = new MutableCommandRegistry();
+        LazyCommand.instances = 0;
+        registry.addLazyCommand(LazyCommand.class);
+        registry.addLazyCommand(BrokenCommand.class);
+
+        assertEquals(Arrays.asList("broken", "lazy"), sorted(registry.findAllCommandNames("")));
+        assertEquals(0, LazyCommand.instances);
+
+        //the command is built when it's fetched from the registry
+        CommandContainer container = registry.getCommand("lazy", "");
+        assertTrue(((LazyCommandContainer) container).isBuilt());
+        assertEquals(1, LazyCommand.instances);
+        assertEquals("lazy", container.getParser().getProcessedCommand().getName());
+        assertEquals(1, container.getParser().getProcessedCommand().getOptions().size());
+        assertTrue(registry.getCommand("lazy", "") == container);
+        container.getParser();
+        assertEquals(1, LazyCommand.instances);
+
+        try {
+            registry.getCommand("broken", "");
+            fail("broken should not be built");
+        }
+        catch (CommandNotFoundException e) {
+            assertEquals(Arrays.asList("lazy"), registry.findAllCommandNames(""));
+        }
+    }
+
+    @CommandDefinition(name = "lazy", description = "")
+    public static class LazyCommand implements Command {
+        static int instances;
+
+        @Option
+        private String value;
+
+        public LazyCommand() {
+            instances++;
+        }
+
+        @Override
+        public CommandResult execute(CommandInvocation commandInvocation) throws IOException, InterruptedException {
+            return CommandResult.SUCCESS;
+        }
+    }
+
+    @CommandDefinition(name = "broken", description = "")
+    public static class BrokenCommand implements Command {
+        //two options with the same name
+        @Option(name = "foo")
+        private String value;
+
+        @Option(name = "foo")
+        private String otherValue;
+
+        @Override
+        public CommandResult execute(CommandInvocation commandInvocation) throws IOException, InterruptedException {
+            return CommandResult.SUCCESS;
+        }
+    }
+
+    private AeshCommandContainer createCommand(String name) throws CommandLineParserException {
+        return new AeshCommandContainer(new AeshCommandLineParser(
+                new ProcessedCommandBuilder().name(name).create()));
+    }
+
+    private List<String> sorted(List<String> names) {
+        Collections.sort(names);
+        return names;
+    }
+}
@@ -18,6 +18,7 @@
 package org.jboss.aesh.console.completion;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -25,6 +26,8 @@ import java.io.OutputStream;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
 import java.io.PrintStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.jboss.aesh.cl.internal.ProcessedCommandBuilder;
 import org.jboss.aesh.cl.internal.ProcessedOptionBuilder;
@@ -271,6 +274,151 @@ public class CompletionConsoleTest extends BaseConsoleTest {
         console.stop();
     }
 
+    @Test
+    public void asyncCompletionTimeout() throws Exception {
+        invokeTestConsole(1, new Setup() {
+            @Override
+            public void call(Console console, OutputStream out) throws Exception {
+                Completion slowCompletion = new Completion() {
+                    @Override
+                    public void complete(CompleteOperation co) {
+                        try {
+                            Thread.sleep(2000);
+                            co.addCompletionCandidate("foobaz");
+                        }
+                        catch (InterruptedException e) {
+                            //cancelled
+                        }
+                    }
+                };
+                console.addCompletion(slowCompletion, 50);
+
+                Completion completion = new Completion() {
+                    @Override
+                    public void complete(CompleteOperation co) {
+                        if(co.getBuffer().equals("foo"))
+                            co.addCompletionCandidate("foobar");
+                    }
+                };
+                console.addCompletion(completion);
+
+                out.write("foo".getBytes());
+                out.write(completeChar.getFirstValue());
+                out.flush();
+                Thread.sleep(200);
+                out.write(LINE_SEPARATOR);
+                out.flush();
+            }
+        }, new Verify() {
+            @Override
+            public int call(Console console, ConsoleOperation op) {
+                assertEquals("foobar ", op.getBuffer());
+                return 0;
+            }
+        }, new SettingsBuilder().asyncCompletion(true).completionTimeout(1000));
+    }
+
+    @Test
+    public void asyncCompletionCancelledByInput() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch cancelled = new CountDownLatch(1);
+        invokeTestConsole(1, new Setup() {
+            @Override
+            public void call(Console console, OutputStream out) throws Exception {
+                Completion completion = new Completion() {
+                    @Override
+                    public void complete(CompleteOperation co) {
+                        started.countDown();
+                        try {
+                            Thread.sleep(5000);
+                            co.addCompletionCandidate("foobar");
+                        }
+                        catch (InterruptedException e) {
+                            cancelled.countDown();
+                        }
+                    }
+                };
+                console.addCompletion(completion);
+
+                //the x might be read before the completion is started
+                out.write("foo".getBytes());
+                out.write(completeChar.getFirstValue());
+                out.write("x".getBytes());
+                out.write(LINE_SEPARATOR);
+                out.flush();
+            }
+        }, new Verify() {
+            @Override
+            public int call(Console console, ConsoleOperation op) {
+                assertEquals("foox", op.getBuffer());
+                return 0;
+            }
+        }, new SettingsBuilder().asyncCompletion(true).completionTimeout(10000));
+
+        if(started.getCount() == 0)
+            assertTrue(cancelled.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void asyncCompletionListCandidatesAsTheyArrive() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        PipedOutputStream outputStream = new PipedOutputStream();
+        PipedInputStream pipedInputStream = new PipedInputStream(outputStream);
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+
+        Settings settings = new SettingsBuilder()
+                .terminal(new TestTerminal())
+                .inputStream(pipedInputStream)
+                .outputStream(new PrintStream(byteArrayOutputStream))
+                .readInputrc(false)
+                .asyncCompletion(true)
+                .completionTimeout(1000)
+                .create();
+
+        Console console = new Console(settings);
+        console.addCompletion(new Completion() {
+            @Override
+            public void complete(CompleteOperation co) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException e) {
+                    //cancelled
+                }
+            }
+        }, 5000);
+        console.addCompletion(new Completion() {
+            @Override
+            public void complete(CompleteOperation co) {
+                if(co.getBuffer().equals("foo")) {
+                    co.addCompletionCandidate("foobar");
+                    co.addCompletionCandidate("foobaz");
+                }
+            }
+        });
+        console.setConsoleCallback(new CompletionConsoleCallback2(console));
+        console.start();
+
+        outputStream.write("foo".getBytes());
+        outputStream.write(completeChar.getFirstValue());
+        outputStream.flush();
+
+        //the fast candidates are listed while the slow completion is running
+        long deadline = System.currentTimeMillis() + 2000;
+        while(!byteArrayOutputStream.toString().contains("foobaz") && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertTrue(byteArrayOutputStream.toString().contains("foobaz"));
+        assertEquals(1, release.getCount());
+
+        release.countDown();
+        deadline = System.currentTimeMillis() + 2000;
+        while(!console.getBuffer().equals("fooba") && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertEquals("fooba", console.getBuffer());
+
+        console.stop();
+    }
+
     class CompletionConsoleCallback extends AeshConsoleCallback {
         private transient int count = 0;
         final Console console;
@@ -0,0 +1,57 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.console.operator;
+
+/**
+ * Measure the time used to split a pipeline of 1000 commands into operations
+ * and to find the operator positions a complete use for the same line.
+ * Run with: java org.jboss.aesh.console.operator.ControlOperatorBenchmark
+ *
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+public class ControlOperatorBenchmark {
+
+    private static final int STAGES = 1000;
+    private static final int ITERATIONS = 200;
+
+    public static void main(String[] args) {
+        StringBuilder builder = new StringBuilder("cat \"foo | bar.txt\"");
+        for(int i = 0; i < STAGES; i++)
+            builder.append(" | grep -v ").append(i).append(i % 10 == 0 ? " > out" + i + ".txt" : "");
+        String line = builder.toString();
+        int cursor = line.length();
+        int count = 0;
+
+        for(int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            for(int i = 0; i < ITERATIONS; i++)
+                count += ControlOperatorParser.findAllControlOperators(line).size();
+            print("parse", start);
+
+            start = System.nanoTime();
+            for(int i = 0; i < ITERATIONS; i++)
+                count += ControlOperatorParser.findLastPipelineAndRedirectionPositionBeforeCursor(line, cursor)[0];
+            print("complete", start);
+        }
+        System.out.println(count);
+    }
+
+    private static void print(String name, long start) {
+        System.out.printf("%-9s %8d us/line%n", name, (System.nanoTime() - start) / ITERATIONS / 1000);
+    }
+}
@@ -140,4 +140,50 @@ public class ControlOperatorParserTest extends TestCase {
         assertEquals(13, ControlOperatorParser.findLastRedirectionPositionBeforeCursor("ls > bah 2>&1 foo", 15));
 
     }
+
+    public void testEscapedAndQuotedOperators() {
+        List<ConsoleOperation> ops = ControlOperatorParser.findAllControlOperators("echo a\\;b; ls");
+        assertEquals(new ConsoleOperation(ControlOperator.END, "echo a\\;b"), ops.get(0));
+        assertEquals(new ConsoleOperation(ControlOperator.NONE, " ls"), ops.get(1));
+
+        ops = ControlOperatorParser.findAllControlOperators("echo \\>> foo");
+        assertEquals(new ConsoleOperation(ControlOperator.OVERWRITE_OUT, "echo \\>"), ops.get(0));
+        assertEquals(new ConsoleOperation(ControlOperator.NONE, " foo"), ops.get(1));
+
+        ops = ControlOperatorParser.findAllControlOperators("echo \"a \\\" | b\" | grep a");
+        assertEquals(new ConsoleOperation(ControlOperator.PIPE, "echo \"a \\\" | b\" "), ops.get(0));
+        assertEquals(new ConsoleOperation(ControlOperator.NONE, " grep a"), ops.get(1));
+
+        ops = ControlOperatorParser.findAllControlOperators("echo \"it's\" && foo |& bar");
+        assertEquals(new ConsoleOperation(ControlOperator.AND, "echo \"it's\" "), ops.get(0));
+        assertEquals(new ConsoleOperation(ControlOperator.PIPE_OUT_AND_ERR, " foo "), ops.get(1));
+        assertEquals(new ConsoleOperation(ControlOperator.NONE, " bar"), ops.get(2));
+    }
+
+    public void testLongPipeline() {
+        StringBuilder builder = new StringBuilder("cat foo");
+        for(int i = 0; i < 1000; i++)
+            builder.append(" | grep ").append(i);
+        List<ConsoleOperation> ops = ControlOperatorParser.findAllControlOperators(builder.toString());
+        assertEquals(1001, ops.size());
+        assertEquals(new ConsoleOperation(ControlOperator.PIPE, "cat foo "), ops.get(0));
+        assertEquals(new ConsoleOperation(ControlOperator.PIPE, " grep 499 "), ops.get(500));
+        assertEquals(new ConsoleOperation(ControlOperator.NONE, " grep 999"), ops.get(1000));
+    }
+
+    public void testFindLastPipelineAndRedirectionBeforeCursor() {
+        String buffer = "ls > bah | foo 2> \"a | b\"";
+        int[] positions = ControlOperatorParser.findLastPipelineAndRedirectionPositionBeforeCursor(buffer, 2);
+        assertEquals(0, positions[0]);
+        assertEquals(0, positions[1]);
+        positions = ControlOperatorParser.findLastPipelineAndRedirectionPositionBeforeCursor(buffer, 12);
+        assertEquals(10, positions[0]);
+        assertEquals(4, positions[1]);
+        positions = ControlOperatorParser.findLastPipelineAndRedirectionPositionBeforeCursor(buffer, buffer.length());
+        assertEquals(10, positions[0]);
+        assertEquals(17, positions[1]);
+        assertTrue(ControlOperatorParser.doStringContainPipelineOrEnd(buffer));
+        assertFalse(ControlOperatorParser.doStringContainPipelineOrEnd("ls \"a | b\""));
+        assertEquals(13, ControlOperatorParser.getPositionOfFirstRedirection("ls \"a > b\" 2> c"));
+    }
 }
@@ -27,6 +27,7 @@ import org.jboss.aesh.console.Config;
 import org.jboss.aesh.console.Console;
 import org.jboss.aesh.console.ConsoleOperation;
 import org.jboss.aesh.console.Prompt;
+import org.jboss.aesh.console.settings.SettingsBuilder;
 import org.junit.Test;
 
 /**
@@ -64,4 +65,33 @@ public class ConsolePasteTest extends BaseConsoleTest {
            }
         });
     }
+
+    @Test
+    public void bracketedPaste() throws Exception {
+        invokeTestConsole(3, new Setup() {
+            @Override
+            public void call(Console console, OutputStream out) throws IOException {
+                out.write("ls ".getBytes());
+                out.flush();
+                out.write(("\u001B[200~foo"+ Config.getLineSeparator()+"bar\u001B[2").getBytes());
+                out.flush();
+                out.write(("01~"+ Config.getLineSeparator()).getBytes());
+                out.write(("\u001B[200~exit" + Config.getLineSeparator() + "\u001B[201~").getBytes());
+                out.flush();
+            }
+        }, new Verify() {
+            private int count = 0;
+            @Override
+            public int call(Console console, ConsoleOperation op) {
+                if(count == 0)
+                    assertEquals("ls foo", op.getBuffer());
+                else if(count == 1)
+                    assertEquals("bar", op.getBuffer());
+                else if(count == 2)
+                    assertEquals("exit", op.getBuffer());
+                count++;
+                return 0;
+            }
+        }, new SettingsBuilder().bracketedPaste(true).enableAlias(false));
+    }
 }
@@ -0,0 +1,77 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.console.reader;
+
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.Arrays;
+
+/**
+ * Measure the latency from a key is written to the console input stream
+ * until it can be read from the AeshInputStream, with a polling and a
+ * blocking reader.
+ *
+ * Not run as part of the test suite, run it with:
+ * java -cp ... org.jboss.aesh.console.reader.ConsoleInputSessionBenchmark [iterations]
+ *
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+public class ConsoleInputSessionBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+
+        //warmup
+        measure(false, iterations / 10);
+        measure(true, iterations / 10);
+
+        print("polling", measure(false, iterations));
+        print("blocking", measure(true, iterations));
+    }
+
+    private static long[] measure(boolean blockingRead, int iterations) throws Exception {
+        PipedOutputStream outputStream = new PipedOutputStream();
+        PipedInputStream pipedInputStream = new PipedInputStream(outputStream);
+        ConsoleInputSession inputSession = new ConsoleInputSession(pipedInputStream, blockingRead);
+        AeshInputStream input = inputSession.getExternalInputStream();
+
+        long[] latencies = new long[iterations];
+        for(int i=0; i < iterations; i++) {
+            long start = System.nanoTime();
+            outputStream.write('a');
+            outputStream.flush();
+            input.readAll();
+            latencies[i] = System.nanoTime() - start;
+        }
+        inputSession.stop();
+        return latencies;
+    }
+
+    private static void print(String mode, long[] latencies) {
+        Arrays.sort(latencies);
+        long total = 0;
+        for(long latency : latencies)
+            total += latency;
+
+        System.out.println(String.format("%-10s avg: %8.1f us, p50: %8.1f us, p99: %8.1f us, max: %8.1f us",
+                mode, (total / latencies.length) / 1000d,
+                latencies[latencies.length / 2] / 1000d,
+                latencies[(int) (latencies.length * 0.99)] / 1000d,
+                latencies[latencies.length - 1] / 1000d));
+    }
+}
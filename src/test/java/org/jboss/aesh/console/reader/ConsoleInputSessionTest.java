@@ -0,0 +1,81 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.console.reader;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.Charset;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+/**
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+public class ConsoleInputSessionTest {
+
+    @Test
+    public void testBlockingRead() throws Exception {
+        verifyRead(true);
+    }
+
+    @Test
+    public void testPollingRead() throws Exception {
+        verifyRead(false);
+    }
+
+    @Test
+    public void testMultiByteInputSplitBetweenReads() throws Exception {
+        Assume.assumeTrue(Charset.defaultCharset().name().equals("UTF-8"));
+        PipedOutputStream outputStream = new PipedOutputStream();
+        PipedInputStream pipedInputStream = new PipedInputStream(outputStream);
+        ConsoleInputSession inputSession = new ConsoleInputSession(pipedInputStream, true);
+        AeshInputStream input = inputSession.getExternalInputStream();
+
+        byte[] bytes = "\u00e6".getBytes();
+        outputStream.write(bytes, 0, 1);
+        outputStream.flush();
+        Thread.sleep(50);
+        outputStream.write(bytes, 1, bytes.length - 1);
+        outputStream.flush();
+        assertArrayEquals(new int[] {'\u00e6'}, input.readAll());
+
+        inputSession.stop();
+    }
+
+    private void verifyRead(boolean blockingRead) throws Exception {
+        PipedOutputStream outputStream = new PipedOutputStream();
+        PipedInputStream pipedInputStream = new PipedInputStream(outputStream);
+        ConsoleInputSession inputSession = new ConsoleInputSession(pipedInputStream, blockingRead);
+        AeshInputStream input = inputSession.getExternalInputStream();
+
+        outputStream.write("foo".getBytes());
+        outputStream.flush();
+        assertArrayEquals(new int[] {'f','o','o'}, input.readAll());
+
+        outputStream.write("bar".getBytes());
+        outputStream.flush();
+        assertArrayEquals(new int[] {'b','a','r'}, input.readAll());
+
+        inputSession.stop();
+        assertEquals(-1, input.read());
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.console.reader;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+public class InputRingBufferTest {
+
+    @Test
+    public void testWrapAround() throws Exception {
+        InputRingBuffer buffer = new InputRingBuffer(4);
+        buffer.write("abc");
+        assertEquals('a', buffer.read());
+        assertEquals('b', buffer.read());
+
+        buffer.write("def");
+        assertEquals(4, buffer.available());
+
+        int[] out = new int[10];
+        assertEquals(4, buffer.read(out, 1, 9));
+        assertArrayEquals(new int[] {'c','d','e','f'}, new int[] {out[1], out[2], out[3], out[4]});
+        assertEquals(0, buffer.available());
+    }
+
+    @Test
+    public void testWriteLargerThanCapacity() throws Exception {
+        final InputRingBuffer buffer = new InputRingBuffer(3);
+        final StringBuilder builder = new StringBuilder();
+        final CountDownLatch latch = new CountDownLatch(1);
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    int[] out = new int[2];
+                    while(builder.length() < 10) {
+                        int read = buffer.read(out, 0, out.length);
+                        for(int i=0; i < read; i++)
+                            builder.append((char) out[i]);
+                    }
+                    latch.countDown();
+                }
+                catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            }
+        });
+        reader.start();
+
+        buffer.write("0123456789");
+        latch.await(5, TimeUnit.SECONDS);
+        assertEquals("0123456789", builder.toString());
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        InputRingBuffer buffer = new InputRingBuffer(8);
+        buffer.write("a");
+        buffer.close();
+        buffer.write("b");
+        assertEquals('a', buffer.read());
+        assertEquals(-1, buffer.read());
+        assertEquals(-1, buffer.read(new int[2], 0, 2));
+    }
+
+    @Test
+    public void testTryWriteOnlyWhatFits() throws Exception {
+        InputRingBuffer buffer = new InputRingBuffer(4);
+        buffer.write("ab");
+        assertEquals(2, buffer.tryWrite("cdef".toCharArray(), 0, 4));
+        assertEquals(0, buffer.tryWrite("ef".toCharArray(), 0, 2));
+        int[] out = new int[4];
+        assertEquals(4, buffer.read(out, 0, 4));
+        assertEquals('d', out[3]);
+        assertEquals(2, buffer.tryWrite("cdef".toCharArray(), 2, 2));
+        assertEquals('e', buffer.read());
+    }
+
+    @Test
+    public void testInjectGrowTheBuffer() throws Exception {
+        InputRingBuffer buffer = new InputRingBuffer(4);
+        buffer.write("ab");
+        buffer.read();
+        //wrap around, then inject more than there is room for
+        buffer.write("cd");
+        buffer.inject("efghij".toCharArray(), 0, 6);
+        assertEquals(9, buffer.capacity());
+        int[] out = new int[9];
+        assertEquals(9, buffer.read(out, 0, 9));
+        StringBuilder builder = new StringBuilder();
+        for(int value : out)
+            builder.append((char) value);
+        assertEquals("bcdefghij", builder.toString());
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.console.reader;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+/**
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+public class PipeBufferTest {
+
+    @Test
+    public void testWrapAround() throws Exception {
+        PipeBuffer pipe = new PipeBuffer(4);
+        OutputStream out = pipe.getOutputStream();
+        InputStream in = pipe.getInputStream();
+        out.write(new byte[] {1, 2, 3});
+        assertEquals(1, in.read());
+        assertEquals(2, in.read());
+
+        out.write(new byte[] {4, 5, 6});
+        assertEquals(4, in.available());
+
+        byte[] read = new byte[10];
+        assertEquals(4, in.read(read, 1, 9));
+        assertArrayEquals(new byte[] {3, 4, 5, 6}, new byte[] {read[1], read[2], read[3], read[4]});
+        assertEquals(0, in.available());
+    }
+
+    @Test
+    public void testEndOfStream() throws Exception {
+        PipeBuffer pipe = new PipeBuffer(8);
+        pipe.getOutputStream().write(new byte[] {(byte) 200, 7});
+        pipe.getOutputStream().close();
+        InputStream in = pipe.getInputStream();
+        assertEquals(200, in.read());
+        assertEquals(7, in.read());
+        assertEquals(-1, in.read());
+        assertEquals(-1, in.read(new byte[4], 0, 4));
+    }
+
+    @Test
+    public void testWriterIsHeldBackByReader() throws Exception {
+        final PipeBuffer pipe = new PipeBuffer(16);
+        final AtomicLong written = new AtomicLong();
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                byte[] chunk = new byte[5];
+                try {
+                    for(int i = 0; i < 200; i++) {
+                        pipe.getOutputStream().write(chunk);
+                        written.addAndGet(chunk.length);
+                    }
+                    pipe.getOutputStream().close();
+                }
+                catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        });
+        writer.start();
+
+        Thread.sleep(50);
+        //the writer can not be more than the capacity ahead of the reader
+        assertTrue(written.get() <= pipe.capacity());
+
+        long read = 0;
+        byte[] buffer = new byte[7];
+        int count;
+        while((count = pipe.getInputStream().read(buffer)) > 0)
+            read += count;
+        writer.join(1000);
+        assertEquals(1000, read);
+    }
+
+    @Test
+    public void testBrokenPipe() throws Exception {
+        PipeBuffer pipe = new PipeBuffer(8);
+        pipe.getOutputStream().write(1);
+        pipe.getInputStream().close();
+        try {
+            pipe.getOutputStream().write(2);
+            fail("Writing to a pipe without reader should fail");
+        }
+        catch (IOException e) {
+            assertEquals("Broken pipe", e.getMessage());
+            //the writer is stopped as well
+            assertTrue(Thread.interrupted());
+        }
+    }
+}
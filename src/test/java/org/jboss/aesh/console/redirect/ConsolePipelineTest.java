@@ -0,0 +1,108 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.console.redirect;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.aesh.console.BaseConsoleTest;
+import org.jboss.aesh.console.Config;
+import org.jboss.aesh.console.Console;
+import org.jboss.aesh.console.ConsoleOperation;
+import org.jboss.aesh.console.operator.ControlOperator;
+import org.jboss.aesh.console.settings.SettingsBuilder;
+import org.junit.Test;
+
+/**
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+public class ConsolePipelineTest extends BaseConsoleTest {
+
+    @Test
+    public void testOutputIsStreamed() throws Throwable {
+        final CountDownLatch firstLineRead = new CountDownLatch(1);
+        final StringBuilder consumed = new StringBuilder();
+        invokeTestConsole(2, new Setup() {
+            @Override
+            public void call(Console console, OutputStream out) throws Exception {
+                out.write(("produce | consume" + Config.getLineSeparator()).getBytes());
+                out.flush();
+            }
+        }, new Verify() {
+            @Override
+            public int call(Console console, ConsoleOperation op) throws Exception {
+                if(op.getBuffer().trim().equals("produce")) {
+                    assertEquals(ControlOperator.PIPE, op.getControlOperator());
+                    console.getShell().out().println("first");
+                    //the next command must read the line while this one is still running
+                    assertTrue(firstLineRead.await(400, TimeUnit.MILLISECONDS));
+                    console.getShell().out().println("second");
+                }
+                else {
+                    assertEquals(ControlOperator.NONE, op.getControlOperator());
+                    BufferedReader reader = new BufferedReader(
+                            new InputStreamReader(console.getShell().in().getStdIn()));
+                    String line;
+                    while((line = reader.readLine()) != null) {
+                        consumed.append(line).append(' ');
+                        firstLineRead.countDown();
+                    }
+                }
+                return 0;
+            }
+        }, new SettingsBuilder().enableAlias(false).concurrentPipeline(true));
+
+        assertEquals("first second ", consumed.toString());
+    }
+
+    @Test
+    public void testPipeOutAndErr() throws Throwable {
+        final StringBuilder consumed = new StringBuilder();
+        invokeTestConsole(2, new Setup() {
+            @Override
+            public void call(Console console, OutputStream out) throws Exception {
+                out.write(("produce |& consume" + Config.getLineSeparator()).getBytes());
+                out.flush();
+            }
+        }, new Verify() {
+            @Override
+            public int call(Console console, ConsoleOperation op) throws Exception {
+                if(op.getBuffer().trim().equals("produce")) {
+                    console.getShell().out().println("out");
+                    console.getShell().err().println("err");
+                }
+                else {
+                    BufferedReader reader = new BufferedReader(
+                            new InputStreamReader(console.getShell().in().getStdIn()));
+                    String line;
+                    while((line = reader.readLine()) != null)
+                        consumed.append(line).append(' ');
+                }
+                return 0;
+            }
+        }, new SettingsBuilder().enableAlias(false).concurrentPipeline(true));
+
+        assertEquals("out err ", consumed.toString());
+    }
+}
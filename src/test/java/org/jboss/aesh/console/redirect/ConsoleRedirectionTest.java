@@ -29,12 +29,14 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.attribute.FileAttribute;
 import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
 
 import org.jboss.aesh.console.BaseConsoleTest;
 import org.jboss.aesh.console.Config;
 import org.jboss.aesh.console.Console;
 import org.jboss.aesh.console.ConsoleOperation;
 import org.jboss.aesh.console.operator.ControlOperator;
+import org.jboss.aesh.console.settings.SettingsBuilder;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -148,6 +150,38 @@ import org.junit.Test;
          );
      }
 
+     @Test
+     public void streamRedirectOut() throws Throwable {
+         final File foo = new File(tempDir.toFile(), "foo_bar4.txt");
+         final byte[] line = new byte[1024];
+         Arrays.fill(line, (byte) 'a');
+         invokeTestConsole(1, new Setup() {
+                     @Override
+                     public void call(Console console, OutputStream out) throws IOException {
+                         out.write(("ls > " + foo.getCanonicalPath() + Config.getLineSeparator()).getBytes());
+                         out.flush();
+                     }
+                 }, new Verify() {
+                     @Override
+                     public int call(Console console, ConsoleOperation op) {
+                         assertEquals(ControlOperator.OVERWRITE_OUT, op.getControlOperator());
+                         //the file is opened when the command start
+                         assertTrue(foo.exists());
+                         for(int i = 0; i < 200; i++)
+                             console.getShell().out().write(line, 0, line.length);
+                         //full buffers are written while the command run
+                         assertTrue(foo.length() > 0);
+                         return 0;
+                     }
+                 }, new SettingsBuilder().enableAlias(false).streamRedirection(true)
+         );
+
+         //the rest is written when the command is done
+         for(int i = 0; i < 100 && foo.length() < 200 * line.length; i++)
+             Thread.sleep(10);
+         assertEquals(200 * line.length, foo.length());
+     }
+
     public static Path createTempDirectory() throws IOException {
         final Path tmp;
         if(Config.isOSPOSIXCompatible())
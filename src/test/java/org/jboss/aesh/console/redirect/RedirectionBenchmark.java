@@ -0,0 +1,121 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.console.redirect;
+
+import org.jboss.aesh.io.FileResource;
+import org.jboss.aesh.io.Resource;
+import org.jboss.aesh.util.FileUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * Redirect the output of a command to a file, first buffered and saved when
+ * the command is done (the default), then streamed to the file with a heap
+ * and with a direct buffer. Prints the total time and the peak heap used.
+ * Run with: java org.jboss.aesh.console.redirect.RedirectionBenchmark [megabytes]
+ *
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+public class RedirectionBenchmark {
+
+    private static final int CHUNK = 8 * 1024;
+
+    public static void main(String[] args) throws Exception {
+        long size = (args.length > 0 ? Long.parseLong(args[0]) : 256) * 1024 * 1024;
+        File file = File.createTempFile("aesh-redirect", ".txt");
+        file.deleteOnExit();
+        Resource resource = new FileResource(file);
+        HeapSampler sampler = new HeapSampler();
+        sampler.start();
+
+        for(int round = 0; round < 3; round++) {
+            sampler.reset();
+            long start = System.nanoTime();
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            produce(new PrintStream(buffer, true), size);
+            FileUtils.saveFile(resource, buffer.toString(), false);
+            buffer = null;
+            print("buffered", start, file, sampler);
+
+            sampler.reset();
+            start = System.nanoTime();
+            PrintStream out = new PrintStream(FileUtils.openFile(resource, false, false), false);
+            produce(out, size);
+            out.close();
+            print("stream", start, file, sampler);
+
+            sampler.reset();
+            start = System.nanoTime();
+            out = new PrintStream(FileUtils.openFile(resource, false, true), false);
+            produce(out, size);
+            out.close();
+            print("direct", start, file, sampler);
+        }
+        sampler.interrupt();
+    }
+
+    private static void produce(PrintStream out, long size) {
+        byte[] chunk = new byte[CHUNK];
+        Arrays.fill(chunk, (byte) 'a');
+        for(long written = 0; written < size; written += CHUNK)
+            out.write(chunk, 0, CHUNK);
+    }
+
+    private static void print(String name, long start, File file, HeapSampler sampler) throws IOException {
+        System.out.printf("%-9s total %7.1f ms, %5d MB written, peak heap %5d MB%n",
+                name, (System.nanoTime() - start) / 1e6, file.length() / (1024 * 1024),
+                sampler.getPeak() / (1024 * 1024));
+    }
+
+    private static class HeapSampler extends Thread {
+        private volatile long peak;
+
+        HeapSampler() {
+            setDaemon(true);
+        }
+
+        void reset() {
+            System.gc();
+            peak = 0;
+        }
+
+        long getPeak() {
+            return peak;
+        }
+
+        @Override
+        public void run() {
+            Runtime runtime = Runtime.getRuntime();
+            while(!isInterrupted()) {
+                long used = runtime.totalMemory() - runtime.freeMemory();
+                if(used > peak)
+                    peak = used;
+                try {
+                    Thread.sleep(1);
+                }
+                catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.graphics;
+
+import org.jboss.aesh.console.reader.AeshStandardStream;
+import org.jboss.aesh.terminal.CursorPosition;
+import org.jboss.aesh.terminal.FramedShell;
+import org.jboss.aesh.terminal.TerminalSize;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+public class AeshGraphicsTest {
+
+    @Test
+    public void testDrawInOneFrame() {
+        TestFramedShell shell = new TestFramedShell();
+        Graphics graphics = new AeshGraphicsConfiguration(shell).getGraphics();
+
+        graphics.drawString("foo", 2, 3);
+        assertEquals(1, shell.frames);
+        assertEquals(0, shell.depth);
+        assertTrue(shell.getOutput().endsWith(new String(new CursorPosition(3, 2).asAnsi())+"foo"));
+
+        graphics.drawRect(1, 1, 5, 4);
+        graphics.fillRect(1, 1, 5, 4);
+        graphics.drawCircle(10, 10, 3);
+        graphics.drawLine(1, 1, 8, 5);
+        assertEquals(5, shell.frames);
+        assertEquals(0, shell.depth);
+        //the cursor is never moved outside of the frame
+        assertEquals(0, shell.cursorMoves);
+    }
+
+    private static class TestFramedShell implements FramedShell {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final PrintStream out = new PrintStream(bytes);
+        private int frames;
+        private int depth;
+        private int cursorMoves;
+
+        String getOutput() {
+            out.flush();
+            return bytes.toString();
+        }
+
+        @Override
+        public void beginFrame() {
+            depth++;
+        }
+
+        @Override
+        public void endFrame() {
+            depth--;
+            if(depth == 0)
+                frames++;
+        }
+
+        @Override
+        public void flushFrame() {
+        }
+
+        @Override
+        public void clear() throws IOException {
+        }
+
+        @Override
+        public PrintStream out() {
+            return out;
+        }
+
+        @Override
+        public PrintStream err() {
+            return out;
+        }
+
+        @Override
+        public AeshStandardStream in() {
+            return null;
+        }
+
+        @Override
+        public TerminalSize getSize() {
+            return new TerminalSize(40, 80);
+        }
+
+        @Override
+        public CursorPosition getCursor() {
+            return new CursorPosition(1, 1);
+        }
+
+        @Override
+        public void setCursor(CursorPosition position) {
+            cursorMoves++;
+        }
+
+        @Override
+        public void moveCursor(int rows, int columns) {
+            cursorMoves++;
+        }
+
+        @Override
+        public boolean isMainBuffer() {
+            return true;
+        }
+
+        @Override
+        public void enableAlternateBuffer() {
+        }
+
+        @Override
+        public void enableMainBuffer() {
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.history;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+public class FileHistoryTest {
+
+    private File historyFile;
+
+    @Before
+    public void createFile() throws IOException {
+        historyFile = File.createTempFile("aesh_history", ".txt");
+        historyFile.delete();
+    }
+
+    @After
+    public void deleteFile() {
+        historyFile.delete();
+        new File(historyFile.getPath()+".lock").delete();
+    }
+
+    @Test
+    public void testWriteOnStop() throws IOException {
+        FileHistory history = new FileHistory(historyFile, 10);
+        history.push("foo");
+        history.push("bar");
+        assertFalse(historyFile.exists());
+        history.stop();
+
+        List<String> lines = readLines();
+        assertEquals(2, lines.size());
+        assertEquals("foo", lines.get(0));
+        assertEquals("bar", lines.get(1));
+    }
+
+    @Test
+    public void testJournalAppendsOnPush() throws IOException {
+        FileHistory history = new FileHistory(historyFile, 10, true);
+        history.push("foo");
+        history.push("  bar ");
+        history.push("   ");
+
+        List<String> lines = readLines();
+        assertEquals(2, lines.size());
+        assertEquals("foo", lines.get(0));
+        assertEquals("bar", lines.get(1));
+
+        history.push("foo");
+        assertEquals(3, readLines().size());
+
+        FileHistory restored = new FileHistory(historyFile, 10, true);
+        assertEquals(2, restored.size());
+        assertEquals("bar", restored.get(0));
+        assertEquals("foo", restored.get(1));
+        history.stop();
+        restored.stop();
+    }
+
+    @Test
+    public void testJournalSharedBetweenConsoles() throws IOException {
+        FileHistory first = new FileHistory(historyFile, 100, true);
+        FileHistory second = new FileHistory(historyFile, 100, true);
+        for(int i=0; i < 20; i++) {
+            first.push("first"+i);
+            second.push("second"+i);
+        }
+        first.stop();
+        second.stop();
+
+        assertEquals(20, first.size());
+        FileHistory restored = new FileHistory(historyFile, 100, true);
+        assertEquals(40, restored.size());
+        assertEquals("first0", restored.get(0));
+        assertEquals("second19", restored.get(39));
+    }
+
+    @Test
+    public void testJournalCompaction() throws IOException {
+        FileHistory history = new FileHistory(historyFile, 10, true);
+        for(int i=0; i < 500; i++)
+            history.push("cmd"+(i % 20));
+        history.stop();
+
+        assertTrue(readLines().size() < 500);
+
+        FileHistory restored = new FileHistory(historyFile, 10, true);
+        assertEquals(10, restored.size());
+        assertEquals("cmd10", restored.get(0));
+        assertEquals("cmd19", restored.get(9));
+        restored.stop();
+    }
+
+    @Test
+    public void testJournalClear() throws IOException {
+        FileHistory history = new FileHistory(historyFile, 10, true);
+        history.push("foo");
+        history.clear();
+        assertEquals(0, readLines().size());
+        history.push("bar");
+        assertEquals(1, readLines().size());
+        history.stop();
+    }
+
+    @Test
+    public void testJournalDeletesLockFileOnStop() throws IOException {
+        File lockFile = new File(historyFile.getPath()+".lock");
+        FileHistory first = new FileHistory(historyFile, 10, true);
+        FileHistory second = new FileHistory(historyFile, 10, true);
+        first.push("foo");
+        assertTrue(lockFile.exists());
+        first.stop();
+        assertFalse(lockFile.exists());
+
+        second.push("bar");
+        assertEquals(2, readLines().size());
+        second.stop();
+        assertFalse(lockFile.exists());
+    }
+
+    private List<String> readLines() throws IOException {
+        return Files.readAllLines(historyFile.toPath(), Charset.defaultCharset());
+    }
+}
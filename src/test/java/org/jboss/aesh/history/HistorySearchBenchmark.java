@@ -0,0 +1,70 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.history;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measure how long each step of an incremental reverse search takes on a
+ * large history, compared with scanning every entry.
+ * Run with: java org.jboss.aesh.history.HistorySearchBenchmark [entries]
+ *
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+public class HistorySearchBenchmark {
+
+    private static final String[] WORDS = {"git", "commit", "status", "mvn", "install",
+            "clean", "ls", "cd", "target", "src", "main", "java", "test", "deploy",
+            "docker", "run", "kubectl", "get", "pods", "logs", "grep", "tail"};
+
+    public static void main(String[] args) {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 300000;
+        Random random = new Random(42);
+        InMemoryHistory history = new InMemoryHistory(-1);
+        for(int i = 0; i < entries; i++) {
+            StringBuilder builder = new StringBuilder();
+            for(int w = 0; w < 4; w++)
+                builder.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            builder.append(i);
+            history.push(builder.toString());
+        }
+        List<String> all = history.getAll();
+        String[] queries = {"mvn", "mvn cl", "mvn clean te", "kubectl logs", "docker run 1234", "no such entry"};
+
+        for(int round = 0; round < 5; round++) {
+            long indexed = 0;
+            long scanned = 0;
+            for(String query : queries) {
+                history.setSearchDirection(SearchDirection.REVERSE);
+                history.push("warmup reset");
+                long start = System.nanoTime();
+                history.search(query);
+                indexed += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for(int i = all.size() - 1; i >= 0; i--)
+                    if(all.get(i).contains(query))
+                        break;
+                scanned += System.nanoTime() - start;
+            }
+            System.out.printf("entries: %d, indexed: %.3f ms/step, scan: %.3f ms/step%n",
+                    history.size(), indexed / 1e6 / queries.length, scanned / 1e6 / queries.length);
+        }
+    }
+}
@@ -109,4 +109,110 @@ public class HistoryTest extends BaseConsoleTest {
         assertEquals("2", history.getPreviousFetch());
         assertEquals("2", history.getPreviousFetch());
     }
+
+    @Test
+    public void testDupesAndEvictionInLargeHistory() {
+        History history = new InMemoryHistory(100000);
+        for(int i=0; i < 150000; i++)
+            history.push("cmd"+i);
+        assertEquals(100000, history.size());
+        assertEquals("cmd50000", history.get(0));
+        assertEquals(null, history.find("cmd49999"));
+
+        history.push("cmd50000");
+        assertEquals(100000, history.size());
+        assertEquals("cmd50001", history.get(0));
+        assertEquals("cmd50000", history.get(99999));
+        assertEquals("cmd149999", history.get(99998));
+        assertEquals("cmd50000", history.find("cmd50000"));
+
+        history.push("new");
+        assertEquals(100000, history.size());
+        assertEquals("cmd50002", history.get(0));
+        assertEquals("new", history.getPreviousFetch());
+        assertEquals("cmd50000", history.getPreviousFetch());
+        assertEquals("new", history.getNextFetch());
+        assertEquals("", history.getNextFetch());
+    }
+
+    @Test
+    public void testGetAndGetAll() {
+        History history = new InMemoryHistory(10);
+        history.push("1");
+        history.push("2");
+        history.push("3");
+        history.push("2");
+        assertEquals("1", history.get(0));
+        assertEquals("3", history.get(1));
+        assertEquals("2", history.get(2));
+        assertEquals("3", history.get(1));
+        assertEquals(3, history.getAll().size());
+        assertEquals("1", history.getAll().get(0));
+        assertEquals("2", history.getAll().get(2));
+    }
+
+    @Test
+    public void testNextFetchReturnsCurrent() {
+        History history = new InMemoryHistory(10);
+        history.push("1");
+        history.push("2");
+        history.setCurrent("foo");
+        assertEquals("foo", history.getNextFetch());
+        assertEquals("2", history.getPreviousFetch());
+        assertEquals("1", history.getPreviousFetch());
+        assertEquals("2", history.getNextFetch());
+        assertEquals("foo", history.getNextFetch());
+        assertEquals("foo", history.getNextFetch());
+    }
+
+    @Test
+    public void testSearch() {
+        History history = new InMemoryHistory(10);
+        history.push("ls foo");
+        history.push("cd bar");
+        history.push("ls bar");
+        history.push("cd foo");
+
+        history.setSearchDirection(SearchDirection.REVERSE);
+        assertEquals("ls bar", history.search("ls"));
+        assertEquals("ls bar", history.search("ls b"));
+        assertEquals("ls foo", history.search("ls f"));
+        assertEquals(null, history.search("mkdir"));
+
+        history.setSearchDirection(SearchDirection.FORWARD);
+        assertEquals("ls foo", history.search("ls"));
+        assertEquals("cd bar", history.search("cd"));
+        assertEquals("cd foo", history.search("foo"));
+    }
+
+    @Test
+    public void testIndexedSearch() {
+        History history = new InMemoryHistory(5);
+        history.push("git commit");
+        history.push("git status");
+        history.push("ls -la");
+        history.push("git stash");
+        history.push("mvn install");
+        history.push("git status");
+        //evicts git commit
+        history.push("ls target");
+
+        history.setSearchDirection(SearchDirection.REVERSE);
+        assertEquals("git status", history.search("git"));
+        assertEquals("git status", history.search("git st"));
+        assertEquals("git status", history.search("git sta"));
+        assertEquals("git stash", history.search("git stas"));
+        assertEquals(null, history.search("git com"));
+
+        history.setSearchDirection(SearchDirection.FORWARD);
+        assertEquals("git stash", history.search("git"));
+        assertEquals("git status", history.search("status"));
+        assertEquals(null, history.search("ls -la"));
+
+        history.clear();
+        history.push("aaaaa");
+        history.push("aaa");
+        history.setSearchDirection(SearchDirection.REVERSE);
+        assertEquals("aaaaa", history.search("aaaa"));
+    }
 }
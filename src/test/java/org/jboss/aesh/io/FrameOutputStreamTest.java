@@ -0,0 +1,138 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.io;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+public class FrameOutputStreamTest {
+
+    @Test
+    public void testWriteThroughOutsideFrame() throws IOException {
+        CountingOutputStream counter = new CountingOutputStream();
+        PrintStream out = new PrintStream(new FrameOutputStream(counter));
+        out.print("foo");
+        out.flush();
+        assertEquals("foo", counter.toString());
+        assertEquals(1, counter.flushes);
+    }
+
+    @Test
+    public void testFrameIsOneWrite() throws IOException {
+        CountingOutputStream counter = new CountingOutputStream();
+        FrameOutputStream frame = new FrameOutputStream(counter);
+        PrintStream out = new PrintStream(frame);
+
+        frame.beginFrame();
+        assertTrue(frame.isInFrame());
+        for(int i = 0; i < 10; i++) {
+            out.print("\u001B[1D");
+            out.print(i);
+            out.flush();
+        }
+        assertEquals(0, counter.writes);
+        assertEquals(0, counter.flushes);
+        frame.endFrame();
+        assertFalse(frame.isInFrame());
+
+        assertEquals(1, counter.writes);
+        assertEquals(1, counter.flushes);
+        assertEquals(10 * 5, counter.size());
+    }
+
+    @Test
+    public void testNestedFrames() throws IOException {
+        CountingOutputStream counter = new CountingOutputStream();
+        FrameOutputStream frame = new FrameOutputStream(counter);
+        frame.beginFrame();
+        frame.write('a');
+        frame.beginFrame();
+        frame.write('b');
+        frame.endFrame();
+        assertEquals(0, counter.writes);
+        frame.write('c');
+        frame.endFrame();
+        assertEquals("abc", counter.toString());
+        assertEquals(1, counter.writes);
+    }
+
+    @Test
+    public void testFlushFrame() throws IOException {
+        CountingOutputStream counter = new CountingOutputStream();
+        FrameOutputStream frame = new FrameOutputStream(counter);
+        frame.beginFrame();
+        frame.write("foo".getBytes());
+        frame.flushFrame();
+        assertEquals("foo", counter.toString());
+        assertTrue(frame.isInFrame());
+        frame.write("bar".getBytes());
+        frame.endFrame();
+        assertEquals("foobar", counter.toString());
+        assertEquals(2, counter.writes);
+    }
+
+    @Test
+    public void testFullBufferIsWrittenInsideFrame() throws IOException {
+        CountingOutputStream counter = new CountingOutputStream();
+        FrameOutputStream frame = new FrameOutputStream(counter, 4);
+        frame.beginFrame();
+        frame.write("0123456789".getBytes());
+        assertEquals("01234567", counter.toString());
+        assertEquals(0, counter.flushes);
+        frame.endFrame();
+        assertEquals("0123456789", counter.toString());
+        assertEquals(1, counter.flushes);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testEndFrameWithoutBegin() throws IOException {
+        new FrameOutputStream(new ByteArrayOutputStream()).endFrame();
+    }
+
+    private static class CountingOutputStream extends ByteArrayOutputStream {
+        private int writes;
+        private int flushes;
+
+        @Override
+        public synchronized void write(int b) {
+            writes++;
+            super.write(b);
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            writes++;
+            super.write(b, off, len);
+        }
+
+        @Override
+        public void flush() {
+            flushes++;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.parser;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+public class TokenizedLineTest {
+
+    @Test
+    public void testSpans() {
+        TokenizedLine line = TokenizedLine.tokenize("  foo bar\\ baz  \"a b\" 'c'd\\x");
+        assertEquals(ParserStatus.OK, line.getStatus());
+        assertEquals(Arrays.asList("foo", "bar baz", "a b", "c", "d\\x"), line.getWords());
+
+        assertEquals(2, line.getOffset(0));
+        assertEquals(3, line.getLength(0));
+        assertEquals("bar\\ baz", line.getText().substring(line.getOffset(1), line.getOffset(1) + line.getLength(1)));
+        assertEquals("a b", line.getText().substring(line.getOffset(2), line.getOffset(2) + line.getLength(2)));
+        assertEquals(23, line.getOffset(3));
+        assertEquals("d\\x", line.getText().substring(line.getOffset(4)));
+
+        //the words are only created once
+        assertSame(line.getWord(0), line.getWord(0));
+    }
+
+    @Test
+    public void testStatus() {
+        assertEquals(ParserStatus.UNCLOSED_QUOTE, TokenizedLine.tokenize("foo \"bar").getStatus());
+        assertEquals(ParserStatus.DOUBLE_UNCLOSED_QUOTE, TokenizedLine.tokenize("foo \"bar 'baz").getStatus());
+        assertEquals(0, TokenizedLine.tokenize("   ").size());
+        assertEquals(0, TokenizedLine.tokenize(null).size());
+    }
+
+    @Test
+    public void testQuotesAndEscapes() {
+        assertEquals(Arrays.asList("ab c", "d"), TokenizedLine.tokenize("a\"b c\"d").getWords());
+        assertEquals(Arrays.asList("'foo'", "\"bar"), TokenizedLine.tokenize("\\'foo\\' \\\"bar").getWords());
+        assertEquals(Arrays.asList("c\\d"), TokenizedLine.tokenize("c\\\\d").getWords());
+        assertEquals(Arrays.asList("--foo=a b", "-Dx=y"), TokenizedLine.tokenize("--foo=\"a b\" -Dx=y").getWords());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testIndexOutOfBounds() {
+        TokenizedLine.tokenize("foo").getWord(1);
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.parser;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measure the time and memory used to split a line into words with
+ * Parser.findAllWords and with TokenizedLine, reading only the first word
+ * (alias and command lookup) and reading all the words.
+ * Run with: java org.jboss.aesh.parser.TokenizerBenchmark
+ *
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+public class TokenizerBenchmark {
+
+    private static final int ITERATIONS = 500000;
+    private static final String LINE =
+            "deploy --name my-application --server-group main-server-group --force /tmp/my\\ app.war \"a b c\"";
+
+    public static void main(String[] args) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        int words = 0;
+
+        for(int round = 0; round < 5; round++) {
+            long allocated = threads.getThreadAllocatedBytes(thread);
+            long start = System.nanoTime();
+            for(int i = 0; i < ITERATIONS; i++)
+                words += Parser.findAllWords(LINE).getWords().size();
+            print("findAllWords", start, allocated, threads, thread);
+
+            allocated = threads.getThreadAllocatedBytes(thread);
+            start = System.nanoTime();
+            for(int i = 0; i < ITERATIONS; i++)
+                words += TokenizedLine.tokenize(LINE).getWord(0).length();
+            print("first word", start, allocated, threads, thread);
+
+            allocated = threads.getThreadAllocatedBytes(thread);
+            start = System.nanoTime();
+            for(int i = 0; i < ITERATIONS; i++) {
+                TokenizedLine line = TokenizedLine.tokenize(LINE);
+                for(int j = 0; j < line.size(); j++)
+                    words += line.getWord(j).length();
+            }
+            print("all words", start, allocated, threads, thread);
+        }
+        System.out.println(words);
+    }
+
+    private static void print(String name, long start, long allocated,
+                              com.sun.management.ThreadMXBean threads, long thread) {
+        long time = System.nanoTime() - start;
+        allocated = threads.getThreadAllocatedBytes(thread) - allocated;
+        System.out.printf("%-13s %5d ns/line %5d bytes/line%n", name, time / ITERATIONS, allocated / ITERATIONS);
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.terminal;
+
+import java.util.Random;
+
+/**
+ * Compare decoding paste sized input with a linear scan over all Key values
+ * (the previous implementation of Key.findStartKey) and the KeyDecoder trie.
+ *
+ * Not run as part of the test suite, run it with:
+ * java -cp ... org.jboss.aesh.terminal.KeyDecoderBenchmark [input size]
+ *
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+public class KeyDecoderBenchmark {
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1024 * 1024;
+        int[] input = createPaste(size);
+        KeyDecoder decoder = new KeyDecoder();
+
+        for(int i=0; i < 5; i++) {
+            linear(input);
+            trie(decoder, input);
+        }
+
+        int iterations = 10;
+        long start = System.nanoTime();
+        long keys = 0;
+        for(int i=0; i < iterations; i++)
+            keys += linear(input);
+        long linear = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for(int i=0; i < iterations; i++)
+            keys += trie(decoder, input);
+        long trie = System.nanoTime() - start;
+
+        System.out.println(String.format("input: %d values, keys decoded: %d", size, keys / (2 * iterations)));
+        System.out.println(String.format("linear scan: %8.2f ms/paste", linear / (iterations * 1000000d)));
+        System.out.println(String.format("trie:        %8.2f ms/paste", trie / (iterations * 1000000d)));
+    }
+
+    private static int linear(int[] input) {
+        int count = 0;
+        int position = 0;
+        while(position < input.length) {
+            position += linearFindStartKey(input, position).getKeyValues().length;
+            count++;
+        }
+        return count;
+    }
+
+    private static int trie(KeyDecoder decoder, int[] input) {
+        int count = 0;
+        decoder.setInput(input);
+        while(decoder.hasNext()) {
+            decoder.next();
+            count++;
+        }
+        return count;
+    }
+
+    private static int[] createPaste(int size) {
+        String text = "for file in $(ls -la /tmp); do echo \"$file\" | grep -v foo; done\n";
+        Random random = new Random(1);
+        int[] input = new int[size];
+        for(int i=0; i < size; i++) {
+            if(random.nextInt(200) == 0)
+                input[i] = 27;
+            else
+                input[i] = text.charAt(i % text.length());
+        }
+        return input;
+    }
+
+    private static Key linearFindStartKey(int[] input, int position) {
+        for(Key key : Key.values()) {
+            if(key != Key.ESC && key != Key.WINDOWS_ESC &&
+                    key.inputStartsWithKey(input, position))
+                return key;
+        }
+        if(Key.ESC.inputStartsWithKey(input, position))
+            return Key.ESC;
+        else if(Key.WINDOWS_ESC.inputStartsWithKey(input, position))
+            return Key.WINDOWS_ESC;
+
+        return Key.UNKNOWN;
+    }
+}
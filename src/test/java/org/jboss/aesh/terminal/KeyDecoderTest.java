@@ -0,0 +1,120 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.aesh.terminal;
+
+import org.jboss.aesh.console.Config;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author <a href="mailto:stale.pedersen@jboss.org">Ståle W. Pedersen</a>
+ */
+public class KeyDecoderTest {
+
+    @Test
+    public void testFindStartKeyMatchLinearScan() {
+        for(Key key : Key.values()) {
+            assertEquals(linearFindStartKey(key.getKeyValues(), 0),
+                    KeyDecoder.findStartKey(key.getKeyValues(), 0));
+        }
+
+        Random random = new Random(42);
+        int[] input = new int[4096];
+        for(int i=0; i < input.length; i++) {
+            //mostly printable chars with escape sequences mixed in
+            if(random.nextInt(10) == 0)
+                input[i] = 27;
+            else
+                input[i] = random.nextInt(130);
+        }
+        for(int i=0; i < input.length; i++)
+            assertEquals(linearFindStartKey(input, i), KeyDecoder.findStartKey(input, i));
+    }
+
+    @Test
+    public void testDecode() {
+        KeyDecoder decoder = new KeyDecoder();
+        decoder.setInput(new int[] {'a', 230, 'b'});
+        assertTrue(decoder.hasNext());
+        assertEquals(Key.a, decoder.next());
+        assertEquals(0, decoder.getPosition());
+        assertEquals(Key.UNKNOWN, decoder.next());
+        assertEquals(1, decoder.getPosition());
+        assertEquals(230, decoder.getInput()[decoder.getPosition()]);
+        assertEquals(Key.b, decoder.next());
+        assertEquals(2, decoder.getPosition());
+        assertFalse(decoder.hasNext());
+    }
+
+    @Test
+    public void testDecodeSequenceSplitBetweenInputs() {
+        if(Config.isOSPOSIXCompatible()) {
+            KeyDecoder decoder = new KeyDecoder();
+            decoder.setInput(new int[] {'a', 27, 91, 49});
+            assertTrue(decoder.hasNext());
+            assertEquals(Key.a, decoder.next());
+            assertFalse(decoder.hasNext());
+            assertTrue(decoder.hasPendingInput());
+
+            decoder.setInput(new int[] {59, 53, 68, 'b'});
+            assertTrue(decoder.hasNext());
+            assertEquals(Key.CTRL_LEFT, decoder.next());
+            assertEquals(0, decoder.getPosition());
+            assertEquals(Key.b, decoder.next());
+            assertFalse(decoder.hasNext());
+            assertFalse(decoder.hasPendingInput());
+
+            //a single escape is never kept back
+            decoder.setInput(new int[] {'a', 27});
+            assertEquals(Key.a, decoder.next());
+            assertTrue(decoder.hasNext());
+            assertEquals(Key.ESC, decoder.next());
+            assertFalse(decoder.hasNext());
+        }
+    }
+
+    private static Key linearFindStartKey(int[] input, int position) {
+        for(Key key : Key.values()) {
+            if(key != Key.ESC && key != Key.WINDOWS_ESC &&
+                    key.inputStartsWithKey(input, position)) {
+                if(Config.isOSPOSIXCompatible() && key == Key.CTRL_J) {
+                    return Key.ENTER;
+                }
+                else if(!Config.isOSPOSIXCompatible() && key == Key.CTRL_M) {
+                    if(input.length > position + 1 && input[position+1] == Key.CTRL_J.getFirstValue())
+                        return Key.ENTER_2;
+                    else
+                        return Key.ENTER;
+                }
+                else
+                    return key;
+            }
+        }
+        if(Key.ESC.inputStartsWithKey(input, position))
+            return Key.ESC;
+        else if(Key.WINDOWS_ESC.inputStartsWithKey(input, position))
+            return Key.WINDOWS_ESC;
+
+        return Key.UNKNOWN;
+    }
+}
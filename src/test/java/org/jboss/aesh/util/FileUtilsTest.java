@@ -20,6 +20,7 @@ package org.jboss.aesh.util;
 import org.jboss.aesh.console.AeshContext;
 import org.jboss.aesh.console.settings.Settings;
 import org.jboss.aesh.console.settings.SettingsBuilder;
+import org.jboss.aesh.io.ChannelOutputStream;
 import org.jboss.aesh.io.FileResource;
 import org.jboss.aesh.io.Resource;
 import org.jboss.aesh.terminal.TestTerminal;
@@ -30,10 +31,12 @@ import org.junit.Test;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
 import java.io.PrintStream;
 import java.nio.file.Files;
+import java.util.Arrays;
 
 /**
  * @author <a href="mailto:00hf11@gmail.com">Helio Frota</a>
@@ -81,4 +84,39 @@ public class FileUtilsTest {
         Assert.assertEquals(new String(Files.readAllBytes(f.toPath())), "foo");
     }
 
+    @Test(expected = IOException.class)
+    public void testIOExceptionOpenFile() throws IOException {
+        resource = aeshContext.getCurrentWorkingDirectory().newInstance(".");
+        FileUtils.openFile(resource, false, false);
+    }
+
+    @Test
+    public void testOpenFile() throws IOException {
+        File file = File.createTempFile("tmp", ".tmp");
+        file.deleteOnExit();
+        resource = new FileResource(file);
+
+        byte[] large = new byte[ChannelOutputStream.DEFAULT_BUFFER_SIZE * 2 + 10];
+        Arrays.fill(large, (byte) 'b');
+        try (OutputStream out = FileUtils.openFile(resource, false, false)) {
+            out.write('a');
+            out.write(large);
+        }
+        Assert.assertEquals(large.length + 1, file.length());
+
+        try (OutputStream out = FileUtils.openFile(resource, true, true)) {
+            out.write("foo".getBytes());
+        }
+        byte[] content = Files.readAllBytes(file.toPath());
+        Assert.assertEquals(large.length + 4, content.length);
+        Assert.assertEquals('a', content[0]);
+        Assert.assertEquals('b', content[large.length]);
+        Assert.assertEquals("foo", new String(content, large.length + 1, 3));
+
+        try (OutputStream out = FileUtils.openFile(resource, false, true)) {
+            out.write("bar".getBytes());
+        }
+        Assert.assertEquals("bar", new String(Files.readAllBytes(file.toPath())));
+    }
+
 }